@@ -0,0 +1,268 @@
+package bench;
+
+import bench.NetworkGenerator.Shape;
+import generator.Algorithm;
+import generator.CompiledQuery;
+import generator.ConnectionGraphGenerator;
+import generator.EvidenceContext;
+import generator.GraphInput;
+import generator.PathIterator;
+import generator.PathLimits;
+import generator.SeparationEngine;
+import generator.graph.IndexedGraph;
+import io.parser.file.cgg.CggFileInputParser;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the parser, the old string based path search and every algorithm on generated networks of
+ * growing size, and writes the results as JSON to track regressions between versions.
+ *
+ * Every case is warmed up and then run repeatedly within a time budget, recording the fastest,
+ * median and mean time of a run. Once a run takes longer than the whole budget, the larger sizes of
+ * the same benchmark and shape are skipped, so the results show where every algorithm stops scaling.
+ * The path based algorithms are only run when the number of simple paths between x and y is small
+ * enough to enumerate, the string based path search only on networks with single letter names.
+ *
+ * Usage: BenchmarkRunner [--shapes=Chain,Grid,...] [--sizes=10,100,...] [--budget=millis] [--out=file]
+ */
+public class BenchmarkRunner {
+
+	private static final int[] DEFAULT_SIZES = {10, 100, 1000, 10000, 100000};
+	private static final long DEFAULT_BUDGET_MILLIS = 2000;
+	private static final String DEFAULT_OUTPUT = "bench-results.json";
+	private static final long SEED = 42;
+	/**
+	 * The maximal number of simple paths between x and y for which the path based algorithms are run.
+	 * */
+	private static final long MAX_PATHS = 100000;
+	private static final int MAX_ITERATIONS = 50;
+
+	/**
+	 * Keeps the results of the benchmarked calls alive, so they are not optimized away.
+	 * */
+	private static volatile int sink;
+
+	private final long budgetNanos;
+	private final List<Result> results = new ArrayList<Result>();
+	private final Set<String> overBudget = new HashSet<String>();
+
+	public BenchmarkRunner(long budgetMillis){
+		if(budgetMillis <= 0) throw new IllegalArgumentException("The given budget is not positive.");
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<Shape> shapes = new ArrayList<Shape>(Arrays.asList(Shape.values()));
+		int[] sizes = DEFAULT_SIZES;
+		long budget = DEFAULT_BUDGET_MILLIS;
+		String output = DEFAULT_OUTPUT;
+		for(String arg: args){
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if(arg.startsWith("--shapes=")){
+				shapes.clear();
+				for(String name: value.split(",")){
+					Shape shape = Shape.fromString(name.trim());
+					if(shape == null) throw new IllegalArgumentException("Unknown shape '" + name + "'.");
+					shapes.add(shape);
+				}
+			} else if(arg.startsWith("--sizes=")){
+				String[] parts = value.split(",");
+				sizes = new int[parts.length];
+				for(int i = 0 ; i < parts.length ; i++) sizes[i] = Integer.parseInt(parts[i].trim());
+			} else if(arg.startsWith("--budget=")){
+				budget = Long.parseLong(value);
+			} else if(arg.startsWith("--out=")){
+				output = value;
+			} else {
+				throw new IllegalArgumentException("Unknown argument '" + arg + "'.");
+			}
+		}
+		BenchmarkRunner runner = new BenchmarkRunner(budget);
+		for(Shape shape: shapes){
+			for(int size: sizes) runner.run(shape, size);
+		}
+		runner.write(output);
+		System.out.println("Results written to " + output);
+	}
+
+	/**
+	 * Run every benchmark on the network of the given shape and size.
+	 */
+	public void run(Shape shape, int size) throws IOException {
+		final GraphInput input = NetworkGenerator.generate(shape, size, SEED);
+		final IndexedGraph graph = input.getNetwork();
+		final CompiledQuery query = input.getCompiledQuery();
+		final int x = query.getX(), y = query.getY();
+		boolean fewPaths = countPaths(graph, x, y);
+
+		final File file = File.createTempFile("bench", ".cgg");
+		try {
+			CggWriter.write(input, file.getPath());
+			measure("parseFile", shape, null, graph, null, new Callable<Object>() {
+				@Override
+				public Object call() throws Exception {
+					return new CggFileInputParser().parseFile(file.getPath());
+				}
+			});
+		} finally {
+			file.delete();
+		}
+
+		String pathSkip = fewPaths ? null : "more than " + MAX_PATHS + " paths";
+		measure("getAllPaths", shape, null, graph, graph.getVertexCount() > 26 ? "names longer than one letter" : pathSkip, new Callable<Object>() {
+			@SuppressWarnings("deprecation")
+			@Override
+			public Object call() {
+				return ConnectionGraphGenerator.getAllPaths(input.getGraph(), input.getX(), input.getY());
+			}
+		});
+
+		for(final Algorithm algorithm: Algorithm.values()){
+			String skip = null;
+			if(algorithm == Algorithm.COMPONENTS && graph.isDirected()) skip = "not a Markov network";
+			else if(algorithm == Algorithm.PATHS || algorithm == Algorithm.PARALLEL_PATHS) skip = pathSkip;
+			measure("generate", shape, algorithm, graph, skip, new Callable<Object>() {
+				@Override
+				public Object call() {
+					return ConnectionGraphGenerator.generate(input, algorithm);
+				}
+			});
+			final SeparationEngine engine = algorithm.createEngine(graph);
+			final EvidenceContext evidence = new EvidenceContext(query);
+			measure("isSeparated", shape, algorithm, graph, skip, new Callable<Object>() {
+				@Override
+				public Object call() {
+					return engine.isSeparated(evidence, x, y);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Return whether there are at most MAX_PATHS simple paths between x and y, found in the time budget.
+	 */
+	private boolean countPaths(IndexedGraph graph, int x, int y){
+		PathIterator paths = new PathIterator(graph, x, y,
+				PathLimits.NONE.withMaxPaths(MAX_PATHS + 1).withTimeout(budgetNanos, TimeUnit.NANOSECONDS));
+		while(paths.hasNext()) paths.next();
+		return paths.getStopReason() == PathIterator.StopReason.EXHAUSTED;
+	}
+
+	private void measure(String benchmark, Shape shape, Algorithm algorithm, IndexedGraph graph, String skip, Callable<Object> call){
+		Result result = new Result(benchmark, shape, algorithm, graph);
+		String key = benchmark + "/" + shape + "/" + algorithm;
+		if(skip == null && overBudget.contains(key)) skip = "smaller size over budget";
+		if(skip != null){
+			result.status = "skipped: " + skip;
+		} else {
+			try {
+				long[] samples = sample(call);
+				Arrays.sort(samples);
+				long total = 0;
+				for(long sample: samples) total += sample;
+				result.iterations = samples.length;
+				result.minNanos = samples[0];
+				result.medianNanos = samples[samples.length / 2];
+				result.meanNanos = total / samples.length;
+				result.status = "ok";
+				if(samples[0] > budgetNanos) overBudget.add(key);
+			} catch (Exception | StackOverflowError | OutOfMemoryError e) {
+				result.status = "failed: " + e;
+				overBudget.add(key);
+			}
+		}
+		results.add(result);
+		System.out.println(result.toJson());
+	}
+
+	/**
+	 * Warm up the given call for a quarter of the budget and return the times of the runs in the rest of it.
+	 */
+	private long[] sample(Callable<Object> call) throws Exception {
+		long start = System.nanoTime();
+		for(int i = 0 ; i < MAX_ITERATIONS && System.nanoTime() - start < budgetNanos / 4 ; i++){
+			sink += call.call().hashCode();
+		}
+		long[] samples = new long[MAX_ITERATIONS];
+		int count = 0;
+		start = System.nanoTime();
+		do {
+			long before = System.nanoTime();
+			sink += call.call().hashCode();
+			samples[count++] = System.nanoTime() - before;
+		} while(count < MAX_ITERATIONS && System.nanoTime() - start < budgetNanos);
+		return Arrays.copyOf(samples, count);
+	}
+
+	/**
+	 * Write all results so far to the given file as JSON.
+	 */
+	public void write(String fileName) throws IOException {
+		try (Writer writer = new BufferedWriter(new FileWriter(fileName))) {
+			writer.write("{\n  \"java\": " + quote(System.getProperty("java.version")));
+			writer.write(",\n  \"budgetMillis\": " + TimeUnit.NANOSECONDS.toMillis(budgetNanos));
+			writer.write(",\n  \"results\": [\n");
+			for(int i = 0 ; i < results.size() ; i++){
+				writer.write("    " + results.get(i).toJson() + (i + 1 < results.size() ? ",\n" : "\n"));
+			}
+			writer.write("  ]\n}\n");
+		}
+	}
+
+	private static String quote(String value){
+		if(value == null) return "null";
+		StringBuilder result = new StringBuilder("\"");
+		for(char c: value.toCharArray()){
+			if(c == '"' || c == '\\') result.append('\\').append(c);
+			else if(c < 0x20) result.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			else result.append(c);
+		}
+		return result.append('"').toString();
+	}
+
+	/**
+	 * The outcome of one benchmark on one network.
+	 */
+	private static class Result {
+
+		final String benchmark;
+		final Shape shape;
+		final Algorithm algorithm;
+		final int vertices;
+		final int edges;
+		String status;
+		int iterations;
+		long minNanos;
+		long medianNanos;
+		long meanNanos;
+
+		Result(String benchmark, Shape shape, Algorithm algorithm, IndexedGraph graph){
+			this.benchmark = benchmark;
+			this.shape = shape;
+			this.algorithm = algorithm;
+			this.vertices = graph.getVertexCount();
+			this.edges = graph.getEdgeCount();
+		}
+
+		String toJson(){
+			return "{\"benchmark\": " + quote(benchmark) + ", \"shape\": " + quote(shape.getName())
+					+ ", \"algorithm\": " + (algorithm == null ? "null" : quote(algorithm.getName()))
+					+ ", \"vertices\": " + vertices + ", \"edges\": " + edges + ", \"status\": " + quote(status)
+					+ ", \"iterations\": " + iterations + ", \"minNanos\": " + minNanos
+					+ ", \"medianNanos\": " + medianNanos + ", \"meanNanos\": " + meanNanos + "}";
+		}
+	}
+}
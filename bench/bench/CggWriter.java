@@ -0,0 +1,40 @@
+package bench;
+
+import generator.GraphInput;
+import generator.graph.IndexedGraph;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes graph inputs in the CGG file format, to benchmark the parsers on generated networks.
+ */
+public class CggWriter {
+
+	private CggWriter(){}
+
+	public static void write(GraphInput input, String fileName) throws IOException {
+		try (Writer writer = new BufferedWriter(new FileWriter(fileName), 1 << 16)) {
+			write(input, writer);
+		}
+	}
+
+	public static void write(GraphInput input, Writer writer) throws IOException {
+		IndexedGraph graph = input.getNetwork();
+		writer.write("type: " + input.getGraphType().getType() + "\n\nvertices:\n");
+		for(int v = 0 ; v < graph.getVertexCount() ; v++){
+			writer.write("  - name: \"" + graph.getName(v) + "\"\n");
+		}
+		writer.write("\nedges:\n");
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			writer.write("  - v1: \"" + graph.getName(graph.getSource(e)) + "\"\n");
+			writer.write("    v2: \"" + graph.getName(graph.getTarget(e)) + "\"\n");
+		}
+		writer.write("\nx: \"" + input.getX() + "\"\ny: \"" + input.getY() + "\"\n\nevidence:\n");
+		for(String name: input.getEvidence()){
+			writer.write("  - name: \"" + name + "\"\n");
+		}
+	}
+}
@@ -0,0 +1,126 @@
+package bench;
+
+import generator.GraphInput;
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generators of synthetic networks for the benchmarks.
+ *
+ * The same shape, size and seed always give the same network, with x the first vertex, y the last
+ * one and about one in a hundred vertices (at least one, at most five) as evidence, spread evenly
+ * between them. Networks of up to 26 vertices are named with single letters, so the old string
+ * based path search can run on them, larger ones are named v0, v1, ...
+ */
+public class NetworkGenerator {
+
+	/**
+	 * The number of parents of every vertex of a dense DAG, apart from the first ones.
+	 * */
+	private static final int DENSE_PARENTS = 32;
+
+	/**
+	 * The shapes of networks the generator can build.
+	 */
+	public enum Shape {
+		CHAIN("Chain"), TREE("Tree"), POLYTREE("Polytree"), GRID("Grid"),
+		SPARSE_DAG("SparseDag"), DENSE_DAG("DenseDag"), MARKOV_LATTICE("MarkovLattice");
+
+		private String name;
+
+		Shape(String name){
+			this.name = name;
+		}
+
+		public String getName(){
+			return name;
+		}
+
+		public static Shape fromString(String name) {
+			if (name != null) {
+				for (Shape s : Shape.values()) {
+					if (name.equalsIgnoreCase(s.name)) {
+						return s;
+					}
+				}
+			}
+			return null;
+		}
+	}
+
+	private NetworkGenerator(){}
+
+	/**
+	 * Generate a network of the given shape with about the given number of vertices.
+	 * Grids and lattices get the largest square number of vertices not above it.
+	 */
+	public static GraphInput generate(Shape shape, int size, long seed){
+		if(shape == null) throw new IllegalArgumentException("The given shape is not effective.");
+		if(size < 2) throw new IllegalArgumentException("The given size is smaller than two.");
+		SplittableRandom random = new SplittableRandom(seed);
+		IndexedGraph.Builder builder = new IndexedGraph.Builder(shape != Shape.MARKOV_LATTICE);
+		int side = (int) Math.sqrt(size);
+		int n = shape == Shape.GRID || shape == Shape.MARKOV_LATTICE ? side * side : size;
+		for(int v = 0 ; v < n ; v++) builder.addVertex(name(v, n));
+		switch(shape){
+			case CHAIN:
+				for(int v = 1 ; v < n ; v++) edge(builder, v - 1, v, n);
+				break;
+			case TREE:
+				for(int v = 1 ; v < n ; v++) edge(builder, (v - 1) / 2, v, n);
+				break;
+			case POLYTREE:
+				for(int v = 1 ; v < n ; v++){
+					int other = random.nextInt(v);
+					if(random.nextBoolean()) edge(builder, other, v, n);
+					else edge(builder, v, other, n);
+				}
+				break;
+			case GRID:
+			case MARKOV_LATTICE:
+				for(int row = 0 ; row < side ; row++){
+					for(int column = 0 ; column < side ; column++){
+						int v = row * side + column;
+						if(column + 1 < side) edge(builder, v, v + 1, n);
+						if(row + 1 < side) edge(builder, v, v + side, n);
+					}
+				}
+				break;
+			case SPARSE_DAG:
+				for(int v = 1 ; v < n ; v++){
+					int parents = 1 + random.nextInt(2);
+					for(int i = 0 ; i < parents ; i++) edge(builder, random.nextInt(v), v, n);
+				}
+				break;
+			case DENSE_DAG:
+				for(int v = 1 ; v < n ; v++){
+					if(v <= DENSE_PARENTS){
+						for(int parent = 0 ; parent < v ; parent++) edge(builder, parent, v, n);
+					} else {
+						for(int i = 0 ; i < DENSE_PARENTS ; i++) edge(builder, random.nextInt(v), v, n);
+					}
+				}
+				break;
+		}
+		IndexedGraph graph = builder.build();
+		List<String> evidence = new ArrayList<String>();
+		int count = Math.max(1, Math.min(5, n / 100));
+		for(int i = 1 ; i <= count ; i++){
+			int v = (int) ((long) i * (n - 1) / (count + 1));
+			if(v > 0 && v < n - 1) evidence.add(name(v, n));
+		}
+		String type = graph.isDirected() ? "Bayesian" : "Markov";
+		return new GraphInput(graph, type, name(0, n), name(n - 1, n), evidence);
+	}
+
+	private static void edge(IndexedGraph.Builder builder, int source, int target, int n){
+		builder.addEdge(name(source, n), name(target, n));
+	}
+
+	private static String name(int vertex, int n){
+		return n <= 26 ? String.valueOf((char) ('a' + vertex)) : "v" + vertex;
+	}
+}
@@ -0,0 +1,360 @@
+package batch;
+
+import generator.Algorithm;
+import generator.ConcurrentQueryRunner;
+import generator.GraphInput;
+import generator.Query;
+import generator.QueryResult;
+import generator.graph.IndexedGraph;
+import io.FileInputHandler;
+import io.parser.file.FileInputParserFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Processes many network files in one run, as a pipeline of three concurrent stages: parsing the
+ * files, answering their queries with the connection graphs, and writing the results.
+ *
+ * Every stage has its own fixed number of worker threads, and the stages are connected by bounded
+ * queues. When generation falls behind, parsers block on the full queue instead of piling up parsed
+ * networks, so memory use depends on the queue capacity and not on the number of files. A file that
+ * fails in any stage is reported with its error and does not stop the others.
+ *
+ * For every file the query of x, y and the evidence and the queries of its queries section are
+ * answered, by the given algorithm or, if none is given, by COMPONENTS for Markov networks and
+ * REACHABILITY for Bayesian networks. The queries of a file are answered by a concurrent query runner
+ * on a fork-join pool with as many threads as there are generators, so the queries of a large file
+ * are spread over all of them while the generators wait. The results are written as text to the
+ * output directory, mirroring the directories of the input files below their common parent.
+ *
+ * Usage: BatchPipeline directory|glob [--algorithm=name] [--out=directory]
+ * 		[--parsers=n] [--generators=n] [--writers=n] [--capacity=n]
+ */
+public class BatchPipeline {
+
+	private static final int DEFAULT_PARSERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	private static final int DEFAULT_GENERATORS = Runtime.getRuntime().availableProcessors();
+	private static final int DEFAULT_WRITERS = 2;
+
+	/**
+	 * The job put in a queue once per worker of the next stage, to tell it no more jobs follow.
+	 * */
+	private static final Job END = new Job(-1, null);
+
+	private final Algorithm algorithm;
+	private final Path outputDirectory;
+	private final int parsers;
+	private final int generators;
+	private final int writers;
+	private final int capacity;
+
+	/**
+	 * Initializes this new pipeline with the default numbers of workers, a queue capacity of twice
+	 * the number of generators and without writing the results.
+	 */
+	public BatchPipeline(Algorithm algorithm){
+		this(algorithm, null, DEFAULT_PARSERS, DEFAULT_GENERATORS, DEFAULT_WRITERS, 2 * DEFAULT_GENERATORS);
+	}
+
+	/**
+	 * Initializes this new pipeline.
+	 *
+	 * @param	algorithm
+	 * 			The algorithm to answer the queries with, or null to choose one per graph type.
+	 * @param	outputDirectory
+	 * 			The directory to write the results to, or null to only report the timings.
+	 * @param	parsers
+	 * 			The number of threads parsing files.
+	 * @param	generators
+	 * 			The number of threads answering queries.
+	 * @param	writers
+	 * 			The number of threads writing results.
+	 * @param	capacity
+	 * 			The number of files that can wait between two stages.
+	 * @throws	IllegalArgumentException
+	 * 			When one of the numbers of threads or the capacity is not positive.
+	 */
+	public BatchPipeline(Algorithm algorithm, Path outputDirectory, int parsers, int generators, int writers, int capacity){
+		if(parsers < 1 || generators < 1 || writers < 1) throw new IllegalArgumentException("The given number of workers is not positive.");
+		if(capacity < 1) throw new IllegalArgumentException("The given capacity is not positive.");
+		this.algorithm = algorithm;
+		this.outputDirectory = outputDirectory;
+		this.parsers = parsers;
+		this.generators = generators;
+		this.writers = writers;
+		this.capacity = capacity;
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		if(args.length < 1){
+			System.err.println("Usage: BatchPipeline directory|glob [--algorithm=name] [--out=directory]"
+					+ " [--parsers=n] [--generators=n] [--writers=n] [--capacity=n]");
+			System.exit(1);
+		}
+		Algorithm algorithm = null;
+		Path output = null;
+		int parsers = DEFAULT_PARSERS, generators = DEFAULT_GENERATORS, writers = DEFAULT_WRITERS, capacity = -1;
+		for(String arg: Arrays.asList(args).subList(1, args.length)){
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if(arg.startsWith("--algorithm=")){
+				algorithm = Algorithm.fromString(value);
+				if(algorithm == null) throw new IllegalArgumentException("Unknown algorithm '" + value + "'.");
+			} else if(arg.startsWith("--out=")){
+				output = Paths.get(value);
+			} else if(arg.startsWith("--parsers=")){
+				parsers = Integer.parseInt(value);
+			} else if(arg.startsWith("--generators=")){
+				generators = Integer.parseInt(value);
+			} else if(arg.startsWith("--writers=")){
+				writers = Integer.parseInt(value);
+			} else if(arg.startsWith("--capacity=")){
+				capacity = Integer.parseInt(value);
+			} else {
+				throw new IllegalArgumentException("Unknown argument '" + arg + "'.");
+			}
+		}
+		List<Path> files = listFiles(args[0]);
+		BatchPipeline pipeline = new BatchPipeline(algorithm, output, parsers, generators, writers, capacity < 0 ? 2 * generators : capacity);
+		long start = System.nanoTime();
+		List<FileResult> results = pipeline.run(files);
+		long wall = System.nanoTime() - start;
+		int failed = 0;
+		for(FileResult result: results){
+			System.out.println(result);
+			if(!result.isSuccessful()) failed++;
+		}
+		System.out.println(String.format(Locale.ROOT, "%d files, %d failed, %.1f s, %.1f files/s",
+				results.size(), failed, wall / 1e9, results.size() / (wall / 1e9)));
+		if(failed > 0) System.exit(2);
+	}
+
+	/**
+	 * Return the files of the given directory that have a registered parser, or the files
+	 * matching the given glob pattern, such as data/*.cgg or data/**.cgg, sorted by path.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given directory or pattern is not effective.
+	 * 			| directoryOrGlob == null
+	 * @throws	IllegalArgumentException
+	 * 			When the given name has no wildcards and is not a directory.
+	 */
+	public static List<Path> listFiles(String directoryOrGlob) throws IOException {
+		if(directoryOrGlob == null) throw new IllegalArgumentException("The given directory or pattern is not effective.");
+		int wildcard = indexOfWildcard(directoryOrGlob);
+		Stream<Path> candidates;
+		if(wildcard < 0){
+			Path directory = Paths.get(directoryOrGlob);
+			if(!Files.isDirectory(directory)) throw new IllegalArgumentException("The given directory does not exist.");
+			candidates = Files.list(directory)
+					.filter(file -> FileInputParserFactory.isSupported(FileInputHandler.getFileExtension(file.toString())));
+		} else {
+			// Walk from the directory before the first wildcard, the empty path walking the working directory.
+			int separator = Math.max(directoryOrGlob.lastIndexOf('/', wildcard), directoryOrGlob.lastIndexOf(File.separatorChar, wildcard));
+			Path base = Paths.get(separator < 0 ? "" : directoryOrGlob.substring(0, separator + 1));
+			PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + directoryOrGlob);
+			candidates = Files.walk(base).filter(matcher::matches);
+		}
+		try (Stream<Path> files = candidates) {
+			return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+		}
+	}
+
+	private static int indexOfWildcard(String pattern){
+		for(int i = 0 ; i < pattern.length() ; i++){
+			if("*?[{".indexOf(pattern.charAt(i)) >= 0) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Run the given files through the pipeline and return their results, in the same order.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given files are not effective.
+	 * 			| files == null
+	 * @throws	InterruptedException
+	 * 			When the calling thread is interrupted, after all workers are stopped.
+	 */
+	public List<FileResult> run(List<Path> files) throws InterruptedException {
+		if(files == null) throw new IllegalArgumentException("The given files are not effective.");
+		final Path parent = commonParent(files);
+		BlockingQueue<Job> pending = new LinkedBlockingQueue<Job>();
+		for(int i = 0 ; i < files.size() ; i++) pending.add(new Job(i, files.get(i)));
+		for(int i = 0 ; i < parsers ; i++) pending.add(END);
+		BlockingQueue<Job> parsed = new ArrayBlockingQueue<Job>(capacity);
+		BlockingQueue<Job> generated = outputDirectory == null ? null : new ArrayBlockingQueue<Job>(capacity);
+		FileResult[] results = new FileResult[files.size()];
+
+		ExecutorService executor = Executors.newFixedThreadPool(parsers + generators + (generated == null ? 0 : writers));
+		final ForkJoinPool queryPool = new ForkJoinPool(generators);
+		try {
+			startStage(executor, parsers, pending, parsed, generators, results, job -> parse(job));
+			startStage(executor, generators, parsed, generated, writers, results, job -> generate(job, queryPool));
+			if(generated != null) startStage(executor, writers, generated, null, 0, results, job -> write(job, parent));
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		} finally {
+			executor.shutdownNow();
+			queryPool.shutdownNow();
+		}
+		for(int i = 0 ; i < results.length ; i++){
+			if(results[i] == null) results[i] = new FileResult(files.get(i), 0, 0, 0, 0, 0, 0, "aborted");
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Start the given number of workers applying the given step to the jobs of the given input queue,
+	 * passing every successful job on to the given output queue or, for the last stage or a failed job,
+	 * recording its result. The last worker to see the end of its input passes the end on to the given
+	 * number of workers of the next stage.
+	 */
+	private static void startStage(ExecutorService executor, int workers, final BlockingQueue<Job> in, final BlockingQueue<Job> out,
+			final int nextWorkers, final FileResult[] results, final Step step){
+		final AtomicInteger running = new AtomicInteger(workers);
+		for(int i = 0 ; i < workers ; i++){
+			executor.execute(() -> {
+				try {
+					for(Job job = in.take() ; job != END ; job = in.take()){
+						try {
+							step.process(job);
+						} catch (Exception | StackOverflowError | OutOfMemoryError e) {
+							job.error = e.getMessage() == null ? e.toString() : e.getMessage();
+						}
+						if(job.error == null && out != null) out.put(job);
+						else results[job.index] = job.finish();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				} finally {
+					if(running.decrementAndGet() == 0 && out != null){
+						try {
+							for(int j = 0 ; j < nextWorkers ; j++) out.put(END);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}
+			});
+		}
+	}
+
+	private void parse(Job job){
+		long start = System.nanoTime();
+		job.input = new FileInputHandler(job.file.toString()).constructGraph();
+		job.parseNanos = System.nanoTime() - start;
+		job.vertices = job.input.getNetwork().getVertexCount();
+		job.edges = job.input.getNetwork().getEdgeCount();
+	}
+
+	private void generate(Job job, ForkJoinPool queryPool){
+		long start = System.nanoTime();
+		GraphInput input = job.input;
+		List<Query> queries = new ArrayList<Query>();
+		if(input.getX() != null && input.getY() != null) queries.add(input.getQuery());
+		queries.addAll(input.getQueries());
+		Algorithm used = algorithm != null ? algorithm : Algorithm.defaultFor(input.getGraphType());
+		try (ConcurrentQueryRunner runner = new ConcurrentQueryRunner(input.getIndex(), used, outputDirectory != null, queryPool)) {
+			job.results = runner.run(queries);
+		}
+		job.queries = queries.size();
+		job.generateNanos = System.nanoTime() - start;
+		if(outputDirectory == null) job.input = null;
+	}
+
+	/**
+	 * Write the results of the given job to the output directory, below the path of its file relative to the given parent.
+	 */
+	private void write(Job job, Path parent) throws IOException {
+		long start = System.nanoTime();
+		Path target = outputDirectory.resolve(parent.relativize(job.file.toAbsolutePath().normalize()) + ".txt");
+		if(target.getParent() != null) Files.createDirectories(target.getParent());
+		IndexedGraph network = job.input.getNetwork();
+		try (Writer writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+			writer.write("# " + job.file + "\n");
+			for(QueryResult result: job.results){
+				writer.write(result + "\n");
+				BitSet removed = result.getRemovedEdges();
+				writer.write("removed edges:");
+				for(int e = removed.nextSetBit(0) ; e >= 0 ; e = removed.nextSetBit(e + 1)) writer.write(" " + network.getEdgeName(e));
+				writer.write("\n");
+			}
+		}
+		job.writeNanos = System.nanoTime() - start;
+	}
+
+	/**
+	 * Return the deepest directory containing all of the given files.
+	 */
+	private static Path commonParent(List<Path> files){
+		Path result = null;
+		for(Path file: files){
+			Path parent = file.toAbsolutePath().normalize().getParent();
+			if(result == null) result = parent;
+			while(!parent.startsWith(result)) result = result.getParent();
+		}
+		return result;
+	}
+
+	/**
+	 * The work of a stage on a single job.
+	 */
+	private interface Step {
+		void process(Job job) throws Exception;
+	}
+
+	/**
+	 * A file on its way through the pipeline, with the network and results it carries between the stages.
+	 */
+	private static final class Job {
+
+		final int index;
+		final Path file;
+		GraphInput input;
+		List<QueryResult> results;
+		int vertices;
+		int edges;
+		int queries;
+		long parseNanos;
+		long generateNanos;
+		long writeNanos;
+		String error;
+
+		Job(int index, Path file){
+			this.index = index;
+			this.file = file;
+		}
+
+		/**
+		 * Return the result of this job, letting go of its network and query results.
+		 */
+		FileResult finish(){
+			input = null;
+			results = null;
+			return new FileResult(file, vertices, edges, queries, parseNanos, generateNanos, writeNanos, error);
+		}
+	}
+}
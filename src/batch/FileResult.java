@@ -0,0 +1,85 @@
+package batch;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of one file of a batch run: its size, the time every stage of the pipeline took
+ * on it and the error that stopped it, if any.
+ */
+public final class FileResult {
+
+	private final Path file;
+	private final int vertices;
+	private final int edges;
+	private final int queries;
+	private final long parseNanos;
+	private final long generateNanos;
+	private final long writeNanos;
+	private final String error;
+
+	FileResult(Path file, int vertices, int edges, int queries, long parseNanos, long generateNanos, long writeNanos, String error){
+		this.file = file;
+		this.vertices = vertices;
+		this.edges = edges;
+		this.queries = queries;
+		this.parseNanos = parseNanos;
+		this.generateNanos = generateNanos;
+		this.writeNanos = writeNanos;
+		this.error = error;
+	}
+
+	public Path getFile(){
+		return file;
+	}
+
+	public int getVertexCount(){
+		return vertices;
+	}
+
+	public int getEdgeCount(){
+		return edges;
+	}
+
+	/**
+	 * Returns the number of queries answered for the file, the query of x, y and the evidence included.
+	 */
+	public int getQueryCount(){
+		return queries;
+	}
+
+	public long getParseNanos(){
+		return parseNanos;
+	}
+
+	public long getGenerateNanos(){
+		return generateNanos;
+	}
+
+	public long getWriteNanos(){
+		return writeNanos;
+	}
+
+	public boolean isSuccessful(){
+		return error == null;
+	}
+
+	/**
+	 * Returns the message of the error that stopped the file, or null if it went through the whole pipeline.
+	 */
+	public String getError(){
+		return error;
+	}
+
+	@Override
+	public String toString(){
+		String result = String.format(Locale.ROOT, "%s: %d vertices, %d edges, %d queries, parse %.1f ms, generate %.1f ms, write %.1f ms",
+				file, vertices, edges, queries, millis(parseNanos), millis(generateNanos), millis(writeNanos));
+		return error == null ? result : result + ", failed: " + error;
+	}
+
+	private static double millis(long nanos){
+		return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+	}
+}
@@ -0,0 +1,76 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+/**
+ * An active trail between x and y given some evidence, explaining why they are not separated.
+ *
+ * Every vertex on the trail is marked when it is a collider, whose two edges both point into it,
+ * and when it is observed. An inner collider is active because it or one of its descendants is
+ * observed, every other inner vertex because it is not observed.
+ */
+public final class ActiveTrail {
+
+	private final GraphPath path;
+	private final boolean[] colliders;
+	private final boolean[] observed;
+
+	ActiveTrail(GraphPath path, EvidenceContext evidence){
+		this.path = path;
+		IndexedGraph graph = path.getGraph();
+		int length = path.getLength();
+		this.colliders = new boolean[length];
+		this.observed = new boolean[length];
+		for(int i = 0 ; i < length ; i++){
+			int vertex = path.getVertex(i);
+			observed[i] = evidence.isObserved(vertex);
+			colliders[i] = graph.isDirected() && i > 0 && i < length - 1
+					&& graph.getTarget(path.getEdge(i - 1)) == vertex && graph.getTarget(path.getEdge(i)) == vertex;
+		}
+	}
+
+	public GraphPath getPath(){
+		return path;
+	}
+
+	/**
+	 * Returns the number of vertices on this trail.
+	 */
+	public int getLength(){
+		return path.getLength();
+	}
+
+	/**
+	 * Returns whether vertex index of this trail is a collider on it.
+	 */
+	public boolean isCollider(int index){
+		return colliders[index];
+	}
+
+	/**
+	 * Returns whether vertex index of this trail is observed.
+	 */
+	public boolean isEvidence(int index){
+		return observed[index];
+	}
+
+	/**
+	 * Returns the trail with the direction of every edge, as in "x -> c* <- z -> y", with the observed
+	 * vertices between brackets and the colliders followed by a star. Edges of Markov networks are dashes.
+	 */
+	@Override
+	public String toString(){
+		IndexedGraph graph = path.getGraph();
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0 ; i < path.getLength() ; i++){
+			if(i > 0){
+				int edge = path.getEdge(i - 1);
+				builder.append(!graph.isDirected() ? " - " : graph.getTarget(edge) == path.getVertex(i) ? " -> " : " <- ");
+			}
+			String name = graph.getName(path.getVertex(i));
+			builder.append(observed[i] ? "[" + name + "]" : name);
+			if(colliders[i]) builder.append('*');
+		}
+		return builder.toString();
+	}
+}
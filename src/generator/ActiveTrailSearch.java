@@ -0,0 +1,448 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+import generator.graph.JungGraphAdapter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Decides separation and builds the connection graph with a reachability search over
+ * (vertex, direction) states (the Bayes-Ball algorithm), in O(V+E) time.
+ *
+ * A trail is in state UP at a vertex when it arrived there from a child and in state DOWN
+ * when it arrived from a parent. From UP a trail continues to parents and children unless the
+ * vertex is observed. From DOWN it continues to children unless the vertex is observed and to
+ * parents only if the vertex or one of its descendants is observed (an active collider).
+ * Markov networks have no colliders, every neighbour is treated as a child.
+ *
+ * The connection graph keeps every edge that lies on no simple path between x and y, and removes
+ * the other edges that lie on no simple active trail between x and y. In a Markov network an active
+ * trail is a simple path without observed inner vertices, and the kept edges are found exactly with
+ * the block-cut tree of the network without its observed vertices. In a Bayesian network the edges
+ * that a trail from x crosses and a trail from y continues from are found first. The two trails may
+ * share vertices, such as a trail bouncing back from an observed collider, so those edges are then
+ * placed on simple active trails by {@link SimpleActiveTrails}, which takes more than linear time.
+ *
+ * This differs from the path based generator, which removes both edges of every blocked triple on a
+ * simple path between x and y and keeps the other edges, whether or not their paths are active. So
+ * when x and y are separated this search removes every edge between them, while the path based
+ * generator keeps the edges of the triples that are not blocked.
+ *
+ * The shortest active trails between x and y explain why they are not separated. They are found
+ * with a breadth-first search over the same states, so without enumerating every path.
+ *
+ * A search keeps no state between queries other than the number of colliders checked, which every
+ * query counts on its own and adds when it is done, so one search can answer queries from several
+ * threads at once.
+ */
+public class ActiveTrailSearch {
+
+	static final int UP = 0;
+	static final int DOWN = 1;
+
+	private final IndexedGraph graph;
+	private final boolean directed;
+	private final EvidenceContext evidence;
+	private final LongAdder colliders = new LongAdder();
+
+	/**
+	 * Initializes this new search for queries on the graph of the given evidence context.
+	 */
+	public ActiveTrailSearch(EvidenceContext evidence){
+		if(evidence == null) throw new IllegalArgumentException("The given evidence context is not effective.");
+		this.graph = evidence.getGraph();
+		this.directed = graph.isDirected();
+		this.evidence = evidence;
+	}
+
+	/**
+	 * Generate the connection graph of the given input.
+	 */
+	public static Graph<String, String> generate(GraphInput input){
+		CompiledQuery query = input.getCompiledQuery();
+		BitSet removed = new ActiveTrailSearch(new EvidenceContext(input.getIndex(), query)).removedEdges(query.getX(), query.getY());
+		return JungGraphAdapter.toConnectionGraph(input.getNetwork(), removed);
+	}
+
+	/**
+	 * Return whether x and y of the given input are separated by its evidence.
+	 */
+	public static boolean isSeparated(GraphInput input){
+		CompiledQuery query = input.getCompiledQuery();
+		return new ActiveTrailSearch(new EvidenceContext(input.getIndex(), query)).isSeparated(query.getX(), query.getY());
+	}
+
+	/**
+	 * Return at most the given number of the shortest active trails between x and y of the given input, given its evidence.
+	 */
+	public static List<ActiveTrail> shortestTrails(GraphInput input, int k){
+		CompiledQuery query = input.getCompiledQuery();
+		return new ActiveTrailSearch(new EvidenceContext(input.getIndex(), query)).shortestTrails(query.getX(), query.getY(), k);
+	}
+
+	/**
+	 * Return at most the given number of active trails between the given vertices, shortest first.
+	 * The list is empty if and only if they are separated. A vertex is never separated from itself,
+	 * the trail between a vertex and itself is the trail of that vertex alone.
+	 *
+	 * Partial trails are extended breadth-first over the (vertex, direction) states, never returning
+	 * to a vertex already on the trail, and every state is extended by at most k partial trails. So the
+	 * search takes O(k * (V+E) * V) time however many paths there are. The first trail is a shortest
+	 * active trail, the cap can make the search miss some of the next k-1 shortest ones and return a
+	 * longer trail in their place.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given number is negative.
+	 */
+	public List<ActiveTrail> shortestTrails(int x, int y, int k){
+		if(k < 0) throw new IllegalArgumentException("The given number of trails is negative.");
+		List<ActiveTrail> result = new ArrayList<ActiveTrail>();
+		if(k == 0) return result;
+		if(x == y){
+			result.add(new ActiveTrail(new GraphPath(graph, new int[]{x}, new int[0], 1), evidence));
+			return result;
+		}
+		int[][] extended = new int[2][graph.getVertexCount()];
+		ArrayDeque<Trail> queue = new ArrayDeque<Trail>();
+		queue.add(new Trail(null, x, Reach.NONE, UP));
+		long checked = 0;
+		try {
+			while(!queue.isEmpty()){
+				Trail trail = queue.poll();
+				int v = trail.vertex;
+				if(extended[trail.direction][v]++ >= k) continue;
+				if(v == x || !evidence.isObserved(v)){
+					for(int i = graph.outBegin(v), end = graph.outEnd(v) ; i < end ; i++){
+						if(extend(trail, graph.outVertex(i), graph.outEdge(i), DOWN, y, queue, result) == k) return result;
+					}
+				}
+				if(directed && trail.direction == DOWN && v != x) checked++;
+				if(directed && (v == x || (trail.direction == UP ? !evidence.isObserved(v) : evidence.isEvidenceAncestor(v)))){
+					for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+						if(extend(trail, graph.inVertex(i), graph.inEdge(i), UP, y, queue, result) == k) return result;
+					}
+				}
+			}
+			return result;
+		} finally {
+			colliders.add(checked);
+		}
+	}
+
+	/**
+	 * Extend the given trail to the given vertex unless it is on the trail already, adding the extension to
+	 * the given trails if it ends in y and to the given queue otherwise. Returns the number of trails found.
+	 * Trails are extended in order of length, so no trail found later is shorter.
+	 */
+	private int extend(Trail trail, int vertex, int edge, int direction, int y, ArrayDeque<Trail> queue, List<ActiveTrail> result){
+		if(!trail.contains(vertex)){
+			Trail extension = new Trail(trail, vertex, edge, direction);
+			if(vertex == y) result.add(extension.toActiveTrail());
+			else queue.add(extension);
+		}
+		return result.size();
+	}
+
+	/**
+	 * Return whether the given vertices are separated by the evidence of this search.
+	 */
+	public boolean isSeparated(int x, int y){
+		if(x == y) return false;
+		return !reach(x).reached(y);
+	}
+
+	/**
+	 * Return the ids of the edges that lie on a simple path between x and y
+	 * but on no simple active trail between them.
+	 */
+	public BitSet removedEdges(int x, int y){
+		return removedEdges(x, y, new BlockCutTree(graph));
+	}
+
+	/**
+	 * Return the ids of the edges that lie on a simple path between x and y
+	 * but on no simple active trail between them, using the given block-cut tree of the graph.
+	 */
+	public BitSet removedEdges(int x, int y, BlockCutTree blockCutTree){
+		boolean[] betweenXY = blockCutTree.edgesBetween(x, y);
+		BitSet removed = new BitSet(graph.getEdgeCount());
+		if(!directed){
+			boolean[] active = activeEdges(x, y);
+			for(int e = 0 ; e < betweenXY.length ; e++){
+				if(betweenXY[e] && !active[e]) removed.set(e);
+			}
+			return removed;
+		}
+		for(int e = 0 ; e < betweenXY.length ; e++){
+			if(betweenXY[e]) removed.set(e);
+		}
+		for(int e: keptEdges(reach(x), reach(y), betweenXY)) removed.clear(e);
+		return removed;
+	}
+
+	/**
+	 * Returns the number of times this search checked whether a collider is active, over all its searches.
+	 */
+	public long getCollidersChecked(){
+		return colliders.sum();
+	}
+
+	/**
+	 * Return the ids of the edges that are marked in the given edges between x and y and lie on a simple
+	 * active trail between them, given the states reachable from x and from y. Only the edges of the
+	 * vertices reached from x are looked at, so this takes time in the size of the part of the graph
+	 * reached from x and not of the whole graph, unless the edges of a Bayesian network have to be
+	 * placed on simple trails by a search of those trails (see {@link SimpleActiveTrails}).
+	 */
+	int[] keptEdges(Reach fromX, Reach fromY, boolean[] betweenXY){
+		if(!directed) return keptMarkovEdges(fromX, fromY);
+		int[] result = new int[16];
+		int count = 0;
+		for(int i = 0 ; i < fromX.count ; i++){
+			int v = fromX.states[i] >> 1;
+			if((fromX.states[i] & 1) == DOWN && fromX.via[UP][v] != Reach.NONE) continue;
+			for(int j = graph.outBegin(v), end = graph.outEnd(v) ; j < end ; j++){
+				int e = graph.outEdge(j);
+				if(betweenXY[e] && isActive(e, fromX, fromY)) result = add(result, count++, e);
+			}
+			for(int j = graph.inBegin(v), end = graph.inEnd(v) ; j < end ; j++){
+				int e = graph.inEdge(j);
+				// An edge between two reached vertices is looked at from its source only.
+				if(!fromX.reached(graph.inVertex(j)) && betweenXY[e] && isActive(e, fromX, fromY)) result = add(result, count++, e);
+			}
+		}
+		return new SimpleActiveTrails(evidence, fromX, fromY, betweenXY).filter(Arrays.copyOf(result, count));
+	}
+
+	/**
+	 * Return the ids of the edges of a Markov network that lie on a simple path between x and y without
+	 * observed inner vertices, from the block-cut tree of the part of the network reached from x
+	 * without its observed vertices.
+	 */
+	private int[] keptMarkovEdges(Reach fromX, Reach fromY){
+		int x = fromX.source, y = fromY.source;
+		if(x == y || !fromX.reached(y)) return new int[0];
+		IndexedGraph.Builder builder = new IndexedGraph.Builder(false);
+		int[] edges = new int[16];
+		int count = 0;
+		for(int i = 0 ; i < fromX.count ; i++){
+			int v = fromX.states[i] >> 1;
+			if((fromX.states[i] & 1) == DOWN && fromX.via[UP][v] != Reach.NONE) continue;
+			if(!isUnobservedOrEnd(v, x, y)) continue;
+			builder.addVertex(graph.getName(v));
+			for(int j = graph.outBegin(v), end = graph.outEnd(v) ; j < end ; j++){
+				int w = graph.outVertex(j);
+				if(fromX.reached(w) && isUnobservedOrEnd(w, x, y) && builder.addEdge(graph.getName(v), graph.getName(w)) >= 0){
+					edges = add(edges, count++, graph.outEdge(j));
+				}
+			}
+		}
+		IndexedGraph region = builder.build();
+		boolean[] between = new BlockCutTree(region).edgesBetween(region.requireId(graph.getName(x)), region.requireId(graph.getName(y)));
+		int[] result = new int[count];
+		int kept = 0;
+		for(int e = 0 ; e < count ; e++){
+			if(between[e]) result[kept++] = edges[e];
+		}
+		return Arrays.copyOf(result, kept);
+	}
+
+	private boolean isUnobservedOrEnd(int v, int x, int y){
+		return v == x || v == y || !evidence.isObserved(v);
+	}
+
+	private static int[] add(int[] array, int index, int value){
+		if(index == array.length) array = Arrays.copyOf(array, 2 * index);
+		array[index] = value;
+		return array;
+	}
+
+	/**
+	 * Return for every edge of a Markov network whether it lies on a simple path between x and y
+	 * of which no inner vertex is observed, i.e. on a simple path between them once the observed
+	 * vertices other than x and y are left out.
+	 */
+	private boolean[] activeEdges(int x, int y){
+		boolean[] excluded = new boolean[graph.getVertexCount()];
+		for(int v = 0 ; v < excluded.length ; v++) excluded[v] = v != x && v != y && evidence.isObserved(v);
+		return new BlockCutTree(graph, excluded).edgesBetween(x, y);
+	}
+
+	/**
+	 * Return whether the given edge of a Bayesian network is traversed by an active trail between x and y,
+	 * i.e. whether a trail from x can cross it in some direction and a trail from y can
+	 * continue from the far end, without either trail doubling back over the edge itself.
+	 * The two trails may share vertices, so this only tells which edges can lie on a simple active trail.
+	 */
+	private boolean isActive(int e, Reach fromX, Reach fromY){
+		int s = graph.getSource(e), t = graph.getTarget(e);
+		return (fromX.canDown(s, e) && fromY.canUp(t, e)) || (fromX.canUp(t, e) && fromY.canDown(s, e));
+	}
+
+	/**
+	 * Return the (vertex, direction) states reachable by active trails from the given source.
+	 */
+	Reach reach(int source){
+		Reach reach = new Reach(graph.getVertexCount());
+		reach(source, reach);
+		return reach;
+	}
+
+	/**
+	 * Search the (vertex, direction) states reachable by active trails from the given source into the
+	 * given reach, replacing the states it held, in time proportional to the states reached now and before.
+	 */
+	void reach(int source, Reach reach){
+		reach.clear(source, evidence);
+		reach.arrive(UP, source, Reach.SOURCE, false);
+		long checked = 0;
+		for(int head = 0 ; head < reach.count ; head++){
+			int state = reach.states[head];
+			int v = state >> 1;
+			if(reach.canDown(v, Reach.NONE)){
+				for(int i = graph.outBegin(v), end = graph.outEnd(v) ; i < end ; i++){
+					reach.arrive(DOWN, graph.outVertex(i), graph.outEdge(i), (state & 1) == DOWN);
+				}
+			}
+			if(directed && (state & 1) == DOWN && v != source) checked++;
+			if(directed && ((state & 1) == UP ? (v == source || !evidence.isObserved(v)) : (v == source || evidence.isEvidenceAncestor(v)))){
+				for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+					reach.arrive(UP, graph.inVertex(i), graph.inEdge(i), (state & 1) == DOWN);
+				}
+			}
+		}
+		colliders.add(checked);
+	}
+
+	/**
+	 * A partial trail of the shortest trail search, as its last vertex, the edge and the direction it
+	 * arrived there in and the trail before it, which is shared with the other trails extending it.
+	 */
+	private class Trail {
+
+		final Trail previous;
+		final int vertex;
+		final int edge;
+		final int direction;
+		final int length;
+
+		Trail(Trail previous, int vertex, int edge, int direction){
+			this.previous = previous;
+			this.vertex = vertex;
+			this.edge = edge;
+			this.direction = direction;
+			this.length = previous == null ? 1 : previous.length + 1;
+		}
+
+		boolean contains(int v){
+			for(Trail trail = this ; trail != null ; trail = trail.previous){
+				if(trail.vertex == v) return true;
+			}
+			return false;
+		}
+
+		ActiveTrail toActiveTrail(){
+			int[] vertices = new int[length], edges = new int[length - 1];
+			for(Trail trail = this ; trail != null ; trail = trail.previous){
+				vertices[trail.length - 1] = trail.vertex;
+				if(trail.previous != null) edges[trail.length - 2] = trail.edge;
+			}
+			return new ActiveTrail(new GraphPath(graph, vertices, edges, length), evidence);
+		}
+	}
+
+	/**
+	 * The states reached by a search from one source. For every state the edge it was first
+	 * reached through is recorded, together with whether a second edge reaches it as well, so
+	 * that trails can be prevented from immediately doubling back over the edge they came from.
+	 * With the direction of the state it was first reached from, this makes a search tree.
+	 * A reach can be searched into again, which only clears the states it reached before.
+	 */
+	static final class Reach {
+
+		static final int NONE = -1;
+		static final int SOURCE = -2;
+
+		int source;
+		private EvidenceContext evidence;
+		final int[][] via;
+		final boolean[][] fromDown;
+		final boolean[][] multiple;
+		/**
+		 * The reached states as vertex << 1 | direction, in the order they were reached,
+		 * which is also the queue of the search.
+		 */
+		final int[] states;
+		int count;
+
+		Reach(int vertexCount){
+			this.via = new int[2][vertexCount];
+			this.fromDown = new boolean[2][vertexCount];
+			this.multiple = new boolean[2][vertexCount];
+			this.states = new int[2 * vertexCount];
+			Arrays.fill(via[UP], NONE);
+			Arrays.fill(via[DOWN], NONE);
+		}
+
+		/**
+		 * Forget the reached states and start again from the given source, given the given evidence.
+		 */
+		void clear(int source, EvidenceContext evidence){
+			for(int i = 0 ; i < count ; i++){
+				int v = states[i] >> 1, direction = states[i] & 1;
+				via[direction][v] = NONE;
+				multiple[direction][v] = false;
+			}
+			this.count = 0;
+			this.source = source;
+			this.evidence = evidence;
+		}
+
+		/**
+		 * Record the arrival in the given state through the given edge, from a state with the given direction,
+		 * and return whether the state was not reached before.
+		 */
+		boolean arrive(int direction, int v, int edge, boolean down){
+			if(via[direction][v] == NONE){
+				via[direction][v] = edge;
+				fromDown[direction][v] = down;
+				states[count++] = v << 1 | direction;
+				return true;
+			}
+			if(via[direction][v] != edge) multiple[direction][v] = true;
+			return false;
+		}
+
+		boolean reached(int v){
+			return via[UP][v] != NONE || via[DOWN][v] != NONE;
+		}
+
+		/**
+		 * Return whether the given state was reached through an edge other than the excluded one.
+		 */
+		boolean reached(int direction, int v, int excluded){
+			return via[direction][v] != NONE && (via[direction][v] != excluded || multiple[direction][v]);
+		}
+
+		/**
+		 * Return whether a trail reaching the given vertex can continue to one of its children.
+		 */
+		boolean canDown(int v, int excluded){
+			return v == source || ((reached(UP, v, excluded) || reached(DOWN, v, excluded)) && !evidence.isObserved(v));
+		}
+
+		/**
+		 * Return whether a trail reaching the given vertex can continue to one of its parents.
+		 */
+		boolean canUp(int v, int excluded){
+			return v == source || (reached(UP, v, excluded) && !evidence.isObserved(v)) || (reached(DOWN, v, excluded) && evidence.isEvidenceAncestor(v));
+		}
+	}
+}
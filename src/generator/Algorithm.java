@@ -0,0 +1,97 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+/**
+ * The algorithms the connection graph generator can use to decide separation
+ * and build the connection graph.
+ */
+public enum Algorithm {
+
+	/**
+	 * Enumerates every simple path between x and y and inspects each triple on it.
+	 * Exponential in the size of the graph, but close to the textbook definition.
+	 * x and y are separated when every path has a blocked triple. The connection graph loses both
+	 * edges of every blocked triple and keeps every other edge.
+	 */
+	PATHS("Paths"),
+	/**
+	 * Enumerates the same paths as PATHS, split into fork-join tasks over all cores.
+	 */
+	PARALLEL_PATHS("ParallelPaths"),
+	/**
+	 * Searches the (vertex, direction) state graph for active trails.
+	 * Separation is linear in the number of vertices and edges.
+	 * The connection graph loses every edge between x and y that lies on no simple active trail,
+	 * also those that PATHS keeps because they are in no blocked triple: see {@link ActiveTrailSearch}.
+	 */
+	REACHABILITY("Reachability"),
+	/**
+	 * Labels the connected components of a Markov network without its evidence vertices once per
+	 * evidence set, after which every separation query compares two labels. Markov networks only,
+	 * the connection graph is built as for REACHABILITY.
+	 */
+	COMPONENTS("Components"),
+	/**
+	 * Tests connectivity in the moral graph of the ancestors of x, y and the evidence, without the
+	 * evidence. Only looks at the ancestral set of a query, which is small for queries on a small part
+	 * of a large network. The connection graph is built as for REACHABILITY.
+	 */
+	MORAL_GRAPH("MoralGraph");
+
+	private String name;
+
+	Algorithm(String name){
+		this.name = name;
+	}
+
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * Return a new engine answering queries on the given graph with this algorithm.
+	 */
+	public SeparationEngine createEngine(IndexedGraph graph){
+		return createEngine(graph, null);
+	}
+
+	/**
+	 * Return a new engine answering queries on the given graph with this algorithm,
+	 * using the given block-cut tree of the graph if it needs one, or building its own if null.
+	 */
+	SeparationEngine createEngine(IndexedGraph graph, BlockCutTree blockCutTree){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		switch(this){
+			case PATHS:
+				return new PathEngine(graph, false);
+			case PARALLEL_PATHS:
+				return new PathEngine(graph, true);
+			case COMPONENTS:
+				return new ComponentEngine(graph, blockCutTree);
+			case MORAL_GRAPH:
+				return new MoralGraphEngine(graph, MoralGraphEngine.DEFAULT_CACHE_SIZE, blockCutTree);
+			default:
+				return new ReachabilityEngine(graph, blockCutTree);
+		}
+	}
+
+	/**
+	 * Return the algorithm used for networks of the given type when none is chosen:
+	 * COMPONENTS for Markov networks and REACHABILITY otherwise, as PATHS takes exponential time.
+	 */
+	public static Algorithm defaultFor(GraphType type){
+		return type == GraphType.MARKOV ? COMPONENTS : REACHABILITY;
+	}
+
+	public static Algorithm fromString(String name) {
+		if (name != null) {
+			for (Algorithm a : Algorithm.values()) {
+				if (name.equalsIgnoreCase(a.name)) {
+					return a;
+				}
+			}
+		}
+		return null;
+	}
+}
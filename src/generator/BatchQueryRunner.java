@@ -0,0 +1,163 @@
+package generator;
+
+import generator.graph.GraphIndex;
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import metrics.Metrics;
+import metrics.QueryEvent;
+
+/**
+ * Answers many independence queries against the same graph.
+ *
+ * Queries are grouped by their evidence set and everything that depends only on the evidence,
+ * like the active colliders and the ancestors of the evidence, is computed once per group.
+ * Everything that depends only on the graph, like the block-cut tree and the path enumerator
+ * stacks, is kept by the separation engine of the runner. A runner built from the index of its
+ * graph builds its evidence contexts with that index, otherwise it builds an index of its own on
+ * the first batch. A runner is not safe for use by several threads at once.
+ */
+public class BatchQueryRunner {
+
+	private final IndexedGraph graph;
+	private final Algorithm algorithm;
+	private final boolean connectionGraphs;
+
+	private final SeparationEngine engine;
+	private GraphIndex index;
+
+	/**
+	 * Initializes this new batch query runner.
+	 *
+	 * @param	graph
+	 * 			The graph all queries are asked against.
+	 * @param	algorithm
+	 * 			The algorithm to answer the queries with.
+	 * @param	connectionGraphs
+	 * 			Whether the results should include the connection graphs, and not only the verdicts.
+	 */
+	public BatchQueryRunner(IndexedGraph graph, Algorithm algorithm, boolean connectionGraphs){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(algorithm == null) throw new IllegalArgumentException("The given algorithm is not effective.");
+		this.graph = graph;
+		this.algorithm = algorithm;
+		this.connectionGraphs = connectionGraphs;
+		this.engine = algorithm.createEngine(graph);
+	}
+
+	/**
+	 * Initializes this new batch query runner for the graph of the given index, sharing the index
+	 * with its other users, such as the input the graph was read from.
+	 */
+	public BatchQueryRunner(GraphIndex index, Algorithm algorithm, boolean connectionGraphs){
+		this(graphOf(index), algorithm, connectionGraphs, index, null);
+	}
+
+	/**
+	 * Initializes this new batch query runner with an index, if effective, and a block-cut tree shared with other runners.
+	 */
+	BatchQueryRunner(IndexedGraph graph, Algorithm algorithm, boolean connectionGraphs, GraphIndex index, BlockCutTree blockCutTree){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(algorithm == null) throw new IllegalArgumentException("The given algorithm is not effective.");
+		this.graph = graph;
+		this.algorithm = algorithm;
+		this.connectionGraphs = connectionGraphs;
+		this.engine = algorithm.createEngine(graph, blockCutTree);
+		this.index = index;
+	}
+
+	private static IndexedGraph graphOf(GraphIndex index){
+		if(index == null) throw new IllegalArgumentException("The given index is not effective.");
+		return index.getGraph();
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	public Algorithm getAlgorithm(){
+		return algorithm;
+	}
+
+	/**
+	 * Answer the given queries, returning the results in the same order.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When one of the queries refers to a vertex that is not in the graph.
+	 */
+	public List<QueryResult> run(List<Query> queries){
+		if(queries == null) throw new IllegalArgumentException("The given queries are not effective.");
+		List<CompiledQuery> compiled = CompiledQuery.compileAll(graph, queries);
+		QueryResult[] results = new QueryResult[queries.size()];
+		for(List<Integer> group: groupByEvidence(queries).values()){
+			EvidenceContext evidence = new EvidenceContext(getIndex(), compiled.get(group.get(0)));
+			for(int index: group){
+				results[index] = run(evidence, compiled.get(index));
+			}
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Answer the given query, which must have the evidence of the given context.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the query refers to a vertex that is not in the graph.
+	 */
+	public QueryResult run(EvidenceContext evidence, Query query){
+		return run(evidence, CompiledQuery.compile(graph, query));
+	}
+
+	/**
+	 * Answer the given compiled query, which must have the evidence of the given context.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the query is not compiled against the graph of this runner.
+	 */
+	public QueryResult run(EvidenceContext evidence, CompiledQuery query){
+		if(query.getGraph() != graph) throw new IllegalArgumentException("The given query is not compiled against the graph of this runner.");
+		Metrics metrics = Metrics.get();
+		if(!metrics.isRecording()) return answer(evidence, query);
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long start = System.nanoTime(), paths = engine.getPathsEnumerated(), colliders = engine.getCollidersChecked();
+		QueryResult result = answer(evidence, query);
+		metrics.queried(event, algorithm.toString(), query, engine.getPathsEnumerated() - paths, engine.getCollidersChecked() - colliders,
+				result.getRemovedEdgeCount(), System.nanoTime() - start);
+		return result;
+	}
+
+	private QueryResult answer(EvidenceContext evidence, CompiledQuery query){
+		int x = query.getX(), y = query.getY();
+		if(!connectionGraphs) return new QueryResult(query.getQuery(), engine.isSeparated(evidence, x, y), null);
+		if(engine instanceof PathEngine) return ((PathEngine) engine).answer(evidence, query);
+		return new QueryResult(query.getQuery(), engine.isSeparated(evidence, x, y), engine.removedEdges(evidence, x, y));
+	}
+
+	/**
+	 * Return the indices of the given queries, grouped by evidence set in order of first appearance.
+	 */
+	public static Map<List<String>, List<Integer>> groupByEvidence(List<Query> queries){
+		Map<List<String>, List<Integer>> groups = new LinkedHashMap<List<String>, List<Integer>>();
+		for(int i = 0 ; i < queries.size() ; i++){
+			List<String> key = queries.get(i).getEvidence();
+			List<Integer> group = groups.get(key);
+			if(group == null){
+				group = new ArrayList<Integer>();
+				groups.put(key, group);
+			}
+			group.add(i);
+		}
+		return groups;
+	}
+
+	private GraphIndex getIndex(){
+		if(index == null) index = new GraphIndex(graph);
+		return index;
+	}
+}
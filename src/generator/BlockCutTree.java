@@ -0,0 +1,284 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.Arrays;
+
+/**
+ * The block-cut tree of the undirected skeleton of a graph.
+ *
+ * An edge lies on some simple path between two vertices if and only if its biconnected
+ * component (block) lies on the path between those vertices in the block-cut tree,
+ * so this answers that question for every edge at once in linear time.
+ *
+ * A tree can also be built for the graph without some of its vertices, which answers the same
+ * question for the simple paths that avoid them.
+ */
+public class BlockCutTree {
+
+	private final IndexedGraph graph;
+	private final int vertexCount;
+	/**
+	 * The vertices left out of the graph, or null if there are none.
+	 * */
+	private final boolean[] excluded;
+	/**
+	 * The edges of the graph that are kept, or null if all of them are.
+	 * */
+	private final boolean[] usable;
+
+	/**
+	 * The block every edge belongs to.
+	 * */
+	private final int[] edgeBlock;
+	private final int blockCount;
+	/**
+	 * The tree adjacency, blocks are numbered 0..blockCount-1 and
+	 * articulation vertex v is numbered blockCount+v.
+	 * */
+	private final int[][] tree;
+	/**
+	 * The first block every vertex was found in, or -1 for isolated vertices.
+	 * */
+	private final int[] vertexBlock;
+	private final boolean[] articulation;
+	/**
+	 * The (block, vertex) memberships found while assigning blocks, as parallel arrays.
+	 * */
+	private int[] memberBlock = new int[16];
+	private int[] memberVertex = new int[16];
+	private int memberCount;
+
+	public BlockCutTree(IndexedGraph graph){
+		this(graph, null);
+	}
+
+	/**
+	 * Initializes this new block-cut tree of the given graph without the given vertices,
+	 * and without every edge of those vertices.
+	 */
+	BlockCutTree(IndexedGraph graph, boolean[] excluded){
+		this(graph, excluded, null);
+	}
+
+	/**
+	 * Initializes this new block-cut tree of the given graph without the given vertices and their edges,
+	 * keeping only the usable edges if those are given.
+	 */
+	BlockCutTree(IndexedGraph graph, boolean[] excluded, boolean[] usable){
+		this.graph = graph;
+		this.excluded = excluded;
+		this.usable = usable;
+		this.vertexCount = graph.getVertexCount();
+		this.edgeBlock = new int[graph.getEdgeCount()];
+		this.vertexBlock = new int[vertexCount];
+		this.articulation = new boolean[vertexCount];
+		this.blockCount = findBlocks();
+		this.tree = buildTree();
+	}
+
+	/**
+	 * Returns for every edge whether it lies on some simple path between x and y.
+	 */
+	public boolean[] edgesBetween(int x, int y){
+		boolean[] result = new boolean[edgeBlock.length];
+		if(x == y || vertexBlock[x] < 0 || vertexBlock[y] < 0) return result;
+
+		int start = node(x), target = node(y);
+		int[] parent = new int[tree.length];
+		Arrays.fill(parent, -1);
+		parent[start] = start;
+		int[] queue = new int[tree.length];
+		int head = 0, tail = 0;
+		queue[tail++] = start;
+		while(head < tail && parent[target] < 0){
+			int node = queue[head++];
+			for(int next: tree[node]){
+				if(parent[next] < 0){
+					parent[next] = node;
+					queue[tail++] = next;
+				}
+			}
+		}
+		if(parent[target] < 0) return result;
+
+		boolean[] onPath = new boolean[blockCount];
+		for(int node = target ; ; node = parent[node]){
+			if(node < blockCount) onPath[node] = true;
+			if(node == start) break;
+		}
+		for(int e = 0 ; e < result.length ; e++){
+			result[e] = edgeBlock[e] >= 0 && onPath[edgeBlock[e]];
+		}
+		return result;
+	}
+
+	/**
+	 * Returns for every edge whether it lies on some simple path between a vertex of from and another
+	 * vertex of to.
+	 */
+	boolean[] edgesJoining(boolean[] from, boolean[] to){
+		int nodes = tree.length;
+		int[] fromCount = new int[nodes];
+		int[] toCount = new int[nodes];
+		int[] bothCount = new int[blockCount];
+		for(int v = 0 ; v < vertexCount ; v++){
+			if(vertexBlock[v] < 0) continue;
+			int node = node(v);
+			if(from[v]) fromCount[node]++;
+			if(to[v]) toCount[node]++;
+			if(from[v] && to[v] && node < blockCount) bothCount[node]++;
+		}
+		int[] ownFrom = Arrays.copyOf(fromCount, blockCount);
+		int[] ownTo = Arrays.copyOf(toCount, blockCount);
+
+		// The counts are summed over the subtrees of every tree, rooted at its first node.
+		int[] parent = new int[nodes];
+		int[] root = new int[nodes];
+		int[] order = new int[nodes];
+		Arrays.fill(parent, -2);
+		int count = 0;
+		for(int r = 0 ; r < nodes ; r++){
+			if(parent[r] != -2) continue;
+			parent[r] = -1;
+			order[count++] = r;
+			for(int i = count - 1 ; i < count ; i++){
+				int node = order[i];
+				root[node] = r;
+				for(int next: tree[node]){
+					if(parent[next] == -2){
+						parent[next] = node;
+						order[count++] = next;
+					}
+				}
+			}
+		}
+		for(int i = count - 1 ; i >= 0 ; i--){
+			int node = order[i];
+			if(parent[node] < 0) continue;
+			fromCount[parent[node]] += fromCount[node];
+			toCount[parent[node]] += toCount[node];
+		}
+
+		// A block joins them unless one part of the tree without it holds all of them, where the block itself
+		// counts as a part that joins any two different vertices in it.
+		boolean[] joined = new boolean[blockCount];
+		for(int b = 0 ; b < blockCount ; b++){
+			int allFrom = fromCount[root[b]], allTo = toCount[root[b]];
+			if(allFrom == 0 || allTo == 0) continue;
+			boolean split = fromCount[b] != 0 || toCount[b] != 0;
+			for(int next: tree[b]){
+				if(next != parent[b] && fromCount[next] == allFrom && toCount[next] == allTo) split = false;
+			}
+			if(ownFrom[b] == allFrom && ownTo[b] == allTo) split = allFrom > 1 || allTo > 1 || bothCount[b] == 0;
+			joined[b] = split;
+		}
+		boolean[] result = new boolean[edgeBlock.length];
+		for(int e = 0 ; e < result.length ; e++){
+			result[e] = edgeBlock[e] >= 0 && joined[edgeBlock[e]];
+		}
+		return result;
+	}
+
+	private int node(int vertex){
+		return articulation[vertex] ? blockCount + vertex : vertexBlock[vertex];
+	}
+
+	/**
+	 * Iterative Tarjan-Hopcroft search assigning every edge to its block.
+	 */
+	private int findBlocks(){
+		int[] disc = new int[vertexCount];
+		int[] low = new int[vertexCount];
+		int[] parentEdge = new int[vertexCount];
+		int[] cursor = new int[vertexCount];
+		int[] lastBlock = new int[vertexCount];
+		Arrays.fill(edgeBlock, -1);
+		Arrays.fill(vertexBlock, -1);
+		Arrays.fill(lastBlock, -1);
+
+		int[] stack = new int[vertexCount];
+		int[] edgeStack = new int[edgeBlock.length];
+		int edgeTop = 0, time = 0, blocks = 0;
+
+		for(int root = 0 ; root < vertexCount ; root++){
+			if(disc[root] != 0 || isExcluded(root)) continue;
+			int top = 0;
+			stack[top++] = root;
+			disc[root] = low[root] = ++time;
+			parentEdge[root] = -1;
+			while(top > 0){
+				int v = stack[top-1];
+				if(cursor[v] < graph.degree(v)){
+					int e = graph.incidentEdge(v, cursor[v]++);
+					if(e == parentEdge[v] || (usable != null && !usable[e])) continue;
+					int w = graph.getOpposite(e, v);
+					if(isExcluded(w)) continue;
+					if(disc[w] == 0){
+						edgeStack[edgeTop++] = e;
+						parentEdge[w] = e;
+						disc[w] = low[w] = ++time;
+						stack[top++] = w;
+					} else if(disc[w] < disc[v]){
+						edgeStack[edgeTop++] = e;
+						low[v] = Math.min(low[v], disc[w]);
+					}
+				} else {
+					top--;
+					int e = parentEdge[v];
+					if(e < 0) continue;
+					int u = graph.getOpposite(e, v);
+					low[u] = Math.min(low[u], low[v]);
+					if(low[v] >= disc[u]){
+						int popped;
+						do {
+							popped = edgeStack[--edgeTop];
+							edgeBlock[popped] = blocks;
+							addToBlock(graph.getSource(popped), blocks, lastBlock);
+							addToBlock(graph.getTarget(popped), blocks, lastBlock);
+						} while(popped != e);
+						blocks++;
+					}
+				}
+			}
+		}
+		return blocks;
+	}
+
+	private boolean isExcluded(int vertex){
+		return excluded != null && excluded[vertex];
+	}
+
+	private void addToBlock(int vertex, int block, int[] lastBlock){
+		if(lastBlock[vertex] == block) return;
+		if(lastBlock[vertex] >= 0) articulation[vertex] = true;
+		else vertexBlock[vertex] = block;
+		lastBlock[vertex] = block;
+		if(memberCount == memberBlock.length){
+			memberBlock = Arrays.copyOf(memberBlock, memberCount * 2);
+			memberVertex = Arrays.copyOf(memberVertex, memberCount * 2);
+		}
+		memberBlock[memberCount] = block;
+		memberVertex[memberCount++] = vertex;
+	}
+
+	private int[][] buildTree(){
+		int[] degree = new int[blockCount + vertexCount];
+		for(int i = 0 ; i < memberCount ; i++){
+			if(!articulation[memberVertex[i]]) continue;
+			degree[memberBlock[i]]++;
+			degree[blockCount + memberVertex[i]]++;
+		}
+		int[][] result = new int[degree.length][];
+		for(int i = 0 ; i < result.length ; i++) result[i] = new int[degree[i]];
+		Arrays.fill(degree, 0);
+		for(int i = 0 ; i < memberCount ; i++){
+			if(!articulation[memberVertex[i]]) continue;
+			int b = memberBlock[i], v = blockCount + memberVertex[i];
+			result[b][degree[b]++] = v;
+			result[v][degree[v]++] = b;
+		}
+		memberBlock = memberVertex = null;
+		return result;
+	}
+}
@@ -0,0 +1,83 @@
+package generator;
+
+import generator.PathEnumerator.PathVisitor;
+import generator.graph.IndexedGraph;
+
+import java.util.BitSet;
+
+/**
+ * A path visitor collecting the edges of the blocked triples on every visited path.
+ *
+ * A triple l - v - r is blocked when v is a collider (both edges point into v) that is not observed
+ * and has no observed descendant, or when v is not a collider and is observed. Both edges of a blocked
+ * triple are removed from the connection graph. Markov networks have no colliders. A visited path
+ * without blocked triples is active, so x and y are not d-separated.
+ */
+class BlockedTriples implements PathVisitor {
+
+	private final IndexedGraph graph;
+	private final EvidenceContext evidence;
+	private final BitSet removed;
+	private long colliders;
+	private boolean active;
+
+	BlockedTriples(EvidenceContext evidence, BitSet removed){
+		this.graph = evidence.getGraph();
+		this.evidence = evidence;
+		this.removed = removed;
+	}
+
+	@Override
+	public boolean visit(int[] vertices, int[] edges, int length){
+		boolean blocked = false;
+		for(int i = 1 ; i < length - 1 ; i++){
+			int vertex = vertices[i];
+			int left = edges[i-1], right = edges[i];
+			if(isCollider(left, right, vertex)){
+				colliders++;
+				if(!evidence.isEvidenceAncestor(vertex)){
+					removed.set(left);
+					removed.set(right);
+					blocked = true;
+				}
+			} else if(evidence.isObserved(vertex)){
+				removed.set(left);
+				removed.set(right);
+				blocked = true;
+			}
+		}
+		if(!blocked) active = true;
+		return true;
+	}
+
+	private boolean isCollider(int left, int right, int vertex){
+		return graph.isDirected() && graph.getTarget(left) == vertex && graph.getTarget(right) == vertex;
+	}
+
+	public BitSet getRemoved(){
+		return removed;
+	}
+
+	/**
+	 * Returns whether a visited path has no blocked triple.
+	 */
+	public boolean hasActivePath(){
+		return active;
+	}
+
+	/**
+	 * Add the removed edges, colliders checked and active paths of the given visitor to this one.
+	 */
+	void add(BlockedTriples other){
+		removed.or(other.removed);
+		colliders += other.colliders;
+		active |= other.active;
+	}
+
+	/**
+	 * Returns the number of colliders checked on the visited paths.
+	 */
+	public long getCollidersChecked(){
+		return colliders;
+	}
+}
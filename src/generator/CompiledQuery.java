@@ -0,0 +1,125 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An independence query resolved against one graph: x, y and the evidence as vertex ids, with the
+ * evidence as a bitset, so that asking whether a vertex is observed costs a single bit test.
+ *
+ * Every name is looked up once, when the query is compiled, and a name that is not a vertex of the
+ * graph is rejected there. Queries compiled together share one evidence bitset per distinct evidence
+ * set, so queries with the same evidence can be grouped by comparing references.
+ */
+public final class CompiledQuery {
+
+	private final IndexedGraph graph;
+	private final Query query;
+	private final int x;
+	private final int y;
+	private final BitSet evidence;
+
+	private CompiledQuery(IndexedGraph graph, Query query, int x, int y, BitSet evidence){
+		this.graph = graph;
+		this.query = query;
+		this.x = x;
+		this.y = y;
+		this.evidence = evidence;
+	}
+
+	/**
+	 * Return the given query compiled against the given graph.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When x, y or one of the evidence vertices is not a vertex of the given graph.
+	 */
+	public static CompiledQuery compile(IndexedGraph graph, Query query){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(query == null) throw new IllegalArgumentException("The given query is not effective.");
+		return new CompiledQuery(graph, query, graph.requireId(query.getX()), graph.requireId(query.getY()), evidenceOf(graph, query.getEvidence()));
+	}
+
+	/**
+	 * Return the given queries compiled against the given graph, in the same order. Queries with the
+	 * same evidence share the same evidence bitset.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When one of the queries refers to a vertex that is not in the given graph.
+	 */
+	public static List<CompiledQuery> compileAll(IndexedGraph graph, List<Query> queries){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(queries == null) throw new IllegalArgumentException("The given queries are not effective.");
+		Map<List<String>, BitSet> interned = new HashMap<List<String>, BitSet>();
+		List<CompiledQuery> result = new ArrayList<CompiledQuery>(queries.size());
+		for(Query query: queries){
+			BitSet evidence = interned.get(query.getEvidence());
+			if(evidence == null){
+				evidence = evidenceOf(graph, query.getEvidence());
+				interned.put(query.getEvidence(), evidence);
+			}
+			result.add(new CompiledQuery(graph, query, graph.requireId(query.getX()), graph.requireId(query.getY()), evidence));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private static BitSet evidenceOf(IndexedGraph graph, List<String> names){
+		BitSet result = new BitSet(graph.getVertexCount());
+		for(String name: names) result.set(graph.requireId(name));
+		return result;
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Returns the query this query was compiled from.
+	 */
+	public Query getQuery(){
+		return query;
+	}
+
+	public int getX(){
+		return x;
+	}
+
+	public int getY(){
+		return y;
+	}
+
+	public boolean isEvidence(int vertex){
+		return evidence.get(vertex);
+	}
+
+	/**
+	 * Returns a copy of the ids of the evidence vertices.
+	 */
+	public BitSet getEvidence(){
+		return (BitSet) evidence.clone();
+	}
+
+	/**
+	 * Returns whether the given compiled query has the same evidence as this query.
+	 */
+	public boolean hasSameEvidence(CompiledQuery other){
+		return other != null && (evidence == other.evidence || evidence.equals(other.evidence));
+	}
+
+	/**
+	 * Returns the ids of the evidence vertices without copying them, for the evidence contexts built from this query.
+	 */
+	BitSet evidence(){
+		return evidence;
+	}
+
+	@Override
+	public String toString(){
+		return query.toString();
+	}
+}
@@ -0,0 +1,22 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+/**
+ * The engine of the COMPONENTS algorithm, comparing the component labels of a Markov network.
+ * The labels are kept for as long as the queries come with the same evidence context.
+ */
+class ComponentEngine extends ReachabilityEngine {
+
+	private MarkovComponents components;
+
+	ComponentEngine(IndexedGraph graph, BlockCutTree blockCutTree){
+		super(graph, blockCutTree);
+	}
+
+	@Override
+	public boolean isSeparated(EvidenceContext evidence, int x, int y) {
+		if(components == null || components.getEvidence() != evidence) components = new MarkovComponents(evidence);
+		return components.isSeparated(x, y);
+	}
+}
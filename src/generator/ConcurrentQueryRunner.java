@@ -0,0 +1,219 @@
+package generator;
+
+import generator.graph.GraphIndex;
+import generator.graph.IndexedGraph;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingDeque;
+
+/**
+ * Answers independence queries against one shared graph on all available cores, or single queries
+ * asked by several threads at once.
+ *
+ * Queries are grouped by evidence set as in a batch query runner. The evidence context of every
+ * group is computed once by a single task and the queries of the group are then answered in chunks
+ * by parallel tasks sharing it. Graph, evidence contexts and block-cut tree are immutable, the
+ * mutable search state lives in a pool of at most one batch query runner per core, which a task
+ * borrows for its chunk. The most recently returned runner is borrowed first, so the chunks of one
+ * group mostly run on runners that already hold the state of its evidence, like the component labels
+ * of COMPONENTS, rather than on a new runner per chunk as a runner per (virtual) thread would.
+ * Single queries borrow a runner from the same pool on the calling thread, waiting for one when
+ * as many queries as the parallelism are being answered. The evidence contexts are built with the
+ * index the runner was given, or else with an index of its own built for the first batch.
+ */
+public class ConcurrentQueryRunner implements AutoCloseable {
+
+	/**
+	 * The number of queries answered by a single task.
+	 * */
+	private static final int CHUNK_SIZE = 64;
+
+	private final IndexedGraph graph;
+	private final Algorithm algorithm;
+	private final boolean connectionGraphs;
+	private final ExecutorService executor;
+	private final boolean ownsExecutor;
+	/**
+	 * The idle runners, and the number of runners created so far, never more than the parallelism.
+	 * */
+	private final LinkedBlockingDeque<BatchQueryRunner> runners = new LinkedBlockingDeque<BatchQueryRunner>();
+	private final int parallelism;
+	private int created;
+	private volatile BlockCutTree blockCutTree;
+	private volatile GraphIndex index;
+
+	/**
+	 * Initializes this new concurrent query runner with a new executor, using virtual threads when
+	 * the running Java version has them and a fork-join pool with one thread per core otherwise.
+	 */
+	public ConcurrentQueryRunner(IndexedGraph graph, Algorithm algorithm, boolean connectionGraphs){
+		this(graph, algorithm, connectionGraphs, newExecutor(), true);
+	}
+
+	/**
+	 * Initializes this new concurrent query runner running its tasks on the given executor,
+	 * which is not shut down when this runner is closed.
+	 */
+	public ConcurrentQueryRunner(IndexedGraph graph, Algorithm algorithm, boolean connectionGraphs, ExecutorService executor){
+		this(graph, algorithm, connectionGraphs, executor, false);
+	}
+
+	/**
+	 * Initializes this new concurrent query runner for the graph of the given index, sharing the index
+	 * with its other users and running its tasks on the given executor, which is not shut down when
+	 * this runner is closed.
+	 */
+	public ConcurrentQueryRunner(GraphIndex index, Algorithm algorithm, boolean connectionGraphs, ExecutorService executor){
+		this(graphOf(index), algorithm, connectionGraphs, executor, false);
+		this.index = index;
+	}
+
+	private ConcurrentQueryRunner(IndexedGraph graph, Algorithm algorithm, boolean connectionGraphs,
+			ExecutorService executor, boolean ownsExecutor){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(algorithm == null) throw new IllegalArgumentException("The given algorithm is not effective.");
+		if(executor == null) throw new IllegalArgumentException("The given executor is not effective.");
+		this.graph = graph;
+		this.algorithm = algorithm;
+		this.connectionGraphs = connectionGraphs;
+		this.executor = executor;
+		this.ownsExecutor = ownsExecutor;
+		this.parallelism = executor instanceof ForkJoinPool ? ((ForkJoinPool) executor).getParallelism() : Runtime.getRuntime().availableProcessors();
+	}
+
+	private static IndexedGraph graphOf(GraphIndex index){
+		if(index == null) throw new IllegalArgumentException("The given index is not effective.");
+		return index.getGraph();
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	public Algorithm getAlgorithm(){
+		return algorithm;
+	}
+
+	/**
+	 * Answer the given queries concurrently, returning the results in the same order.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When one of the queries refers to a vertex that is not in the graph.
+	 */
+	public List<QueryResult> run(final List<Query> queries){
+		if(queries == null) throw new IllegalArgumentException("The given queries are not effective.");
+		final List<CompiledQuery> compiled = CompiledQuery.compileAll(graph, queries);
+		final QueryResult[] results = new QueryResult[queries.size()];
+		List<CompletableFuture<Void>> tasks = new ArrayList<CompletableFuture<Void>>();
+		for(final List<Integer> indices: BatchQueryRunner.groupByEvidence(queries).values()){
+			final CompiledQuery first = compiled.get(indices.get(0));
+			CompletableFuture<EvidenceContext> evidence = CompletableFuture.supplyAsync(() -> new EvidenceContext(getIndex(), first), executor);
+			for(int start = 0 ; start < indices.size() ; start += CHUNK_SIZE){
+				final List<Integer> chunk = indices.subList(start, Math.min(start + CHUNK_SIZE, indices.size()));
+				tasks.add(evidence.thenAcceptAsync(context -> {
+					BatchQueryRunner runner = borrow();
+					try {
+						for(int index: chunk) results[index] = runner.run(context, compiled.get(index));
+					} finally {
+						runners.offerFirst(runner);
+					}
+				}, executor));
+			}
+		}
+		try {
+			CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()])).join();
+		} catch (CompletionException e) {
+			if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw e;
+		}
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Answer the given compiled query, which must have the evidence of the given context, on the calling thread.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the query is not compiled against the graph of this runner.
+	 */
+	public QueryResult run(EvidenceContext evidence, CompiledQuery query){
+		if(evidence == null) throw new IllegalArgumentException("The given evidence context is not effective.");
+		if(query == null) throw new IllegalArgumentException("The given query is not effective.");
+		BatchQueryRunner runner = borrow();
+		try {
+			return runner.run(evidence, query);
+		} finally {
+			runners.offerFirst(runner);
+		}
+	}
+
+	/**
+	 * Return an idle runner, a new runner if fewer than the parallelism were created, or else wait for a runner to be returned.
+	 */
+	private BatchQueryRunner borrow(){
+		BatchQueryRunner runner = runners.pollFirst();
+		if(runner != null) return runner;
+		synchronized(this){
+			if(created < parallelism){
+				created++;
+				return new BatchQueryRunner(graph, algorithm, connectionGraphs, index,
+						connectionGraphs && algorithm != Algorithm.PATHS && algorithm != Algorithm.PARALLEL_PATHS ? getBlockCutTree() : null);
+			}
+		}
+		try {
+			return runners.takeFirst();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new CompletionException(e);
+		}
+	}
+
+	private BlockCutTree getBlockCutTree(){
+		BlockCutTree result = blockCutTree;
+		if(result == null){
+			synchronized(this){
+				if(blockCutTree == null) blockCutTree = new BlockCutTree(graph);
+				result = blockCutTree;
+			}
+		}
+		return result;
+	}
+
+	private GraphIndex getIndex(){
+		GraphIndex result = index;
+		if(result == null){
+			synchronized(this){
+				if(index == null) index = new GraphIndex(graph);
+				result = index;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Shut down the executor of this runner if it created it.
+	 */
+	@Override
+	public void close(){
+		if(ownsExecutor) executor.shutdown();
+	}
+
+	/**
+	 * Return a new executor running every task on a virtual thread if the running Java version
+	 * supports them, or a fork-join pool with a thread per available core otherwise.
+	 */
+	public static ExecutorService newExecutor(){
+		try {
+			Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		}
+	}
+}
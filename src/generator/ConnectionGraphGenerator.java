@@ -1,73 +1,141 @@
 package generator;
 
+import generator.graph.IndexedGraph;
+import generator.graph.JungGraphAdapter;
+import metrics.Metrics;
+import metrics.PathEnumerationEvent;
+import metrics.QueryEvent;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.Stack;
+import java.util.stream.Stream;
 
 import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.SparseGraph;
-import edu.uci.ics.jung.graph.util.EdgeType;
-import edu.uci.ics.jung.graph.util.Pair;
 
 public class ConnectionGraphGenerator {
 
+	/**
+	 * Generate the connection graph of the given input with the default algorithm for its type of network.
+	 */
 	public static Graph<String, String> generate(GraphInput input){
-		Graph<String, String> graph = input.getGraph();
-		Graph<String, String> connectionGraph = new SparseGraph<String, String>();
-		
-		String x = input.getX();
-		String y = input.getY();
-		List<String> evidence = input.getEvidence();
-		
-		for(String vertex: graph.getVertices()){
-			connectionGraph.addVertex(vertex);
-		}
-		
-		for(String edge: graph.getEdges()){
-			Pair<String> pair = graph.getEndpoints(edge);
-			connectionGraph.addEdge(edge, pair.getFirst(), pair.getSecond(), EdgeType.UNDIRECTED);
-		}
-		
-		List<String> paths = getAllPaths(graph, x, y);
-		for(String path: paths){
-			for(int i = 1, n = path.length() ; i < n-1 ; i++) { 
-			    String vertex = path.charAt(i)+"";
-			    int index = path.indexOf(vertex);
-				String lVertex = "" + path.charAt(index-1);
-				String rVertex = "" + path.charAt(index+1);
-			    if(isCollider(graph, path, vertex)){
-			    	if(!evidence.contains(vertex) && !anyDescendantsInEvidence(graph, evidence, vertex)){
-		    			connectionGraph.removeEdge(lVertex+"-"+vertex);
-		    			connectionGraph.removeEdge(rVertex+"-"+vertex);
-			    	} else {
-			    		/*edges.add(lVertex+"-"+vertex);
-			    		edges.add(rVertex+"-"+vertex);*/
-			    	}
-			    } else if(evidence.contains(vertex)){
-			    	connectionGraph.removeEdge(lVertex+"-"+vertex);
-			    	connectionGraph.removeEdge(rVertex+"-"+vertex);
-			    	connectionGraph.removeEdge(vertex+"-"+lVertex);
-			    	connectionGraph.removeEdge(vertex+"-"+rVertex);
-			    }
-			}
+		return generate(input, Algorithm.defaultFor(input.getGraphType()));
+	}
+	
+	public static Graph<String, String> generate(GraphInput input, Algorithm algorithm){
+		if(algorithm == null) throw new IllegalArgumentException("The given algorithm is not effective.");
+		long[] counts = new long[2];
+		Metrics metrics = Metrics.get();
+		if(!metrics.isRecording()) return JungGraphAdapter.toConnectionGraph(input.getNetwork(), removedEdges(input, algorithm, counts));
+		QueryEvent event = new QueryEvent();
+		event.begin();
+		long start = System.nanoTime();
+		BitSet removed = removedEdges(input, algorithm, counts);
+		Graph<String, String> result = JungGraphAdapter.toConnectionGraph(input.getNetwork(), removed);
+		metrics.queried(event, algorithm.toString(), input.getQuery(), counts[0], counts[1], removed.cardinality(), System.nanoTime() - start);
+		return result;
+	}
+	
+	/**
+	 * Return the ids of the edges removed from the connection graph of the given input by the given
+	 * algorithm, adding the number of paths enumerated and colliders checked to the given counts.
+	 */
+	private static BitSet removedEdges(GraphInput input, Algorithm algorithm, long[] counts){
+		CompiledQuery query = input.getCompiledQuery();
+		EvidenceContext evidence = new EvidenceContext(input.getIndex(), query);
+		switch(algorithm){
+			case REACHABILITY:
+			case COMPONENTS:
+			case MORAL_GRAPH:
+				ActiveTrailSearch search = new ActiveTrailSearch(evidence);
+				BitSet removed = search.removedEdges(query.getX(), query.getY());
+				counts[1] += search.getCollidersChecked();
+				return removed;
+			case PARALLEL_PATHS:
+				ParallelPathEnumerator enumerator = new ParallelPathEnumerator();
+				removed = enumerator.removedEdges(evidence, query.getX(), query.getY());
+				counts[0] += enumerator.getPathsEnumerated();
+				counts[1] += enumerator.getCollidersChecked();
+				return removed;
+			default:
+				BlockedTriples blockedTriples = new BlockedTriples(evidence, new BitSet(evidence.getGraph().getEdgeCount()));
+				counts[0] += new PathEnumerator(input.getNetwork()).enumerate(query.getX(), query.getY(), blockedTriples);
+				counts[1] += blockedTriples.getCollidersChecked();
+				return blockedTriples.getRemoved();
 		}
-		
-		return connectionGraph;
 	}
 	
-	private static boolean anyDescendantsInEvidence(Graph<String, String> graph, List<String> evidence, String vertex) {
-		boolean result = false;
-		for(String condition: graph.getSuccessors(vertex)){
-			if(evidence.contains(condition)) {
-				result = true;
-				break;
+	public static boolean isSeparated(GraphInput input, Algorithm algorithm){
+		if(algorithm == null) throw new IllegalArgumentException("The given algorithm is not effective.");
+		CompiledQuery query = input.getCompiledQuery();
+		return algorithm.createEngine(input.getNetwork()).isSeparated(new EvidenceContext(input.getIndex(), query), query.getX(), query.getY());
+	}
+	
+	/**
+	 * Return a lazy stream of the simple paths between x and y of the given input, within the given limits.
+	 */
+	public static Stream<GraphPath> paths(GraphInput input, PathLimits limits){
+		IndexedGraph graph = input.getNetwork();
+		return PathIterator.stream(graph, graph.requireId(input.getX()), graph.requireId(input.getY()), limits);
+	}
+	
+	/**
+	 * Return whether there is any path between x and y in the given graph, ignoring edge directions.
+	 * The search stops at the first path it finds and visits every vertex at most once.
+	 */
+	public static boolean anyPath(Graph<String, String> graph, String x, String y){
+		if(!graph.containsVertex(x) || !graph.containsVertex(y)) return false;
+		Set<String> visited = new HashSet<String>();
+		Deque<String> queue = new ArrayDeque<String>();
+		visited.add(x);
+		queue.add(x);
+		while(!queue.isEmpty()){
+			String vertex = queue.poll();
+			if(vertex.equals(y)) return true;
+			for(String neighbour: graph.getNeighbors(vertex)){
+				if(visited.add(neighbour)) queue.add(neighbour);
 			}
 		}
-		return result;
+		return false;
+	}
+	
+	/**
+	 * Return the ids of the edges of the blocked triples on the simple paths between x and y.
+	 */
+	public static BitSet removedEdgesFromPaths(GraphInput input){
+		CompiledQuery query = input.getCompiledQuery();
+		return removedEdgesFromPaths(new EvidenceContext(input.getIndex(), query), new PathEnumerator(input.getNetwork()),
+				query.getX(), query.getY());
+	}
+	
+	/**
+	 * Return the ids of the edges of the blocked triples on the simple paths between x and y,
+	 * enumerating and classifying the paths in parallel on the common fork-join pool.
+	 */
+	public static BitSet removedEdgesFromParallelPaths(GraphInput input){
+		CompiledQuery query = input.getCompiledQuery();
+		return new ParallelPathEnumerator().removedEdges(new EvidenceContext(input.getIndex(), query), query.getX(), query.getY());
+	}
+	
+	/**
+	 * Return the ids of the edges of the blocked triples on the simple paths between x and y,
+	 * enumerating the paths with the given enumerator.
+	 */
+	public static BitSet removedEdgesFromPaths(EvidenceContext evidence, PathEnumerator enumerator, int x, int y){
+		BlockedTriples blockedTriples = new BlockedTriples(evidence, new BitSet(evidence.getGraph().getEdgeCount()));
+		enumerator.enumerate(x, y, blockedTriples);
+		return blockedTriples.getRemoved();
 	}
 
+	/**
+	 * @deprecated	Only supports single character vertex names, use a {@link PathEnumerator} instead.
+	 */
+	@Deprecated
 	public static boolean isCollider(Graph<String, String> graph, String path, String vertex){
 		int index = path.indexOf(vertex);
 		String lVertex = "" + path.charAt(index-1);
@@ -80,7 +148,23 @@ public class ConnectionGraphGenerator {
 		return left && right;
 	}
 	
+	/**
+	 * @deprecated	Only supports single character vertex names and allocates a string per partial path,
+	 * 				use a {@link PathEnumerator}, a {@link PathIterator} or {@link #anyPath} instead.
+	 */
+	@Deprecated
 	public static List<String> getAllPaths(Graph<String, String> graph, String x, String y){
+		Metrics metrics = Metrics.get();
+		if(!metrics.isRecording()) return allPaths(graph, x, y);
+		PathEnumerationEvent event = new PathEnumerationEvent();
+		event.begin();
+		long start = System.nanoTime();
+		List<String> paths = allPaths(graph, x, y);
+		metrics.enumerated(event, x, y, paths.size(), System.nanoTime() - start);
+		return paths;
+	}
+	
+	private static List<String> allPaths(Graph<String, String> graph, String x, String y){
 		List<String> paths = new ArrayList<String>();
 		Stack<String> stack = new Stack<String>();
 		stack.add(x);
@@ -95,5 +179,4 @@ public class ConnectionGraphGenerator {
 		}
 		return paths;
 	}
-	
 }
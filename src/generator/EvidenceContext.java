@@ -0,0 +1,181 @@
+package generator;
+
+import generator.graph.GraphIndex;
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Everything about a set of evidence vertices that does not depend on the queried vertices,
+ * computed once and shared by all queries with the same evidence.
+ *
+ * This holds the observed vertices and the observed vertices together with their ancestors, which
+ * are exactly the active colliders: those that are observed or have an observed descendant, at any
+ * depth. With a graph index the ancestors are the union of the ancestor rows of the evidence.
+ */
+public class EvidenceContext {
+
+	private final IndexedGraph graph;
+	private final List<String> evidence;
+	private final boolean[] observed;
+	private final int[] observedVertices;
+	private final boolean[] ancestors;
+
+	/**
+	 * Initializes this new evidence context for the given graph and evidence vertex names.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When one of the given evidence vertices is not a vertex of the given graph.
+	 */
+	public EvidenceContext(IndexedGraph graph, Collection<String> evidence){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(evidence == null) throw new IllegalArgumentException("The given evidence is not effective.");
+		this.graph = graph;
+		this.evidence = Collections.unmodifiableList(new ArrayList<String>(new TreeSet<String>(evidence)));
+		this.observedVertices = ids(graph, this.evidence);
+		this.observed = new boolean[graph.getVertexCount()];
+		for(String vertex: evidence) observed[graph.requireId(vertex)] = true;
+		this.ancestors = ancestorsOfEvidence();
+	}
+
+	/**
+	 * Initializes this new evidence context for the graph of the given index and the given evidence
+	 * vertex names, using the ancestor rows of the index.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When one of the given evidence vertices is not a vertex of the indexed graph.
+	 */
+	public EvidenceContext(GraphIndex index, Collection<String> evidence){
+		if(index == null) throw new IllegalArgumentException("The given index is not effective.");
+		if(evidence == null) throw new IllegalArgumentException("The given evidence is not effective.");
+		this.graph = index.getGraph();
+		this.evidence = Collections.unmodifiableList(new ArrayList<String>(new TreeSet<String>(evidence)));
+		this.observedVertices = ids(graph, this.evidence);
+		int n = graph.getVertexCount();
+		this.observed = new boolean[n];
+		BitSet observedSet = new BitSet(n);
+		for(String vertex: evidence){
+			int v = graph.requireId(vertex);
+			observed[v] = true;
+			observedSet.set(v);
+		}
+		this.ancestors = new boolean[n];
+		BitSet ancestorSet = index.ancestorsOf(observedSet);
+		for(int v = ancestorSet.nextSetBit(0) ; v >= 0 ; v = ancestorSet.nextSetBit(v + 1)) ancestors[v] = true;
+	}
+
+	/**
+	 * Initializes this new evidence context for the evidence of the given compiled query,
+	 * of which the names have already been checked.
+	 */
+	public EvidenceContext(CompiledQuery query){
+		if(query == null) throw new IllegalArgumentException("The given query is not effective.");
+		this.graph = query.getGraph();
+		this.evidence = query.getQuery().getEvidence();
+		this.observed = toArray(query.evidence(), graph.getVertexCount());
+		this.observedVertices = query.evidence().stream().toArray();
+		this.ancestors = ancestorsOfEvidence();
+	}
+
+	/**
+	 * Initializes this new evidence context for the evidence of the given compiled query, using the
+	 * ancestor rows of the given index of its graph.
+	 */
+	public EvidenceContext(GraphIndex index, CompiledQuery query){
+		if(index == null) throw new IllegalArgumentException("The given index is not effective.");
+		if(query == null) throw new IllegalArgumentException("The given query is not effective.");
+		if(index.getGraph() != query.getGraph()) throw new IllegalArgumentException("The given query is not compiled against the indexed graph.");
+		this.graph = query.getGraph();
+		this.evidence = query.getQuery().getEvidence();
+		this.observed = toArray(query.evidence(), graph.getVertexCount());
+		this.observedVertices = query.evidence().stream().toArray();
+		this.ancestors = toArray(index.ancestorsOf(query.evidence()), graph.getVertexCount());
+	}
+
+	/**
+	 * Initializes this new evidence context on the given arrays, without copying them.
+	 * Only for the private context of an incremental connection graph, which changes the arrays
+	 * between searches. Contexts that are shared between queries are never changed.
+	 */
+	EvidenceContext(IndexedGraph graph, List<String> evidence, boolean[] observed, boolean[] ancestors){
+		this.graph = graph;
+		this.evidence = evidence;
+		this.observed = observed;
+		this.observedVertices = ids(graph, evidence);
+		this.ancestors = ancestors;
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Returns the evidence vertex names, sorted and without duplicates.
+	 */
+	public List<String> getEvidence(){
+		return evidence;
+	}
+
+	public boolean isObserved(int vertex){
+		return observed[vertex];
+	}
+
+	/**
+	 * Returns the ids of the observed vertices in increasing order, without copying them.
+	 */
+	int[] observedVertices(){
+		return observedVertices;
+	}
+
+	/**
+	 * Returns whether the given vertex is observed or has an observed descendant,
+	 * which is exactly when it is an active collider.
+	 */
+	public boolean isEvidenceAncestor(int vertex){
+		return ancestors[vertex];
+	}
+
+	private boolean[] ancestorsOfEvidence(){
+		int n = graph.getVertexCount();
+		boolean[] result = new boolean[n];
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		for(int v = 0 ; v < n ; v++){
+			if(observed[v]){
+				result[v] = true;
+				queue[tail++] = v;
+			}
+		}
+		if(!graph.isDirected()) return result;
+		while(head < tail){
+			int v = queue[head++];
+			for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+				int parent = graph.inVertex(i);
+				if(!result[parent]){
+					result[parent] = true;
+					queue[tail++] = parent;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static int[] ids(IndexedGraph graph, List<String> names){
+		int[] result = new int[names.size()];
+		for(int i = 0 ; i < result.length ; i++) result[i] = graph.requireId(names.get(i));
+		Arrays.sort(result);
+		return result;
+	}
+
+	private static boolean[] toArray(BitSet vertices, int n){
+		boolean[] result = new boolean[n];
+		for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)) result[v] = true;
+		return result;
+	}
+}
@@ -1,30 +1,97 @@
 package generator;
 
+import generator.graph.GraphIndex;
+import generator.graph.IndexedGraph;
+import generator.graph.JungGraphAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Graphs;
 
-public class GraphInput {
+/**
+ * An immutable snapshot of a parsed network and the queries asked about it.
+ * 
+ * A graph input can be shared freely between threads.
+ */
+public final class GraphInput {
 
-	Graph<String, String> graph;
-	GraphType graphType;
-	String x;
-	String y;
-	List<String> evidence;
+	private final IndexedGraph network;
+	private volatile Graph<String, String> graph;
+	private volatile GraphIndex index;
+	private volatile CompiledQuery compiledQuery;
+	private final GraphType graphType;
+	private final String x;
+	private final String y;
+	private final List<String> evidence;
+	private final List<Query> queries;
+	
+	public GraphInput(IndexedGraph network, String graphType, String x, String y, List<String> evidence){
+		this(network, graphType, x, y, evidence, new ArrayList<Query>());
+	}
 	
-	public GraphInput(Graph<String, String> graph, String graphType, String x, String y, List<String> evidence){
-		this.graph = graph;
+	public GraphInput(IndexedGraph network, String graphType, String x, String y, List<String> evidence, List<Query> queries){
+		if(network == null) throw new IllegalArgumentException("The given network is not effective.");
+		this.network = network;
 		this.graphType = GraphType.fromString(graphType);
 		this.x = x;
 		this.y = y;
-		this.evidence = evidence;
+		this.evidence = Collections.unmodifiableList(new ArrayList<String>(evidence));
+		this.queries = Collections.unmodifiableList(new ArrayList<Query>(queries));
+	}
+	
+	/**
+	 * Returns the indexed graph of this input, the representation the generator works on.
+	 */
+	public IndexedGraph getNetwork(){
+		return network;
 	}
 	
+	/**
+	 * Returns an unmodifiable JUNG view of the graph of this input, built on first use for visualization.
+	 */
 	public Graph<String, String> getGraph(){
-		return graph;
+		Graph<String, String> result = graph;
+		if(result == null){
+			result = Graphs.unmodifiableGraph(JungGraphAdapter.toGraph(network));
+			graph = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the index of the topological order, descendants and ancestors of the network, built on first use.
+	 */
+	public GraphIndex getIndex(){
+		GraphIndex result = index;
+		if(result == null){
+			result = new GraphIndex(network);
+			index = result;
+		}
+		return result;
+	}
+
+	/**
+	 * Returns whether the index of the network is built or was given already.
+	 */
+	public boolean hasIndex(){
+		return index != null;
 	}
 
-	public Object getGraphType() {
+	/**
+	 * Sets the index of the network to the given index, read from a cache instead of built.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given index is not an index of the network of this input.
+	 */
+	public void setIndex(GraphIndex index){
+		if(index == null || index.getGraph() != network) throw new IllegalArgumentException("The given index is not an index of the network.");
+		this.index = index;
+	}
+
+	public GraphType getGraphType() {
 		return graphType;
 	}
 
@@ -39,4 +106,33 @@ public class GraphInput {
 	public List<String> getEvidence() {
 		return evidence;
 	}
+	
+	/**
+	 * Returns the query formed by x, y and the evidence of this input.
+	 */
+	public Query getQuery() {
+		return new Query(x, y, evidence);
+	}
+
+	/**
+	 * Returns the query formed by x, y and the evidence of this input compiled against its network, compiled on first use.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When x or y is missing, or x, y or one of the evidence vertices is not a vertex of the network.
+	 */
+	public CompiledQuery getCompiledQuery(){
+		CompiledQuery result = compiledQuery;
+		if(result == null){
+			result = CompiledQuery.compile(network, getQuery());
+			compiledQuery = result;
+		}
+		return result;
+	}
+	
+	/**
+	 * Returns the additional queries listed in the queries section of the input file.
+	 */
+	public List<Query> getQueries() {
+		return queries;
+	}
 }
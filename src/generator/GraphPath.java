@@ -0,0 +1,89 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable simple path in an indexed graph, as the ids of its vertices and edges.
+ */
+public final class GraphPath {
+
+	private final IndexedGraph graph;
+	private final int[] vertices;
+	private final int[] edges;
+
+	/**
+	 * Initializes this new path with copies of the first length vertices and length-1 edges of the given arrays.
+	 */
+	public GraphPath(IndexedGraph graph, int[] vertices, int[] edges, int length){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		this.graph = graph;
+		this.vertices = Arrays.copyOf(vertices, length);
+		this.edges = Arrays.copyOf(edges, Math.max(length - 1, 0));
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Returns the number of vertices on this path.
+	 */
+	public int getLength(){
+		return vertices.length;
+	}
+
+	public int getVertex(int index){
+		return vertices[index];
+	}
+
+	/**
+	 * Returns the edge between vertex index and vertex index+1 of this path.
+	 */
+	public int getEdge(int index){
+		return edges[index];
+	}
+
+	/**
+	 * Returns the names of the vertices on this path.
+	 */
+	public List<String> getNames(){
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return graph.getName(vertices[index]);
+			}
+
+			@Override
+			public int size() {
+				return vertices.length;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object other){
+		if(this == other) return true;
+		if(!(other instanceof GraphPath)) return false;
+		GraphPath path = (GraphPath) other;
+		return graph == path.graph && Arrays.equals(vertices, path.vertices) && Arrays.equals(edges, path.edges);
+	}
+
+	@Override
+	public int hashCode(){
+		return 31 * Arrays.hashCode(vertices) + Arrays.hashCode(edges);
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0 ; i < vertices.length ; i++){
+			if(i > 0) builder.append('-');
+			builder.append(graph.getName(vertices[i]));
+		}
+		return builder.toString();
+	}
+}
@@ -0,0 +1,268 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+import generator.graph.JungGraphAdapter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Graphs;
+
+/**
+ * The connection graph of two fixed vertices, kept up to date while evidence vertices are
+ * observed and unobserved one at a time.
+ *
+ * For every vertex the number of observed vertices among itself and its descendants is kept, so
+ * observing or unobserving a vertex only walks its ancestors to update which colliders are active. An observation can only change the connection
+ * graph if it concerns a vertex reached by the active trail searches from x or y, otherwise no trail
+ * can reach the vertex whose status changed and the graph is left as it is. When the searches are
+ * repeated, they reuse their arrays and only clear the states they reached before, and only the
+ * edges of the vertices reached from x are looked at, so an update takes time in the size of the
+ * part of the graph reachable from x and y rather than of the whole graph. Only the edges whose status
+ * changed are then added to or removed from the connection graph. Building the block-cut tree
+ * initially still takes time in the size of the whole graph, as does the JUNG connection graph,
+ * which is only built when it is first asked for.
+ * This graph is not safe for use by several threads at once.
+ */
+public class IncrementalConnectionGraph {
+
+	private final IndexedGraph graph;
+	private final int x;
+	private final int y;
+	private final boolean[] betweenXY;
+
+	private final TreeSet<String> evidence = new TreeSet<String>();
+	private final boolean[] observed;
+	private final boolean[] ancestors;
+	private final int[] observedDescendants;
+
+	/**
+	 * The states reached by the last searches from x and from y.
+	 */
+	private final ActiveTrailSearch.Reach fromX;
+	private final ActiveTrailSearch.Reach fromY;
+	/**
+	 * The edges kept by the last searches, as a list and marked per edge id.
+	 */
+	private int[] keptEdges = new int[0];
+	private final boolean[] kept;
+	private final BitSet removed;
+	private boolean separated;
+	private Graph<String, String> connectionGraph;
+
+	private final int[] stack;
+	private final int[] visited;
+	private int generation;
+	private final List<Integer> changed = new ArrayList<Integer>();
+	private long searches;
+
+	/**
+	 * Initializes this new incremental connection graph of x and y of the given input, given its evidence.
+	 */
+	public IncrementalConnectionGraph(GraphInput input){
+		this(input.getNetwork(), input.getX(), input.getY(), input.getEvidence());
+	}
+
+	/**
+	 * Initializes this new incremental connection graph of x and y in the given graph, given the given evidence.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When x, y or one of the evidence vertices is not a vertex of the given graph.
+	 */
+	public IncrementalConnectionGraph(IndexedGraph graph, String x, String y, Collection<String> evidence){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(evidence == null) throw new IllegalArgumentException("The given evidence is not effective.");
+		this.graph = graph;
+		this.x = graph.requireId(x);
+		this.y = graph.requireId(y);
+		this.betweenXY = new BlockCutTree(graph).edgesBetween(this.x, this.y);
+		int n = graph.getVertexCount();
+		this.observed = new boolean[n];
+		this.ancestors = new boolean[n];
+		this.observedDescendants = new int[n];
+		this.fromX = new ActiveTrailSearch.Reach(n);
+		this.fromY = new ActiveTrailSearch.Reach(n);
+		this.kept = new boolean[graph.getEdgeCount()];
+		this.stack = new int[n];
+		this.visited = new int[n];
+		for(String vertex: evidence) update(graph.requireId(vertex), true);
+		changed.clear();
+		this.removed = new BitSet(graph.getEdgeCount());
+		for(int e = 0 ; e < betweenXY.length ; e++){
+			if(betweenXY[e]) removed.set(e);
+		}
+		search();
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	public String getX(){
+		return graph.getName(x);
+	}
+
+	public String getY(){
+		return graph.getName(y);
+	}
+
+	/**
+	 * Returns the observed vertex names, sorted.
+	 */
+	public List<String> getEvidence(){
+		return Collections.unmodifiableList(new ArrayList<String>(evidence));
+	}
+
+	/**
+	 * Returns whether x and y are separated given the current evidence.
+	 */
+	public boolean isSeparated(){
+		return separated;
+	}
+
+	/**
+	 * Returns a copy of the ids of the edges removed from the connection graph.
+	 */
+	public BitSet getRemovedEdges(){
+		return (BitSet) removed.clone();
+	}
+
+	/**
+	 * Returns an unmodifiable view on the connection graph, which follows every later change of evidence.
+	 */
+	public Graph<String, String> getConnectionGraph(){
+		if(connectionGraph == null) connectionGraph = JungGraphAdapter.toConnectionGraph(graph, removed);
+		return Graphs.unmodifiableGraph(connectionGraph);
+	}
+
+	/**
+	 * Returns the number of times the active trail searches were run, including the initial one.
+	 */
+	public long getSearchCount(){
+		return searches;
+	}
+
+	/**
+	 * Add the given vertex to the evidence and update the connection graph.
+	 *
+	 * @return	Whether the vertex was not observed before.
+	 * @throws	IllegalArgumentException
+	 * 			When the given vertex is not a vertex of the graph.
+	 */
+	public boolean observe(String vertex){
+		return change(vertex, true);
+	}
+
+	/**
+	 * Remove the given vertex from the evidence and update the connection graph.
+	 *
+	 * @return	Whether the vertex was observed before.
+	 * @throws	IllegalArgumentException
+	 * 			When the given vertex is not a vertex of the graph.
+	 */
+	public boolean unobserve(String vertex){
+		return change(vertex, false);
+	}
+
+	private boolean change(String vertex, boolean observe){
+		int v = graph.requireId(vertex);
+		if(observed[v] == observe) return false;
+		update(v, observe);
+		boolean affected = false;
+		for(int u: changed){
+			if(fromX.reached(u) || fromY.reached(u)){
+				affected = true;
+				break;
+			}
+		}
+		changed.clear();
+		if(affected) search();
+		return true;
+	}
+
+	/**
+	 * Observe or unobserve the given vertex, updating the counts of its ancestors
+	 * and recording every vertex whose status changed.
+	 */
+	private void update(int v, boolean observe){
+		int delta = observe ? 1 : -1;
+		observed[v] = observe;
+		changed.add(v);
+		if(observe) evidence.add(graph.getName(v));
+		else evidence.remove(graph.getName(v));
+
+		if(++generation == 0){
+			Arrays.fill(visited, 0);
+			generation = 1;
+		}
+		int top = 0;
+		stack[top++] = v;
+		visited[v] = generation;
+		while(top > 0){
+			int u = stack[--top];
+			count(u, delta);
+			if(!graph.isDirected()) continue;
+			for(int i = graph.inBegin(u), end = graph.inEnd(u) ; i < end ; i++){
+				int parent = graph.inVertex(i);
+				if(visited[parent] != generation){
+					visited[parent] = generation;
+					stack[top++] = parent;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Add the given delta to the count of observed descendants of the given vertex
+	 * and update whether it is an evidence ancestor.
+	 */
+	private void count(int v, int delta){
+		observedDescendants[v] += delta;
+		boolean ancestor = observedDescendants[v] > 0;
+		if(ancestors[v] != ancestor){
+			ancestors[v] = ancestor;
+			changed.add(v);
+		}
+	}
+
+	/**
+	 * Run the active trail searches from x and y on the current evidence and
+	 * add or remove the edges whose status changed since the last searches.
+	 */
+	private void search(){
+		List<String> names = Collections.unmodifiableList(new ArrayList<String>(evidence));
+		ActiveTrailSearch search = new ActiveTrailSearch(new EvidenceContext(graph, names, observed, ancestors));
+		search.reach(x, fromX);
+		search.reach(y, fromY);
+		separated = x != y && !fromX.reached(y);
+		int[] previous = keptEdges;
+		keptEdges = search.keptEdges(fromX, fromY, betweenXY);
+		for(int e: previous) kept[e] = false;
+		for(int e: keptEdges) kept[e] = true;
+		for(int e: previous){
+			if(!kept[e]) setRemoved(e, true);
+		}
+		for(int e: keptEdges){
+			if(removed.get(e)) setRemoved(e, false);
+		}
+		searches++;
+	}
+
+	/**
+	 * Mark the given edge as removed or not, and remove it from or add it back to the connection graph.
+	 */
+	private void setRemoved(int e, boolean remove){
+		removed.set(e, remove);
+		if(connectionGraph == null) return;
+		String name = graph.getEdgeName(e);
+		if(remove) connectionGraph.removeEdge(name);
+		else connectionGraph.addEdge(name, graph.getName(graph.getSource(e)), graph.getName(graph.getTarget(e)), EdgeType.UNDIRECTED);
+	}
+}
@@ -0,0 +1,128 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+/**
+ * The connected components of a Markov network once its evidence vertices are removed,
+ * labelled with a union-find pass over the edges.
+ *
+ * In an undirected graph two vertices are separated by the evidence exactly when every path
+ * between them passes an observed vertex, so after the single labelling pass per evidence set every
+ * separation query between unobserved vertices is a comparison of two component labels. A query
+ * about an observed vertex compares the labels of its unobserved neighbours instead, since the
+ * endpoints of a path never block it.
+ */
+public class MarkovComponents {
+
+	private final IndexedGraph graph;
+	private final EvidenceContext evidence;
+	/**
+	 * The component label of every unobserved vertex, -1 for observed vertices.
+	 * */
+	private final int[] labels;
+	private final int componentCount;
+
+	/**
+	 * Initializes these new components for the graph and evidence of the given context.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the graph of the given context is directed.
+	 */
+	public MarkovComponents(EvidenceContext evidence){
+		if(evidence == null) throw new IllegalArgumentException("The given evidence context is not effective.");
+		if(evidence.getGraph().isDirected()) throw new IllegalArgumentException("The given graph is not a Markov network.");
+		this.graph = evidence.getGraph();
+		this.evidence = evidence;
+		int n = graph.getVertexCount();
+		int[] parent = new int[n];
+		int[] size = new int[n];
+		for(int v = 0 ; v < n ; v++){
+			parent[v] = v;
+			size[v] = 1;
+		}
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			int s = graph.getSource(e), t = graph.getTarget(e);
+			if(evidence.isObserved(s) || evidence.isObserved(t)) continue;
+			s = find(parent, s);
+			t = find(parent, t);
+			if(s == t) continue;
+			if(size[s] < size[t]){
+				int swap = s;
+				s = t;
+				t = swap;
+			}
+			parent[t] = s;
+			size[s] += size[t];
+		}
+		this.labels = new int[n];
+		int[] numbers = new int[n];
+		int count = 0;
+		for(int v = 0 ; v < n ; v++){
+			if(evidence.isObserved(v)){
+				labels[v] = -1;
+				continue;
+			}
+			int root = find(parent, v);
+			if(numbers[root] == 0) numbers[root] = ++count;
+			labels[v] = numbers[root] - 1;
+		}
+		this.componentCount = count;
+	}
+
+	public EvidenceContext getEvidence(){
+		return evidence;
+	}
+
+	/**
+	 * Returns the number of components of the unobserved vertices.
+	 */
+	public int getComponentCount(){
+		return componentCount;
+	}
+
+	/**
+	 * Returns the component label of the given vertex, or -1 if it is observed.
+	 */
+	public int getLabel(int vertex){
+		return labels[vertex];
+	}
+
+	/**
+	 * Return whether the given vertices are separated by the evidence.
+	 */
+	public boolean isSeparated(int x, int y){
+		if(x == y) return false;
+		if(!evidence.isObserved(x) && !evidence.isObserved(y)) return labels[x] != labels[y];
+		if(evidence.isObserved(y)){
+			int swap = x;
+			x = y;
+			y = swap;
+		}
+		// x is observed, so the paths leave it through one of its edges.
+		for(int i = 0, degree = graph.degree(x) ; i < degree ; i++){
+			int w = graph.getOpposite(graph.incidentEdge(x, i), x);
+			if(w == y) return false;
+			if(labels[w] >= 0 && reaches(labels[w], y)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return whether a path from the component with the given label can end in the given vertex.
+	 */
+	private boolean reaches(int label, int y){
+		if(!evidence.isObserved(y)) return labels[y] == label;
+		for(int i = 0, degree = graph.degree(y) ; i < degree ; i++){
+			if(labels[graph.getOpposite(graph.incidentEdge(y, i), y)] == label) return true;
+		}
+		return false;
+	}
+
+	private static int find(int[] parent, int v){
+		while(parent[v] != v){
+			parent[v] = parent[parent[v]];
+			v = parent[v];
+		}
+		return v;
+	}
+}
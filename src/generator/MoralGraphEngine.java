@@ -0,0 +1,197 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The engine of the MORAL_GRAPH algorithm, testing separation in the moral graph of an ancestral set.
+ *
+ * x and y are separated by the evidence exactly when they are disconnected in the moral graph of the
+ * ancestors of x, y and the evidence once the evidence is deleted (Lauritzen et al.). The moral graph
+ * connects every vertex of the ancestral set to its parents and the parents of every vertex to each
+ * other, so a query only looks at the part of the network above its vertices. The moral graphs of the
+ * most recently used ancestral sets are cached, queries that only differ in evidence with the same
+ * ancestral set share one. Markov networks are their own moral graph, which is built once.
+ *
+ * The ancestral set is searched from x, y and the evidence only, and the searches reuse scratch arrays
+ * that grow to the largest ancestral set seen, so a query takes time in the size of its ancestral set
+ * and not of the whole network once its moral graph is cached. An engine is not safe for use by
+ * several threads at once.
+ *
+ * The connection graph is built by an active trail search, as for REACHABILITY.
+ */
+public class MoralGraphEngine extends ReachabilityEngine {
+
+	/**
+	 * The default number of moral graphs kept.
+	 * */
+	public static final int DEFAULT_CACHE_SIZE = 64;
+
+	private final LinkedHashMap<BitSet, MoralGraph> cache;
+	/**
+	 * The moral graph of a Markov network, which is the whole network.
+	 */
+	private MoralGraph whole;
+	private int[] queue = new int[16];
+	/**
+	 * The search generation in which a vertex of a moral graph was visited, by its local id.
+	 */
+	private int[] visited = new int[16];
+	private int generation;
+	private long hits;
+	private long misses;
+
+	public MoralGraphEngine(IndexedGraph graph){
+		this(graph, DEFAULT_CACHE_SIZE, null);
+	}
+
+	MoralGraphEngine(IndexedGraph graph, final int cacheSize, BlockCutTree blockCutTree){
+		super(graph, blockCutTree);
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(cacheSize < 1) throw new IllegalArgumentException("The given cache size is not positive.");
+		this.cache = new LinkedHashMap<BitSet, MoralGraph>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<BitSet, MoralGraph> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	public long getCacheHits(){
+		return hits;
+	}
+
+	public long getCacheMisses(){
+		return misses;
+	}
+
+	@Override
+	public boolean isSeparated(EvidenceContext evidence, int x, int y) {
+		if(x == y) return false;
+		MoralGraph moral = moralGraph(evidence, x, y);
+		int source = moral.localId(x), target = moral.localId(y);
+		IndexedGraph skeleton = moral.graph;
+		int size = skeleton.getVertexCount();
+		if(queue.length < size) queue = new int[size];
+		if(visited.length < size){
+			visited = new int[size];
+			generation = 0;
+		}
+		if(++generation == 0){
+			Arrays.fill(visited, 0);
+			generation = 1;
+		}
+		int head = 0, tail = 0;
+		visited[source] = generation;
+		queue[tail++] = source;
+		while(head < tail){
+			int v = queue[head++];
+			for(int i = skeleton.outBegin(v), end = skeleton.outEnd(v) ; i < end ; i++){
+				int w = skeleton.outVertex(i);
+				if(w == target) return false;
+				if(visited[w] != generation && !evidence.isObserved(moral.vertices[w])){
+					visited[w] = generation;
+					queue[tail++] = w;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return x, y and the evidence together with all of their ancestors.
+	 */
+	private BitSet ancestralSet(EvidenceContext evidence, int x, int y){
+		IndexedGraph graph = getGraph();
+		BitSet result = new BitSet();
+		int tail = 0;
+		tail = seed(result, x, tail);
+		tail = seed(result, y, tail);
+		for(int v: evidence.observedVertices()) tail = seed(result, v, tail);
+		for(int head = 0 ; head < tail ; head++){
+			int v = queue[head];
+			for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+				tail = seed(result, graph.inVertex(i), tail);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Add the given vertex to the given ancestral set and the queue at the given tail if it is not in the set
+	 * yet, and return the new tail.
+	 */
+	private int seed(BitSet ancestralSet, int v, int tail){
+		if(ancestralSet.get(v)) return tail;
+		ancestralSet.set(v);
+		if(tail == queue.length) queue = Arrays.copyOf(queue, 2 * tail);
+		queue[tail] = v;
+		return tail + 1;
+	}
+
+	private MoralGraph moralGraph(EvidenceContext evidence, int x, int y){
+		if(!getGraph().isDirected()){
+			if(whole != null){
+				hits++;
+				return whole;
+			}
+			misses++;
+			BitSet all = new BitSet(getGraph().getVertexCount());
+			all.set(0, getGraph().getVertexCount());
+			whole = new MoralGraph(getGraph(), all);
+			return whole;
+		}
+		BitSet ancestralSet = ancestralSet(evidence, x, y);
+		MoralGraph result = cache.get(ancestralSet);
+		if(result != null){
+			hits++;
+			return result;
+		}
+		misses++;
+		result = new MoralGraph(getGraph(), ancestralSet);
+		cache.put(ancestralSet, result);
+		return result;
+	}
+
+	/**
+	 * The moral graph of an ancestral set, with its vertices numbered in the order of their ids in the network.
+	 */
+	private static final class MoralGraph {
+
+		final int[] vertices;
+		final IndexedGraph graph;
+
+		MoralGraph(IndexedGraph network, BitSet ancestralSet){
+			this.vertices = ancestralSet.stream().toArray();
+			IndexedGraph.Builder builder = new IndexedGraph.Builder(false);
+			for(int v: vertices) builder.addVertex(network.getName(v));
+			for(int v: vertices){
+				String name = network.getName(v);
+				if(!network.isDirected()){
+					for(int i = network.outBegin(v), end = network.outEnd(v) ; i < end ; i++){
+						builder.addEdge(name, network.getName(network.outVertex(i)));
+					}
+					continue;
+				}
+				for(int i = network.inBegin(v), end = network.inEnd(v) ; i < end ; i++){
+					String parent = network.getName(network.inVertex(i));
+					builder.addEdge(parent, name);
+					for(int j = i + 1 ; j < end ; j++){
+						builder.addEdge(parent, network.getName(network.inVertex(j)));
+					}
+				}
+			}
+			this.graph = builder.build();
+		}
+
+		int localId(int vertex){
+			return Arrays.binarySearch(vertices, vertex);
+		}
+	}
+}
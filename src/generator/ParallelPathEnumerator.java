@@ -0,0 +1,136 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Enumerates the simple paths between two vertices on a fork-join pool and classifies their triples.
+ *
+ * Every task runs its own path enumerator from a path prefix. While the prefix is short and the
+ * pool is running out of queued work, a task hands the branches it is about to descend into to new
+ * forked tasks, which idle workers steal. Every task checks the triples of its own paths and records
+ * the removed edges in its own edge set, the sets are merged when the tasks are joined.
+ */
+public class ParallelPathEnumerator {
+
+	/**
+	 * The maximal length of a path prefix that is still split off into a new task.
+	 * */
+	private static final int MAX_SPLIT_LENGTH = 24;
+	/**
+	 * The number of queued tasks above which a task stops splitting off new ones.
+	 * */
+	private static final int MAX_SURPLUS = 3;
+
+	private final ForkJoinPool pool;
+	private long paths;
+	private long colliders;
+
+	public ParallelPathEnumerator(){
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ParallelPathEnumerator(ForkJoinPool pool){
+		if(pool == null) throw new IllegalArgumentException("The given pool is not effective.");
+		this.pool = pool;
+	}
+
+	/**
+	 * Return the ids of the edges of the blocked triples on the simple paths between x and y.
+	 */
+	public BitSet removedEdges(EvidenceContext evidence, int x, int y){
+		return enumerate(evidence, x, y).getRemoved();
+	}
+
+	/**
+	 * Return the blocked triples on the simple paths between x and y, merged over all tasks.
+	 */
+	BlockedTriples enumerate(EvidenceContext evidence, int x, int y){
+		if(evidence == null) throw new IllegalArgumentException("The given evidence context is not effective.");
+		Result result = pool.invoke(new PathTask(evidence, new int[]{x}, new int[0], y));
+		paths += result.paths;
+		colliders += result.blockedTriples.getCollidersChecked();
+		return result.blockedTriples;
+	}
+
+	/**
+	 * Returns the number of simple paths enumerated by removedEdges since this enumerator was created.
+	 */
+	public long getPathsEnumerated(){
+		return paths;
+	}
+
+	/**
+	 * Returns the number of colliders checked by removedEdges since this enumerator was created.
+	 */
+	public long getCollidersChecked(){
+		return colliders;
+	}
+
+	/**
+	 * Return the number of simple paths between x and y in the given graph.
+	 */
+	public long countPaths(IndexedGraph graph, int x, int y){
+		return pool.invoke(new PathTask(new EvidenceContext(graph, new ArrayList<String>()), new int[]{x}, new int[0], y)).paths;
+	}
+
+	/**
+	 * The outcome of a task: the blocked triples on its paths and the number of paths.
+	 */
+	private static class Result {
+
+		final BlockedTriples blockedTriples;
+		long paths;
+
+		Result(BlockedTriples blockedTriples){
+			this.blockedTriples = blockedTriples;
+		}
+	}
+
+	private static class PathTask extends RecursiveTask<Result> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final EvidenceContext evidence;
+		private final int[] prefixVertices;
+		private final int[] prefixEdges;
+		private final int y;
+
+		PathTask(EvidenceContext evidence, int[] prefixVertices, int[] prefixEdges, int y){
+			this.evidence = evidence;
+			this.prefixVertices = prefixVertices;
+			this.prefixEdges = prefixEdges;
+			this.y = y;
+		}
+
+		@Override
+		protected Result compute() {
+			IndexedGraph graph = evidence.getGraph();
+			final Result result = new Result(new BlockedTriples(evidence, new BitSet(graph.getEdgeCount())));
+			final List<PathTask> forked = new ArrayList<PathTask>();
+			PathEnumerator enumerator = new PathEnumerator(graph){
+				@Override
+				protected boolean split(int[] vertices, int[] edges, int length) {
+					if(length > MAX_SPLIT_LENGTH || getSurplusQueuedTaskCount() > MAX_SURPLUS) return false;
+					PathTask task = new PathTask(evidence, Arrays.copyOf(vertices, length), Arrays.copyOf(edges, length - 1), y);
+					task.fork();
+					forked.add(task);
+					return true;
+				}
+			};
+			result.paths = enumerator.enumerate(prefixVertices, prefixEdges, prefixVertices.length, y, result.blockedTriples);
+			for(PathTask task: forked){
+				Result other = task.join();
+				result.blockedTriples.add(other.blockedTriples);
+				result.paths += other.paths;
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.BitSet;
+
+/**
+ * The engine of the PATHS and PARALLEL_PATHS algorithms, classifying the triples of every simple path.
+ */
+class PathEngine implements SeparationEngine {
+
+	private final IndexedGraph graph;
+	private final boolean parallel;
+	private PathEnumerator enumerator;
+	private long paths;
+	private long colliders;
+
+	PathEngine(IndexedGraph graph, boolean parallel){
+		this.graph = graph;
+		this.parallel = parallel;
+	}
+
+	@Override
+	public IndexedGraph getGraph() {
+		return graph;
+	}
+
+	/**
+	 * x and y are separated when every simple path between them has a blocked triple. The connection
+	 * graph alone does not tell, as it also loses the edges of blocked triples on other, active paths.
+	 */
+	@Override
+	public boolean isSeparated(EvidenceContext evidence, int x, int y) {
+		return !enumerate(evidence, x, y).hasActivePath();
+	}
+
+	@Override
+	public BitSet removedEdges(EvidenceContext evidence, int x, int y) {
+		return enumerate(evidence, x, y).getRemoved();
+	}
+
+	/**
+	 * Answer the given query with a single enumeration of the simple paths between x and y.
+	 */
+	QueryResult answer(EvidenceContext evidence, CompiledQuery query){
+		BlockedTriples blockedTriples = enumerate(evidence, query.getX(), query.getY());
+		return new QueryResult(query.getQuery(), !blockedTriples.hasActivePath(), blockedTriples.getRemoved());
+	}
+
+	private BlockedTriples enumerate(EvidenceContext evidence, int x, int y){
+		if(parallel){
+			ParallelPathEnumerator parallelEnumerator = new ParallelPathEnumerator();
+			BlockedTriples blockedTriples = parallelEnumerator.enumerate(evidence, x, y);
+			paths += parallelEnumerator.getPathsEnumerated();
+			colliders += parallelEnumerator.getCollidersChecked();
+			return blockedTriples;
+		}
+		if(enumerator == null) enumerator = new PathEnumerator(graph);
+		BlockedTriples blockedTriples = new BlockedTriples(evidence, new BitSet(graph.getEdgeCount()));
+		paths += enumerator.enumerate(x, y, blockedTriples);
+		colliders += blockedTriples.getCollidersChecked();
+		return blockedTriples;
+	}
+
+	@Override
+	public long getPathsEnumerated() {
+		return paths;
+	}
+
+	@Override
+	public long getCollidersChecked() {
+		return colliders;
+	}
+}
@@ -0,0 +1,143 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+/**
+ * Enumerates the simple paths between two vertices of the undirected skeleton of an indexed graph.
+ *
+ * The search walks vertex ids on a reusable stack and marks the vertices on the current path in
+ * a bitset, so it allocates nothing once constructed and does not depend on the vertex names.
+ * Every path is handed to a visitor as the vertex and edge ids on the stack, which are only valid
+ * during the call. An enumerator can be reused for many queries but not by several threads at once.
+ */
+public class PathEnumerator {
+
+	/**
+	 * A callback receiving the enumerated paths.
+	 */
+	public interface PathVisitor {
+
+		/**
+		 * Visit a path of the given length. Vertex i of the path is vertices[i] and the edge between
+		 * vertex i and vertex i+1 is edges[i]. The arrays are reused and must not be kept.
+		 *
+		 * @return	Whether the enumeration should continue.
+		 */
+		boolean visit(int[] vertices, int[] edges, int length);
+	}
+
+	private final IndexedGraph graph;
+	private final int[] vertices;
+	private final int[] edges;
+	/**
+	 * The next incident edge to try for every vertex on the stack.
+	 * */
+	private final int[] cursor;
+	private final long[] onPath;
+
+	public PathEnumerator(IndexedGraph graph){
+		this.graph = graph;
+		int n = graph.getVertexCount();
+		this.vertices = new int[n];
+		this.edges = new int[Math.max(n - 1, 0)];
+		this.cursor = new int[n];
+		this.onPath = new long[(n + 63) >>> 6];
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Hand every simple path from x to y to the given visitor, until it asks to stop.
+	 *
+	 * @return	The number of paths visited.
+	 */
+	public long enumerate(int x, int y, PathVisitor visitor){
+		vertices[0] = x;
+		return enumerate(vertices, edges, 1, y, visitor);
+	}
+
+	/**
+	 * Hand every simple path to y that starts with the given prefix to the given visitor,
+	 * until it asks to stop. The prefix must itself be a simple path.
+	 *
+	 * @param	prefixVertices
+	 * 			The vertices of the prefix, the last one being where the search continues.
+	 * @param	prefixEdges
+	 * 			The edges between consecutive vertices of the prefix.
+	 * @param	length
+	 * 			The number of vertices in the prefix, at least one.
+	 * @return	The number of paths visited.
+	 */
+	public long enumerate(int[] prefixVertices, int[] prefixEdges, int length, int y, PathVisitor visitor){
+		if(visitor == null) throw new IllegalArgumentException("The given visitor is not effective.");
+		if(length < 1) throw new IllegalArgumentException("The given prefix is empty.");
+		if(prefixVertices != vertices) System.arraycopy(prefixVertices, 0, vertices, 0, length);
+		if(prefixEdges != edges) System.arraycopy(prefixEdges, 0, edges, 0, length - 1);
+		for(int i = 0 ; i < length ; i++) mark(vertices[i]);
+
+		long count = 0;
+		int base = length - 1;
+		int depth = base;
+		cursor[depth] = 0;
+		while(depth >= base){
+			int v = vertices[depth];
+			if(v == y){
+				count++;
+				if(!visitor.visit(vertices, edges, depth + 1)){
+					clear(depth);
+					return count;
+				}
+				unmark(v);
+				depth--;
+				continue;
+			}
+			int index = cursor[depth];
+			if(index < graph.degree(v)){
+				cursor[depth]++;
+				int e = graph.incidentEdge(v, index);
+				int w = graph.getOpposite(e, v);
+				if(!isMarked(w)){
+					edges[depth] = e;
+					vertices[depth + 1] = w;
+					if(split(vertices, edges, depth + 2)) continue;
+					depth++;
+					cursor[depth] = 0;
+					mark(w);
+				}
+			} else {
+				unmark(v);
+				depth--;
+			}
+		}
+		clear(base - 1);
+		return count;
+	}
+
+	/**
+	 * Offer the branch continuing with the given path prefix to be enumerated elsewhere.
+	 * The arrays are reused and must be copied to be kept. This enumerator does not split.
+	 *
+	 * @return	Whether the branch was taken over, so this enumerator should skip it.
+	 */
+	protected boolean split(int[] prefixVertices, int[] prefixEdges, int length){
+		return false;
+	}
+
+	private void clear(int depth){
+		for(int i = 0 ; i <= depth ; i++) unmark(vertices[i]);
+	}
+
+	private boolean isMarked(int vertex){
+		return (onPath[vertex >>> 6] & (1L << vertex)) != 0;
+	}
+
+	private void mark(int vertex){
+		onPath[vertex >>> 6] |= 1L << vertex;
+	}
+
+	private void unmark(int vertex){
+		onPath[vertex >>> 6] &= ~(1L << vertex);
+	}
+}
@@ -0,0 +1,200 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily enumerates the simple paths between two vertices of the undirected skeleton of an indexed graph.
+ *
+ * The search state lives on the same kind of reusable stacks as in a path enumerator, so only the
+ * paths that are actually requested are produced and nothing is enumerated up front. The search only
+ * descends into a vertex from which y can still be reached without crossing the current path, so it
+ * never explores a dead end and the work between two paths is polynomial. The iteration ends when all
+ * paths were produced or one of its limits was reached, after which getStopReason() tells which one.
+ */
+public class PathIterator implements Iterator<GraphPath> {
+
+	/**
+	 * Why an iteration ended.
+	 */
+	public enum StopReason {
+		/** Every path was produced. */
+		EXHAUSTED,
+		/** The maximal number of paths was produced. */
+		MAX_PATHS,
+		/** The deadline passed. */
+		DEADLINE,
+		/** The iteration was cancelled. */
+		CANCELLED
+	}
+
+	/**
+	 * The amount of work between two checks of the deadline and the cancellation flag, counted as
+	 * search steps plus the vertices visited by the reachability checks of those steps, so a check
+	 * follows at most about this many vertex visits however large the graph is.
+	 * */
+	private static final int CHECK_INTERVAL = 1024;
+
+	private final IndexedGraph graph;
+	private final int y;
+	private final PathLimits limits;
+
+	private final int[] vertices;
+	private final int[] edges;
+	private final int[] cursor;
+	private final long[] onPath;
+	/**
+	 * The reachability search state: the search generation every vertex was last visited in, and the queue.
+	 * */
+	private final int[] visited;
+	private final int[] queue;
+	private int generation;
+	private int depth;
+	private long produced;
+	private long work;
+
+	private GraphPath next;
+	private StopReason stopReason;
+
+	public PathIterator(IndexedGraph graph, int x, int y, PathLimits limits){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(limits == null) throw new IllegalArgumentException("The given limits are not effective.");
+		this.graph = graph;
+		this.y = y;
+		this.limits = limits;
+		int n = graph.getVertexCount();
+		this.vertices = new int[n];
+		this.edges = new int[Math.max(n - 1, 0)];
+		this.cursor = new int[n];
+		this.onPath = new long[(n + 63) >>> 6];
+		this.visited = new int[n];
+		this.queue = new int[n];
+		vertices[0] = x;
+		onPath[x >>> 6] |= 1L << x;
+	}
+
+	/**
+	 * Return a sequential stream of the simple paths between x and y within the given limits.
+	 */
+	public static Stream<GraphPath> stream(IndexedGraph graph, int x, int y, PathLimits limits){
+		PathIterator iterator = new PathIterator(graph, x, y, limits);
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+	}
+
+	@Override
+	public boolean hasNext() {
+		if(next == null && stopReason == null) next = advance();
+		return next != null;
+	}
+
+	@Override
+	public GraphPath next() {
+		if(!hasNext()) throw new NoSuchElementException();
+		GraphPath result = next;
+		next = null;
+		return result;
+	}
+
+	/**
+	 * Returns why the iteration ended, or null if it has not ended yet.
+	 */
+	public StopReason getStopReason(){
+		return stopReason;
+	}
+
+	/**
+	 * Returns the number of paths produced so far.
+	 */
+	public long getProduced(){
+		return produced;
+	}
+
+	/**
+	 * Continue the search up to the next path, or return null and set the stop reason.
+	 */
+	private GraphPath advance(){
+		if(produced >= limits.getMaxPaths()) return stop(StopReason.MAX_PATHS);
+		while(depth >= 0){
+			if(++work >= CHECK_INTERVAL){
+				work = 0;
+				if(limits.isCancelled()) return stop(StopReason.CANCELLED);
+				if(limits.isExpired()) return stop(StopReason.DEADLINE);
+			}
+			int v = vertices[depth];
+			if(v == y){
+				GraphPath path = new GraphPath(graph, vertices, edges, depth + 1);
+				pop();
+				produced++;
+				return path;
+			}
+			int index = cursor[depth];
+			if(index < graph.degree(v) && depth + 1 < limits.getMaxLength()){
+				cursor[depth]++;
+				int e = graph.incidentEdge(v, index);
+				int w = graph.getOpposite(e, v);
+				if(!isOnPath(w) && canReachTarget(w)){
+					edges[depth] = e;
+					depth++;
+					vertices[depth] = w;
+					cursor[depth] = 0;
+					onPath[w >>> 6] |= 1L << w;
+				}
+			} else {
+				pop();
+			}
+		}
+		return stop(StopReason.EXHAUSTED);
+	}
+
+	/**
+	 * Check whether y can be reached from the given vertex without crossing the current path.
+	 */
+	private boolean canReachTarget(int source){
+		if(source == y) return true;
+		if(++generation == 0){
+			Arrays.fill(visited, 0);
+			generation = 1;
+		}
+		int head = 0, tail = 0;
+		queue[tail++] = source;
+		visited[source] = generation;
+		while(head < tail){
+			int v = queue[head++];
+			int degree = graph.degree(v);
+			for(int i = 0 ; i < degree ; i++){
+				int w = graph.getOpposite(graph.incidentEdge(v, i), v);
+				if(w == y){
+					work += head;
+					return true;
+				}
+				if(visited[w] != generation && !isOnPath(w)){
+					visited[w] = generation;
+					queue[tail++] = w;
+				}
+			}
+		}
+		work += head;
+		return false;
+	}
+
+	private boolean isOnPath(int vertex){
+		return (onPath[vertex >>> 6] & (1L << vertex)) != 0;
+	}
+
+	private void pop(){
+		int v = vertices[depth--];
+		onPath[v >>> 6] &= ~(1L << v);
+	}
+
+	private GraphPath stop(StopReason reason){
+		stopReason = reason;
+		return null;
+	}
+}
@@ -0,0 +1,84 @@
+package generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Immutable bounds on a path enumeration: the number of paths, the path length,
+ * a deadline and a cancellation flag. Every bound is optional.
+ */
+public final class PathLimits {
+
+	/**
+	 * Limits that do not bound the enumeration at all.
+	 * */
+	public static final PathLimits NONE = new PathLimits(Long.MAX_VALUE, Integer.MAX_VALUE, 0, false, null);
+
+	private final long maxPaths;
+	private final int maxLength;
+	private final long deadline;
+	private final boolean hasDeadline;
+	private final AtomicBoolean cancelled;
+
+	private PathLimits(long maxPaths, int maxLength, long deadline, boolean hasDeadline, AtomicBoolean cancelled){
+		this.maxPaths = maxPaths;
+		this.maxLength = maxLength;
+		this.deadline = deadline;
+		this.hasDeadline = hasDeadline;
+		this.cancelled = cancelled;
+	}
+
+	/**
+	 * Returns these limits, but stopping after the given number of paths.
+	 */
+	public PathLimits withMaxPaths(long maxPaths){
+		if(maxPaths < 0) throw new IllegalArgumentException("The given maximal number of paths is negative.");
+		return new PathLimits(maxPaths, maxLength, deadline, hasDeadline, cancelled);
+	}
+
+	/**
+	 * Returns these limits, but skipping paths with more than the given number of vertices.
+	 */
+	public PathLimits withMaxLength(int maxLength){
+		if(maxLength < 1) throw new IllegalArgumentException("The given maximal path length is not positive.");
+		return new PathLimits(maxPaths, maxLength, deadline, hasDeadline, cancelled);
+	}
+
+	/**
+	 * Returns these limits, but stopping once the given amount of time has passed from now.
+	 */
+	public PathLimits withTimeout(long timeout, TimeUnit unit){
+		return withDeadline(System.nanoTime() + unit.toNanos(timeout));
+	}
+
+	/**
+	 * Returns these limits, but stopping once System.nanoTime() passes the given deadline.
+	 */
+	public PathLimits withDeadline(long deadline){
+		return new PathLimits(maxPaths, maxLength, deadline, true, cancelled);
+	}
+
+	/**
+	 * Returns these limits, but stopping as soon as the given flag is set.
+	 */
+	public PathLimits withCancellation(AtomicBoolean cancelled){
+		if(cancelled == null) throw new IllegalArgumentException("The given cancellation flag is not effective.");
+		return new PathLimits(maxPaths, maxLength, deadline, hasDeadline, cancelled);
+	}
+
+	public long getMaxPaths(){
+		return maxPaths;
+	}
+
+	public int getMaxLength(){
+		return maxLength;
+	}
+
+	public boolean isExpired(){
+		return hasDeadline && System.nanoTime() - deadline >= 0;
+	}
+
+	public boolean isCancelled(){
+		return cancelled != null && cancelled.get();
+	}
+}
@@ -0,0 +1,73 @@
+package generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * An independence query: are x and y separated given the evidence?
+ *
+ * The evidence is kept sorted and without duplicates, so queries that differ only in the order
+ * of their evidence are equal and share the same evidence key.
+ */
+public final class Query {
+
+	private final String x;
+	private final String y;
+	private final List<String> evidence;
+
+	/**
+	 * Initializes this new query with the given vertex names.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When x, y or the evidence are not effective.
+	 * 			| x == null || y == null || evidence == null
+	 */
+	public Query(String x, String y, Collection<String> evidence){
+		if(x == null || y == null) throw new IllegalArgumentException("The given query vertices are not effective.");
+		if(evidence == null) throw new IllegalArgumentException("The given evidence is not effective.");
+		this.x = x;
+		this.y = y;
+		this.evidence = Collections.unmodifiableList(new ArrayList<String>(new TreeSet<String>(evidence)));
+	}
+
+	public String getX() {
+		return x;
+	}
+
+	public String getY() {
+		return y;
+	}
+
+	/**
+	 * Returns the evidence vertex names, sorted and without duplicates.
+	 */
+	public List<String> getEvidence() {
+		return evidence;
+	}
+
+	@Override
+	public boolean equals(Object other){
+		if(this == other) return true;
+		if(!(other instanceof Query)) return false;
+		Query query = (Query) other;
+		return x.equals(query.x) && y.equals(query.y) && evidence.equals(query.evidence);
+	}
+
+	@Override
+	public int hashCode(){
+		return 31 * (31 * x.hashCode() + y.hashCode()) + evidence.hashCode();
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder builder = new StringBuilder(x).append(" _||_ ").append(y).append(" | ");
+		for(int i = 0 ; i < evidence.size() ; i++){
+			if(i > 0) builder.append(',');
+			builder.append(evidence.get(i));
+		}
+		return builder.toString();
+	}
+}
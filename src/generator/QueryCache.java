@@ -0,0 +1,321 @@
+package generator;
+
+import generator.graph.GraphIndex;
+import generator.graph.IndexedGraph;
+import generator.graph.JungGraphAdapter;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * A bounded cache of independence query results, evicting the least recently used entry when full.
+ *
+ * Entries are keyed by the fingerprint of the network, x, y and the canonical (sorted, duplicate-free)
+ * evidence set, so a network that changes gets a new fingerprint and never hits the entries of its
+ * old version; those are evicted in time or dropped at once with invalidate(). An entry holds either
+ * only the verdict or also the connection graph, a request for a connection graph that finds only a
+ * verdict counts as a miss and replaces the entry. A cache is safe for use by several threads, misses
+ * are computed outside the lock so the same query may be computed twice when asked concurrently.
+ *
+ * Misses are answered by engines kept per network, pooled by a concurrent query runner for verdicts
+ * and one for connection graphs, with the index of the network and the evidence contexts of its most
+ * recently used evidence sets, so a miss only pays for the query itself. The engines of the most
+ * recently used networks are kept, those of a network are dropped with its entries by invalidate().
+ */
+public class QueryCache {
+
+	/**
+	 * The number of networks of which the engines are kept
+	 */
+	public static final int CACHED_NETWORKS = 16;
+
+	/**
+	 * The number of evidence contexts kept per network
+	 */
+	public static final int CACHED_CONTEXTS = 256;
+
+	private final int capacity;
+	private final Algorithm algorithm;
+	private final LinkedHashMap<Key, QueryResult> entries;
+	private final LinkedHashMap<Long, Engines> engines;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Initializes this new query cache.
+	 *
+	 * @param	capacity
+	 * 			The maximal number of results kept.
+	 * @param	algorithm
+	 * 			The algorithm to answer the missed queries with.
+	 */
+	public QueryCache(int capacity, Algorithm algorithm){
+		if(capacity < 1) throw new IllegalArgumentException("The given capacity is not positive.");
+		if(algorithm == null) throw new IllegalArgumentException("The given algorithm is not effective.");
+		this.capacity = capacity;
+		this.algorithm = algorithm;
+		this.entries = new LinkedHashMap<Key, QueryResult>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, QueryResult> eldest) {
+				if(size() <= QueryCache.this.capacity) return false;
+				evictions++;
+				return true;
+			}
+		};
+		this.engines = new LinkedHashMap<Long, Engines>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Engines> eldest) {
+				return size() > CACHED_NETWORKS;
+			}
+		};
+	}
+
+	public int getCapacity(){
+		return capacity;
+	}
+
+	public Algorithm getAlgorithm(){
+		return algorithm;
+	}
+
+	/**
+	 * Return the connection graph of the given input, from the cache if possible.
+	 */
+	public Graph<String, String> generate(GraphInput input){
+		return JungGraphAdapter.toConnectionGraph(input.getNetwork(), answer(input, input.getQuery(), true).getRemovedEdges());
+	}
+
+	/**
+	 * Return whether x and y of the given input are separated, from the cache if possible.
+	 */
+	public boolean isSeparated(GraphInput input){
+		return answer(input, input.getQuery(), false).isSeparated();
+	}
+
+	/**
+	 * Return the answer to the given query against the network of the given input, from the cache if
+	 * possible, using the index of the input for the missed queries.
+	 *
+	 * @param	connectionGraph
+	 * 			Whether the answer must include the connection graph, and not only the verdict.
+	 * @throws	IllegalArgumentException
+	 * 			When the query refers to a vertex that is not in the network.
+	 */
+	public QueryResult answer(GraphInput input, Query query, boolean connectionGraph){
+		if(input == null) throw new IllegalArgumentException("The given input is not effective.");
+		return answer(input.getNetwork(), input, query, connectionGraph);
+	}
+
+	/**
+	 * Return the answer to the given query against the given graph, from the cache if possible.
+	 *
+	 * @param	connectionGraph
+	 * 			Whether the answer must include the connection graph, and not only the verdict.
+	 * @throws	IllegalArgumentException
+	 * 			When the query refers to a vertex that is not in the graph.
+	 */
+	public QueryResult answer(IndexedGraph graph, Query query, boolean connectionGraph){
+		return answer(graph, null, query, connectionGraph);
+	}
+
+	/**
+	 * Return the answer to the given query against the given graph, using the index of the given input
+	 * if it is effective and building one otherwise.
+	 */
+	private QueryResult answer(IndexedGraph graph, GraphInput input, Query query, boolean connectionGraph){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(query == null) throw new IllegalArgumentException("The given query is not effective.");
+		Key key = new Key(graph.getFingerprint(), query);
+		synchronized(entries){
+			QueryResult cached = entries.get(key);
+			if(cached != null && (cached.hasConnectionGraph() || !connectionGraph)){
+				hits++;
+				return cached;
+			}
+			misses++;
+		}
+		QueryResult result = getEngines(graph, input).run(query, connectionGraph);
+		synchronized(entries){
+			QueryResult cached = entries.get(key);
+			if(cached == null || !cached.hasConnectionGraph()) entries.put(key, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the answers to the given queries against the given graph, in the same order.
+	 */
+	public QueryResult[] answer(IndexedGraph graph, List<Query> queries, boolean connectionGraph){
+		if(queries == null) throw new IllegalArgumentException("The given queries are not effective.");
+		QueryResult[] results = new QueryResult[queries.size()];
+		for(int i = 0 ; i < results.length ; i++){
+			results[i] = answer(graph, queries.get(i), connectionGraph);
+		}
+		return results;
+	}
+
+	/**
+	 * Return the engines of the given graph, creating them outside the lock if there are none yet.
+	 * Networks with the same fingerprint share their engines.
+	 */
+	private Engines getEngines(IndexedGraph graph, GraphInput input){
+		synchronized(engines){
+			Engines result = engines.get(graph.getFingerprint());
+			if(result != null) return result;
+		}
+		Engines created = new Engines(input != null ? input.getIndex() : new GraphIndex(graph));
+		synchronized(engines){
+			Engines result = engines.get(graph.getFingerprint());
+			if(result != null) return result;
+			engines.put(graph.getFingerprint(), created);
+			return created;
+		}
+	}
+
+	/**
+	 * Drop every entry about the given graph, and its engines.
+	 */
+	public void invalidate(IndexedGraph graph){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		long fingerprint = graph.getFingerprint();
+		synchronized(entries){
+			for(Iterator<Key> it = entries.keySet().iterator() ; it.hasNext() ; ){
+				if(it.next().fingerprint == fingerprint) it.remove();
+			}
+		}
+		synchronized(engines){
+			engines.remove(fingerprint);
+		}
+	}
+
+	/**
+	 * Drop every entry and all engines.
+	 */
+	public void invalidateAll(){
+		synchronized(entries){
+			entries.clear();
+		}
+		synchronized(engines){
+			engines.clear();
+		}
+	}
+
+	public int size(){
+		synchronized(entries){
+			return entries.size();
+		}
+	}
+
+	public long getHitCount(){
+		synchronized(entries){
+			return hits;
+		}
+	}
+
+	public long getMissCount(){
+		synchronized(entries){
+			return misses;
+		}
+	}
+
+	public long getEvictionCount(){
+		synchronized(entries){
+			return evictions;
+		}
+	}
+
+	/**
+	 * Returns the fraction of lookups that were hits, or zero if there were none.
+	 */
+	public double getHitRate(){
+		synchronized(entries){
+			long lookups = hits + misses;
+			return lookups == 0 ? 0 : (double) hits / lookups;
+		}
+	}
+
+	@Override
+	public String toString(){
+		synchronized(entries){
+			return "QueryCache[size=" + entries.size() + "/" + capacity + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "]";
+		}
+	}
+
+	/**
+	 * The engines answering the missed queries against one network, with its index and the evidence
+	 * contexts of its most recently used evidence sets.
+	 */
+	private final class Engines {
+
+		private final GraphIndex index;
+		private final ConcurrentQueryRunner verdicts;
+		private final ConcurrentQueryRunner connectionGraphs;
+		private final LinkedHashMap<List<String>, EvidenceContext> contexts;
+
+		Engines(GraphIndex index){
+			this.index = index;
+			this.verdicts = new ConcurrentQueryRunner(index, algorithm, false, ForkJoinPool.commonPool());
+			this.connectionGraphs = new ConcurrentQueryRunner(index, algorithm, true, ForkJoinPool.commonPool());
+			this.contexts = new LinkedHashMap<List<String>, EvidenceContext>(16, 0.75f, true){
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<List<String>, EvidenceContext> eldest) {
+					return size() > CACHED_CONTEXTS;
+				}
+			};
+		}
+
+		QueryResult run(Query query, boolean connectionGraph){
+			CompiledQuery compiled = CompiledQuery.compile(index.getGraph(), query);
+			EvidenceContext context;
+			synchronized(contexts){
+				context = contexts.get(query.getEvidence());
+			}
+			if(context == null){
+				context = new EvidenceContext(index, compiled);
+				synchronized(contexts){
+					contexts.put(query.getEvidence(), context);
+				}
+			}
+			return (connectionGraph ? connectionGraphs : verdicts).run(context, compiled);
+		}
+	}
+
+	/**
+	 * A cache key: the network fingerprint and the query, whose evidence is already canonical.
+	 */
+	private static final class Key {
+
+		final long fingerprint;
+		final Query query;
+
+		Key(long fingerprint, Query query){
+			this.fingerprint = fingerprint;
+			this.query = query;
+		}
+
+		@Override
+		public boolean equals(Object other){
+			if(!(other instanceof Key)) return false;
+			Key key = (Key) other;
+			return fingerprint == key.fingerprint && query.equals(key.query);
+		}
+
+		@Override
+		public int hashCode(){
+			return 31 * Long.hashCode(fingerprint) + query.hashCode();
+		}
+	}
+}
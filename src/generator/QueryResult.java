@@ -0,0 +1,55 @@
+package generator;
+
+import java.util.BitSet;
+
+/**
+ * The answer to an independence query, optionally with the edges removed from its connection graph.
+ */
+public final class QueryResult {
+
+	private final Query query;
+	private final boolean separated;
+	private final BitSet removedEdges;
+
+	public QueryResult(Query query, boolean separated, BitSet removedEdges){
+		if(query == null) throw new IllegalArgumentException("The given query is not effective.");
+		this.query = query;
+		this.separated = separated;
+		this.removedEdges = removedEdges;
+	}
+
+	public Query getQuery(){
+		return query;
+	}
+
+	/**
+	 * Returns whether x and y of the query are separated given its evidence.
+	 */
+	public boolean isSeparated(){
+		return separated;
+	}
+
+	/**
+	 * Returns a copy of the ids of the edges removed from the connection graph,
+	 * or null if the connection graph was not computed.
+	 */
+	public BitSet getRemovedEdges(){
+		return removedEdges == null ? null : (BitSet) removedEdges.clone();
+	}
+
+	/**
+	 * Returns the number of edges removed from the connection graph, or 0 if it was not computed.
+	 */
+	public int getRemovedEdgeCount(){
+		return removedEdges == null ? 0 : removedEdges.cardinality();
+	}
+
+	public boolean hasConnectionGraph(){
+		return removedEdges != null;
+	}
+
+	@Override
+	public String toString(){
+		return query + " ? " + (separated ? "Yes" : "No");
+	}
+}
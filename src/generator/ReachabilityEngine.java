@@ -0,0 +1,48 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.BitSet;
+
+/**
+ * The engine of the REACHABILITY algorithm, searching active trails from x and y.
+ * The block-cut tree of the graph is built on first use or shared with other engines.
+ */
+class ReachabilityEngine implements SeparationEngine {
+
+	private final IndexedGraph graph;
+	private BlockCutTree blockCutTree;
+	private long colliders;
+
+	ReachabilityEngine(IndexedGraph graph, BlockCutTree blockCutTree){
+		this.graph = graph;
+		this.blockCutTree = blockCutTree;
+	}
+
+	@Override
+	public IndexedGraph getGraph() {
+		return graph;
+	}
+
+	@Override
+	public boolean isSeparated(EvidenceContext evidence, int x, int y) {
+		ActiveTrailSearch search = new ActiveTrailSearch(evidence);
+		boolean result = search.isSeparated(x, y);
+		colliders += search.getCollidersChecked();
+		return result;
+	}
+
+	@Override
+	public BitSet removedEdges(EvidenceContext evidence, int x, int y) {
+		if(blockCutTree == null) blockCutTree = new BlockCutTree(graph);
+		ActiveTrailSearch search = new ActiveTrailSearch(evidence);
+		BitSet result = search.removedEdges(x, y, blockCutTree);
+		colliders += search.getCollidersChecked();
+		return result;
+	}
+
+	@Override
+	public long getCollidersChecked() {
+		return colliders;
+	}
+}
@@ -0,0 +1,44 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.BitSet;
+
+/**
+ * A strategy for deciding separation and building connection graphs of queries on one graph.
+ *
+ * Every algorithm creates its own engine, so callers can pick the strategy per workload and
+ * benchmark them against each other on the same queries. An engine may keep state about its graph
+ * between queries and is not safe for use by several threads at once.
+ */
+public interface SeparationEngine {
+
+	/**
+	 * Returns the graph the queries of this engine are asked against.
+	 */
+	IndexedGraph getGraph();
+
+	/**
+	 * Return whether x and y are separated by the evidence of the given context.
+	 */
+	boolean isSeparated(EvidenceContext evidence, int x, int y);
+
+	/**
+	 * Return the ids of the edges removed from the connection graph of x and y given the evidence of the given context.
+	 */
+	BitSet removedEdges(EvidenceContext evidence, int x, int y);
+
+	/**
+	 * Returns the number of simple paths this engine enumerated since it was created.
+	 */
+	default long getPathsEnumerated(){
+		return 0;
+	}
+
+	/**
+	 * Returns the number of times this engine checked whether a collider is active since it was created.
+	 */
+	default long getCollidersChecked(){
+		return 0;
+	}
+}
@@ -0,0 +1,253 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Whether every pair of vertices of a graph is separated by one evidence set, as a packed bit matrix:
+ * row x holds bit y when x and y are separated.
+ *
+ * The matrix is computed with the reachability search of {@link ActiveTrailSearch} run for 64 sources
+ * at once: every (vertex, direction) state holds a long of which bit i is set when it is reached from
+ * the i-th source of the block, so one pass over the graph answers 64 rows. The blocks of sources are
+ * spread over the workers of a fork-join pool. The matrix takes n * n / 8 bytes.
+ *
+ * Its binary image, as written by {@link #write}, is a header of four little-endian ints (the number of
+ * vertices n, the number of longs per row and the fingerprint of the graph as two ints) followed by
+ * the rows as little-endian longs.
+ */
+public final class SeparationMatrix {
+
+	private static final int HEADER_INTS = 4;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private final IndexedGraph graph;
+	private final int words;
+	private final long[] bits;
+
+	private SeparationMatrix(IndexedGraph graph, long[] bits){
+		this.graph = graph;
+		this.words = wordsPerRow(graph.getVertexCount());
+		this.bits = bits;
+	}
+
+	/**
+	 * Return the separation matrix of the graph of the given evidence context, computed on the common fork-join pool.
+	 */
+	public static SeparationMatrix compute(EvidenceContext evidence){
+		return compute(evidence, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Return the separation matrix of the graph of the given evidence context, computed on the given pool.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the matrix of the graph does not fit in a single array.
+	 */
+	public static SeparationMatrix compute(EvidenceContext evidence, ForkJoinPool pool){
+		if(evidence == null) throw new IllegalArgumentException("The given evidence context is not effective.");
+		if(pool == null) throw new IllegalArgumentException("The given pool is not effective.");
+		IndexedGraph graph = evidence.getGraph();
+		int n = graph.getVertexCount();
+		if((long) n * wordsPerRow(n) > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("The given graph is too large for a separation matrix.");
+		long[] bits = new long[n * wordsPerRow(n)];
+		pool.invoke(new BlockTask(evidence, bits, 0, (n + 63) >>> 6));
+		return new SeparationMatrix(graph, bits);
+	}
+
+	private static int wordsPerRow(int n){
+		return (n + 63) >>> 6;
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	public int getVertexCount(){
+		return graph.getVertexCount();
+	}
+
+	/**
+	 * Returns whether the given vertices are separated.
+	 */
+	public boolean isSeparated(int x, int y){
+		return (bits[x * words + (y >>> 6)] & (1L << y)) != 0;
+	}
+
+	/**
+	 * Returns the vertices separated from the given vertex.
+	 */
+	public BitSet getSeparated(int x){
+		long[] row = new long[words];
+		System.arraycopy(bits, x * words, row, 0, words);
+		return BitSet.valueOf(row);
+	}
+
+	/**
+	 * Returns the number of ordered pairs of separated vertices.
+	 */
+	public long countSeparated(){
+		long count = 0;
+		for(long word: bits) count += Long.bitCount(word);
+		return count;
+	}
+
+	/**
+	 * Return the number of bytes of the image of this matrix.
+	 */
+	public long getSize(){
+		return 4L * HEADER_INTS + 8L * bits.length;
+	}
+
+	/**
+	 * Write the image of this matrix to the given channel.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given channel is not effective.
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		if(channel == null) throw new IllegalArgumentException("The given channel is not effective.");
+		ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		long fingerprint = graph.getFingerprint();
+		buffer.putInt(graph.getVertexCount()).putInt(words).putInt((int) fingerprint).putInt((int) (fingerprint >>> 32));
+		for(long word: bits){
+			if(!buffer.hasRemaining()) flush(buffer, channel);
+			buffer.putLong(word);
+		}
+		flush(buffer, channel);
+	}
+
+	private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Return the matrix of the given graph in the image between the position and the limit of the given buffer.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given graph or buffer is not effective.
+	 * @throws	IllegalArgumentException
+	 * 			When the given buffer does not hold a complete image of a matrix of the given graph.
+	 */
+	public static SeparationMatrix read(IndexedGraph graph, ByteBuffer buffer){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(buffer == null) throw new IllegalArgumentException("The given buffer is not effective.");
+		ByteBuffer image = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		int n = graph.getVertexCount();
+		if(image.remaining() < 4 * HEADER_INTS) throw new IllegalArgumentException("The given buffer does not hold a separation matrix.");
+		long fingerprint = (image.getInt(8) & 0xFFFFFFFFL) | ((long) image.getInt(12) << 32);
+		if(image.getInt(0) != n || image.getInt(4) != wordsPerRow(n) || fingerprint != graph.getFingerprint()){
+			throw new IllegalArgumentException("The given buffer does not hold a separation matrix of the given graph.");
+		}
+		long[] bits = new long[n * wordsPerRow(n)];
+		if(image.remaining() < 4 * HEADER_INTS + 8L * bits.length) throw new IllegalArgumentException("The given buffer does not hold a complete separation matrix.");
+		image.position(4 * HEADER_INTS);
+		image.asLongBuffer().get(bits);
+		return new SeparationMatrix(graph, bits);
+	}
+
+	/**
+	 * Fills the rows of a range of blocks of 64 sources, splitting the range over forked tasks.
+	 */
+	private static class BlockTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final EvidenceContext evidence;
+		private final long[] bits;
+		private final int from;
+		private final int to;
+
+		BlockTask(EvidenceContext evidence, long[] bits, int from, int to){
+			this.evidence = evidence;
+			this.bits = bits;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > 1){
+				int middle = (from + to) >>> 1;
+				invokeAll(new BlockTask(evidence, bits, from, middle), new BlockTask(evidence, bits, middle, to));
+			} else if(to > from){
+				fill(from);
+			}
+		}
+
+		/**
+		 * Search from the sources of the given block and fill their rows. A state at v continues to the
+		 * children of v unless v is observed, and to the parents if it was reached from a child and v
+		 * is not observed, or from a parent and v is an active collider. A source always continues.
+		 */
+		private void fill(int block){
+			IndexedGraph graph = evidence.getGraph();
+			boolean directed = graph.isDirected();
+			int n = graph.getVertexCount(), words = wordsPerRow(n), first = block << 6, lanes = Math.min(64, n - first);
+			long[] up = new long[n], down = new long[n], sentDown = new long[n], sentUp = new long[n];
+			int[] queue = new int[n];
+			boolean[] queued = new boolean[n];
+			int head = 0, size = 0;
+			for(int lane = 0 ; lane < lanes ; lane++){
+				up[first + lane] = 1L << lane;
+				queued[first + lane] = true;
+				queue[size++] = first + lane;
+			}
+			while(size > 0){
+				int v = queue[head];
+				head = head + 1 == n ? 0 : head + 1;
+				size--;
+				queued[v] = false;
+				long source = v >= first && v < first + lanes ? 1L << (v - first) : 0;
+				long pass = evidence.isObserved(v) ? source : -1L;
+				long children = (up[v] | down[v]) & pass & ~sentDown[v];
+				if(children != 0){
+					sentDown[v] |= children;
+					for(int i = graph.outBegin(v), end = graph.outEnd(v) ; i < end ; i++){
+						int child = graph.outVertex(i);
+						if((down[child] | children) != down[child]){
+							down[child] |= children;
+							if(!queued[child]){
+								queued[child] = true;
+								queue[(head + size++) % n] = child;
+							}
+						}
+					}
+				}
+				if(!directed) continue;
+				long parents = ((up[v] & pass) | (down[v] & (evidence.isEvidenceAncestor(v) ? -1L : source))) & ~sentUp[v];
+				if(parents != 0){
+					sentUp[v] |= parents;
+					for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+						int parent = graph.inVertex(i);
+						if((up[parent] | parents) != up[parent]){
+							up[parent] |= parents;
+							if(!queued[parent]){
+								queued[parent] = true;
+								queue[(head + size++) % n] = parent;
+							}
+						}
+					}
+				}
+			}
+			long all = lanes == 64 ? -1L : (1L << lanes) - 1;
+			for(int y = 0 ; y < n ; y++){
+				long separated = ~(up[y] | down[y]) & all;
+				while(separated != 0){
+					int lane = Long.numberOfTrailingZeros(separated);
+					separated &= separated - 1;
+					bits[(first + lane) * words + (y >>> 6)] |= 1L << y;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,605 @@
+package generator;
+
+import generator.ActiveTrailSearch.Reach;
+import generator.graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Decides which of the edges crossed by active trails from x and from y lie on a simple active trail
+ * between x and y of a Bayesian network.
+ *
+ * The reachability search joins a trail from x and a trail from y at an edge, and the two trails may
+ * share vertices. So every edge is first checked by joining the paths to its ends in the search trees
+ * of x and y: when those visit no vertex twice they form a simple active trail, and all of its edges
+ * are kept. Every edge left is looked for by a depth-first search of the simple active trails through it.
+ *
+ * That search relies on the shape of simple active trails. A vertex without observed descendants is
+ * never a collider on them, so a trail that enters one from a parent goes down to an end of the trail.
+ * Every simple active trail is thus a chain of such vertices up from one end, a trail over evidence
+ * ancestors on which every vertex may be a collider, and a chain of such vertices down to the other end,
+ * unless it only visits such vertices. Whether the rest of a trail can still cross the edge is decided
+ * exactly with a block-cut tree of the evidence ancestors once the chain up from the first end is done,
+ * and only relaxed while the search climbs that chain. The search starts from x or y so that there is
+ * no such chain whenever one of them is an evidence ancestor.
+ */
+final class SimpleActiveTrails {
+
+	private final IndexedGraph graph;
+	private final EvidenceContext evidence;
+	private final Reach fromX;
+	private final Reach fromY;
+	private final boolean[] betweenXY;
+
+	private final BitSet candidates = new BitSet();
+	private final BitSet found = new BitSet();
+	private int remaining;
+
+	/**
+	 * The vertices of the current trail, with the edges before them and the directions they were reached in.
+	 */
+	private final BitSet onTrail = new BitSet();
+	private int[] vertices = new int[16];
+	private int[] edges = new int[16];
+	private int[] directions;
+	private int[] next;
+	private int length;
+
+	/**
+	 * The rest of the fields are only made for the depth-first search, which runs from start to goal.
+	 */
+	private int start;
+	private int goal;
+	/**
+	 * The states reachable from the goal without visiting the trail.
+	 */
+	private Reach toGoal;
+	/**
+	 * The edges a simple active trail can use and the vertices it can never visit.
+	 */
+	private boolean[] usable;
+	private boolean[] unusable;
+	/**
+	 * The edges of every vertex on the trail, nearest to the edge looked for or, once that is crossed,
+	 * to the goal first, with the distances to both over the usable edges.
+	 */
+	private int[][] order;
+	private int[] toTarget;
+	private int[] toEnd;
+
+	/**
+	 * The end of the trail the rest of it is prepared for, whether that rest can only go down, the
+	 * vertices it cannot visit, those together with the vertices without observed descendants, the
+	 * chain up from the end, the ends of the trail over evidence ancestors, the vertices going down to
+	 * the goal without observed descendants and the vertices the chain down to the goal can reach.
+	 * The edges the trail over evidence ancestors can cross are only found when needed.
+	 */
+	private int end;
+	private boolean descending;
+	private boolean[] excluded;
+	private boolean[] excludedAncestors;
+	private boolean[] climbed;
+	private boolean[] from;
+	private boolean[] to;
+	private boolean[] downToGoal;
+	private boolean[] marked;
+	private boolean[] joined;
+	private int[] queue;
+
+	SimpleActiveTrails(EvidenceContext evidence, Reach fromX, Reach fromY, boolean[] betweenXY){
+		this.graph = evidence.getGraph();
+		this.evidence = evidence;
+		this.fromX = fromX;
+		this.fromY = fromY;
+		this.betweenXY = betweenXY;
+	}
+
+	/**
+	 * Return those of the given edges that lie on a simple active trail between x and y. Every edge
+	 * on such a trail must be among the given edges.
+	 */
+	int[] filter(int[] edges){
+		for(int e: edges) candidates.set(e);
+		remaining = edges.length;
+		for(int e: edges){
+			if(remaining == 0) break;
+			if(!found.get(e)) joinTrees(e);
+		}
+		if(remaining > 0){
+			// Whether some simple active trail crosses an edge is decided for all of them at once.
+			prepare();
+			onTrail.clear();
+			onTrail.set(start);
+			int[] crossed = new int[remaining];
+			int count = 0;
+			if(prepareCross(start, ActiveTrailSearch.UP)){
+				for(int e: edges){
+					if(!found.get(e) && crosses(e)) crossed[count++] = e;
+				}
+			}
+			for(int i = 0 ; i < count ; i++){
+				if(!found.get(crossed[i])) search(crossed[i]);
+			}
+		}
+		int[] result = new int[edges.length];
+		int count = 0;
+		for(int e: edges){
+			if(found.get(e)) result[count++] = e;
+		}
+		return Arrays.copyOf(result, count);
+	}
+
+	/**
+	 * Try to place the given edge on a simple active trail made of the paths of the search trees of x and y
+	 * to its ends, in either direction.
+	 */
+	private void joinTrees(int e){
+		int s = graph.getSource(e), t = graph.getTarget(e);
+		int down = downState(fromX, s, e), up = upState(fromY, t, e);
+		if(down >= 0 && up >= 0 && join(down, e, up)) return;
+		up = upState(fromX, t, e);
+		down = downState(fromY, s, e);
+		if(up >= 0 && down >= 0) join(up, e, down);
+	}
+
+	/**
+	 * Return a state of the given vertex reached by the given search without the given edge, from which a
+	 * trail can continue to a child, or -1 if there is none.
+	 */
+	private int downState(Reach reach, int v, int excluded){
+		if(v == reach.source) return v << 1 | ActiveTrailSearch.UP;
+		if(evidence.isObserved(v)) return -1;
+		for(int direction = ActiveTrailSearch.UP ; direction <= ActiveTrailSearch.DOWN ; direction++){
+			int via = reach.via[direction][v];
+			if(via != Reach.NONE && via != excluded) return v << 1 | direction;
+		}
+		return -1;
+	}
+
+	/**
+	 * Return a state of the given vertex reached by the given search without the given edge, from which a
+	 * trail can continue to a parent, or -1 if there is none.
+	 */
+	private int upState(Reach reach, int v, int excluded){
+		if(v == reach.source) return v << 1 | ActiveTrailSearch.UP;
+		int via = reach.via[ActiveTrailSearch.UP][v];
+		if(via != Reach.NONE && via != excluded && !evidence.isObserved(v)) return v << 1 | ActiveTrailSearch.UP;
+		via = reach.via[ActiveTrailSearch.DOWN][v];
+		if(via != Reach.NONE && via != excluded && evidence.isEvidenceAncestor(v)) return v << 1 | ActiveTrailSearch.DOWN;
+		return -1;
+	}
+
+	/**
+	 * Join the path of the search tree of x to the given state, the given edge and the path of the search tree
+	 * of y to the other given state, and keep its edges if it visits no vertex twice.
+	 */
+	private boolean join(int stateX, int e, int stateY){
+		onTrail.clear();
+		length = 0;
+		// The path of x is traced back from its end, so it is reversed afterwards.
+		if(!trace(fromX, stateX)) return false;
+		for(int i = 0, j = length - 1 ; i < j ; i++, j--){
+			int vertex = vertices[i];
+			vertices[i] = vertices[j];
+			vertices[j] = vertex;
+		}
+		for(int i = 0, j = length - 2 ; i < j ; i++, j--){
+			int edge = edges[i];
+			edges[i] = edges[j];
+			edges[j] = edge;
+		}
+		edges[length - 1] = e;
+		if(!trace(fromY, stateY)) return false;
+		keepTrail();
+		return true;
+	}
+
+	/**
+	 * Append the vertices and edges of the path of the search tree of the given search from the given
+	 * state to its source, and return whether no vertex was visited twice.
+	 */
+	private boolean trace(Reach reach, int state){
+		while(true){
+			int v = state >> 1, direction = state & 1;
+			if(onTrail.get(v)) return false;
+			onTrail.set(v);
+			push(v);
+			int via = reach.via[direction][v];
+			if(via == Reach.SOURCE) return true;
+			edges[length - 1] = via;
+			state = graph.getOpposite(via, v) << 1 | (reach.fromDown[direction][v] ? ActiveTrailSearch.DOWN : ActiveTrailSearch.UP);
+		}
+	}
+
+	private void push(int v){
+		if(length == vertices.length){
+			vertices = Arrays.copyOf(vertices, 2 * length);
+			edges = Arrays.copyOf(edges, 2 * length);
+		}
+		vertices[length++] = v;
+	}
+
+	/**
+	 * Keep the edges of the current trail.
+	 */
+	private void keepTrail(){
+		for(int i = 0 ; i < length - 1 ; i++) keep(edges[i]);
+	}
+
+	private void keep(int e){
+		if(candidates.get(e) && !found.get(e)){
+			found.set(e);
+			remaining--;
+		}
+	}
+
+	/**
+	 * Search depth-first for a simple active trail from start to goal through the given edge, which some simple
+	 * active trail crosses, and keep its edges.
+	 *
+	 * The edges of every vertex are tried nearest to the given edge or, once that is crossed, to the goal first,
+	 * which finds most trails right away. So the search first runs unchecked for as many steps as there are
+	 * vertices, and is then repeated with its checks.
+	 */
+	private void search(int target){
+		distances(toTarget, graph.getSource(target), graph.getTarget(target));
+		if(!search(target, graph.getVertexCount())) search(target, -1);
+	}
+
+	/**
+	 * Search depth-first for a simple active trail from start to goal through the given edge, and keep its edges.
+	 * Return false if the search did not end within the given number of steps, unless that is negative.
+	 *
+	 * Without a number of steps a trail is only extended to a vertex from which a simple active trail avoiding
+	 * the vertices already on it can still cross the given edge, if the trail did not cross it yet, and reach
+	 * the goal. An active trail that visits vertices twice can be cut short to a simple active trail on its
+	 * vertices, so once the edge is crossed it is enough that an active trail to the goal is left.
+	 */
+	private boolean search(int target, int steps){
+		onTrail.clear();
+		length = 0;
+		push(start);
+		onTrail.set(start);
+		directions[0] = ActiveTrailSearch.UP;
+		sort(0, toTarget);
+		int crossed = -1;
+		while(length > 0){
+			int top = length - 1, v = vertices[top];
+			if(next[top] == order[top].length){
+				onTrail.clear(v);
+				length--;
+				if(crossed == length - 1) crossed = -1;
+				continue;
+			}
+			int f = order[top][next[top]++];
+			int w = graph.getOpposite(f, v);
+			boolean down = graph.getSource(f) == v;
+			if(onTrail.get(w) || !(down ? canDown(v) : canUp(v, directions[top]))) continue;
+			edges[top] = f;
+			if(w == goal){
+				if(crossed >= 0 || f == target){
+					length++;
+					keepTrail();
+					return true;
+				}
+				continue;
+			}
+			if(steps == 0) return false;
+			push(w);
+			onTrail.set(w);
+			if(directions.length < vertices.length){
+				directions = Arrays.copyOf(directions, vertices.length);
+				next = Arrays.copyOf(next, vertices.length);
+				order = Arrays.copyOf(order, vertices.length);
+			}
+			directions[top + 1] = down ? ActiveTrailSearch.DOWN : ActiveTrailSearch.UP;
+			if(f == target) crossed = top;
+			if(steps > 0 || feasible(target, crossed)){
+				sort(top + 1, crossed >= 0 ? toEnd : toTarget);
+				if(steps > 0) steps--;
+			} else {
+				onTrail.clear(w);
+				length--;
+				if(crossed == top) crossed = -1;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Choose the start of the search and find the edges and vertices a simple active trail between x and y
+	 * can use. Such a trail only leaves an observed vertex other than x and y to a parent, and every vertex
+	 * on it is an evidence ancestor or an ancestor of x or y.
+	 */
+	private void prepare(){
+		int n = graph.getVertexCount(), x = fromX.source, y = fromY.source;
+		boolean swap = !evidence.isEvidenceAncestor(x) && evidence.isEvidenceAncestor(y);
+		start = swap ? y : x;
+		goal = swap ? x : y;
+		toGoal = new Reach(n);
+		directions = new int[vertices.length];
+		next = new int[vertices.length];
+		order = new int[vertices.length][];
+		toTarget = new int[n];
+		toEnd = new int[n];
+		excluded = new boolean[n];
+		excludedAncestors = new boolean[n];
+		climbed = new boolean[n];
+		from = new boolean[n];
+		to = new boolean[n];
+		downToGoal = new boolean[n];
+		marked = new boolean[n];
+		queue = new int[n];
+
+		unusable = new boolean[n];
+		for(int v = 0 ; v < n ; v++) unusable[v] = !evidence.isEvidenceAncestor(v);
+		int count = 0;
+		for(int v: new int[]{x, y}){
+			if(unusable[v]){
+				unusable[v] = false;
+				queue[count++] = v;
+			}
+		}
+		while(count > 0){
+			int v = queue[--count];
+			for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+				int w = graph.inVertex(i);
+				if(unusable[w]){
+					unusable[w] = false;
+					queue[count++] = w;
+				}
+			}
+		}
+		usable = new boolean[betweenXY.length];
+		for(int e = 0 ; e < usable.length ; e++){
+			int s = graph.getSource(e);
+			usable[e] = betweenXY[e] && !unusable[s] && !unusable[graph.getTarget(e)] && (s == x || s == y || !evidence.isObserved(s));
+		}
+		distances(toEnd, goal, goal);
+	}
+
+	/**
+	 * Store the distances of all vertices to the given vertices over the usable edges into the given array.
+	 */
+	private void distances(int[] distance, int a, int b){
+		Arrays.fill(distance, Integer.MAX_VALUE);
+		distance[a] = distance[b] = 0;
+		queue[0] = a;
+		int count = a == b ? 1 : 2;
+		queue[1] = b;
+		for(int head = 0 ; head < count ; head++){
+			int u = queue[head];
+			for(int i = 0, degree = graph.degree(u) ; i < degree ; i++){
+				int f = graph.incidentEdge(u, i), w = graph.getOpposite(f, u);
+				if(usable[f] && distance[w] == Integer.MAX_VALUE){
+					distance[w] = distance[u] + 1;
+					queue[count++] = w;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Order the usable edges of the vertex at the given depth of the trail by the given distances of their
+	 * other vertices.
+	 */
+	private void sort(int depth, int[] distance){
+		int v = vertices[depth], count = 0;
+		int[] result = new int[graph.degree(v)];
+		for(int i = 0 ; i < result.length ; i++){
+			int f = graph.incidentEdge(v, i);
+			if(!usable[f]) continue;
+			int key = distance[graph.getOpposite(f, v)], j = count++;
+			for( ; j > 0 && distance[graph.getOpposite(result[j - 1], v)] > key ; j--) result[j] = result[j - 1];
+			result[j] = f;
+		}
+		order[depth] = Arrays.copyOf(result, count);
+		next[depth] = 0;
+	}
+
+	/**
+	 * Return whether the current trail can be extended to a simple active trail that crosses the given edge,
+	 * if it was not crossed yet, and ends in the goal.
+	 */
+	private boolean feasible(int target, int crossed){
+		int top = length - 1, v = vertices[top], direction = directions[top];
+		if(crossed < 0) return prepareCross(v, direction) && crosses(target);
+		reachGoalAvoidingTrail();
+		for(int i = 0, degree = graph.degree(v) ; i < degree ; i++){
+			int f = graph.incidentEdge(v, i), w = graph.getOpposite(f, v);
+			if(!usable[f] || onTrail.get(w)) continue;
+			if(graph.getSource(f) == v){
+				if(canDown(v) && toGoal.canUp(w, f)) return true;
+			} else if(canUp(v, direction) && toGoal.canDown(w, f)){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Search into the reach from the goal the states reachable by active trails over the usable edges
+	 * without visiting the vertices on the current trail.
+	 */
+	private void reachGoalAvoidingTrail(){
+		toGoal.clear(goal, evidence);
+		toGoal.arrive(ActiveTrailSearch.UP, goal, Reach.SOURCE, false);
+		for(int head = 0 ; head < toGoal.count ; head++){
+			int state = toGoal.states[head], u = state >> 1;
+			boolean down = (state & 1) == ActiveTrailSearch.DOWN;
+			if(toGoal.canDown(u, Reach.NONE)){
+				for(int i = graph.outBegin(u), end = graph.outEnd(u) ; i < end ; i++){
+					int w = graph.outVertex(i), f = graph.outEdge(i);
+					if(usable[f] && !onTrail.get(w)) toGoal.arrive(ActiveTrailSearch.DOWN, w, f, down);
+				}
+			}
+			if(u == goal || (down ? evidence.isEvidenceAncestor(u) : !evidence.isObserved(u))){
+				for(int i = graph.inBegin(u), end = graph.inEnd(u) ; i < end ; i++){
+					int w = graph.inVertex(i), f = graph.inEdge(i);
+					if(usable[f] && !onTrail.get(w)) toGoal.arrive(ActiveTrailSearch.UP, w, f, down);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Prepare deciding which edges a simple active trail continuing the current trail from the given end,
+	 * reached in the given direction, can cross before it ends in the goal without visiting the trail again,
+	 * and return whether it can continue at all.
+	 *
+	 * The rest of the trail is a trail over evidence ancestors followed by a chain down to the goal when the
+	 * end is an evidence ancestor, and a chain down to the goal when the end was reached from a parent without
+	 * being one, and both are decided exactly. Otherwise the end is still climbing the chain up from the start,
+	 * and the rest of that chain is only required to avoid the trail, not the chain down to the goal.
+	 */
+	private boolean prepareCross(int v, int direction){
+		end = v;
+		joined = null;
+		boolean ancestor = evidence.isEvidenceAncestor(v);
+		if(ancestor && v != start && evidence.isObserved(v) && direction == ActiveTrailSearch.UP) return false;
+		int n = graph.getVertexCount();
+		for(int u = 0 ; u < n ; u++){
+			excluded[u] = unusable[u] || (u != v && onTrail.get(u));
+			excludedAncestors[u] = excluded[u] || !evidence.isEvidenceAncestor(u);
+		}
+		findDownToGoal();
+		Arrays.fill(marked, false);
+		Arrays.fill(climbed, false);
+		descending = !ancestor && v != start && direction == ActiveTrailSearch.DOWN;
+		if(descending){
+			marked[v] = true;
+			queue[0] = v;
+			markDown(1);
+			return true;
+		}
+
+		// The evidence ancestors the trail over them can start from, and the chain up from the end.
+		Arrays.fill(from, false);
+		if(ancestor){
+			from[v] = true;
+		} else {
+			climbed[v] = true;
+			int count = 1;
+			queue[0] = v;
+			for(int head = 0 ; head < count ; head++){
+				int u = queue[head];
+				for(int i = graph.inBegin(u), end = graph.inEnd(u) ; i < end ; i++){
+					int w = graph.inVertex(i);
+					if(!usable[graph.inEdge(i)] || excluded[w]) continue;
+					if(evidence.isEvidenceAncestor(w)){
+						if(w == goal || !evidence.isObserved(w)) from[w] = true;
+					} else if(!climbed[w]){
+						climbed[w] = true;
+						queue[count++] = w;
+					}
+				}
+			}
+		}
+
+		// The evidence ancestors the trail over them can end in.
+		if(evidence.isEvidenceAncestor(goal)){
+			Arrays.fill(to, false);
+			to[goal] = true;
+		} else {
+			for(int u = 0 ; u < n ; u++) to[u] = !excludedAncestors[u] && canDown(u) && hasChildDownToGoal(u);
+		}
+
+		// The chain down to the goal starts from the chain up or from an evidence ancestor the trail can reach.
+		int count = 0;
+		for(int u = 0 ; u < n ; u++){
+			if(from[u]) marked[u] = true;
+			if(from[u] || climbed[u]) queue[count++] = u;
+		}
+		for(int head = 0 ; head < count ; head++){
+			int u = queue[head];
+			if(climbed[u]) continue;
+			for(int i = 0, degree = graph.degree(u) ; i < degree ; i++){
+				int f = graph.incidentEdge(u, i), w = graph.getOpposite(f, u);
+				if(usable[f] && !excludedAncestors[w] && !marked[w]){
+					marked[w] = true;
+					queue[count++] = w;
+				}
+			}
+		}
+		for(int u = 0 ; u < n ; u++){
+			marked[u] = climbed[u] || (marked[u] && canDown(u));
+		}
+		markDown(0);
+		return true;
+	}
+
+	/**
+	 * Return whether the rest of the trail that was prepared for can cross the given edge.
+	 */
+	private boolean crosses(int target){
+		int s = graph.getSource(target), t = graph.getTarget(target);
+		if(!usable[target] || (s != end && onTrail.get(s)) || (t != end && onTrail.get(t))) return false;
+		if(descending) return downToGoal[t] && marked[s];
+		if(climbed[t] && (climbed[s] || from[s])) return true;
+		if(evidence.isEvidenceAncestor(t)){
+			if(joined == null) joined = new BlockCutTree(graph, excludedAncestors, usable).edgesJoining(from, to);
+			return joined[target];
+		}
+		return downToGoal[t] && marked[s];
+	}
+
+	/**
+	 * Mark the vertices without observed descendants that go down to the goal over such vertices
+	 * avoiding the excluded vertices.
+	 */
+	private void findDownToGoal(){
+		Arrays.fill(downToGoal, false);
+		if(evidence.isEvidenceAncestor(goal)) return;
+		downToGoal[goal] = true;
+		int count = 1;
+		queue[0] = goal;
+		for(int head = 0 ; head < count ; head++){
+			int u = queue[head];
+			for(int i = graph.inBegin(u), end = graph.inEnd(u) ; i < end ; i++){
+				int w = graph.inVertex(i);
+				if(usable[graph.inEdge(i)] && !excluded[w] && !downToGoal[w] && !evidence.isEvidenceAncestor(w)){
+					downToGoal[w] = true;
+					queue[count++] = w;
+				}
+			}
+		}
+	}
+
+	private boolean hasChildDownToGoal(int v){
+		for(int i = graph.outBegin(v), end = graph.outEnd(v) ; i < end ; i++){
+			if(usable[graph.outEdge(i)] && downToGoal[graph.outVertex(i)]) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Extend the marked vertices with the vertices without observed descendants below them avoiding the
+	 * excluded vertices. The given number of marked vertices is on the queue, all of them when it is zero.
+	 */
+	private void markDown(int count){
+		if(count == 0){
+			for(int u = 0, n = graph.getVertexCount() ; u < n ; u++){
+				if(marked[u]) queue[count++] = u;
+			}
+		}
+		for(int head = 0 ; head < count ; head++){
+			int u = queue[head];
+			for(int i = graph.outBegin(u), end = graph.outEnd(u) ; i < end ; i++){
+				int w = graph.outVertex(i);
+				if(usable[graph.outEdge(i)] && !excluded[w] && !marked[w] && !evidence.isEvidenceAncestor(w)){
+					marked[w] = true;
+					queue[count++] = w;
+				}
+			}
+		}
+	}
+
+	private boolean canDown(int v){
+		return v == start || !evidence.isObserved(v);
+	}
+
+	private boolean canUp(int v, int direction){
+		return v == start || (direction == ActiveTrailSearch.UP ? !evidence.isObserved(v) : evidence.isEvidenceAncestor(v));
+	}
+}
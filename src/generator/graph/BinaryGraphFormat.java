@@ -0,0 +1,198 @@
+package generator.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary image of an indexed graph, which can be memory-mapped and used in place.
+ *
+ * The image holds every table of the graph as little-endian ints, so reading it only wraps views
+ * around the given buffer and takes the same time for any size of graph. After a header of eight
+ * ints (the number of vertices n, of edges m, the flags with bit 0 set for a directed graph, the
+ * number of name slots, the fingerprint as two ints, the number of name bytes and the length k of
+ * the out and in adjacency tables) come the tables:
+ *
+ * edgeSource[m], edgeTarget[m], outOffsets[n + 1], outEdges[k], outVertices[k], inOffsets[n + 1],
+ * inEdges[k], inVertices[k], nameOffsets[n + 1], nameSlots[slots] and finally the UTF-8 name bytes.
+ *
+ * The name slots are an open addressing table from the hash of a name to its vertex id plus one,
+ * so vertices are looked up by name without building a map first.
+ */
+public final class BinaryGraphFormat {
+
+	private static final int HEADER_INTS = 8;
+	private static final int FLAG_DIRECTED = 1;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private BinaryGraphFormat(){}
+
+	/**
+	 * Return the number of bytes of the image of the given graph.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given graph is not effective.
+	 * 			| graph == null
+	 */
+	public static long getSize(IndexedGraph graph){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		int n = graph.getVertexCount();
+		long m = graph.getEdgeCount(), k = n == 0 ? 0 : graph.outEnd(n - 1);
+		long ints = HEADER_INTS + 2 * m + 3 * (n + 1L) + 4 * k + slotCount(n);
+		long bytes = 0;
+		for(int v = 0 ; v < n ; v++) bytes += graph.getName(v).getBytes(StandardCharsets.UTF_8).length;
+		return 4 * ints + bytes;
+	}
+
+	/**
+	 * Write the image of the given graph to the given channel.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given graph or channel is not effective.
+	 * 			| graph == null || channel == null
+	 * @throws	IllegalArgumentException
+	 * 			When the image of the given graph would not fit in a single mapped buffer.
+	 * 			| getSize(graph) > Integer.MAX_VALUE
+	 */
+	public static void write(IndexedGraph graph, WritableByteChannel channel) throws IOException {
+		if(channel == null) throw new IllegalArgumentException("The given channel is not effective.");
+		if(getSize(graph) > Integer.MAX_VALUE) throw new IllegalArgumentException("The given graph is too large for a binary image.");
+		int n = graph.getVertexCount(), m = graph.getEdgeCount();
+		int k = n == 0 ? 0 : graph.outEnd(n - 1);
+		byte[][] names = new byte[n][];
+		int nameBytes = 0;
+		for(int v = 0 ; v < n ; v++){
+			names[v] = graph.getName(v).getBytes(StandardCharsets.UTF_8);
+			nameBytes += names[v].length;
+		}
+		int[] slots = new int[slotCount(n)];
+		for(int v = 0 ; v < n ; v++){
+			int slot = VertexTable.hash(graph.getName(v)) & (slots.length - 1);
+			while(slots[slot] != 0) slot = (slot + 1) & (slots.length - 1);
+			slots[slot] = v + 1;
+		}
+
+		Output out = new Output(channel);
+		long fingerprint = graph.getFingerprint();
+		out.putInt(n);
+		out.putInt(m);
+		out.putInt(graph.isDirected() ? FLAG_DIRECTED : 0);
+		out.putInt(slots.length);
+		out.putInt((int) fingerprint);
+		out.putInt((int) (fingerprint >>> 32));
+		out.putInt(nameBytes);
+		out.putInt(k);
+		for(int e = 0 ; e < m ; e++) out.putInt(graph.getSource(e));
+		for(int e = 0 ; e < m ; e++) out.putInt(graph.getTarget(e));
+		for(int v = 0 ; v <= n ; v++) out.putInt(v < n ? graph.outBegin(v) : k);
+		for(int i = 0 ; i < k ; i++) out.putInt(graph.outEdge(i));
+		for(int i = 0 ; i < k ; i++) out.putInt(graph.outVertex(i));
+		for(int v = 0 ; v <= n ; v++) out.putInt(v < n ? graph.inBegin(v) : k);
+		for(int i = 0 ; i < k ; i++) out.putInt(graph.inEdge(i));
+		for(int i = 0 ; i < k ; i++) out.putInt(graph.inVertex(i));
+		int offset = 0;
+		for(int v = 0 ; v <= n ; v++){
+			out.putInt(offset);
+			if(v < n) offset += names[v].length;
+		}
+		for(int slot: slots) out.putInt(slot);
+		for(byte[] name: names) out.put(name);
+		out.flush();
+	}
+
+	/**
+	 * Return a graph reading its tables in place from the image between the position and the limit
+	 * of the given buffer, which must not be modified afterwards.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given buffer is not effective.
+	 * 			| buffer == null
+	 * @throws	IllegalArgumentException
+	 * 			When the given buffer does not hold a complete image.
+	 */
+	public static IndexedGraph read(ByteBuffer buffer){
+		if(buffer == null) throw new IllegalArgumentException("The given buffer is not effective.");
+		ByteBuffer image = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		if(image.remaining() < 4 * HEADER_INTS) throw new IllegalArgumentException("The given buffer does not hold a graph image.");
+		int n = image.getInt(0), m = image.getInt(4), flags = image.getInt(8), slots = image.getInt(12);
+		long fingerprint = (image.getInt(16) & 0xFFFFFFFFL) | ((long) image.getInt(20) << 32);
+		int nameBytes = image.getInt(24), k = image.getInt(28);
+		long size = 4 * (HEADER_INTS + 2L * m + 3L * (n + 1) + 4L * k + slots) + nameBytes;
+		if(n < 0 || m < 0 || k < 0 || nameBytes < 0 || slots <= n || Integer.bitCount(slots) != 1 || size > image.remaining()){
+			throw new IllegalArgumentException("The given buffer does not hold a complete graph image.");
+		}
+
+		int position = 4 * HEADER_INTS;
+		IntBuffer edgeSource = ints(image, position, m);
+		IntBuffer edgeTarget = ints(image, position += 4 * m, m);
+		IntBuffer outOffsets = ints(image, position += 4 * m, n + 1);
+		IntBuffer outEdges = ints(image, position += 4 * (n + 1), k);
+		IntBuffer outVertices = ints(image, position += 4 * k, k);
+		IntBuffer inOffsets = ints(image, position += 4 * k, n + 1);
+		IntBuffer inEdges = ints(image, position += 4 * (n + 1), k);
+		IntBuffer inVertices = ints(image, position += 4 * k, k);
+		IntBuffer nameOffsets = ints(image, position += 4 * k, n + 1);
+		IntBuffer nameSlots = ints(image, position += 4 * (n + 1), slots);
+		position += 4 * slots;
+		ByteBuffer names = bytes(image, position, nameBytes);
+		if(outOffsets.get(n) != k || inOffsets.get(n) != k || nameOffsets.get(n) != nameBytes){
+			throw new IllegalArgumentException("The given buffer does not hold a consistent graph image.");
+		}
+		return new IndexedGraph((flags & FLAG_DIRECTED) != 0, new VertexTable.Mapped(names, nameOffsets, nameSlots),
+				edgeSource, edgeTarget, outOffsets, outEdges, outVertices, inOffsets, inEdges, inVertices, fingerprint);
+	}
+
+	/**
+	 * Return the number of name slots for the given number of vertices, a power of two at least twice as large.
+	 */
+	private static int slotCount(int vertices){
+		return Integer.highestOneBit(Math.max(1, vertices)) << 2;
+	}
+
+	private static IntBuffer ints(ByteBuffer image, int position, int count){
+		return bytes(image, position, 4 * count).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+	}
+
+	private static ByteBuffer bytes(ByteBuffer image, int position, int count){
+		ByteBuffer result = image.duplicate();
+		result.position(position);
+		result.limit(position + count);
+		return result.slice();
+	}
+
+	/**
+	 * A little-endian writer of ints and bytes to a channel through a fixed buffer.
+	 */
+	private static final class Output {
+
+		private final WritableByteChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+		Output(WritableByteChannel channel){
+			this.channel = channel;
+		}
+
+		void putInt(int value) throws IOException {
+			if(buffer.remaining() < 4) flush();
+			buffer.putInt(value);
+		}
+
+		void put(byte[] bytes) throws IOException {
+			for(int i = 0 ; i < bytes.length ; ){
+				if(!buffer.hasRemaining()) flush();
+				int count = Math.min(buffer.remaining(), bytes.length - i);
+				buffer.put(bytes, i, count);
+				i += count;
+			}
+		}
+
+		void flush() throws IOException {
+			buffer.flip();
+			while(buffer.hasRemaining()) channel.write(buffer);
+			buffer.clear();
+		}
+	}
+}
@@ -0,0 +1,384 @@
+package generator.graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An immutable index of the reachability structure of a directed graph, built once per graph.
+ *
+ * The index holds a topological order of the vertices and, as long as the graph is small enough
+ * for them to fit in memory, the descendants and ancestors of every vertex as bitsets. These take
+ * quadratic time and memory, so they are only built on the first question about the descendants or
+ * ancestors of a single vertex, after which asking whether any descendant of a vertex is in a set of
+ * vertices is a single bitset intersection. The ancestors of a set of vertices, all that evidence
+ * contexts ask for, are the union of their rows when these are built and are found with a search
+ * over the parents otherwise, in time linear in the ancestors found. Without the bitsets (a graph
+ * with more than MAX_CLOSURE_VERTICES vertices, or an undirected graph) every question is answered
+ * with a search over the graph. Building the bitsets does not change the answers, so an index can
+ * still be shared by several threads.
+ *
+ * An index can be written as a binary image and read back for the same graph instead of being built
+ * again. The image is a header of four little-endian ints (the number of vertices n, the flags with
+ * bit 0 set when there is a topological order and bit 1 when there are closures, and the fingerprint
+ * of the graph as two ints), the order as n ints padded to a multiple of eight bytes, then the
+ * descendant rows and the ancestor rows as (n + 63) / 64 little-endian longs each, if they are built.
+ */
+public final class GraphIndex {
+
+	/**
+	 * The maximal number of vertices for which the descendant and ancestor bitsets are built when
+	 * asked for, taking at most 2 * n * n / 8 bytes (64 MiB at this bound).
+	 * */
+	public static final int MAX_CLOSURE_VERTICES = 1 << 14;
+
+	private static final int HEADER_INTS = 4;
+	private static final int FLAG_ORDER = 1;
+	private static final int FLAG_CLOSURE = 2;
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	private final IndexedGraph graph;
+	private final int[] order;
+	private final int[] position;
+	private volatile Closure closure;
+
+	/**
+	 * Initializes this new index of the given graph.
+	 */
+	public GraphIndex(IndexedGraph graph){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		this.graph = graph;
+		this.order = graph.isDirected() ? topologicalOrder() : null;
+		if(order != null){
+			this.position = new int[order.length];
+			for(int i = 0 ; i < order.length ; i++) position[order[i]] = i;
+		} else {
+			this.position = null;
+		}
+	}
+
+	private GraphIndex(IndexedGraph graph, int[] order, Closure closure){
+		this.graph = graph;
+		this.order = order;
+		if(order != null){
+			this.position = new int[order.length];
+			for(int i = 0 ; i < order.length ; i++) position[order[i]] = i;
+		} else {
+			this.position = null;
+		}
+		this.closure = closure;
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Write the image of this index to the given channel.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given channel is not effective.
+	 */
+	public void write(WritableByteChannel channel) throws IOException {
+		if(channel == null) throw new IllegalArgumentException("The given channel is not effective.");
+		int n = graph.getVertexCount();
+		long fingerprint = graph.getFingerprint();
+		Closure closure = this.closure;
+		ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(n).putInt((order != null ? FLAG_ORDER : 0) | (closure != null ? FLAG_CLOSURE : 0));
+		buffer.putInt((int) fingerprint).putInt((int) (fingerprint >>> 32));
+		if(order != null){
+			for(int i = 0 ; i < n + (n & 1) ; i++){
+				if(!buffer.hasRemaining()) flush(buffer, channel);
+				buffer.putInt(i < n ? order[i] : 0);
+			}
+		}
+		if(closure != null){
+			for(BitSet[] rows: new BitSet[][]{closure.descendants, closure.ancestors}){
+				for(BitSet row: rows){
+					long[] words = Arrays.copyOf(row.toLongArray(), (n + 63) >>> 6);
+					for(long word: words){
+						if(!buffer.hasRemaining()) flush(buffer, channel);
+						buffer.putLong(word);
+					}
+				}
+			}
+		}
+		flush(buffer, channel);
+	}
+
+	private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) channel.write(buffer);
+		buffer.clear();
+	}
+
+	/**
+	 * Return the index of the given graph in the image between the position and the limit of the given buffer.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given graph or buffer is not effective.
+	 * @throws	IllegalArgumentException
+	 * 			When the given buffer does not hold a complete image of an index of the given graph.
+	 */
+	public static GraphIndex read(IndexedGraph graph, ByteBuffer buffer){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(buffer == null) throw new IllegalArgumentException("The given buffer is not effective.");
+		ByteBuffer image = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		int n = graph.getVertexCount(), words = (n + 63) >>> 6;
+		if(image.remaining() < 4 * HEADER_INTS) throw new IllegalArgumentException("The given buffer does not hold a graph index.");
+		int flags = image.getInt(4);
+		long fingerprint = (image.getInt(8) & 0xFFFFFFFFL) | ((long) image.getInt(12) << 32);
+		if(image.getInt(0) != n || fingerprint != graph.getFingerprint() || (flags & FLAG_ORDER) != (graph.isDirected() ? flags & FLAG_ORDER : 0)){
+			throw new IllegalArgumentException("The given buffer does not hold an index of the given graph.");
+		}
+		boolean hasOrder = (flags & FLAG_ORDER) != 0, hasClosure = (flags & FLAG_CLOSURE) != 0;
+		long size = 4L * HEADER_INTS + (hasOrder ? 4L * (n + (n & 1)) : 0) + (hasClosure ? 2 * 8L * n * words : 0);
+		if(hasClosure && !hasOrder || size > image.remaining()) throw new IllegalArgumentException("The given buffer does not hold a complete graph index.");
+		int position = 4 * HEADER_INTS;
+		int[] order = null;
+		if(hasOrder){
+			order = new int[n];
+			image.position(position);
+			image.asIntBuffer().get(order);
+			position += 4 * (n + (n & 1));
+			for(int v: order){
+				if(v < 0 || v >= n) throw new IllegalArgumentException("The given buffer does not hold a valid topological order.");
+			}
+		}
+		Closure closure = null;
+		if(hasClosure){
+			image.position(position);
+			LongBuffer rows = image.asLongBuffer();
+			long[] row = new long[words];
+			closure = new Closure(new BitSet[n], new BitSet[n]);
+			for(BitSet[] table: new BitSet[][]{closure.descendants, closure.ancestors}){
+				for(int v = 0 ; v < n ; v++){
+					rows.get(row);
+					table[v] = BitSet.valueOf(row);
+				}
+			}
+		}
+		return new GraphIndex(graph, order, closure);
+	}
+
+	/**
+	 * Returns whether the graph is directed and has no directed cycle.
+	 */
+	public boolean isAcyclic(){
+		return order != null;
+	}
+
+	/**
+	 * Returns a copy of the vertex ids in topological order, parents before children.
+	 *
+	 * @throws	IllegalStateException
+	 * 			When the graph is undirected or has a directed cycle.
+	 */
+	public int[] getTopologicalOrder(){
+		if(order == null) throw new IllegalStateException("The graph has no topological order.");
+		return Arrays.copyOf(order, order.length);
+	}
+
+	/**
+	 * Returns the position of the given vertex in the topological order.
+	 *
+	 * @throws	IllegalStateException
+	 * 			When the graph is undirected or has a directed cycle.
+	 */
+	public int getTopologicalPosition(int vertex){
+		if(position == null) throw new IllegalStateException("The graph has no topological order.");
+		return position[vertex];
+	}
+
+	/**
+	 * Returns whether the descendant and ancestor bitsets of every vertex are built, or were read with this index.
+	 */
+	public boolean hasClosure(){
+		return closure != null;
+	}
+
+	/**
+	 * Returns whether the given descendant can be reached from the given vertex along a directed path
+	 * of at least one edge.
+	 */
+	public boolean isDescendant(int vertex, int descendant){
+		Closure closure = getClosure();
+		if(closure != null) return closure.descendants[vertex].get(descendant);
+		return search(vertex, true).get(descendant);
+	}
+
+	/**
+	 * Returns a copy of the proper descendants of the given vertex.
+	 */
+	public BitSet getDescendants(int vertex){
+		Closure closure = getClosure();
+		if(closure != null) return (BitSet) closure.descendants[vertex].clone();
+		return search(vertex, true);
+	}
+
+	/**
+	 * Returns a copy of the proper ancestors of the given vertex.
+	 */
+	public BitSet getAncestors(int vertex){
+		Closure closure = getClosure();
+		if(closure != null) return (BitSet) closure.ancestors[vertex].clone();
+		return search(vertex, false);
+	}
+
+	/**
+	 * Returns whether any proper descendant of the given vertex is in the given set of vertices.
+	 */
+	public boolean hasDescendantIn(int vertex, BitSet vertices){
+		Closure closure = getClosure();
+		if(closure != null) return closure.descendants[vertex].intersects(vertices);
+		return search(vertex, true).intersects(vertices);
+	}
+
+	/**
+	 * Returns the given vertices together with all of their ancestors, without building the ancestor bitsets.
+	 */
+	public BitSet ancestorsOf(BitSet vertices){
+		BitSet result = (BitSet) vertices.clone();
+		Closure closure = this.closure;
+		if(closure != null){
+			for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)){
+				result.or(closure.ancestors[v]);
+			}
+			return result;
+		}
+		if(!graph.isDirected()) return result;
+		int[] queue = new int[graph.getVertexCount()];
+		int head = 0, tail = 0;
+		for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)) queue[tail++] = v;
+		while(head < tail){
+			int v = queue[head++];
+			for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+				int parent = graph.inVertex(i);
+				if(!result.get(parent)){
+					result.set(parent);
+					queue[tail++] = parent;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the descendant and ancestor bitsets, building them if the graph is acyclic and small
+	 * enough and they are not built yet, or null if the graph is not.
+	 */
+	private Closure getClosure(){
+		Closure result = closure;
+		if(result == null && order != null && graph.getVertexCount() <= MAX_CLOSURE_VERTICES){
+			synchronized(this){
+				if(closure == null) closure = new Closure(descendantRows(), ancestorRows());
+				result = closure;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the vertices in topological order (Kahn's algorithm), or null if there is a directed cycle.
+	 */
+	private int[] topologicalOrder(){
+		int n = graph.getVertexCount();
+		int[] indegree = new int[n];
+		int[] result = new int[n];
+		int head = 0, tail = 0;
+		for(int v = 0 ; v < n ; v++){
+			indegree[v] = graph.inDegree(v);
+			if(indegree[v] == 0) result[tail++] = v;
+		}
+		while(head < tail){
+			int v = result[head++];
+			for(int i = graph.outBegin(v), end = graph.outEnd(v) ; i < end ; i++){
+				int child = graph.outVertex(i);
+				if(--indegree[child] == 0) result[tail++] = child;
+			}
+		}
+		return tail == n ? result : null;
+	}
+
+	/**
+	 * Return the descendants of every vertex, joining the rows of the children in reverse topological order.
+	 */
+	private BitSet[] descendantRows(){
+		int n = order.length;
+		BitSet[] rows = new BitSet[n];
+		for(int i = n - 1 ; i >= 0 ; i--){
+			int v = order[i];
+			BitSet row = new BitSet(n);
+			for(int j = graph.outBegin(v), end = graph.outEnd(v) ; j < end ; j++){
+				int child = graph.outVertex(j);
+				if(row.get(child)) continue;
+				row.set(child);
+				row.or(rows[child]);
+			}
+			rows[v] = row;
+		}
+		return rows;
+	}
+
+	/**
+	 * Return the ancestors of every vertex, joining the rows of the parents in topological order.
+	 */
+	private BitSet[] ancestorRows(){
+		int n = order.length;
+		BitSet[] rows = new BitSet[n];
+		for(int i = 0 ; i < n ; i++){
+			int v = order[i];
+			BitSet row = new BitSet(n);
+			for(int j = graph.inBegin(v), end = graph.inEnd(v) ; j < end ; j++){
+				int parent = graph.inVertex(j);
+				if(row.get(parent)) continue;
+				row.set(parent);
+				row.or(rows[parent]);
+			}
+			rows[v] = row;
+		}
+		return rows;
+	}
+
+	/**
+	 * Return the proper descendants (or ancestors) of the given vertex with a search over the graph.
+	 */
+	private BitSet search(int source, boolean down){
+		BitSet result = new BitSet(graph.getVertexCount());
+		if(!graph.isDirected()) return result;
+		int[] queue = new int[graph.getVertexCount()];
+		int head = 0, tail = 0;
+		queue[tail++] = source;
+		while(head < tail){
+			int v = queue[head++];
+			int begin = down ? graph.outBegin(v) : graph.inBegin(v), end = down ? graph.outEnd(v) : graph.inEnd(v);
+			for(int i = begin ; i < end ; i++){
+				int w = down ? graph.outVertex(i) : graph.inVertex(i);
+				if(!result.get(w)){
+					result.set(w);
+					queue[tail++] = w;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The descendants and the ancestors of every vertex.
+	 */
+	private static final class Closure {
+
+		private final BitSet[] descendants;
+		private final BitSet[] ancestors;
+
+		Closure(BitSet[] descendants, BitSet[] ancestors){
+			this.descendants = descendants;
+			this.ancestors = ancestors;
+		}
+	}
+}
@@ -0,0 +1,418 @@
+package generator.graph;
+
+import java.nio.IntBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable graph with vertices and edges numbered from zero, stored in primitive int tables.
+ *
+ * Vertex names are interned to ids once, edge e runs from getSource(e) to getTarget(e) and
+ * the edges leaving and entering every vertex are kept in compressed sparse row (CSR) arrays:
+ * the edges leaving v are outEdge(i) for outBegin(v) <= i < outEnd(v), and likewise for inEdge.
+ * In an undirected graph every edge is both leaving and entering each of its endpoints, so the
+ * out (or in) range of a vertex holds all of its incident edges.
+ *
+ * The tables are int buffers, on arrays for a graph built in memory or on the pages of a
+ * memory-mapped binary graph file (see BinaryGraphFormat), read in place in both cases.
+ */
+public final class IndexedGraph {
+
+	private final boolean directed;
+	private final VertexTable vertices;
+
+	private final IntBuffer edgeSource;
+	private final IntBuffer edgeTarget;
+
+	private final IntBuffer outOffsets;
+	private final IntBuffer outEdges;
+	private final IntBuffer outVertices;
+	private final IntBuffer inOffsets;
+	private final IntBuffer inEdges;
+	private final IntBuffer inVertices;
+
+	private final long fingerprint;
+
+	private IndexedGraph(Builder builder){
+		int n = builder.vertexCount, m = builder.edgeCount;
+		int[] edgeSource = Arrays.copyOf(builder.edgeSource, m);
+		int[] edgeTarget = Arrays.copyOf(builder.edgeTarget, m);
+
+		int[] outOffsets = new int[n + 1];
+		int[] inOffsets = new int[n + 1];
+		for(int e = 0 ; e < m ; e++){
+			outOffsets[edgeSource[e] + 1]++;
+			inOffsets[edgeTarget[e] + 1]++;
+			if(!builder.directed && edgeSource[e] != edgeTarget[e]){
+				outOffsets[edgeTarget[e] + 1]++;
+				inOffsets[edgeSource[e] + 1]++;
+			}
+		}
+		for(int v = 0 ; v < n ; v++){
+			outOffsets[v + 1] += outOffsets[v];
+			inOffsets[v + 1] += inOffsets[v];
+		}
+		int[] outEdges = new int[outOffsets[n]];
+		int[] outVertices = new int[outOffsets[n]];
+		int[] inEdges = new int[inOffsets[n]];
+		int[] inVertices = new int[inOffsets[n]];
+		int[] outFill = Arrays.copyOf(outOffsets, n);
+		int[] inFill = Arrays.copyOf(inOffsets, n);
+		for(int e = 0 ; e < m ; e++){
+			int s = edgeSource[e], t = edgeTarget[e];
+			outEdges[outFill[s]] = e;
+			outVertices[outFill[s]++] = t;
+			inEdges[inFill[t]] = e;
+			inVertices[inFill[t]++] = s;
+			if(!builder.directed && s != t){
+				outEdges[outFill[t]] = e;
+				outVertices[outFill[t]++] = s;
+				inEdges[inFill[s]] = e;
+				inVertices[inFill[s]++] = t;
+			}
+		}
+		this.directed = builder.directed;
+		this.vertices = new VertexTable.InMemory(Arrays.copyOf(builder.names, n), builder.ids);
+		this.edgeSource = IntBuffer.wrap(edgeSource);
+		this.edgeTarget = IntBuffer.wrap(edgeTarget);
+		this.outOffsets = IntBuffer.wrap(outOffsets);
+		this.outEdges = IntBuffer.wrap(outEdges);
+		this.outVertices = IntBuffer.wrap(outVertices);
+		this.inOffsets = IntBuffer.wrap(inOffsets);
+		this.inEdges = IntBuffer.wrap(inEdges);
+		this.inVertices = IntBuffer.wrap(inVertices);
+		this.fingerprint = computeFingerprint();
+	}
+
+	/**
+	 * Initializes this new graph on the given tables, which are used in place and never copied,
+	 * such as views on a memory-mapped binary graph file.
+	 */
+	IndexedGraph(boolean directed, VertexTable vertices, IntBuffer edgeSource, IntBuffer edgeTarget,
+			IntBuffer outOffsets, IntBuffer outEdges, IntBuffer outVertices,
+			IntBuffer inOffsets, IntBuffer inEdges, IntBuffer inVertices, long fingerprint){
+		this.directed = directed;
+		this.vertices = vertices;
+		this.edgeSource = edgeSource;
+		this.edgeTarget = edgeTarget;
+		this.outOffsets = outOffsets;
+		this.outEdges = outEdges;
+		this.outVertices = outVertices;
+		this.inOffsets = inOffsets;
+		this.inEdges = inEdges;
+		this.inVertices = inVertices;
+		this.fingerprint = fingerprint;
+	}
+
+	public boolean isDirected(){
+		return directed;
+	}
+
+	public int getVertexCount(){
+		return vertices.size();
+	}
+
+	public int getEdgeCount(){
+		return edgeSource.limit();
+	}
+
+	/**
+	 * Returns a 64-bit hash of the directedness, the vertex names and the edges of this graph.
+	 * Graphs with the same vertices and edges, added in the same order, have the same fingerprint,
+	 * any change to the network changes it with overwhelming probability.
+	 */
+	public long getFingerprint(){
+		return fingerprint;
+	}
+
+	private long computeFingerprint(){
+		long hash = directed ? 0x9E3779B97F4A7C15L : 0xC2B2AE3D27D4EB4FL;
+		for(int v = 0 ; v < vertices.size() ; v++){
+			String name = vertices.getName(v);
+			hash = mix(hash, name.length());
+			for(int i = 0 ; i < name.length() ; i++) hash = mix(hash, name.charAt(i));
+		}
+		for(int e = 0 ; e < edgeSource.limit() ; e++){
+			hash = mix(hash, ((long) edgeSource.get(e) << 32) | edgeTarget.get(e));
+		}
+		return mix(hash, ((long) vertices.size() << 32) | edgeSource.limit());
+	}
+
+	private static long mix(long hash, long value){
+		long h = (hash ^ value) * 0xFF51AFD7ED558CCDL;
+		return h ^ (h >>> 33);
+	}
+
+	/**
+	 * Returns the name of the vertex with the given id.
+	 */
+	public String getName(int vertex){
+		return vertices.getName(vertex);
+	}
+
+	/**
+	 * Returns the id of the vertex with the given name, or -1 if there is no such vertex.
+	 */
+	public int getId(String name){
+		return vertices.getId(name);
+	}
+
+	/**
+	 * Returns the id of the vertex with the given name.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When there is no vertex with the given name.
+	 * 			| getId(name) < 0
+	 */
+	public int requireId(String name){
+		int id = getId(name);
+		if(id < 0) throw new IllegalArgumentException("Unknown vertex '" + name + "'.");
+		return id;
+	}
+
+	public boolean containsVertex(String name){
+		return vertices.getId(name) >= 0;
+	}
+
+	/**
+	 * Returns an unmodifiable view on the vertex names, indexed by vertex id.
+	 */
+	public List<String> getNames(){
+		return new AbstractList<String>() {
+			@Override
+			public String get(int index) {
+				return vertices.getName(index);
+			}
+
+			@Override
+			public int size() {
+				return vertices.size();
+			}
+		};
+	}
+
+	public int getSource(int edge){
+		return edgeSource.get(edge);
+	}
+
+	public int getTarget(int edge){
+		return edgeTarget.get(edge);
+	}
+
+	/**
+	 * Returns the endpoint of the given edge that is not the given vertex.
+	 */
+	public int getOpposite(int edge, int vertex){
+		return edgeSource.get(edge) == vertex ? edgeTarget.get(edge) : edgeSource.get(edge);
+	}
+
+	/**
+	 * Returns the name of the given edge, the names of its endpoints joined by a dash.
+	 */
+	public String getEdgeName(int edge){
+		return vertices.getName(edgeSource.get(edge)) + "-" + vertices.getName(edgeTarget.get(edge));
+	}
+
+	/**
+	 * Returns the id of an edge from the given source to the given target, or -1 if there is none.
+	 * In an undirected graph the orientation is ignored.
+	 */
+	public int findEdge(int source, int target){
+		for(int i = outOffsets.get(source) ; i < outOffsets.get(source + 1) ; i++){
+			if(outVertices.get(i) == target) return outEdges.get(i);
+		}
+		return -1;
+	}
+
+	public int outBegin(int vertex){
+		return outOffsets.get(vertex);
+	}
+
+	public int outEnd(int vertex){
+		return outOffsets.get(vertex + 1);
+	}
+
+	public int outEdge(int index){
+		return outEdges.get(index);
+	}
+
+	public int outVertex(int index){
+		return outVertices.get(index);
+	}
+
+	public int inBegin(int vertex){
+		return inOffsets.get(vertex);
+	}
+
+	public int inEnd(int vertex){
+		return inOffsets.get(vertex + 1);
+	}
+
+	public int inEdge(int index){
+		return inEdges.get(index);
+	}
+
+	public int inVertex(int index){
+		return inVertices.get(index);
+	}
+
+	public int outDegree(int vertex){
+		return outOffsets.get(vertex + 1) - outOffsets.get(vertex);
+	}
+
+	public int inDegree(int vertex){
+		return inOffsets.get(vertex + 1) - inOffsets.get(vertex);
+	}
+
+	/**
+	 * Returns the number of edges incident to the given vertex, regardless of their direction.
+	 */
+	public int degree(int vertex){
+		return directed ? outDegree(vertex) + inDegree(vertex) : outDegree(vertex);
+	}
+
+	/**
+	 * Returns the incident edge of the given vertex with the given index, regardless of direction.
+	 * The outgoing edges come first, followed by the incoming edges of a directed graph.
+	 */
+	public int incidentEdge(int vertex, int index){
+		int out = outOffsets.get(vertex + 1) - outOffsets.get(vertex);
+		return index < out ? outEdges.get(outOffsets.get(vertex) + index) : inEdges.get(inOffsets.get(vertex) + index - out);
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder builder = new StringBuilder("Vertices:");
+		for(int v = 0 ; v < vertices.size() ; v++){
+			if(v > 0) builder.append(',');
+			builder.append(vertices.getName(v));
+		}
+		builder.append("\nEdges:");
+		for(int e = 0 ; e < edgeSource.limit() ; e++){
+			builder.append(getEdgeName(e)).append('[').append(vertices.getName(edgeSource.get(e))).append(',')
+				.append(vertices.getName(edgeTarget.get(e))).append("] ");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * A builder interning vertex names and collecting edges into growable primitive arrays.
+	 */
+	public static final class Builder {
+
+		private final boolean directed;
+		private String[] names = new String[16];
+		private Map<String, Integer> ids = new HashMap<String, Integer>();
+		private int vertexCount;
+		private int[] edgeSource = new int[16];
+		private int[] edgeTarget = new int[16];
+		private EdgeSet edges = new EdgeSet();
+		private int edgeCount;
+
+		public Builder(boolean directed){
+			this.directed = directed;
+		}
+
+		/**
+		 * Add a vertex with the given name if there is none yet and return its id.
+		 *
+		 * @throws	IllegalArgumentException
+		 * 			When the given name is not effective.
+		 * 			| name == null
+		 */
+		public int addVertex(String name){
+			if(name == null) throw new IllegalArgumentException("The given vertex name is not effective.");
+			Integer id = ids.get(name);
+			if(id != null) return id;
+			if(vertexCount == names.length) names = Arrays.copyOf(names, vertexCount * 2);
+			names[vertexCount] = name;
+			ids.put(name, vertexCount);
+			return vertexCount++;
+		}
+
+		/**
+		 * Add an edge between the vertices with the given names, adding the vertices if needed.
+		 * Adding the same edge twice has no effect, as with the JUNG graphs.
+		 *
+		 * @return	The id of the new edge, or -1 if the edge was already present.
+		 */
+		public int addEdge(String source, String target){
+			return addEdge(addVertex(source), addVertex(target));
+		}
+
+		/**
+		 * Add an edge between the vertices with the given ids, which must have been added before.
+		 *
+		 * @return	The id of the new edge, or -1 if the edge was already present.
+		 * @throws	IllegalArgumentException
+		 * 			When one of the given ids is not the id of a vertex added to this builder.
+		 */
+		public int addEdge(int s, int t){
+			if(s < 0 || s >= vertexCount || t < 0 || t >= vertexCount) throw new IllegalArgumentException("Unknown vertex id.");
+			long key = directed || s <= t ? ((long) s << 32) | t : ((long) t << 32) | s;
+			if(!edges.add(key)) return -1;
+			if(edgeCount == edgeSource.length){
+				edgeSource = Arrays.copyOf(edgeSource, edgeCount * 2);
+				edgeTarget = Arrays.copyOf(edgeTarget, edgeCount * 2);
+			}
+			edgeSource[edgeCount] = s;
+			edgeTarget[edgeCount] = t;
+			return edgeCount++;
+		}
+
+		public IndexedGraph build(){
+			IndexedGraph graph = new IndexedGraph(this);
+			names = null;
+			ids = null;
+			edges = null;
+			return graph;
+		}
+	}
+
+	/**
+	 * An open addressing hash set of edge keys, avoiding a boxed Long per edge while building.
+	 */
+	private static final class EdgeSet {
+
+		private long[] keys = new long[64];
+		private boolean[] used = new boolean[64];
+		private int size;
+
+		boolean add(long key){
+			if(2 * (size + 1) > keys.length) grow();
+			int mask = keys.length - 1;
+			int i = hash(key) & mask;
+			while(used[i]){
+				if(keys[i] == key) return false;
+				i = (i + 1) & mask;
+			}
+			used[i] = true;
+			keys[i] = key;
+			size++;
+			return true;
+		}
+
+		private void grow(){
+			long[] oldKeys = keys;
+			boolean[] oldUsed = used;
+			keys = new long[oldKeys.length * 2];
+			used = new boolean[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for(int j = 0 ; j < oldKeys.length ; j++){
+				if(!oldUsed[j]) continue;
+				int i = hash(oldKeys[j]) & mask;
+				while(used[i]) i = (i + 1) & mask;
+				used[i] = true;
+				keys[i] = oldKeys[j];
+			}
+		}
+
+		private static int hash(long key){
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32));
+		}
+	}
+}
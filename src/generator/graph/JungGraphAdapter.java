@@ -0,0 +1,68 @@
+package generator.graph;
+
+import java.util.BitSet;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.SparseGraph;
+import edu.uci.ics.jung.graph.util.EdgeType;
+
+/**
+ * Converts indexed graphs to JUNG graphs, for visualization.
+ *
+ * Vertices keep their names and every edge is named after its endpoints, joined by a dash.
+ */
+public class JungGraphAdapter {
+
+	private JungGraphAdapter(){}
+
+	/**
+	 * Return a new JUNG graph with the vertices and edges of the given indexed graph.
+	 */
+	public static Graph<String, String> toGraph(IndexedGraph graph){
+		EdgeType edgeType = graph.isDirected() ? EdgeType.DIRECTED : EdgeType.UNDIRECTED;
+		Graph<String, String> result = new SparseGraph<String, String>();
+		for(int v = 0 ; v < graph.getVertexCount() ; v++){
+			result.addVertex(graph.getName(v));
+		}
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			result.addEdge(graph.getEdgeName(e), graph.getName(graph.getSource(e)), graph.getName(graph.getTarget(e)), edgeType);
+		}
+		return result;
+	}
+
+	/**
+	 * Return a new undirected JUNG graph with all vertices of the given indexed graph
+	 * and those of its edges that are not in the given set of removed edges.
+	 */
+	public static Graph<String, String> toConnectionGraph(IndexedGraph graph, BitSet removed){
+		Graph<String, String> result = new SparseGraph<String, String>();
+		for(int v = 0 ; v < graph.getVertexCount() ; v++){
+			result.addVertex(graph.getName(v));
+		}
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			if(removed.get(e)) continue;
+			result.addEdge(graph.getEdgeName(e), graph.getName(graph.getSource(e)), graph.getName(graph.getTarget(e)), EdgeType.UNDIRECTED);
+		}
+		return result;
+	}
+
+	/**
+	 * Return a new JUNG graph with the given vertices of the given indexed graph and the edges between them.
+	 * Vertices and edges are identified by their ids in the indexed graph, so that drawing them never
+	 * looks up a name and state per vertex or edge can be kept in bitsets.
+	 */
+	public static Graph<Integer, Integer> toSubgraph(IndexedGraph graph, BitSet vertices){
+		EdgeType edgeType = graph.isDirected() ? EdgeType.DIRECTED : EdgeType.UNDIRECTED;
+		Graph<Integer, Integer> result = new SparseGraph<Integer, Integer>();
+		for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)){
+			result.addVertex(v);
+		}
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			int source = graph.getSource(e), target = graph.getTarget(e);
+			if(vertices.get(source) && vertices.get(target)){
+				result.addEdge(e, source, target, edgeType);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,114 @@
+package generator.graph;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * The vertex names of an indexed graph and the ids they are interned to.
+ *
+ * A table either holds the names in memory, or decodes them on demand from the name table of a
+ * binary graph file, so mapping a file does not decode or hash a single name up front.
+ */
+abstract class VertexTable {
+
+	abstract int size();
+
+	abstract String getName(int vertex);
+
+	/**
+	 * Return the id of the vertex with the given name, or -1 if there is no such vertex.
+	 */
+	abstract int getId(String name);
+
+	/**
+	 * Return the hash of the given name that places it in the slots of a binary name table.
+	 */
+	static int hash(String name){
+		int hash = name.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * A vertex table on an array of names and a map from names to ids.
+	 */
+	static final class InMemory extends VertexTable {
+
+		private final String[] names;
+		private final Map<String, Integer> ids;
+
+		InMemory(String[] names, Map<String, Integer> ids){
+			this.names = names;
+			this.ids = ids;
+		}
+
+		@Override
+		int size(){
+			return names.length;
+		}
+
+		@Override
+		String getName(int vertex){
+			return names[vertex];
+		}
+
+		@Override
+		int getId(String name){
+			Integer id = ids.get(name);
+			return id == null ? -1 : id;
+		}
+	}
+
+	/**
+	 * A vertex table on the UTF-8 bytes of the names, the offsets of the names in them and an open
+	 * addressing table of slots holding the id plus one of the vertex placed there, zero if empty.
+	 */
+	static final class Mapped extends VertexTable {
+
+		private final ByteBuffer bytes;
+		private final IntBuffer offsets;
+		private final IntBuffer slots;
+
+		Mapped(ByteBuffer bytes, IntBuffer offsets, IntBuffer slots){
+			this.bytes = bytes;
+			this.offsets = offsets;
+			this.slots = slots;
+		}
+
+		@Override
+		int size(){
+			return offsets.limit() - 1;
+		}
+
+		@Override
+		String getName(int vertex){
+			int start = offsets.get(vertex), end = offsets.get(vertex + 1);
+			byte[] name = new byte[end - start];
+			for(int i = 0 ; i < name.length ; i++) name[i] = bytes.get(start + i);
+			return new String(name, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		int getId(String name){
+			if(name == null) return -1;
+			byte[] encoded = null;
+			int mask = slots.limit() - 1;
+			for(int slot = hash(name) & mask ; ; slot = (slot + 1) & mask){
+				int entry = slots.get(slot);
+				if(entry == 0) return -1;
+				if(encoded == null) encoded = name.getBytes(StandardCharsets.UTF_8);
+				if(hasName(entry - 1, encoded)) return entry - 1;
+			}
+		}
+
+		private boolean hasName(int vertex, byte[] name){
+			int start = offsets.get(vertex);
+			if(offsets.get(vertex + 1) - start != name.length) return false;
+			for(int i = 0 ; i < name.length ; i++){
+				if(bytes.get(start + i) != name[i]) return false;
+			}
+			return true;
+		}
+	}
+}
@@ -1,8 +1,10 @@
 package io;
 
 import generator.GraphInput;
+import io.cache.NetworkCache;
 import io.parser.file.FileInputParser;
 import io.parser.file.FileInputParserFactory;
+import io.parser.file.cggb.CggbFileInputParser;
 
 import java.io.FileNotFoundException;
 
@@ -98,9 +100,16 @@ public class FileInputHandler {
 	 * @throws 	IllegalArgumentException 
 	 * 			When given file is not found.
 	 * 			| when FileNotFoundException is thrown
+	 * @effect	If a default network cache is configured and the file is not a CGGB file, which is
+	 * 			mapped in place already, the file is loaded through the cache.
+	 * 			| if (NetworkCache.getDefault() != null && !(getParser() instanceof CggbFileInputParser))
+	 * 			|	then NetworkCache.getDefault().load(getFileName(), getParser())
+	 * 			|	else getParser().parseFile(getFileName())
 	 */
 	public GraphInput constructGraph() {
 		try {
+			NetworkCache cache = NetworkCache.getDefault();
+			if(cache != null && !(getParser() instanceof CggbFileInputParser)) return cache.load(getFileName(), getParser());
 			return getParser().parseFile(getFileName());
 		} catch (FileNotFoundException e) {
 			throw new IllegalArgumentException("The given file was not found.");
@@ -0,0 +1,255 @@
+package io.cache;
+
+import generator.GraphInput;
+import generator.graph.GraphIndex;
+import io.parser.file.FileInputParser;
+import io.parser.file.cggb.CggbConverter;
+import io.parser.file.cggb.CggbFileInputParser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A class to represent a content-addressed cache of parsed networks and their indices in a local directory.
+ *
+ * An entry is keyed by the SHA-256 hash of the contents of the input file, the format it is parsed
+ * as and the version of the cache, so an input file that changes, or a new version of the cache, gets
+ * a new entry and never reads an old one. An entry is a CGGB file of the parsed input, which is
+ * memory-mapped and used in place, next to the image of its graph index. An entry that cannot be
+ * read, or of which the index is not an index of its network, is deleted and parsed again. Entries
+ * are written to a temporary file and moved into place, so concurrent processes never read half an
+ * entry. After an entry is written, the least recently used entries are deleted until the directory
+ * holds at most the maximal number of bytes again.
+ *
+ * The default cache is configured with the system properties cgg.cache.dir, the directory, and
+ * cgg.cache.maxBytes, the maximal size (1 GiB by default). Without a directory there is no default cache.
+ */
+public class NetworkCache {
+
+	/**
+	 * The version of the entries written by this cache, part of every key.
+	 * */
+	public static final int VERSION = 1;
+	/**
+	 * The maximal size in bytes of the default cache, when it is not configured.
+	 * */
+	public static final long DEFAULT_MAX_BYTES = 1L << 30;
+
+	private static final String GRAPH_SUFFIX = ".cggb";
+	private static final String INDEX_SUFFIX = ".idx";
+	private static final int HASH_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Variable referencing the directory of this network cache
+	 * */
+	private final File directory;
+	/**
+	 * Variable registering the maximal number of bytes of the entries of this network cache
+	 * */
+	private final long maxBytes;
+	/**
+	 * Variables registering the number of hits and misses of this network cache
+	 * */
+	private final AtomicLong hits = new AtomicLong(), misses = new AtomicLong();
+
+	/**
+	 * Initializes this new network cache in the given directory, creating it if it does not exist.
+	 *
+	 * @param	directory
+	 * 			The given directory.
+	 * @param	maxBytes
+	 * 			The maximal number of bytes of the entries in the given directory.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given directory is not effective or the given size is negative.
+	 * 			| directory == null || maxBytes < 0
+	 * @throws	IllegalArgumentException
+	 * 			When the given directory does not exist and cannot be created.
+	 */
+	public NetworkCache(File directory, long maxBytes){
+		if(directory == null) throw new IllegalArgumentException("The given directory is not effective.");
+		if(maxBytes < 0) throw new IllegalArgumentException("The given size is negative.");
+		if(!directory.isDirectory() && !directory.mkdirs()) throw new IllegalArgumentException("The given directory cannot be created.");
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the cache configured by the system properties cgg.cache.dir and cgg.cache.maxBytes,
+	 * or null if no directory is configured.
+	 */
+	public static NetworkCache getDefault(){
+		return Default.CACHE;
+	}
+
+	/**
+	 * Holds the default cache, created when it is first asked for.
+	 * */
+	private static class Default {
+
+		static final NetworkCache CACHE = System.getProperty("cgg.cache.dir") == null ? null
+				: new NetworkCache(new File(System.getProperty("cgg.cache.dir")), Long.getLong("cgg.cache.maxBytes", DEFAULT_MAX_BYTES));
+	}
+
+	/**
+	 * Returns the directory of this network cache.
+	 * */
+	public File getDirectory(){
+		return directory;
+	}
+
+	/**
+	 * Returns the maximal number of bytes of the entries of this network cache.
+	 * */
+	public long getMaxBytes(){
+		return maxBytes;
+	}
+
+	/**
+	 * Returns the number of files loaded from an entry of this cache.
+	 * */
+	public long getHits(){
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of files parsed because this cache had no entry for them.
+	 * */
+	public long getMisses(){
+		return misses.get();
+	}
+
+	/**
+	 * Load the given file from its entry in this cache, or parse it with the given parser, build its
+	 * index and add both to this cache if there is no entry for it.
+	 *
+	 * @param	fileName
+	 * 			The given file name.
+	 * @param	parser
+	 * 			The given parser.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given file name or parser is not effective.
+	 * 			| fileName == null || parser == null
+	 * @throws	FileNotFoundException
+	 * 			When the given file does not exist.
+	 * @return	The parsed input, with its index.
+	 */
+	public GraphInput load(String fileName, FileInputParser parser) throws FileNotFoundException {
+		if(fileName == null) throw new IllegalArgumentException("The given file name is not effective.");
+		if(parser == null) throw new IllegalArgumentException("The given parser is not effective.");
+		String key = hash(fileName) + "-" + parser.getSupportedFileExtension().toLowerCase(Locale.ROOT) + "-v" + VERSION;
+		File graph = new File(directory, key + GRAPH_SUFFIX), index = new File(directory, key + INDEX_SUFFIX);
+		if(graph.isFile() && index.isFile()){
+			try {
+				GraphInput input = new CggbFileInputParser().parseFile(graph.getPath());
+				input.setIndex(GraphIndex.read(input.getNetwork(), map(index)));
+				long now = System.currentTimeMillis();
+				graph.setLastModified(now);
+				index.setLastModified(now);
+				hits.incrementAndGet();
+				return input;
+			} catch (RuntimeException | IOException e) {
+				// A damaged or stale entry, parse the file again and replace it.
+				graph.delete();
+				index.delete();
+			}
+		}
+		misses.incrementAndGet();
+		GraphInput input = parser.parseFile(fileName);
+		try {
+			store(input, graph, index);
+			evict();
+		} catch (IOException | RuntimeException e) {
+			// The cache only saves time, a network that cannot be cached is still returned.
+		}
+		return input;
+	}
+
+	/**
+	 * Write the given input and its index to temporary files and move them to the given files.
+	 * */
+	private void store(GraphInput input, File graph, File index) throws IOException {
+		File graphTemp = File.createTempFile("entry", GRAPH_SUFFIX + ".tmp", directory);
+		File indexTemp = File.createTempFile("entry", INDEX_SUFFIX + ".tmp", directory);
+		try {
+			CggbConverter.write(input, graphTemp.getPath());
+			try (FileOutputStream out = new FileOutputStream(indexTemp); FileChannel channel = out.getChannel()) {
+				input.getIndex().write(channel);
+			}
+			move(indexTemp, index);
+			move(graphTemp, graph);
+		} finally {
+			graphTemp.delete();
+			indexTemp.delete();
+		}
+	}
+
+	private static void move(File from, File to) throws IOException {
+		try {
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Delete the least recently used entries of this cache until its entries take at most the maximal number of bytes.
+	 * */
+	private void evict(){
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(GRAPH_SUFFIX) || name.endsWith(INDEX_SUFFIX));
+		if(files == null) return;
+		long size = 0;
+		for(File file: files) size += file.length();
+		if(size <= maxBytes) return;
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for(int i = 0 ; i < files.length && size > maxBytes ; i++){
+			long length = files[i].length();
+			if(files[i].delete()) size -= length;
+		}
+	}
+
+	/**
+	 * Return the hexadecimal SHA-256 hash of the contents of the given file.
+	 * */
+	private static String hash(String fileName) throws FileNotFoundException {
+		try (FileInputStream in = new FileInputStream(fileName); FileChannel channel = in.getChannel()) {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+			while(channel.read(buffer) >= 0){
+				buffer.flip();
+				digest.update(buffer);
+				buffer.clear();
+			}
+			StringBuilder result = new StringBuilder();
+			for(byte b: digest.digest()) result.append(String.format(Locale.ROOT, "%02x", b));
+			return result.toString();
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static ByteBuffer map(File file) throws IOException {
+		try (FileInputStream in = new FileInputStream(file); FileChannel channel = in.getChannel()) {
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+}
@@ -7,6 +7,9 @@ import java.io.FileNotFoundException;
 /**
  * An interface for file input parsers.
  * 
+ * Parsers are shared by the file input parser factory, so implementations must be reentrant:
+ * parsing a file may not leave state in the parser that another parse could observe.
+ * 
  * @author 	Jeff Horemans
  * @version 1.4
  */
@@ -1,8 +1,8 @@
 package io.parser.file;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -15,6 +15,7 @@ public class FileInputParserFactory {
 	
 	/**
 	 * Class variable that references a map of parsers that this factory can create.
+	 * The parsers are shared, so every registered parser must be safe to use by several threads at once.
 	 * */
 	private static Map<String,FileInputParser> parsers;
 	
@@ -28,7 +29,7 @@ public class FileInputParserFactory {
 	 * service provider declared into  the file META-INF/services/domain.io.parser.file.FileInputParser
 	 * */
 	static {
-		parsers = new HashMap<String, FileInputParser>();
+		parsers = new ConcurrentHashMap<String, FileInputParser>();
 		for (FileInputParser parser : ServiceLoader.load(FileInputParser.class)){
 			register(parser);
 		}
@@ -57,6 +58,19 @@ public class FileInputParserFactory {
 		return parser;
 	}
 
+	/**
+	 * Returns whether there is a parser for the given file extension.
+	 *
+	 * @param	extension
+	 * 			The given file extension
+	 *
+	 * @return	True if, and only if, the given extension is effective and is a key of the parsers map.
+	 * 			| result == (extension != null && parsers.get(extension.toUpperCase()) != null)
+	 */
+	public static boolean isSupported(String extension){
+		return extension != null && parsers.containsKey(extension.toUpperCase());
+	}
+
 	/**
 	 * Register a given file input parser.
 	 * 
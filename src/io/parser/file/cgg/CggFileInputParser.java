@@ -1,17 +1,23 @@
 package io.parser.file.cgg;
 import generator.GraphInput;
+import generator.Query;
+import generator.graph.IndexedGraph;
 import io.parser.file.FileInputParser;
 
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.StreamTokenizer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.SparseGraph;
-import edu.uci.ics.jung.graph.util.EdgeType;
+import metrics.Metrics;
+import metrics.ParseEvent;
+
 /**
  * A class to represent an abstract YAML file input parser strategy.
  * 
@@ -20,22 +26,106 @@ import edu.uci.ics.jung.graph.util.EdgeType;
  */
 public class CggFileInputParser implements FileInputParser {
 	
+	/**
+	 * The size in bytes from which files are memory-mapped instead of read into a buffer.
+	 * */
+	private static final long MAP_THRESHOLD = 1 << 20;
+	
 	/**
 	 * Variable registering the tokenizer of this YAML file input parser
 	 * */
 	private StreamTokenizer tokenizer;
+	/**
+	 * Variable registering the byte-level lexer of this YAML file input parser,
+	 * used instead of the tokenizer when effective
+	 * */
+	private CggLexer lexer;
+	/**
+	 * Variable registering the vertex id of every string index of the lexer, -1 if not known yet
+	 * */
+	private int[] vertexIds = new int[0];
+	/**
+	 * Variable registering the number of bytes and of tokens read by this YAML file input parser
+	 * */
+	private long bytes, tokens;
 	
 	/**
 	 * Parse the given file and initialize the given manger with the parsed objects.
 	 * 
-	 * @param 	manager 
-	 * 			The given system manager.
+	 * Every call parses on a new parser instance with its own tokenizer, so one shared
+	 * parser can be used by several threads at once. The file is scanned as bytes by a
+	 * byte-level lexer, small files from a buffer and large files memory-mapped, in windows
+	 * if they are too large to map at once. When metrics are
+	 * recorded, the size, the number of tokens and the time taken are recorded for the file.
+	 * 
 	 * @param	fileName
 	 * 			The given file name.
 	 * 
 	 * @throws	IllegalArgumentException
-	 * 			When the given manager or file name are not effective.
-	 * 			| field == null || fileName == null
+	 * 			When the given file name is not effective.
+	 * 			| fileName == null
+	 * @effect	The given file is parsed by a new parser instance from a buffer with its contents,
+	 * 			or from its channel mapped in windows if it is too large to map at once.
+	 * 			| if (size(fileName) <= Integer.MAX_VALUE)
+	 * 			| 	then newInstance().parse(contents(fileName))
+	 * 			| 	else newInstance().parse(channel(fileName))
+	 */
+	@Override
+	public final GraphInput parseFile(String fileName) throws FileNotFoundException{
+		if(fileName == null) throw new IllegalArgumentException("The given file name is not effective.");
+		Metrics metrics = Metrics.get();
+		if(!metrics.isRecording()) return newInstance().read(fileName);
+		ParseEvent event = new ParseEvent();
+		event.begin();
+		long start = System.nanoTime();
+		CggFileInputParser parser = newInstance();
+		GraphInput result = parser.read(fileName);
+		IndexedGraph graph = result.getNetwork();
+		metrics.parsed(event, getSupportedFileExtension(), fileName, parser.bytes, parser.tokens,
+				graph.getVertexCount(), graph.getEdgeCount(), System.nanoTime() - start);
+		return result;
+	}
+	
+	/**
+	 * Parse the given file on this parser, small files from a buffer and large files memory-mapped,
+	 * in windows if it is too large to map at once.
+	 */
+	private GraphInput read(String fileName) throws FileNotFoundException{
+		try (FileInputStream in = new FileInputStream(fileName); FileChannel channel = in.getChannel()) {
+			long size = channel.size();
+			bytes = size;
+			if(size > Integer.MAX_VALUE) return parse(channel);
+			ByteBuffer buffer;
+			if(size >= MAP_THRESHOLD){
+				buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			} else {
+				buffer = ByteBuffer.allocate((int) size);
+				while(buffer.hasRemaining()){
+					if(channel.read(buffer) < 0) break;
+				}
+				buffer.flip();
+			}
+			return parse(buffer);
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Returns a new parser of the same kind as this parser, to parse a single file.
+	 * */
+	protected CggFileInputParser newInstance(){
+		return new CggFileInputParser();
+	}
+	
+	/**
+	 * Parse the contents read from the given reader.
+	 * 
+	 * @param	reader
+	 * 			The given reader.
+	 * 
 	 * @effect	The tokenizer of this YAML file input parser is initialized as an effective stream tokenizer.
 	 * 			| new.getTokenizer() != null
 	 * @effect	The expected file structure of this YAML file input parser is set to the result of
@@ -48,31 +138,62 @@ public class CggFileInputParser implements FileInputParser {
 	 * @effect	Return the populated manager.
 	 * 			| populateManager(manager)
 	 */
-	@Override
-	public final GraphInput parseFile(String fileName) throws FileNotFoundException{
-		if(fileName == null) throw new IllegalArgumentException("The given file name is not effective.");
-		setTokenizer(new StreamTokenizer(new FileReader(fileName)));
+	protected GraphInput parse(Reader reader){
+		setTokenizer(new StreamTokenizer(reader));
 		setCommentHandling();
-		
-		Graph<String, String> graph = new SparseGraph<String, String>();
-		EdgeType edgeType;
-		
+		return parseFileStructure();
+	}
+	
+	/**
+	 * Parse the UTF-8 contents of the given buffer, between its position and limit.
+	 * 
+	 * @param	buffer
+	 * 			The given buffer.
+	 * 
+	 * @effect	The lexer of this YAML file input parser is initialized as a byte-level lexer on the given buffer.
+	 * 			| new.lexer != null
+	 * @effect	The expected file structure of this YAML file input parser is parsed.
+	 * 			| parseFileStructure()
+	 */
+	protected GraphInput parse(ByteBuffer buffer){
+		this.lexer = new CggLexer(buffer);
+		return parseFileStructure();
+	}
+	
+	/**
+	 * Parse the UTF-8 contents of the given file channel, mapped in windows.
+	 * 
+	 * @param	channel
+	 * 			The given file channel.
+	 * 
+	 * @effect	The lexer of this YAML file input parser is initialized as a byte-level lexer on the given channel.
+	 * 			| new.lexer != null
+	 * @effect	The expected file structure of this YAML file input parser is parsed.
+	 * 			| parseFileStructure()
+	 */
+	protected GraphInput parse(FileChannel channel){
+		this.lexer = new CggLexer(channel);
+		return parseFileStructure();
+	}
+	
+	/**
+	 * Parse the expected file structure from the tokens of the tokenizer or lexer of this YAML file input parser.
+	 */
+	protected GraphInput parseFileStructure(){
 		nextToken();
 		String type = expectEnumField("type", new String[]{"Bayesian", "Markov"});
-		if("Markov".equals(type)) edgeType = EdgeType.UNDIRECTED;
-		else edgeType = EdgeType.DIRECTED;
+		IndexedGraph.Builder graph = new IndexedGraph.Builder(!"Markov".equals(type));
 		expectLabel("vertices");
 		while (getTokenType() == '-') {
 			expectChar('-');
-			String name = expectStringField("name");
-			graph.addVertex(name);
+			expectVertexField("name", graph);
 		}
 		expectLabel("edges");
 		while (getTokenType() == '-') {
 			expectChar('-');
-			String v1 = expectStringField("v1");
-			String v2 = expectStringField("v2");
-			graph.addEdge(v1 + "-" + v2, v1, v2, edgeType);
+			int v1 = expectVertexField("v1", graph);
+			int v2 = expectVertexField("v2", graph);
+			graph.addEdge(v1, v2);
 		}
 		String x = expectStringField("x");
 		String y = expectStringField("y");
@@ -85,10 +206,21 @@ public class CggFileInputParser implements FileInputParser {
 			evidence.add(name);
 		}
 		
+		List<Query> queries = new ArrayList<Query>();
+		if (isWord("queries")) {
+			expectLabel("queries");
+			while (getTokenType() == '-') {
+				expectChar('-');
+				String queryX = expectStringField("x");
+				String queryY = expectStringField("y");
+				queries.add(new Query(queryX, queryY, expectStringListField("evidence")));
+			}
+		}
+		
 		if (getTokenType() != StreamTokenizer.TT_EOF){
 			error("End of file or '-' expected");
 		}
-		return new GraphInput(graph, type, x, y, evidence);
+		return new GraphInput(graph.build(), type, x, y, evidence, queries);
 	}
 	
 	/**
@@ -110,6 +242,8 @@ public class CggFileInputParser implements FileInputParser {
 	 * 			When an IOException is thrown
 	 * */
 	public int nextToken() {
+		tokens++;
+		if(lexer != null) return lexer.nextToken();
 		try {
 			return tokenizer.nextToken();
 		} catch (IOException e) {
@@ -135,6 +269,7 @@ public class CggFileInputParser implements FileInputParser {
 	 * 			| tokenizer.lineno()
 	 * */
 	public int getLineNo(){
+		if(lexer != null) return lexer.getLineNo();
 		return tokenizer.lineno();
 	}
 	
@@ -149,6 +284,7 @@ public class CggFileInputParser implements FileInputParser {
 	 * 			| getTokenType() == StreamTokenizer.TT_WORD && getCurrentStringValue().equals(word)
 	 * */
 	protected boolean isWord(String word) {
+		if(lexer != null) return lexer.isWord(word);
 		return getTokenType() == StreamTokenizer.TT_WORD && getCurrentStringValue().equals(word);
 	}
 	
@@ -159,6 +295,7 @@ public class CggFileInputParser implements FileInputParser {
 	 * 			| getTokenizer().sval
 	 * */
 	public String getCurrentStringValue(){
+		if(lexer != null) return lexer.getStringValue();
 		return tokenizer.sval;
 	}
 	
@@ -169,6 +306,7 @@ public class CggFileInputParser implements FileInputParser {
 	 * 			| getTokenizer().nval
 	 * */
 	public double getCurrentNumberValue(){
+		if(lexer != null) return lexer.getNumberValue();
 		return tokenizer.nval;
 	}
 	
@@ -179,6 +317,7 @@ public class CggFileInputParser implements FileInputParser {
 	 * 			| getTokenizer().ttype
 	 * */
 	public int getTokenType(){
+		if(lexer != null) return lexer.getTokenType();
 		return tokenizer.ttype;
 	}
 	
@@ -285,6 +424,33 @@ public class CggFileInputParser implements FileInputParser {
 		return value;
 	}
 	
+	/**
+	 * Expect a string field with the given label naming a vertex, and add the vertex to the given graph if needed.
+	 * With the byte-level lexer every distinct name is looked up in the graph only once.
+	 * 
+	 * @param	label
+	 * 			The given label.
+	 * @param	graph
+	 * 			The given graph builder.
+	 * 
+	 * @effect	Expect a string field with the given label
+	 * 			| let name = expectStringField(label)
+	 * @return	The id of the vertex with the expected name in the given graph
+	 * 			| result == graph.addVertex(name)
+	 * */
+	protected int expectVertexField(String label, IndexedGraph.Builder graph) {
+		String name = expectStringField(label);
+		int index = lexer == null ? -1 : lexer.getStringIndex();
+		if(index < 0) return graph.addVertex(name);
+		if(index >= vertexIds.length){
+			int oldLength = vertexIds.length;
+			vertexIds = Arrays.copyOf(vertexIds, Math.max(index + 1, oldLength * 2));
+			Arrays.fill(vertexIds, oldLength, vertexIds.length, -1);
+		}
+		if(vertexIds[index] < 0) vertexIds[index] = graph.addVertex(name);
+		return vertexIds[index];
+	}
+	
 	/**
 	 * Expect an int.
 	 * 
@@ -397,6 +563,55 @@ public class CggFileInputParser implements FileInputParser {
 		return list;
 	}
 	
+	/**
+	 * Expect a string list field with the given label.
+	 * 
+	 * @param	label
+	 * 			The given label.
+	 * 
+	 * @effect	Expect the given label
+	 * 			expectLabel(label)
+	 * @effect	Return an expected string list
+	 * 			| expectStringList()
+	 * */
+	protected List<String> expectStringListField(String label) {
+		expectLabel(label);
+		return expectStringList();
+	}
+	
+	/**
+	 * Expect a string list.
+	 * 
+	 * @effect	Expect a opened square bracket char.
+	 * 			| expectChar('[')
+	 * @effect	Expect a closed square bracket char.
+	 * 			| expectChar(']')
+	 * @effect	Return a list of Strings, populated by adding a quoted string while the current token is one,
+	 * 			followed by an expected comma char or a close square bracket, throw an error otherwise.
+	 * 			| let list = new List<String>
+	 * 			| 	in while (getTokenType() == '"')
+	 * 			|		then list.add(getCurrentStringValue())
+	 * 			| 	     	if (getTokenType() == ',')
+	 * 			|				then expectChar(',')
+	 * 			|				else 
+	 * 			|					if (getTokenType() != ']')
+	 * 			|						then error(...);
+	 * */
+	protected List<String> expectStringList() {
+		List<String> list = new ArrayList<>();
+		expectChar('[');
+		while (getTokenType() == '"'){
+			list.add(getCurrentStringValue());
+			nextToken();
+			if (getTokenType() == ',')
+				expectChar(',');
+			else if (getTokenType() != ']')
+				error("']' (end of list) or ',' (new list item) expected");
+		}
+		expectChar(']');
+		return list;
+	}
+	
 	/**
 	 * Sets the tokenizer of this YAML file input parser to the given tokenizer.
 	 * 
@@ -0,0 +1,428 @@
+package io.parser.file.cgg;
+
+import java.io.IOException;
+import java.io.StreamTokenizer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A byte-level lexer for CGG files, producing the same tokens as the stream tokenizer set up by
+ * the CGG file input parser, but without a String per token.
+ *
+ * The lexer scans UTF-8 bytes straight from a (possibly memory-mapped) byte buffer. Words are only
+ * compared against the expected labels byte by byte and never turned into strings, and every quoted
+ * string is looked up in a table of the strings seen before, so a vertex name is decoded only once
+ * however many edges mention it. Token types follow the stream tokenizer: TT_WORD, TT_NUMBER, TT_EOF,
+ * '"' for a quoted string and the character itself for any other character.
+ * 
+ * A file too large for a single buffer is mapped in windows of WINDOW bytes. When a token reaches
+ * the end of a window before the end of the file, the window is moved to start at the token and the
+ * token is scanned again, so no token is ever split over two windows. A token filling a whole window
+ * makes the window grow. The quoted strings seen
+ * before are kept in an array of their own, as the window they were read from may be gone.
+ */
+final class CggLexer {
+
+	/**
+	 * The token type before the first token, as in the stream tokenizer.
+	 * */
+	private static final int TT_NOTHING = -4;
+
+	/**
+	 * The default size in bytes of the windows in which a file channel is mapped.
+	 * */
+	static final int WINDOW = 1 << 30;
+
+	/**
+	 * The largest window a single token can make the lexer map.
+	 * */
+	private static final int MAX_WINDOW = Integer.MAX_VALUE - 8;
+
+	/**
+	 * The channel whose windows are mapped, or null when the lexer scans a single buffer.
+	 * */
+	private final FileChannel channel;
+	private final long size;
+	private int window;
+	/**
+	 * The offset in the channel of the first byte of the buffer.
+	 * */
+	private long base;
+
+	private ByteBuffer buffer;
+	private int limit;
+	private int position;
+	private int lineNo = 1;
+
+	private int tokenType = TT_NOTHING;
+	/**
+	 * The bytes of the current word or quoted string, without the quotes.
+	 * */
+	private int tokenStart;
+	private int tokenEnd;
+	private boolean escaped;
+	private double numberValue;
+
+	/**
+	 * The open addressing table of the quoted strings seen so far, with the hashes, offsets and lengths of their
+	 * bytes in the arena of string bytes.
+	 * */
+	private String[] strings = new String[1024];
+	private int[] hashes = new int[1024];
+	private int[] offsets = new int[1024];
+	private int[] lengths = new int[1024];
+	private int[] indices = new int[1024];
+	private int stringCount;
+	private int stringIndex;
+	private byte[] arena = new byte[1 << 14];
+	private int arenaSize;
+
+	/**
+	 * Initializes this new lexer on the bytes between the position and the limit of the given buffer.
+	 */
+	CggLexer(ByteBuffer buffer){
+		if(buffer == null) throw new IllegalArgumentException("The given buffer is not effective.");
+		this.channel = null;
+		this.size = buffer.limit();
+		this.buffer = buffer;
+		this.position = buffer.position();
+		this.limit = buffer.limit();
+	}
+
+	/**
+	 * Initializes this new lexer on all bytes of the given file channel, mapped in windows of WINDOW bytes.
+	 */
+	CggLexer(FileChannel channel){
+		this(channel, WINDOW);
+	}
+
+	/**
+	 * Initializes this new lexer on all bytes of the given file channel, mapped in windows of the given size.
+	 */
+	CggLexer(FileChannel channel, int window){
+		if(channel == null) throw new IllegalArgumentException("The given channel is not effective.");
+		if(window < 2) throw new IllegalArgumentException("The given window size is too small.");
+		this.channel = channel;
+		this.window = window;
+		try {
+			this.size = channel.size();
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		this.buffer = ByteBuffer.allocate(0);
+		slide(0);
+	}
+
+	int getTokenType(){
+		return tokenType;
+	}
+
+	int getLineNo(){
+		return lineNo;
+	}
+
+	double getNumberValue(){
+		return numberValue;
+	}
+
+	/**
+	 * Move to the next token and return its type.
+	 */
+	int nextToken(){
+		int c = skipWhitespaceAndComments();
+		if(c < 0) return tokenType = StreamTokenizer.TT_EOF;
+		// A minus sign looks one byte ahead to decide whether it starts a number.
+		if(limit - position < 2) slide(position);
+		int start = position;
+		int type = scan(c);
+		while(position >= limit && slide(start)){
+			// The token now starts the window.
+			start = position = 0;
+			type = scan(c);
+		}
+		return tokenType = type;
+	}
+
+	/**
+	 * Scan the token starting at the position with the given first byte and return its type.
+	 */
+	private int scan(int c){
+		if(isWordStart(c)){
+			tokenStart = position;
+			while(position < limit && isWordPart(buffer.get(position) & 0xFF)) position++;
+			tokenEnd = position;
+			return StreamTokenizer.TT_WORD;
+		}
+		if(c == '"' || c == '\''){
+			return quoted(c);
+		}
+		if(isDigit(c) || c == '.' || (c == '-' && position + 1 < limit && isNumberStart(buffer.get(position + 1) & 0xFF))){
+			return number();
+		}
+		position++;
+		return c;
+	}
+
+	/**
+	 * Map the next window of the channel from the given position in the buffer on, keeping the bytes
+	 * from there and moving the position and the current token with them. If the bytes kept fill the
+	 * whole window, the window grows. Returns whether bytes were added to the buffer, which is never
+	 * the case when the lexer scans a single buffer or the buffer ends at the end of the channel.
+	 */
+	private boolean slide(int from){
+		if(channel == null || base + limit >= size) return false;
+		if(from == 0 && limit > 0){
+			if(window == MAX_WINDOW) return false;
+			window = (int) Math.min(MAX_WINDOW, 2L * window);
+		}
+		long start = base + from;
+		int length = (int) Math.min(size - start, window);
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+		base = start;
+		limit = length;
+		position -= from;
+		tokenStart -= from;
+		tokenEnd -= from;
+		return true;
+	}
+
+	/**
+	 * Return whether the current token is a word equal to the given ASCII word, without decoding it.
+	 */
+	boolean isWord(String word){
+		if(tokenType != StreamTokenizer.TT_WORD || tokenEnd - tokenStart != word.length()) return false;
+		for(int i = 0 ; i < word.length() ; i++){
+			if((buffer.get(tokenStart + i) & 0xFF) != word.charAt(i)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return the value of the current word or quoted string, a quoted string being shared
+	 * with every earlier quoted string with the same bytes.
+	 */
+	String getStringValue(){
+		stringIndex = -1;
+		if(tokenType == StreamTokenizer.TT_WORD) return decode(tokenStart, tokenEnd);
+		if(tokenType != '"' && tokenType != '\'') return null;
+		if(escaped) return unescape(tokenStart, tokenEnd);
+		return intern(tokenStart, tokenEnd);
+	}
+
+	/**
+	 * Return the number of distinct quoted strings seen before the one last returned by getStringValue(),
+	 * so equal strings get the same index, or -1 if that string contained escape sequences.
+	 */
+	int getStringIndex(){
+		return stringIndex;
+	}
+
+	private int skipWhitespaceAndComments(){
+		boolean comment = false;
+		while(position < limit || slide(position)){
+			int c = buffer.get(position) & 0xFF;
+			if(c == '\n'){
+				lineNo++;
+				position++;
+				comment = false;
+			} else if(c == '\r'){
+				lineNo++;
+				position++;
+				comment = false;
+				if((position < limit || slide(position)) && buffer.get(position) == '\n') position++;
+			} else if(c <= ' '){
+				position++;
+			} else if(c == '#' || comment){
+				// A comment can run on past the end of the window.
+				comment = true;
+				while(position < limit && buffer.get(position) != '\n' && buffer.get(position) != '\r') position++;
+			} else {
+				return c;
+			}
+		}
+		return -1;
+	}
+
+	private int quoted(int quote){
+		position++;
+		tokenStart = position;
+		escaped = false;
+		while(position < limit){
+			int c = buffer.get(position) & 0xFF;
+			if(c == quote || c == '\n' || c == '\r') break;
+			if(c == '\\'){
+				escaped = true;
+				position++;
+			}
+			position++;
+		}
+		tokenEnd = Math.min(position, limit);
+		// As in the stream tokenizer, a string ends at its closing quote or at the end of the line.
+		if(position < limit && (buffer.get(position) & 0xFF) == quote) position++;
+		return '"' == quote ? '"' : '\'';
+	}
+
+	private int number(){
+		int start = position;
+		boolean negative = buffer.get(position) == '-';
+		if(negative) position++;
+		double value = 0;
+		while(position < limit && isDigit(buffer.get(position) & 0xFF)){
+			value = value * 10 + (buffer.get(position++) - '0');
+		}
+		if(position < limit && buffer.get(position) == '.'){
+			position++;
+			double scale = 1;
+			while(position < limit && isDigit(buffer.get(position) & 0xFF)){
+				scale /= 10;
+				value += (buffer.get(position++) - '0') * scale;
+			}
+		}
+		numberValue = negative ? -value : value;
+		return StreamTokenizer.TT_NUMBER;
+	}
+
+	private String intern(int start, int end){
+		int hash = 0;
+		for(int i = start ; i < end ; i++) hash = 31 * hash + buffer.get(i);
+		int mask = strings.length - 1;
+		for(int slot = mix(hash) & mask ; ; slot = (slot + 1) & mask){
+			String string = strings[slot];
+			if(string == null){
+				string = decode(start, end);
+				strings[slot] = string;
+				hashes[slot] = hash;
+				offsets[slot] = store(start, end);
+				lengths[slot] = end - start;
+				indices[slot] = stringIndex = stringCount;
+				if(++stringCount * 2 > strings.length) grow();
+				return string;
+			}
+			if(hashes[slot] == hash && lengths[slot] == end - start && sameBytes(offsets[slot], start, end - start)){
+				stringIndex = indices[slot];
+				return string;
+			}
+		}
+	}
+
+	/**
+	 * Return whether the bytes at the given offset in the arena equal those at the given position in the buffer.
+	 */
+	private boolean sameBytes(int offset, int start, int length){
+		for(int i = 0 ; i < length ; i++){
+			if(arena[offset + i] != buffer.get(start + i)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Copy the given bytes of the buffer to the arena and return their offset there.
+	 */
+	private int store(int start, int end){
+		int length = end - start;
+		if(arenaSize + length > arena.length) arena = Arrays.copyOf(arena, Math.max(2 * arena.length, arenaSize + length));
+		for(int i = 0 ; i < length ; i++) arena[arenaSize + i] = buffer.get(start + i);
+		int offset = arenaSize;
+		arenaSize += length;
+		return offset;
+	}
+
+	private void grow(){
+		String[] oldStrings = strings;
+		int[] oldHashes = hashes, oldOffsets = offsets, oldLengths = lengths, oldIndices = indices;
+		strings = new String[oldStrings.length * 2];
+		hashes = new int[strings.length];
+		offsets = new int[strings.length];
+		lengths = new int[strings.length];
+		indices = new int[strings.length];
+		int mask = strings.length - 1;
+		for(int i = 0 ; i < oldStrings.length ; i++){
+			if(oldStrings[i] == null) continue;
+			int slot = mix(oldHashes[i]) & mask;
+			while(strings[slot] != null) slot = (slot + 1) & mask;
+			strings[slot] = oldStrings[i];
+			hashes[slot] = oldHashes[i];
+			offsets[slot] = oldOffsets[i];
+			lengths[slot] = oldLengths[i];
+			indices[slot] = oldIndices[i];
+		}
+	}
+
+	private static int mix(int hash){
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	private String decode(int start, int end){
+		byte[] bytes = new byte[end - start];
+		for(int i = 0 ; i < bytes.length ; i++) bytes[i] = buffer.get(start + i);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Decode a quoted string with the escape sequences of the stream tokenizer.
+	 */
+	private String unescape(int start, int end){
+		String raw = decode(start, end);
+		StringBuilder result = new StringBuilder(raw.length());
+		for(int i = 0 ; i < raw.length() ; i++){
+			char c = raw.charAt(i);
+			if(c != '\\' || i + 1 == raw.length()){
+				result.append(c);
+				continue;
+			}
+			c = raw.charAt(++i);
+			switch(c){
+				case 'a': result.append((char) 7); break;
+				case 'b': result.append('\b'); break;
+				case 'f': result.append('\f'); break;
+				case 'n': result.append('\n'); break;
+				case 'r': result.append('\r'); break;
+				case 't': result.append('\t'); break;
+				case 'v': result.append((char) 11); break;
+				default:
+					if(c >= '0' && c <= '7'){
+						int value = c - '0';
+						int digits = c <= '3' ? 2 : 1;
+						while(digits-- > 0 && i + 1 < raw.length() && raw.charAt(i + 1) >= '0' && raw.charAt(i + 1) <= '7'){
+							value = value * 8 + raw.charAt(++i) - '0';
+						}
+						result.append((char) value);
+					} else {
+						result.append(c);
+					}
+			}
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Return whether the given byte starts a word. Unlike the stream tokenizer, which works on
+	 * decoded characters, every byte of a multi-byte UTF-8 character counts as a letter.
+	 */
+	private static boolean isWordStart(int c){
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c >= 128;
+	}
+
+	private static boolean isWordPart(int c){
+		return isWordStart(c) || isNumberPart(c);
+	}
+
+	private static boolean isNumberPart(int c){
+		return isDigit(c) || c == '.' || c == '-';
+	}
+
+	private static boolean isNumberStart(int c){
+		return isDigit(c) || c == '.';
+	}
+
+	private static boolean isDigit(int c){
+		return c >= '0' && c <= '9';
+	}
+}
@@ -0,0 +1,137 @@
+package io.parser.file.cggb;
+
+import generator.GraphInput;
+import generator.Query;
+import generator.graph.BinaryGraphFormat;
+import io.FileInputHandler;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class to convert graph inputs to binary CGGB files, to be loaded by the CGGB file input parser.
+ *
+ * Converting a CGG file once saves parsing it for every later run: a CGGB file is memory-mapped and
+ * used in place instead.
+ *
+ * Usage: CggbConverter input.cgg [output.cggb]
+ */
+public class CggbConverter {
+
+	/**
+	 * Empty constructor that is not visible
+	 * */
+	private CggbConverter(){}
+
+	/**
+	 * Convert the file given as first argument, in any format with a registered file input parser,
+	 * to the CGGB file given as second argument, or next to it with the extension cggb.
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1 || args.length > 2){
+			System.err.println("Usage: CggbConverter input.cgg [output.cggb]");
+			System.exit(1);
+		}
+		String output = args.length == 2 ? args[1] : replaceExtension(args[0]);
+		write(new FileInputHandler(args[0]).constructGraph(), output);
+		System.out.println("Converted " + args[0] + " to " + output);
+	}
+
+	private static String replaceExtension(String fileName){
+		int dot = fileName.lastIndexOf('.');
+		int separator = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+		return (dot > separator ? fileName.substring(0, dot) : fileName) + ".cggb";
+	}
+
+	/**
+	 * Write the given graph input to the file with the given name in the CGGB format.
+	 *
+	 * @param	input
+	 * 			The given graph input.
+	 * @param	fileName
+	 * 			The given file name.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given input or file name is not effective.
+	 * 			| input == null || fileName == null
+	 * @throws	IllegalArgumentException
+	 * 			When the network of the given input is too large for a graph image.
+	 * 			| BinaryGraphFormat.getSize(input.getNetwork()) > Integer.MAX_VALUE
+	 */
+	public static void write(GraphInput input, String fileName) throws IOException {
+		if(input == null) throw new IllegalArgumentException("The given input is not effective.");
+		if(fileName == null) throw new IllegalArgumentException("The given file name is not effective.");
+		ByteBuffer header = header(input);
+		try (FileOutputStream out = new FileOutputStream(fileName); FileChannel channel = out.getChannel()) {
+			while(header.hasRemaining()) channel.write(header);
+			BinaryGraphFormat.write(input.getNetwork(), channel);
+		}
+	}
+
+	/**
+	 * Return the header of the CGGB file of the given input, up to the graph image.
+	 */
+	private static ByteBuffer header(GraphInput input){
+		List<byte[]> strings = new ArrayList<byte[]>();
+		List<Integer> counts = new ArrayList<Integer>();
+		strings.add(encode(input.getGraphType() == null ? null : input.getGraphType().getType()));
+		strings.add(encode(input.getX()));
+		strings.add(encode(input.getY()));
+		addAll(strings, counts, input.getEvidence());
+		counts.add(input.getQueries().size());
+		for(Query query: input.getQueries()){
+			strings.add(encode(query.getX()));
+			strings.add(encode(query.getY()));
+			addAll(strings, counts, query.getEvidence());
+		}
+
+		int size = CggbFileInputParser.MAGIC.length + 4 + 8 + 4 * counts.size();
+		for(byte[] string: strings) size += 4 + (string == null ? 0 : string.length);
+		int graphOffset = (size + CggbFileInputParser.ALIGNMENT - 1) / CggbFileInputParser.ALIGNMENT * CggbFileInputParser.ALIGNMENT;
+
+		ByteBuffer header = ByteBuffer.allocate(graphOffset).order(ByteOrder.LITTLE_ENDIAN);
+		header.put(CggbFileInputParser.MAGIC);
+		header.putInt(CggbFileInputParser.VERSION);
+		header.putLong(graphOffset);
+		int string = 0, count = 0;
+		for(int i = 0 ; i < 3 ; i++) putString(header, strings.get(string++));
+		int evidence = counts.get(count++);
+		header.putInt(evidence);
+		for(int i = 0 ; i < evidence ; i++) putString(header, strings.get(string++));
+		int queries = counts.get(count++);
+		header.putInt(queries);
+		for(int q = 0 ; q < queries ; q++){
+			putString(header, strings.get(string++));
+			putString(header, strings.get(string++));
+			evidence = counts.get(count++);
+			header.putInt(evidence);
+			for(int i = 0 ; i < evidence ; i++) putString(header, strings.get(string++));
+		}
+		header.clear();
+		return header;
+	}
+
+	private static void addAll(List<byte[]> strings, List<Integer> counts, List<String> values){
+		counts.add(values.size());
+		for(String value: values) strings.add(encode(value));
+	}
+
+	private static byte[] encode(String value){
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static void putString(ByteBuffer buffer, byte[] string){
+		if(string == null){
+			buffer.putInt(-1);
+		} else {
+			buffer.putInt(string.length);
+			buffer.put(string);
+		}
+	}
+}
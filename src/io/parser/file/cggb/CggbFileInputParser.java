@@ -0,0 +1,149 @@
+package io.parser.file.cggb;
+
+import generator.GraphInput;
+import generator.Query;
+import generator.graph.BinaryGraphFormat;
+import generator.graph.IndexedGraph;
+import io.parser.file.FileInputParser;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A class to represent a file input parser for binary CGGB files, written by the CGGB converter.
+ *
+ * A CGGB file starts with the magic bytes "CGGB", the version of the format and the offset of the
+ * graph image, followed by the graph type, x, y, the evidence and the queries as little-endian
+ * length-prefixed UTF-8 strings. The graph image from that offset to the end of the file holds the
+ * interned vertex table and the CSR adjacency of the network (see BinaryGraphFormat). The file is
+ * memory-mapped and the network reads its tables in place, so parsing takes about the same time
+ * whatever the size of the network, only the queries are decoded.
+ */
+public class CggbFileInputParser implements FileInputParser {
+
+	/**
+	 * The magic bytes every CGGB file starts with.
+	 * */
+	static final byte[] MAGIC = {'C', 'G', 'G', 'B'};
+	/**
+	 * The version of the CGGB format written by the converter and read by this parser.
+	 * */
+	static final int VERSION = 1;
+	/**
+	 * The alignment in bytes of the graph image in a CGGB file.
+	 * */
+	static final int ALIGNMENT = 8;
+
+	/**
+	 * Parse the given file, mapping it into memory.
+	 *
+	 * Parsing keeps no state in this parser, so one shared parser can be used by several threads at once.
+	 *
+	 * @param	fileName
+	 * 			The given file name.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given file name is not effective.
+	 * 			| fileName == null
+	 * @throws	RuntimeException
+	 * 			When the given file is not a CGGB file of a supported version or is too large to map at once.
+	 * @effect	The contents of the given file are parsed from a read-only mapping of the whole file.
+	 * 			| parse(map(fileName))
+	 */
+	@Override
+	public GraphInput parseFile(String fileName) throws FileNotFoundException {
+		if(fileName == null) throw new IllegalArgumentException("The given file name is not effective.");
+		try (FileInputStream in = new FileInputStream(fileName); FileChannel channel = in.getChannel()) {
+			long size = channel.size();
+			if(size > Integer.MAX_VALUE) throw new RuntimeException("The given file is too large to map at once.");
+			// The mapping stays valid after the channel is closed, for as long as the network refers to it.
+			return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Parse the CGGB contents of the given buffer, between its position and limit.
+	 *
+	 * @param	buffer
+	 * 			The given buffer.
+	 *
+	 * @throws	RuntimeException
+	 * 			When the given buffer does not hold a CGGB file of a supported version.
+	 * @return	A graph input with a network reading the graph image of the given buffer in place.
+	 */
+	protected GraphInput parse(ByteBuffer buffer){
+		ByteBuffer contents = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		try {
+			for(byte b: MAGIC){
+				if(contents.get() != b) throw new RuntimeException("The given file is not a CGGB file.");
+			}
+			int version = contents.getInt();
+			if(version != VERSION) throw new RuntimeException("Unsupported CGGB version " + version + ".");
+			long graphOffset = contents.getLong();
+			if(graphOffset < contents.position() || graphOffset > contents.limit()) throw new RuntimeException("The graph offset of the given file is not valid.");
+
+			String type = getString(contents);
+			String x = getString(contents);
+			String y = getString(contents);
+			List<String> evidence = getStrings(contents);
+			int queryCount = contents.getInt();
+			List<Query> queries = new ArrayList<Query>();
+			for(int i = 0 ; i < queryCount ; i++){
+				String queryX = getString(contents);
+				String queryY = getString(contents);
+				queries.add(new Query(queryX, queryY, getStrings(contents)));
+			}
+
+			contents.position((int) graphOffset);
+			IndexedGraph network;
+			try {
+				network = BinaryGraphFormat.read(contents);
+			} catch (IllegalArgumentException e) {
+				throw new RuntimeException(e.getMessage(), e);
+			}
+			return new GraphInput(network, type, x, y, evidence, queries);
+		} catch (BufferUnderflowException e) {
+			throw new RuntimeException("The given file ends before its header is complete.", e);
+		}
+	}
+
+	/**
+	 * Read a length-prefixed UTF-8 string from the given buffer, a negative length standing for a string that is not effective.
+	 * */
+	private static String getString(ByteBuffer buffer){
+		int length = buffer.getInt();
+		if(length < 0) return null;
+		if(length > buffer.remaining()) throw new BufferUnderflowException();
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Read a count followed by as many length-prefixed strings from the given buffer.
+	 * */
+	private static List<String> getStrings(ByteBuffer buffer){
+		int count = buffer.getInt();
+		if(count < 0 || count > buffer.remaining() / 4) throw new BufferUnderflowException();
+		List<String> result = new ArrayList<String>(count);
+		for(int i = 0 ; i < count ; i++) result.add(getString(buffer));
+		return result;
+	}
+
+	@Override
+	public String getSupportedFileExtension() {
+		return "CGGB";
+	}
+}
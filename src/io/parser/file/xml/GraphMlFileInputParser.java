@@ -0,0 +1,103 @@
+package io.parser.file.xml;
+
+import generator.GraphInput;
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A class to represent a file input parser for networks in the GraphML format.
+ *
+ * Every node becomes a vertex named after its id and every edge an edge between its source and
+ * target, nodes of nested graphs included. A graph with directed edges by default is read as a
+ * Bayesian network, one with undirected edges as a Markov network. The data of nodes and edges is
+ * skipped. x, y and the evidence are taken from the data of the graph for the keys with attr.name
+ * "x", "y" and "evidence", the last one a comma separated list of node ids, if present.
+ */
+public class GraphMlFileInputParser extends StaxFileInputParser {
+
+	@Override
+	protected GraphInput parse(XMLStreamReader reader) throws XMLStreamException {
+		IndexedGraph.Builder graph = null;
+		boolean directed = false;
+		BitSet declared = new BitSet();
+		Map<String, String> keys = new HashMap<String, String>();
+		Deque<String> open = new ArrayDeque<String>();
+		String x = null, y = null;
+		List<String> evidence = new ArrayList<String>();
+		while(reader.hasNext()){
+			int event = reader.next();
+			if(event == XMLStreamConstants.END_ELEMENT){
+				open.pop();
+				continue;
+			}
+			if(event != XMLStreamConstants.START_ELEMENT) continue;
+			String element = reader.getLocalName();
+			if(element.equals("key")){
+				String name = reader.getAttributeValue(null, "attr.name");
+				if(name != null) keys.put(reader.getAttributeValue(null, "id"), name);
+				skipElement(reader);
+			} else if(element.equals("data")){
+				String key = keys.get(reader.getAttributeValue(null, "key"));
+				if(!"graph".equals(open.peek()) || key == null){
+					skipElement(reader);
+				} else if(key.equals("x")){
+					x = readText(reader);
+				} else if(key.equals("y")){
+					y = readText(reader);
+				} else if(key.equals("evidence")){
+					evidence = splitNames(readText(reader));
+				} else {
+					skipElement(reader);
+				}
+			} else if(element.equals("desc") || element.equals("default") || element.equals("port")){
+				skipElement(reader);
+			} else if(element.equals("hyperedge")){
+				error(reader, "Hyperedges are not supported");
+			} else {
+				open.push(element);
+				if(graph == null && (element.equals("node") || element.equals("edge"))){
+					error(reader, "Element '" + element + "' outside a graph");
+				}
+				if(element.equals("graph") && graph == null){
+					directed = !"undirected".equals(reader.getAttributeValue(null, "edgedefault"));
+					graph = new IndexedGraph.Builder(directed);
+				} else if(element.equals("node")){
+					declared.set(graph.addVertex(requireAttribute(reader, "id")));
+				} else if(element.equals("edge")){
+					String edgeDirected = reader.getAttributeValue(null, "directed");
+					if(edgeDirected != null && Boolean.parseBoolean(edgeDirected) != directed){
+						error(reader, "Mixed directed and undirected edges are not supported");
+					}
+					graph.addEdge(requireAttribute(reader, "source"), requireAttribute(reader, "target"));
+				}
+			}
+		}
+		if(graph == null) error(reader, "No graph found");
+		IndexedGraph network = graph.build();
+		int undeclared = declared.nextClearBit(0);
+		if(undeclared < network.getVertexCount()) error(reader, "Node '" + network.getName(undeclared) + "' is not declared");
+		return new GraphInput(network, directed ? "Bayesian" : "Markov", x, y, evidence);
+	}
+
+	private static String requireAttribute(XMLStreamReader reader, String name){
+		String value = reader.getAttributeValue(null, name);
+		if(value == null) error(reader, "Attribute '" + name + "' expected");
+		return value;
+	}
+
+	@Override
+	public String getSupportedFileExtension() {
+		return "GRAPHML";
+	}
+}
@@ -0,0 +1,145 @@
+package io.parser.file.xml;
+
+import generator.GraphInput;
+import io.parser.file.FileInputParser;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A class to represent an abstract file input parser strategy for XML network files.
+ *
+ * The file is streamed with a StAX reader in a single pass and never held as a document tree:
+ * subclasses feed the vertices and edges straight into the graph builder as their elements pass by,
+ * and skip the elements they do not need, such as probability tables, without decoding their text.
+ */
+public abstract class StaxFileInputParser implements FileInputParser {
+
+	/**
+	 * The size in bytes of the buffer the file is read through.
+	 * */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Class variable referencing the factory of the StAX readers of all XML file input parsers,
+	 * which is safe to share between threads once configured.
+	 * */
+	private static final XMLInputFactory FACTORY = createFactory();
+
+	private static XMLInputFactory createFactory(){
+		XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+		return factory;
+	}
+
+	/**
+	 * Parse the given file, streaming it through a StAX reader.
+	 *
+	 * Every call uses its own reader and keeps no state in this parser, so one shared
+	 * parser can be used by several threads at once.
+	 *
+	 * @param	fileName
+	 * 			The given file name.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given file name is not effective.
+	 * 			| fileName == null
+	 * @throws	RuntimeException
+	 * 			When the given file is not well-formed or does not describe a network.
+	 * @effect	The contents of the given file are parsed from a StAX reader on a buffered stream.
+	 * 			| parse(FACTORY.createXMLStreamReader(new BufferedInputStream(new FileInputStream(fileName))))
+	 */
+	@Override
+	public final GraphInput parseFile(String fileName) throws FileNotFoundException {
+		if(fileName == null) throw new IllegalArgumentException("The given file name is not effective.");
+		try (InputStream in = new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE)) {
+			XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+			try {
+				return parse(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (FileNotFoundException e) {
+			throw e;
+		} catch (XMLStreamException e) {
+			int line = e.getLocation() == null ? -1 : e.getLocation().getLineNumber();
+			// The message of the reader ends with its own lines on the location, which the line number replaces.
+			String message = String.valueOf(e.getMessage()).split("\\R", 2)[0];
+			throw new RuntimeException("Line " + line + ": " + message, e);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Parse the document read by the given reader, positioned at its start.
+	 *
+	 * @param	reader
+	 * 			The given StAX reader.
+	 *
+	 * @return	The graph input described by the document.
+	 * @throws	XMLStreamException
+	 * 			When the document is not well-formed.
+	 */
+	protected abstract GraphInput parse(XMLStreamReader reader) throws XMLStreamException;
+
+	/**
+	 * Move the given reader past the end of the element it is positioned at the start of,
+	 * without decoding any of the text in it.
+	 *
+	 * @param	reader
+	 * 			The given StAX reader, positioned at a start element.
+	 */
+	protected static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+		for(int depth = 1 ; depth > 0 ; ){
+			int event = reader.next();
+			if(event == XMLStreamConstants.START_ELEMENT) depth++;
+			else if(event == XMLStreamConstants.END_ELEMENT) depth--;
+		}
+	}
+
+	/**
+	 * Return the trimmed text of the text-only element the given reader is positioned at the start of,
+	 * leaving the reader at its end.
+	 *
+	 * @param	reader
+	 * 			The given StAX reader, positioned at a start element.
+	 */
+	protected static String readText(XMLStreamReader reader) throws XMLStreamException {
+		return reader.getElementText().trim();
+	}
+
+	/**
+	 * Return the names in the given comma separated list, trimmed and without empty names.
+	 */
+	protected static List<String> splitNames(String names){
+		List<String> result = new ArrayList<String>();
+		for(String name: names.split(",")){
+			if(!name.trim().isEmpty()) result.add(name.trim());
+		}
+		return result;
+	}
+
+	/**
+	 * Throw a new Runtime exception with the given message and the current line of the given reader.
+	 *
+	 * @throws	RuntimeException
+	 * 			Always
+	 * 			| true
+	 * */
+	protected static void error(XMLStreamReader reader, String message) {
+		throw new RuntimeException("Line " + reader.getLocation().getLineNumber() + ": " + message);
+	}
+}
@@ -0,0 +1,95 @@
+package io.parser.file.xml;
+
+import generator.GraphInput;
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * A class to represent a file input parser for Bayesian networks in the XMLBIF format.
+ *
+ * Every VARIABLE becomes a vertex named after its NAME and every GIVEN variable of a DEFINITION
+ * (PROBABILITY in older versions of the format) becomes an edge to its FOR variable. Outcomes and
+ * probability tables are skipped. XMLBIF has no notion of queries, so x, y and the evidence are taken
+ * from the properties "x = name", "y = name" and "evidence = name, name, ..." of the NETWORK element,
+ * if present.
+ */
+public class XmlBifFileInputParser extends StaxFileInputParser {
+
+	@Override
+	protected GraphInput parse(XMLStreamReader reader) throws XMLStreamException {
+		IndexedGraph.Builder graph = new IndexedGraph.Builder(true);
+		BitSet declared = new BitSet();
+		String x = null, y = null;
+		List<String> evidence = new ArrayList<String>();
+		while(reader.hasNext()){
+			if(reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+			String element = reader.getLocalName();
+			if(element.equalsIgnoreCase("VARIABLE")){
+				String name = parseVariableName(reader);
+				int variable = graph.addVertex(name);
+				if(declared.get(variable)) error(reader, "Variable '" + name + "' is declared twice");
+				declared.set(variable);
+			} else if(element.equalsIgnoreCase("DEFINITION") || element.equalsIgnoreCase("PROBABILITY")){
+				parseDefinition(reader, graph);
+			} else if(element.equalsIgnoreCase("PROPERTY")){
+				String property = readText(reader);
+				int separator = property.indexOf('=');
+				if(separator < 0) continue;
+				String key = property.substring(0, separator).trim(), value = property.substring(separator + 1).trim();
+				if(key.equalsIgnoreCase("x")) x = value;
+				else if(key.equalsIgnoreCase("y")) y = value;
+				else if(key.equalsIgnoreCase("evidence")) evidence = splitNames(value);
+			} else if(element.equalsIgnoreCase("NAME")){
+				skipElement(reader);
+			}
+		}
+		IndexedGraph network = graph.build();
+		int undeclared = declared.nextClearBit(0);
+		if(undeclared < network.getVertexCount()) error(reader, "Variable '" + network.getName(undeclared) + "' is not declared");
+		return new GraphInput(network, "Bayesian", x, y, evidence);
+	}
+
+	/**
+	 * Return the NAME of the VARIABLE element the given reader is positioned at, skipping its outcomes and properties.
+	 */
+	private static String parseVariableName(XMLStreamReader reader) throws XMLStreamException {
+		String name = null;
+		while(reader.next() != XMLStreamConstants.END_ELEMENT){
+			if(reader.getEventType() != XMLStreamConstants.START_ELEMENT) continue;
+			if(reader.getLocalName().equalsIgnoreCase("NAME")) name = readText(reader);
+			else skipElement(reader);
+		}
+		if(name == null || name.isEmpty()) error(reader, "Variable without a name");
+		return name;
+	}
+
+	/**
+	 * Add an edge from every GIVEN variable of the DEFINITION element the given reader is positioned at
+	 * to its FOR variable, skipping its probability table.
+	 */
+	private static void parseDefinition(XMLStreamReader reader, IndexedGraph.Builder graph) throws XMLStreamException {
+		String child = null;
+		List<String> parents = new ArrayList<String>();
+		while(reader.next() != XMLStreamConstants.END_ELEMENT){
+			if(reader.getEventType() != XMLStreamConstants.START_ELEMENT) continue;
+			String element = reader.getLocalName();
+			if(element.equalsIgnoreCase("FOR")) child = readText(reader);
+			else if(element.equalsIgnoreCase("GIVEN")) parents.add(readText(reader));
+			else skipElement(reader);
+		}
+		if(child == null) error(reader, "Definition without a FOR variable");
+		for(String parent: parents) graph.addEdge(parent, child);
+	}
+
+	@Override
+	public String getSupportedFileExtension() {
+		return "XMLBIF";
+	}
+}
@@ -0,0 +1,77 @@
+package io.writer;
+
+import generator.Query;
+import generator.QueryResult;
+import generator.graph.IndexedGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+
+/**
+ * A class to represent a writer of query results as CSV, one row per result after a header row.
+ *
+ * The columns are x, y, the evidence, the verdict, the removed edges, the edges of the connection
+ * graph and the error of a query that could not be answered. Lists are separated by semicolons and
+ * edges are written by name, the names of their endpoints joined by a dash. The edge columns are
+ * empty for results without a connection graph.
+ */
+public class CsvResultWriter extends ResultWriter {
+
+	private static final String HEADER = "x,y,evidence,separated,removed,edges,error\n";
+
+	/**
+	 * Variable registering whether the header row has been written
+	 * */
+	private boolean started;
+
+	public CsvResultWriter(IndexedGraph graph, Writer out){
+		super(graph, out);
+	}
+
+	@Override
+	public void write(QueryResult result) throws IOException {
+		Query query = result.getQuery();
+		String removed = "", edges = "";
+		if(result.hasConnectionGraph()){
+			removed = edgeNames(result.getRemovedEdges());
+			edges = edgeNames(keptEdges(result));
+		}
+		writeRow(query.getX(), query.getY(), String.join(";", query.getEvidence()), String.valueOf(result.isSeparated()), removed, edges, "");
+	}
+
+	@Override
+	public void writeError(String query, String message) throws IOException {
+		writeRow("", "", "", "", "", "", query + ": " + message);
+	}
+
+	private void writeRow(String... fields) throws IOException {
+		Writer out = getOut();
+		if(!started){
+			out.write(HEADER);
+			started = true;
+		}
+		for(int i = 0 ; i < fields.length ; i++){
+			if(i > 0) out.write(',');
+			out.write(quote(fields[i]));
+		}
+		out.write('\n');
+	}
+
+	private String edgeNames(BitSet edges){
+		StringBuilder result = new StringBuilder();
+		for(int e = edges.nextSetBit(0) ; e >= 0 ; e = edges.nextSetBit(e + 1)){
+			if(result.length() > 0) result.append(';');
+			result.append(getGraph().getEdgeName(e));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Return the given field, quoted if it holds a comma, a quote or a line break.
+	 */
+	private static String quote(String field){
+		if(field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) return field;
+		return '"' + field.replace("\"", "\"\"") + '"';
+	}
+}
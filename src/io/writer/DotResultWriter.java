@@ -0,0 +1,65 @@
+package io.writer;
+
+import generator.Query;
+import generator.QueryResult;
+import generator.graph.IndexedGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+
+/**
+ * A class to represent a writer of query results as a stream of Graphviz DOT graphs, one per result.
+ *
+ * Every graph is labelled with the query and its verdict and colours x red, y green and the evidence
+ * yellow, as the viewer does. The edges of the connection graph are drawn solid and the removed edges
+ * dashed, so the network and its connection graph are shown at once. A stream with several graphs can
+ * be rendered by dot as is, every graph to its own page.
+ */
+public class DotResultWriter extends ResultWriter {
+
+	/**
+	 * Variable registering the number of graphs written so far, to name the next one
+	 * */
+	private int count;
+
+	public DotResultWriter(IndexedGraph graph, Writer out){
+		super(graph, out);
+	}
+
+	@Override
+	public void write(QueryResult result) throws IOException {
+		IndexedGraph graph = getGraph();
+		Writer out = getOut();
+		Query query = result.getQuery();
+		String edge = graph.isDirected() ? " -> " : " -- ";
+		out.write(graph.isDirected() ? "digraph " : "graph ");
+		out.write(quote("query" + ++count) + " {\n\tlabel=" + quote(result.toString()) + ";\n");
+		out.write("\t" + quote(query.getX()) + " [style=filled, fillcolor=red];\n");
+		out.write("\t" + quote(query.getY()) + " [style=filled, fillcolor=green];\n");
+		for(String name: query.getEvidence()) out.write("\t" + quote(name) + " [style=filled, fillcolor=yellow];\n");
+		if(result.hasConnectionGraph()){
+			for(int v = 0 ; v < graph.getVertexCount() ; v++){
+				if(graph.degree(v) == 0) out.write("\t" + quote(graph.getName(v)) + ";\n");
+			}
+			BitSet removed = result.getRemovedEdges();
+			for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+				out.write("\t" + quote(graph.getName(graph.getSource(e))) + edge + quote(graph.getName(graph.getTarget(e))));
+				out.write(removed.get(e) ? " [style=dashed, color=gray];\n" : ";\n");
+			}
+		}
+		out.write("}\n");
+	}
+
+	@Override
+	public void writeError(String query, String message) throws IOException {
+		getOut().write("// " + query.replaceAll("\\R", " ") + ": " + message.replaceAll("\\R", " ") + "\n");
+	}
+
+	/**
+	 * Return the given name as a quoted DOT id.
+	 */
+	private static String quote(String name){
+		return '"' + name.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+	}
+}
@@ -0,0 +1,119 @@
+package io.writer;
+
+import generator.ActiveTrail;
+import generator.GraphPath;
+import generator.Query;
+import generator.QueryResult;
+import generator.graph.IndexedGraph;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A class to represent a writer of query results as JSON lines, one object per result.
+ *
+ * A result is written as {"x": ..., "y": ..., "evidence": [...], "separated": ...}, followed, if it
+ * has a connection graph, by "removed" and "edges": the removed edges and the edges of the
+ * connection graph, every edge an array of its source and target. A query that could not be answered
+ * is written as {"query": ..., "error": ...}.
+ *
+ * The active trails explaining a query are written as the query with its verdict followed by "trails",
+ * an array of objects with the "vertices" and "edges" of a trail and the "trail" as text, in which
+ * colliders are starred and observed vertices bracketed.
+ */
+public class JsonLinesResultWriter extends ResultWriter {
+
+	public JsonLinesResultWriter(IndexedGraph graph, Writer out){
+		super(graph, out);
+	}
+
+	@Override
+	public void write(QueryResult result) throws IOException {
+		Writer out = getOut();
+		Query query = result.getQuery();
+		out.write("{\"x\": " + quote(query.getX()) + ", \"y\": " + quote(query.getY()) + ", \"evidence\": ");
+		writeNames(query.getEvidence());
+		out.write(", \"separated\": " + result.isSeparated());
+		if(result.hasConnectionGraph()){
+			out.write(", \"removed\": ");
+			writeEdges(result.getRemovedEdges());
+			out.write(", \"edges\": ");
+			writeEdges(keptEdges(result));
+		}
+		out.write("}\n");
+	}
+
+	/**
+	 * Write the given active trails between x and y of the given query, which are separated if there are none.
+	 */
+	public void writeTrails(Query query, List<ActiveTrail> trails) throws IOException {
+		IndexedGraph graph = getGraph();
+		Writer out = getOut();
+		out.write("{\"x\": " + quote(query.getX()) + ", \"y\": " + quote(query.getY()) + ", \"evidence\": ");
+		writeNames(query.getEvidence());
+		out.write(", \"separated\": " + trails.isEmpty() + ", \"trails\": [");
+		for(int t = 0 ; t < trails.size() ; t++){
+			GraphPath path = trails.get(t).getPath();
+			out.write(t > 0 ? ", {\"vertices\": [" : "{\"vertices\": [");
+			for(int i = 0 ; i < path.getLength() ; i++){
+				if(i > 0) out.write(", ");
+				out.write(quote(graph.getName(path.getVertex(i))));
+			}
+			out.write("], \"edges\": [");
+			for(int i = 0 ; i < path.getLength() - 1 ; i++){
+				int e = path.getEdge(i);
+				if(i > 0) out.write(", ");
+				out.write("[" + quote(graph.getName(graph.getSource(e))) + ", " + quote(graph.getName(graph.getTarget(e))) + "]");
+			}
+			out.write("], \"trail\": " + quote(trails.get(t).toString()) + "}");
+		}
+		out.write("]}\n");
+	}
+
+	@Override
+	public void writeError(String query, String message) throws IOException {
+		getOut().write("{\"query\": " + quote(query) + ", \"error\": " + quote(message) + "}\n");
+	}
+
+	private void writeNames(List<String> names) throws IOException {
+		Writer out = getOut();
+		out.write('[');
+		for(int i = 0 ; i < names.size() ; i++){
+			if(i > 0) out.write(", ");
+			out.write(quote(names.get(i)));
+		}
+		out.write(']');
+	}
+
+	private void writeEdges(BitSet edges) throws IOException {
+		IndexedGraph graph = getGraph();
+		Writer out = getOut();
+		out.write('[');
+		for(int e = edges.nextSetBit(0), first = e ; e >= 0 ; e = edges.nextSetBit(e + 1)){
+			if(e != first) out.write(", ");
+			out.write("[" + quote(graph.getName(graph.getSource(e))) + ", " + quote(graph.getName(graph.getTarget(e))) + "]");
+		}
+		out.write(']');
+	}
+
+	/**
+	 * Return the given value as a JSON string.
+	 * 
+	 * @return	The given value between double quotes, with quotes, backslashes and control characters escaped,
+	 * 			or null if the given value is not effective.
+	 */
+	public static String quote(String value){
+		if(value == null) return "null";
+		StringBuilder result = new StringBuilder("\"");
+		for(int i = 0 ; i < value.length() ; i++){
+			char c = value.charAt(i);
+			if(c == '"' || c == '\\') result.append('\\').append(c);
+			else if(c < 0x20) result.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			else result.append(c);
+		}
+		return result.append('"').toString();
+	}
+}
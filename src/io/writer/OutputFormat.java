@@ -0,0 +1,48 @@
+package io.writer;
+
+import generator.graph.IndexedGraph;
+
+import java.io.Writer;
+
+/**
+ * The formats query results can be written in.
+ */
+public enum OutputFormat {
+
+	DOT("dot"), JSON_LINES("jsonl"), CSV("csv");
+
+	private String name;
+
+	OutputFormat(String name){
+		this.name = name;
+	}
+
+	public String getName(){
+		return name;
+	}
+
+	/**
+	 * Return a new writer of results about the given network in this format to the given output.
+	 */
+	public ResultWriter createWriter(IndexedGraph graph, Writer out){
+		switch(this){
+			case DOT:
+				return new DotResultWriter(graph, out);
+			case CSV:
+				return new CsvResultWriter(graph, out);
+			default:
+				return new JsonLinesResultWriter(graph, out);
+		}
+	}
+
+	public static OutputFormat fromString(String name) {
+		if (name != null) {
+			for (OutputFormat f : OutputFormat.values()) {
+				if (name.equalsIgnoreCase(f.name)) {
+					return f;
+				}
+			}
+		}
+		return null;
+	}
+}
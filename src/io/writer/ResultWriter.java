@@ -0,0 +1,87 @@
+package io.writer;
+
+import generator.QueryResult;
+import generator.graph.IndexedGraph;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+
+/**
+ * A class to represent an abstract writer of query results, streaming every result to its output as
+ * soon as it is written.
+ *
+ * A result is written with its verdict and, if it has one, its connection graph: the edges of the
+ * network that are kept and the edges that are removed.
+ */
+public abstract class ResultWriter implements Closeable, Flushable {
+
+	/**
+	 * Variable referencing the network the results are about
+	 * */
+	private final IndexedGraph graph;
+	/**
+	 * Variable referencing the writer the results are written to
+	 * */
+	private final Writer out;
+
+	/**
+	 * Initializes this new result writer with the given network and output.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given graph or output is not effective.
+	 * 			| graph == null || out == null
+	 */
+	protected ResultWriter(IndexedGraph graph, Writer out){
+		if(graph == null) throw new IllegalArgumentException("The given graph is not effective.");
+		if(out == null) throw new IllegalArgumentException("The given writer is not effective.");
+		this.graph = graph;
+		this.out = out;
+	}
+
+	/**
+	 * Write the given result.
+	 */
+	public abstract void write(QueryResult result) throws IOException;
+
+	/**
+	 * Write that the given query, as it was given, could not be answered for the given reason.
+	 */
+	public abstract void writeError(String query, String message) throws IOException;
+
+	/**
+	 * Returns the network the results of this writer are about.
+	 * */
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Returns the writer the results of this writer are written to.
+	 * */
+	protected Writer getOut(){
+		return out;
+	}
+
+	/**
+	 * Return the edges of the connection graph of the given result, the edges it does not remove.
+	 */
+	protected BitSet keptEdges(QueryResult result){
+		BitSet kept = new BitSet(graph.getEdgeCount());
+		kept.set(0, graph.getEdgeCount());
+		kept.andNot(result.getRemovedEdges());
+		return kept;
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
@@ -0,0 +1,122 @@
+package main;
+
+import generator.ActiveTrailSearch;
+import generator.Algorithm;
+import generator.BatchQueryRunner;
+import generator.CompiledQuery;
+import generator.EvidenceContext;
+import generator.GraphInput;
+import generator.Query;
+import io.writer.JsonLinesResultWriter;
+import io.writer.ResultWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Answers queries about one network without any user interface, streaming every result to a result
+ * writer as soon as it is known.
+ *
+ * Queries are answered one at a time by a single batch query runner. The evidence context of the
+ * last query is kept, so a stream of queries grouped by evidence builds every context once.
+ *
+ * A runner that explains its queries writes at most a given number of the shortest active trails
+ * between x and y instead, as JSON lines, whatever the algorithm of the network.
+ */
+public class HeadlessRunner {
+
+	private final GraphInput input;
+	private final BatchQueryRunner runner;
+	private final ResultWriter writer;
+	private final JsonLinesResultWriter trailWriter;
+	private final int trails;
+	private CompiledQuery lastQuery;
+	private EvidenceContext lastContext;
+	private ActiveTrailSearch lastSearch;
+
+	/**
+	 * Initializes this new headless runner.
+	 *
+	 * @param	connectionGraphs
+	 * 			Whether the connection graphs should be written, and not only the verdicts.
+	 */
+	public HeadlessRunner(GraphInput input, Algorithm algorithm, boolean connectionGraphs, ResultWriter writer){
+		if(input == null) throw new IllegalArgumentException("The given input is not effective.");
+		if(writer == null) throw new IllegalArgumentException("The given writer is not effective.");
+		this.input = input;
+		this.runner = new BatchQueryRunner(input.getIndex(), algorithm, connectionGraphs);
+		this.writer = writer;
+		this.trailWriter = null;
+		this.trails = 0;
+	}
+
+	/**
+	 * Initializes this new headless runner explaining every query with at most the given number of
+	 * its shortest active trails.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given number of trails is not positive.
+	 */
+	public HeadlessRunner(GraphInput input, int trails, JsonLinesResultWriter writer){
+		if(input == null) throw new IllegalArgumentException("The given input is not effective.");
+		if(writer == null) throw new IllegalArgumentException("The given writer is not effective.");
+		if(trails < 1) throw new IllegalArgumentException("The given number of trails is not positive.");
+		this.input = input;
+		this.runner = null;
+		this.writer = writer;
+		this.trailWriter = writer;
+		this.trails = trails;
+	}
+
+	/**
+	 * Answer the given query and write its result, or its active trails if this runner explains its
+	 * queries, or write an error if it refers to an unknown vertex.
+	 */
+	public void answer(Query query) throws IOException {
+		try {
+			CompiledQuery compiled = CompiledQuery.compile(input.getNetwork(), query);
+			if(!compiled.hasSameEvidence(lastQuery)){
+				lastContext = new EvidenceContext(input.getIndex(), compiled);
+				lastSearch = null;
+				lastQuery = compiled;
+			}
+			if(runner != null){
+				writer.write(runner.run(lastContext, compiled));
+				return;
+			}
+			if(lastSearch == null) lastSearch = new ActiveTrailSearch(lastContext);
+			trailWriter.writeTrails(query, lastSearch.shortestTrails(compiled.getX(), compiled.getY(), trails));
+		} catch (IllegalArgumentException e) {
+			writer.writeError(query.toString(), e.getMessage());
+		}
+	}
+
+	/**
+	 * Answer the query of x, y and the evidence of the input, if it has one, and the queries of its queries section.
+	 */
+	public void answerInput() throws IOException {
+		if(input.getX() != null && input.getY() != null) answer(input.getQuery());
+		for(Query query: input.getQueries()) answer(query);
+		writer.flush();
+	}
+
+	/**
+	 * Answer the queries read from the given reader, one per line: the names of x and y followed by
+	 * the names of the evidence, separated by whitespace. Empty lines and lines starting with '#' are
+	 * skipped. The output is flushed whenever no more input is waiting, so a caller sending one query
+	 * at a time gets every answer at once, while queries piped in bulk are written in large blocks.
+	 */
+	public void answerAll(BufferedReader queries) throws IOException {
+		for(String line = queries.readLine() ; line != null ; line = queries.readLine()){
+			String trimmed = line.trim();
+			if(!trimmed.isEmpty() && !trimmed.startsWith("#")){
+				String[] names = trimmed.split("\\s+");
+				if(names.length < 2) writer.writeError(line, "x and y expected");
+				else answer(new Query(names[0], names[1], Arrays.asList(names).subList(2, names.length)));
+			}
+			if(!queries.ready()) writer.flush();
+		}
+		writer.flush();
+	}
+}
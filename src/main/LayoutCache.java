@@ -0,0 +1,162 @@
+package main;
+
+import generator.graph.GraphIndex;
+import generator.graph.IndexedGraph;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes and caches the layouts of subgraphs of one network, so that showing the same subgraph
+ * for another query does not lay it out again.
+ *
+ * The layout is layered: in a directed acyclic subgraph every vertex is one layer below its lowest
+ * parent, otherwise the layer of a vertex is its distance to the first vertex of its component.
+ * Within a layer the vertices are ordered by the mean position of their neighbours in the layers
+ * above, and layers wider than about twice the square root of the size of the subgraph are wrapped
+ * over several rows. This takes linear time, unlike the force directed layouts, so it scales to
+ * subgraphs of any size.
+ */
+public class LayoutCache {
+
+	/**
+	 * The distance between two neighbouring vertices of a layout
+	 */
+	public static final double SPACING = 60;
+
+	private final IndexedGraph graph;
+	private final GraphIndex index;
+	private final Map<BitSet, double[]> layouts;
+
+	/**
+	 * Initializes this new layout cache for the network of the given index, keeping the layouts of
+	 * at most the given number of subgraphs, the least recently used ones being dropped first.
+	 */
+	public LayoutCache(GraphIndex index, final int capacity){
+		if(index == null) throw new IllegalArgumentException("The given index is not effective.");
+		if(capacity < 1) throw new IllegalArgumentException("The given capacity is not positive.");
+		this.index = index;
+		this.graph = index.getGraph();
+		this.layouts = new LinkedHashMap<BitSet, double[]>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<BitSet, double[]> eldest){
+				return size() > capacity;
+			}
+		};
+	}
+
+	public IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Returns the layout of the subgraph induced by the given vertices, computing it if it is not cached:
+	 * the coordinates of vertex v at 2v and 2v + 1, NaN for vertices outside the subgraph.
+	 * The returned array must not be changed.
+	 */
+	public double[] get(BitSet vertices){
+		synchronized (layouts) {
+			double[] result = layouts.get(vertices);
+			if(result != null) return result;
+		}
+		BitSet key = (BitSet) vertices.clone();
+		double[] result = layout(key);
+		synchronized (layouts) {
+			layouts.put(key, result);
+		}
+		return result;
+	}
+
+	private double[] layout(BitSet vertices){
+		int n = graph.getVertexCount(), size = vertices.cardinality();
+		int[] layer = layers(vertices);
+		int layers = 0;
+		for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)) layers = Math.max(layers, layer[v] + 1);
+		Integer[][] members = new Integer[layers][];
+		int[] counts = new int[layers];
+		for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)) counts[layer[v]]++;
+		for(int l = 0 ; l < layers ; l++) members[l] = new Integer[counts[l]];
+		Arrays.fill(counts, 0);
+		for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)) members[layer[v]][counts[layer[v]]++] = v;
+
+		int rowWidth = Math.max(16, 2 * (int) Math.ceil(Math.sqrt(size))), widest = 0;
+		for(int l = 0 ; l < layers ; l++) widest = Math.max(widest, Math.min(rowWidth, members[l].length));
+		final double[] slot = new double[n];
+		double[] result = new double[2 * n];
+		Arrays.fill(result, Double.NaN);
+		int row = 0;
+		for(int l = 0 ; l < layers ; l++){
+			for(int v: members[l]){
+				int count = 0;
+				double sum = 0;
+				for(int j = 0, degree = graph.degree(v) ; j < degree ; j++){
+					int u = graph.getOpposite(graph.incidentEdge(v, j), v);
+					if(vertices.get(u) && layer[u] < l){
+						sum += slot[u];
+						count++;
+					}
+				}
+				slot[v] = count == 0 ? Double.MAX_VALUE : sum / count;
+			}
+			Arrays.sort(members[l], new Comparator<Integer>(){
+				public int compare(Integer v, Integer w){
+					int result = Double.compare(slot[v], slot[w]);
+					return result != 0 ? result : Integer.compare(v, w);
+				}
+			});
+			int width = Math.min(rowWidth, members[l].length);
+			for(int i = 0 ; i < members[l].length ; i++){
+				int v = members[l][i];
+				int column = i % width;
+				slot[v] = column;
+				result[2 * v] = (column + (widest - width) / 2.0 + 1) * SPACING;
+				result[2 * v + 1] = (row + i / width + 1) * SPACING;
+			}
+			row += (members[l].length + width - 1) / width;
+		}
+		return result;
+	}
+
+	/**
+	 * Return the layer of every given vertex.
+	 */
+	private int[] layers(BitSet vertices){
+		int n = graph.getVertexCount();
+		int[] layer = new int[n];
+		int[] order = graph.isDirected() ? index.getTopologicalOrder() : null;
+		if(order != null){
+			for(int v: order){
+				if(!vertices.get(v)) continue;
+				for(int i = graph.inBegin(v), end = graph.inEnd(v) ; i < end ; i++){
+					int parent = graph.inVertex(i);
+					if(vertices.get(parent)) layer[v] = Math.max(layer[v], layer[parent] + 1);
+				}
+			}
+			return layer;
+		}
+		Arrays.fill(layer, -1);
+		int[] queue = new int[n];
+		for(int root = vertices.nextSetBit(0) ; root >= 0 ; root = vertices.nextSetBit(root + 1)){
+			if(layer[root] >= 0) continue;
+			int head = 0, tail = 0;
+			layer[root] = 0;
+			queue[tail++] = root;
+			while(head < tail){
+				int v = queue[head++];
+				for(int j = 0, degree = graph.degree(v) ; j < degree ; j++){
+					int u = graph.getOpposite(graph.incidentEdge(v, j), v);
+					if(vertices.get(u) && layer[u] < 0){
+						layer[u] = layer[v] + 1;
+						queue[tail++] = u;
+					}
+				}
+			}
+		}
+		return layer;
+	}
+}
@@ -0,0 +1,126 @@
+package main;
+
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.util.Context;
+import edu.uci.ics.jung.graph.util.EdgeType;
+import edu.uci.ics.jung.graph.util.Pair;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.MultiLayerTransformer;
+import edu.uci.ics.jung.visualization.VisualizationServer;
+import edu.uci.ics.jung.visualization.VisualizationViewer;
+import generator.graph.IndexedGraph;
+
+import java.awt.Graphics;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+
+import org.apache.commons.collections15.Predicate;
+import org.apache.commons.collections15.Transformer;
+
+/**
+ * Decides what a viewer draws at its current zoom level and view, so that painting a large graph
+ * only costs what is visible.
+ *
+ * Before every paint the visible part of the layout and the scale are taken from the viewer. Vertices
+ * outside the visible part and edges that do not cross it are culled. Labels, full size vertices,
+ * arrows and the edges that do not touch a highlighted vertex are only drawn when the vertices are
+ * far enough apart on the screen to tell them apart: zoomed out, a large graph is drawn as dots with
+ * only the edges of the query vertices.
+ */
+public class LevelOfDetail implements VisualizationServer.Paintable {
+
+	/**
+	 * The smallest distance in pixels between neighbouring vertices for which details are drawn
+	 */
+	public static final double DETAIL_DISTANCE = 30;
+
+	private static final Shape VERTEX = new Ellipse2D.Double(-10, -10, 20, 20);
+	private static final Shape DOT = new Ellipse2D.Double(-3, -3, 6, 6);
+
+	private final VisualizationViewer<Integer, Integer> viewer;
+	private final Predicate<Integer> highlighted;
+	private Rectangle2D visible = new Rectangle2D.Double();
+	private double scale = 1;
+
+	/**
+	 * Initializes this new level of detail for the given viewer, of which the edges touching vertices
+	 * satisfying the given predicate are always drawn when they are visible.
+	 */
+	public LevelOfDetail(VisualizationViewer<Integer, Integer> viewer, Predicate<Integer> highlighted){
+		if(viewer == null) throw new IllegalArgumentException("The given viewer is not effective.");
+		if(highlighted == null) throw new IllegalArgumentException("The given predicate is not effective.");
+		this.viewer = viewer;
+		this.highlighted = highlighted;
+	}
+
+	/**
+	 * Takes the visible part of the layout, with a margin of one vertex, and the scale from the viewer.
+	 */
+	public void paint(Graphics g){
+		MultiLayerTransformer transformer = viewer.getRenderContext().getMultiLayerTransformer();
+		Point2D from = transformer.inverseTransform(new Point2D.Double(0, 0));
+		Point2D to = transformer.inverseTransform(new Point2D.Double(viewer.getWidth(), viewer.getHeight()));
+		double margin = LayoutCache.SPACING / 2;
+		visible = new Rectangle2D.Double(Math.min(from.getX(), to.getX()) - margin, Math.min(from.getY(), to.getY()) - margin,
+				Math.abs(to.getX() - from.getX()) + 2 * margin, Math.abs(to.getY() - from.getY()) + 2 * margin);
+		scale = transformer.getTransformer(Layer.LAYOUT).getScale() * transformer.getTransformer(Layer.VIEW).getScale();
+	}
+
+	public boolean useTransform(){
+		return false;
+	}
+
+	/**
+	 * Returns whether details are drawn at the current scale.
+	 */
+	public boolean showsDetails(){
+		return scale * LayoutCache.SPACING >= DETAIL_DISTANCE;
+	}
+
+	/**
+	 * Returns a predicate including the vertices in the visible part of the layout.
+	 */
+	public Predicate<Context<Graph<Integer, Integer>, Integer>> vertices(){
+		return context -> visible.contains(viewer.getGraphLayout().transform(context.element));
+	}
+
+	/**
+	 * Returns a predicate including the edges that satisfy the given predicate and cross the visible
+	 * part of the layout, if details are drawn or they touch a highlighted vertex.
+	 */
+	public Predicate<Context<Graph<Integer, Integer>, Integer>> edges(final Predicate<Integer> predicate){
+		return context -> {
+			if(!predicate.evaluate(context.element)) return false;
+			Layout<Integer, Integer> layout = viewer.getGraphLayout();
+			Pair<Integer> endpoints = context.graph.getEndpoints(context.element);
+			if(!showsDetails() && !highlighted.evaluate(endpoints.getFirst()) && !highlighted.evaluate(endpoints.getSecond())) return false;
+			Point2D source = layout.transform(endpoints.getFirst()), target = layout.transform(endpoints.getSecond());
+			return visible.intersectsLine(new Line2D.Double(source, target));
+		};
+	}
+
+	/**
+	 * Returns a predicate drawing arrows on the edges of directed graphs when details are drawn.
+	 */
+	public Predicate<Context<Graph<Integer, Integer>, Integer>> arrows(){
+		return context -> showsDetails() && context.graph.getEdgeType(context.element) == EdgeType.DIRECTED;
+	}
+
+	/**
+	 * Returns a transformer giving the names of the vertices of the given graph when details are drawn.
+	 */
+	public Transformer<Integer, String> labels(final IndexedGraph graph){
+		return vertex -> showsDetails() ? graph.getName(vertex) : null;
+	}
+
+	/**
+	 * Returns a transformer giving vertices their full size when details are drawn, and dots otherwise.
+	 */
+	public Transformer<Integer, Shape> shapes(){
+		return vertex -> showsDetails() ? VERTEX : DOT;
+	}
+}
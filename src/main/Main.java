@@ -1,72 +1,133 @@
 package main;
 
-import edu.uci.ics.jung.algorithms.layout.CircleLayout;
-import edu.uci.ics.jung.algorithms.layout.Layout;
 import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.visualization.BasicVisualizationServer;
-import edu.uci.ics.jung.visualization.decorators.ToStringLabeller;
-import edu.uci.ics.jung.visualization.renderers.Renderer.VertexLabel.Position;
+import generator.Algorithm;
+import generator.BatchQueryRunner;
 import generator.ConnectionGraphGenerator;
+import generator.EvidenceContext;
 import generator.GraphInput;
+import generator.QueryResult;
+import generator.SeparationMatrix;
 import io.FileInputHandler;
+import io.writer.JsonLinesResultWriter;
+import io.writer.OutputFormat;
+import io.writer.ResultWriter;
 
-import java.awt.BorderLayout;
-import java.awt.Dimension;
-
-import javax.swing.JFrame;
-import javax.swing.JLabel;
-import javax.swing.JPanel;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Usage: Main file [algorithm] [--headless [--format=dot|jsonl|csv] [--out=file] [--queries=file|-] [--verdicts] [--matrix] [--explain=k]]
+ *
+ * Without --headless the network and its connection graph are shown in a window. With --headless no
+ * AWT or Swing class is loaded: the query of the file and its queries section, or the queries read
+ * from the given file or standard input, are answered and the results are streamed to standard output
+ * or the given file, as JSON lines unless another format is given, with or without (--verdicts) the
+ * connection graphs. With --matrix the separation matrix of every pair of vertices given the evidence
+ * of the file is written to the given file instead. With --explain every query is answered with at
+ * most k of the shortest active trails between x and y instead, as JSON lines.
+ */
 public class Main {
 
-	
-	public static void main(String[] args){
-		GraphInput input = null;
-		if (args.length < 1) System.out.println("Error");
-		else input = new FileInputHandler(args[0]).constructGraph();
+	private static final String USAGE = "Usage: Main file [algorithm] [--headless [--format=dot|jsonl|csv] [--out=file] [--queries=file|-] [--verdicts] [--matrix] [--explain=k]]";
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1){
+			System.err.println(USAGE);
+			System.exit(1);
+		}
+		GraphInput input = new FileInputHandler(args[0]).constructGraph();
+		Algorithm algorithm = null;
+		boolean headless = false, verdicts = false, matrix = false;
+		OutputFormat format = OutputFormat.JSON_LINES;
+		String output = null, queries = null;
+		int explain = 0;
+		for(int i = 1 ; i < args.length ; i++){
+			String arg = args[i], value = arg.substring(arg.indexOf('=') + 1);
+			if(arg.equals("--headless")) headless = true;
+			else if(arg.equals("--verdicts")) verdicts = true;
+			else if(arg.equals("--matrix")) matrix = true;
+			else if(arg.startsWith("--format=")) format = OutputFormat.fromString(value);
+			else if(arg.startsWith("--out=")) output = value;
+			else if(arg.startsWith("--queries=")) queries = value;
+			else if(arg.startsWith("--explain=")) explain = parseTrails(value);
+			else if(i == 1 && !arg.startsWith("--")) algorithm = Algorithm.fromString(arg);
+			else throw new IllegalArgumentException("Unknown argument '" + arg + "'.");
+			if(format == null) throw new IllegalArgumentException("Unknown format '" + value + "'.");
+		}
+		if(algorithm == null && args.length > 1 && !args[1].startsWith("--")) throw new IllegalArgumentException("Unknown algorithm '" + args[1] + "'.");
+		if(algorithm == null) algorithm = Algorithm.defaultFor(input.getGraphType());
+
+		if(headless && matrix){
+			writeMatrix(input, output);
+			return;
+		}
+		if(headless){
+			if(explain > 0 && format != OutputFormat.JSON_LINES) throw new IllegalArgumentException("Active trails are only written as JSON lines.");
+			runHeadless(input, algorithm, format, !verdicts, explain, output, queries);
+			return;
+		}
+
+		Viewer.show(input, algorithm);
 		System.out.println(input.getGraph().toString());
-		
-		Graph<String, String> connectionGraph = ConnectionGraphGenerator.generate(input);
+		Graph<String, String> connectionGraph = ConnectionGraphGenerator.generate(input, algorithm);
 		System.out.println(connectionGraph.toString());
-		
-		// The Layout<V, E> is parameterized by the vertex and edge types
-        Layout<String, String> graphLayout = new CircleLayout<String, String>(input.getGraph());
-        graphLayout.setSize(new Dimension(300,300)); // sets the initial size of the layout space
-        // The BasicVisualizationServer<V,E> is parameterized by the vertex and edge types
-        BasicVisualizationServer<String,String> vv = new BasicVisualizationServer<String,String>(graphLayout);
-        vv.setPreferredSize(new Dimension(350,350)); //Sets the viewing area size 
-        vv.getRenderContext().setVertexFillPaintTransformer(new VertexTransformer(input));
-        vv.getRenderContext().setVertexLabelTransformer(new ToStringLabeller<String>());
-        vv.getRenderer().getVertexLabelRenderer().setPosition(Position.CNTR);
-        
-        // The Layout<V, E> is parameterized by the vertex and edge types
-        Layout<String, String> connectionGraphLayout = new CircleLayout<String, String>(connectionGraph);
-        connectionGraphLayout.setSize(new Dimension(300,300)); // sets the initial size of the layout space
-        // The BasicVisualizationServer<V,E> is parameterized by the vertex and edge types
-        BasicVisualizationServer<String,String> connectionVv = new BasicVisualizationServer<String,String>(connectionGraphLayout);
-        connectionVv.setPreferredSize(new Dimension(350,350)); //Sets the viewing area size
-        connectionVv.getRenderContext().setVertexFillPaintTransformer(new VertexTransformer(input));
-        connectionVv.getRenderContext().setVertexLabelTransformer(new ToStringLabeller<String>());
-        connectionVv.getRenderer().getVertexLabelRenderer().setPosition(Position.CNTR);
-        
-        JLabel label1 = new JLabel();
-        label1.setText("<HTML>"+input.getX()+" <U>||</U> " + input.getY() + " | " + input.getEvidence().toString().replace("[", "").replace("]", "")
-                .replace(", ", ",") + " ?" + "</HTML>");
-        JLabel label2 = new JLabel(ConnectionGraphGenerator.getAllPaths(connectionGraph, input.getX(), input.getY()).size() > 0 ? "No": "Yes");
-        JFrame frame = new JFrame("Connection Graph Generator");
-        frame.setSize(350, 500);
-        JPanel lPanel = new JPanel();
-        lPanel.setSize(new Dimension(350, 500));
-        lPanel.add(vv, BorderLayout.NORTH);
-        lPanel.add(label1, BorderLayout.SOUTH);
-        lPanel.add(label2, BorderLayout.SOUTH);
-        JPanel rPanel = new JPanel();
-        rPanel.setSize(new Dimension(350, 500));
-        rPanel.add(connectionVv);
-        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.getContentPane().add(lPanel, BorderLayout.WEST); 
-        frame.getContentPane().add(rPanel, BorderLayout.EAST); 
-        frame.pack();
-        frame.setVisible(true);
+		for(QueryResult result: new BatchQueryRunner(input.getIndex(), algorithm, false).run(input.getQueries())){
+			System.out.println(result);
+		}
+	}
+
+	/**
+	 * Write the separation matrix of the network of the given input given its evidence to the given file.
+	 */
+	private static void writeMatrix(GraphInput input, String output) throws IOException {
+		if(output == null) throw new IllegalArgumentException("The separation matrix is binary, an output file is expected.");
+		SeparationMatrix matrix = SeparationMatrix.compute(new EvidenceContext(input.getIndex(), input.getEvidence()));
+		try (FileOutputStream out = new FileOutputStream(output)) {
+			matrix.write(out.getChannel());
+		}
+	}
+
+	/**
+	 * Return the given number of active trails to explain every query with.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given value is not a positive number.
+	 */
+	static int parseTrails(String value){
+		if(!value.matches("\\d{1,9}") || Integer.parseInt(value) == 0) throw new IllegalArgumentException("The number of trails '" + value + "' is not positive.");
+		return Integer.parseInt(value);
+	}
+
+	/**
+	 * Answer the queries of the given input, or those read from the given file ("-" for standard input),
+	 * writing the results in the given format to the given file or to standard output if it is null.
+	 * With a positive number of trails every query is answered with at most that many of its shortest
+	 * active trails instead, as JSON lines.
+	 */
+	private static void runHeadless(GraphInput input, Algorithm algorithm, OutputFormat format, boolean connectionGraphs,
+			int trails, String output, String queries) throws IOException {
+		OutputStream out = output == null ? System.out : new FileOutputStream(output);
+		try (ResultWriter writer = format.createWriter(input.getNetwork(),
+				new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16))) {
+			HeadlessRunner runner = trails > 0 ? new HeadlessRunner(input, trails, (JsonLinesResultWriter) writer)
+					: new HeadlessRunner(input, algorithm, connectionGraphs, writer);
+			if(queries == null){
+				runner.answerInput();
+			} else {
+				InputStream in = queries.equals("-") ? System.in : new FileInputStream(queries);
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16)) {
+					runner.answerAll(reader);
+				}
+			}
+		}
 	}
 }
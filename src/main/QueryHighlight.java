@@ -0,0 +1,56 @@
+package main;
+
+import generator.CompiledQuery;
+import generator.QueryResult;
+
+import java.util.BitSet;
+
+/**
+ * The query shown in a viewer and its result, read by the transformers that colour the vertices and
+ * edges. Changing it and repainting updates the highlighting without rebuilding the view.
+ *
+ * Vertices and edges are asked about by id, so every test is a comparison or a bit test.
+ * Only used on the event dispatch thread.
+ */
+public class QueryHighlight {
+
+	private CompiledQuery query;
+	private QueryResult result;
+	private BitSet removed = new BitSet();
+
+	public CompiledQuery getQuery(){
+		return query;
+	}
+
+	public QueryResult getResult(){
+		return result;
+	}
+
+	public boolean isX(int vertex){
+		return query != null && vertex == query.getX();
+	}
+
+	public boolean isY(int vertex){
+		return query != null && vertex == query.getY();
+	}
+
+	public boolean isEvidence(int vertex){
+		return query != null && query.isEvidence(vertex);
+	}
+
+	/**
+	 * Returns whether the edge with the given id is removed from the connection graph of the result.
+	 */
+	public boolean isRemoved(int edge){
+		return removed.get(edge);
+	}
+
+	/**
+	 * Show the given query and its result, which may be null if it has not been answered.
+	 */
+	public void set(CompiledQuery query, QueryResult result){
+		this.query = query;
+		this.result = result;
+		this.removed = result == null || !result.hasConnectionGraph() ? new BitSet() : result.getRemovedEdges();
+	}
+}
@@ -0,0 +1,379 @@
+package main;
+
+import generator.ActiveTrail;
+import generator.ActiveTrailSearch;
+import generator.Algorithm;
+import generator.CompiledQuery;
+import generator.EvidenceContext;
+import generator.GraphInput;
+import generator.IncrementalConnectionGraph;
+import generator.Query;
+import generator.QueryCache;
+import generator.QueryResult;
+import io.FileInputHandler;
+import io.writer.JsonLinesResultWriter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Usage: QueryServer [--port=n] [name=file[:algorithm]]...
+ *
+ * A long running server keeping networks, their indices and the state of their engines in memory, and
+ * answering queries about them over a local socket, so a query costs neither a JVM start nor a parse.
+ * The server only listens on the loopback address. Every connection is handled on a virtual thread
+ * when the running Java version has them and on a thread of its own otherwise. A connection sends one
+ * request per line and gets one JSON line back for every request, in order:
+ *
+ * - LOAD name file [algorithm] loads the network of the file under the name, replacing any network of that name;
+ * - UNLOAD name drops the network of the name;
+ * - LIST lists the names of the loaded networks;
+ * - SEPARATED name x y evidence... answers whether x and y are separated, as a JSON lines result writer writes it;
+ * - GRAPH name x y evidence... answers the same with the connection graph;
+ * - OBSERVE name x y vertex... adds the vertices to the evidence of x and y kept by the connection and
+ *   answers as GRAPH does with that evidence, starting without evidence for new x and y;
+ * - UNOBSERVE name x y vertex... removes the vertices from that evidence and answers the same;
+ * - EXPLAIN name x y evidence... k answers with at most k of the shortest active trails between x and y,
+ *   whatever the algorithm of the network, as a JSON lines result writer writes them;
+ * - QUIT closes the connection.
+ *
+ * A request that fails is answered with {"query": ..., "error": ...}. Networks are shared by all
+ * connections, every network answers through a query cache of its most recent results, which pools
+ * the engines of the network by concurrent query runners, at most one per core, so concurrent queries
+ * never share one and the engines share the block-cut tree, and keeps the evidence contexts of the
+ * most recent evidence sets. The evidence of
+ * OBSERVE and UNOBSERVE belongs to the connection, which keeps an incremental connection graph for
+ * each of its last pairs of x and y, so a change of evidence only repeats the searches it affects.
+ * With the path algorithms these requests are answered as GRAPH requests with the kept evidence.
+ */
+public class QueryServer implements AutoCloseable {
+
+	/**
+	 * The port the server listens on by default
+	 */
+	public static final int DEFAULT_PORT = 7477;
+
+	/**
+	 * The number of query results cached per network
+	 */
+	public static final int CACHED_RESULTS = 256;
+
+	/**
+	 * The number of pairs of x and y of which a connection keeps the evidence for OBSERVE and UNOBSERVE
+	 */
+	public static final int CACHED_OBSERVATIONS = 16;
+
+	private final ServerSocket socket;
+	private final ExecutorService executor;
+	private final Map<String, Network> networks = new ConcurrentHashMap<String, Network>();
+
+	/**
+	 * Initializes this new server listening on the given port of the loopback address, 0 for any free port.
+	 * The server does not accept connections before it is started.
+	 */
+	public QueryServer(int port) throws IOException {
+		this.socket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		this.executor = newExecutor();
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		List<String[]> preloaded = new ArrayList<String[]>();
+		for(String arg: args){
+			if(arg.startsWith("--port=")) port = Integer.parseInt(arg.substring("--port=".length()));
+			else if(arg.indexOf('=') > 0) preloaded.add(arg.split("=", 2));
+			else {
+				System.err.println("Usage: QueryServer [--port=n] [name=file[:algorithm]]...");
+				System.exit(1);
+			}
+		}
+		QueryServer server = new QueryServer(port);
+		for(String[] network: preloaded){
+			String file = network[1], algorithm = null;
+			int colon = file.lastIndexOf(':');
+			if(colon > 0 && Algorithm.fromString(file.substring(colon + 1)) != null){
+				algorithm = file.substring(colon + 1);
+				file = file.substring(0, colon);
+			}
+			server.load(network[0], file, algorithm);
+		}
+		System.err.println("Listening on " + server.getPort());
+		server.run();
+	}
+
+	public int getPort(){
+		return socket.getLocalPort();
+	}
+
+	/**
+	 * Load the network of the given file under the given name, replacing the network loaded under that
+	 * name, and answer its queries with the given algorithm, or with the default algorithm of its type if it is null.
+	 *
+	 * @throws	IllegalArgumentException
+	 * 			When the given algorithm is not known.
+	 */
+	public GraphInput load(String name, String file, String algorithm){
+		if(name == null) throw new IllegalArgumentException("The given name is not effective.");
+		Algorithm chosen = algorithm == null ? null : Algorithm.fromString(algorithm);
+		if(algorithm != null && chosen == null) throw new IllegalArgumentException("Unknown algorithm '" + algorithm + "'.");
+		GraphInput input = new FileInputHandler(file).constructGraph();
+		if(chosen == null) chosen = Algorithm.defaultFor(input.getGraphType());
+		input.getIndex();
+		networks.put(name, new Network(input, chosen));
+		return input;
+	}
+
+	/**
+	 * Drop the network loaded under the given name and return whether there was one.
+	 */
+	public boolean unload(String name){
+		return networks.remove(name) != null;
+	}
+
+	/**
+	 * Accept connections until this server is closed, handling every connection on the executor of this server.
+	 */
+	public void run() throws IOException {
+		while(!socket.isClosed()){
+			final Socket connection;
+			try {
+				connection = socket.accept();
+			} catch (SocketException e) {
+				if(socket.isClosed()) return;
+				throw e;
+			}
+			connection.setTcpNoDelay(true);
+			executor.execute(() -> handle(connection));
+		}
+	}
+
+	/**
+	 * Accept connections on a new daemon thread.
+	 */
+	public void start(){
+		Thread thread = new Thread(() -> {
+			try {
+				run();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}, "query-server");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stop accepting connections and stop the executor handling them.
+	 */
+	@Override
+	public void close() throws IOException {
+		socket.close();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Answer the requests read from the given connection until it is closed or sends QUIT. Answers are
+	 * flushed whenever no more requests are waiting, so pipelined requests are answered in blocks.
+	 */
+	private void handle(Socket connection){
+		try (connection;
+				BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8), 1 << 16);
+				Writer out = new BufferedWriter(new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8), 1 << 16)) {
+			Map<List<String>, Observation> observations = new LinkedHashMap<List<String>, Observation>(16, 0.75f, true){
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<List<String>, Observation> eldest){
+					return size() > CACHED_OBSERVATIONS;
+				}
+			};
+			for(String line = in.readLine() ; line != null ; line = in.readLine()){
+				String trimmed = line.trim();
+				if(trimmed.equalsIgnoreCase("QUIT")) break;
+				if(!trimmed.isEmpty()){
+					try {
+						answer(trimmed.split("\\s+"), out, observations);
+					} catch (RuntimeException e) {
+						out.write("{\"query\": " + JsonLinesResultWriter.quote(trimmed) + ", \"error\": " + JsonLinesResultWriter.quote(String.valueOf(e.getMessage())) + "}\n");
+					}
+				}
+				if(!in.ready()) out.flush();
+			}
+		} catch (IOException e) {
+			// The client went away, there is no one left to answer.
+		}
+	}
+
+	/**
+	 * Answer the request of the given words, with the given observations of the connection it came from.
+	 */
+	private void answer(String[] words, Writer out, Map<List<String>, Observation> observations) throws IOException {
+		String command = words[0].toUpperCase(Locale.ROOT);
+		if(command.equals("LIST")){
+			out.write("{\"networks\": [");
+			String separator = "";
+			for(String name: new TreeSet<String>(networks.keySet())){
+				out.write(separator + JsonLinesResultWriter.quote(name));
+				separator = ", ";
+			}
+			out.write("]}\n");
+			return;
+		}
+		if(!Arrays.asList("LOAD", "UNLOAD", "SEPARATED", "GRAPH", "OBSERVE", "UNOBSERVE", "EXPLAIN").contains(command)) throw new IllegalArgumentException("Unknown request '" + words[0] + "'.");
+		if(words.length < 2) throw new IllegalArgumentException("A network name expected");
+		String name = words[1];
+		if(command.equals("LOAD")){
+			if(words.length < 3 || words.length > 4) throw new IllegalArgumentException("LOAD name file [algorithm] expected");
+			GraphInput input = load(name, words[2], words.length == 4 ? words[3] : null);
+			out.write("{\"network\": " + JsonLinesResultWriter.quote(name) + ", \"vertices\": " + input.getNetwork().getVertexCount()
+					+ ", \"edges\": " + input.getNetwork().getEdgeCount() + "}\n");
+		} else if(command.equals("UNLOAD")){
+			out.write("{\"network\": " + JsonLinesResultWriter.quote(name) + ", \"unloaded\": " + unload(name) + "}\n");
+		} else {
+			Network network = networks.get(name);
+			if(network == null) throw new IllegalArgumentException("Unknown network '" + name + "'.");
+			if(words.length < 4) throw new IllegalArgumentException("x and y expected");
+			if(command.equals("EXPLAIN")){
+				if(words.length < 5) throw new IllegalArgumentException("EXPLAIN name x y evidence... k expected");
+				Query query = new Query(words[2], words[3], Arrays.asList(words).subList(4, words.length - 1));
+				new JsonLinesResultWriter(network.input.getNetwork(), out).writeTrails(query, network.explain(query, Main.parseTrails(words[words.length - 1])));
+				return;
+			}
+			List<String> vertices = Arrays.asList(words).subList(4, words.length);
+			QueryResult result;
+			if(command.equals("OBSERVE") || command.equals("UNOBSERVE")){
+				List<String> key = Arrays.asList(name, words[2], words[3]);
+				Observation observation = observations.get(key);
+				if(observation == null || observation.network != network){
+					observation = new Observation(network, words[2], words[3]);
+					observations.put(key, observation);
+				}
+				result = observation.change(vertices, command.equals("OBSERVE"));
+			} else {
+				result = network.answer(new Query(words[2], words[3], vertices), command.equals("GRAPH"));
+			}
+			new JsonLinesResultWriter(network.input.getNetwork(), out).write(result);
+		}
+	}
+
+	/**
+	 * Return a new executor running every task on a virtual thread if the running Java version supports
+	 * them, or on a new daemon thread otherwise, as connections block on reading their requests.
+	 */
+	private static ExecutorService newExecutor(){
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(task -> {
+				Thread thread = new Thread(task, "query-connection");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * A resident network with a cache of the answers to its most recent queries.
+	 */
+	private static class Network {
+
+		private final GraphInput input;
+		private final Algorithm algorithm;
+		private final QueryCache cache;
+
+		Network(GraphInput input, Algorithm algorithm){
+			this.input = input;
+			this.algorithm = algorithm;
+			this.cache = new QueryCache(CACHED_RESULTS, algorithm);
+		}
+
+		/**
+		 * Answer the given query, with its connection graph if the given flag is set.
+		 *
+		 * @throws	IllegalArgumentException
+		 * 			When the query refers to a vertex that is not in the network.
+		 */
+		QueryResult answer(Query query, boolean connectionGraph){
+			return cache.answer(input, query, connectionGraph);
+		}
+
+		/**
+		 * Return at most the given number of the shortest active trails between x and y of the given query.
+		 *
+		 * @throws	IllegalArgumentException
+		 * 			When the query refers to a vertex that is not in the network.
+		 */
+		List<ActiveTrail> explain(Query query, int trails){
+			CompiledQuery compiled = CompiledQuery.compile(input.getNetwork(), query);
+			return new ActiveTrailSearch(new EvidenceContext(input.getIndex(), compiled)).shortestTrails(compiled.getX(), compiled.getY(), trails);
+		}
+	}
+
+	/**
+	 * The evidence of x and y in a network, observed and unobserved by the requests of one connection.
+	 * The connection graph follows the evidence incrementally, except with the path algorithms.
+	 */
+	private static class Observation {
+
+		private final Network network;
+		private final String x;
+		private final String y;
+		private final TreeSet<String> evidence = new TreeSet<String>();
+		private final IncrementalConnectionGraph connectionGraph;
+
+		/**
+		 * @throws	IllegalArgumentException
+		 * 			When x or y is not a vertex of the given network.
+		 */
+		Observation(Network network, String x, String y){
+			this.network = network;
+			this.x = x;
+			this.y = y;
+			boolean paths = network.algorithm == Algorithm.PATHS || network.algorithm == Algorithm.PARALLEL_PATHS;
+			this.connectionGraph = paths ? null : new IncrementalConnectionGraph(network.input.getNetwork(), x, y, evidence);
+		}
+
+		/**
+		 * Observe or unobserve the given vertices and answer the query with the resulting evidence.
+		 * Nothing is changed if one of the vertices is not in the network.
+		 *
+		 * @throws	IllegalArgumentException
+		 * 			When one of the given vertices is not a vertex of the network.
+		 */
+		QueryResult change(List<String> vertices, boolean observe){
+			for(String vertex: vertices) network.input.getNetwork().requireId(vertex);
+			Set<String> changed = new TreeSet<String>(vertices);
+			if(observe) evidence.addAll(changed);
+			else evidence.removeAll(changed);
+			Query query = new Query(x, y, evidence);
+			if(connectionGraph == null) return network.answer(query, true);
+			for(String vertex: changed){
+				if(observe) connectionGraph.observe(vertex);
+				else connectionGraph.unobserve(vertex);
+			}
+			return new QueryResult(query, connectionGraph.isSeparated(), connectionGraph.getRemovedEdges());
+		}
+	}
+}
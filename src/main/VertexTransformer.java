@@ -1,24 +1,22 @@
 package main;
 
-import generator.GraphInput;
-
 import java.awt.Color;
 import java.awt.Paint;
 
 import org.apache.commons.collections15.Transformer;
 
-public class VertexTransformer implements Transformer<String,Paint> {
+public class VertexTransformer implements Transformer<Integer,Paint> {
 	
-	private GraphInput input;
+	private QueryHighlight highlight;
 	
-	public VertexTransformer(GraphInput input){
-		this.input = input;
+	public VertexTransformer(QueryHighlight highlight){
+		this.highlight = highlight;
 	}
 	
-    public Paint transform(String vertex) {
-        if(vertex.equals(input.getX())) return Color.RED;
-        else if(vertex.equals(input.getY())) return Color.GREEN;
-        else if(input.getEvidence().contains(vertex)) return Color.YELLOW;
+    public Paint transform(Integer vertex) {
+        if(highlight.isX(vertex)) return Color.RED;
+        else if(highlight.isY(vertex)) return Color.GREEN;
+        else if(highlight.isEvidence(vertex)) return Color.YELLOW;
         else return Color.WHITE;
     }
-};
\ No newline at end of file
+};
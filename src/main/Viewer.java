@@ -0,0 +1,355 @@
+package main;
+
+import edu.uci.ics.jung.algorithms.layout.Layout;
+import edu.uci.ics.jung.algorithms.layout.StaticLayout;
+import edu.uci.ics.jung.graph.SparseGraph;
+import edu.uci.ics.jung.visualization.Layer;
+import edu.uci.ics.jung.visualization.RenderContext;
+import edu.uci.ics.jung.visualization.VisualizationViewer;
+import edu.uci.ics.jung.visualization.control.DefaultModalGraphMouse;
+import edu.uci.ics.jung.visualization.decorators.EdgeShape;
+import edu.uci.ics.jung.visualization.renderers.Renderer.VertexLabel.Position;
+import generator.Algorithm;
+import generator.BatchQueryRunner;
+import generator.CompiledQuery;
+import generator.EvidenceContext;
+import generator.GraphInput;
+import generator.IncrementalConnectionGraph;
+import generator.Query;
+import generator.QueryResult;
+import generator.graph.IndexedGraph;
+import generator.graph.JungGraphAdapter;
+
+import java.awt.BasicStroke;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Stroke;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JTextField;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+/**
+ * Shows a network next to the connection graph of a query in a window, and answers the queries typed
+ * in its query field.
+ *
+ * Only the part of the network that matters for the query is shown: the ancestral set of x, y and the
+ * evidence in a Bayesian network, their connected components in a Markov network. Answering a query,
+ * finding that subgraph and laying it out all happen on a background thread, and the layouts are
+ * cached, so the window never waits for them. When the next query shows the same subgraph, only the
+ * highlighting is changed. Both views share one layout and draw only what is visible at their level
+ * of detail.
+ *
+ * Except with the path algorithms, the connection graphs of the last few pairs of x and y are kept,
+ * and a query on one of those pairs only observes and unobserves the vertices in which its evidence
+ * differs. A query that only changes the evidence keeps the layout shown, unless it needs vertices
+ * outside of it.
+ *
+ * All AWT and Swing code lives here, so the headless mode of Main never loads it.
+ */
+public class Viewer {
+
+	/**
+	 * The number of subgraphs of which the layout is cached
+	 */
+	public static final int CACHED_LAYOUTS = 16;
+	/**
+	 * The number of pairs of x and y of which the connection graph is kept
+	 */
+	public static final int CACHED_CONNECTION_GRAPHS = 4;
+
+	private static final Stroke SOLID = new BasicStroke(1);
+
+	private final GraphInput input;
+	/**
+	 * Answers the queries with the path algorithms, null for the other algorithms.
+	 * */
+	private final BatchQueryRunner runner;
+	/**
+	 * The connection graphs of the last pairs of x and y, only used on the background thread.
+	 * */
+	private final Map<Long, IncrementalConnectionGraph> connectionGraphs;
+	private final ExecutorService background;
+	private final QueryHighlight highlight = new QueryHighlight();
+	private final VisualizationViewer<Integer, Integer> networkView, connectionView;
+	private final JTextField queryField = new JTextField(30);
+	private final JLabel label1 = new JLabel(), label2 = new JLabel(), status = new JLabel();
+	private LayoutCache layouts;
+	private BitSet shown;
+	private CompiledQuery shownQuery;
+	private int generation;
+
+	private Viewer(GraphInput input, Algorithm algorithm){
+		this.input = input;
+		boolean paths = algorithm == Algorithm.PATHS || algorithm == Algorithm.PARALLEL_PATHS;
+		this.runner = paths ? new BatchQueryRunner(input.getIndex(), algorithm, true) : null;
+		this.connectionGraphs = new LinkedHashMap<Long, IncrementalConnectionGraph>(16, 0.75f, true){
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, IncrementalConnectionGraph> eldest) {
+				return size() > CACHED_CONNECTION_GRAPHS;
+			}
+		};
+		this.background = Executors.newSingleThreadExecutor(task -> {
+			Thread thread = new Thread(task, "viewer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Layout<Integer, Integer> empty = new StaticLayout<Integer, Integer>(new SparseGraph<Integer, Integer>());
+		this.networkView = new VisualizationViewer<Integer, Integer>(empty, new Dimension(350, 350));
+		this.connectionView = new VisualizationViewer<Integer, Integer>(empty, new Dimension(350, 350));
+		decorate(networkView, false);
+		decorate(connectionView, true);
+	}
+
+	/**
+	 * Show the given input in a new window, answering its queries with the given algorithm.
+	 * The window shows the query of the input, or else the first query of its queries section.
+	 */
+	public static void show(final GraphInput input, final Algorithm algorithm){
+		SwingUtilities.invokeLater(() -> new Viewer(input, algorithm).open());
+	}
+
+	private void open(){
+		Query query = input.getX() != null && input.getY() != null ? input.getQuery()
+				: input.getQueries().isEmpty() ? null : input.getQueries().get(0);
+		if(query != null) queryField.setText(format(query));
+		queryField.addActionListener(event -> submit(queryField.getText()));
+
+		JFrame frame = new JFrame("Connection Graph Generator");
+		JPanel top = new JPanel();
+		top.add(new JLabel("Query (x y evidence):"));
+		top.add(queryField);
+		JPanel lPanel = new JPanel(new BorderLayout());
+		lPanel.add(networkView, BorderLayout.CENTER);
+		JPanel verdict = new JPanel();
+		verdict.add(label1);
+		verdict.add(label2);
+		lPanel.add(verdict, BorderLayout.SOUTH);
+		JPanel rPanel = new JPanel(new BorderLayout());
+		rPanel.add(connectionView, BorderLayout.CENTER);
+		rPanel.add(status, BorderLayout.SOUTH);
+		frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		frame.getContentPane().add(top, BorderLayout.NORTH);
+		frame.getContentPane().add(lPanel, BorderLayout.WEST);
+		frame.getContentPane().add(rPanel, BorderLayout.EAST);
+		frame.pack();
+		frame.setVisible(true);
+		submit(query == null ? "" : format(query));
+	}
+
+	/**
+	 * Set the transformers of the given view, which draws the connection graph if the given flag is set.
+	 */
+	private void decorate(VisualizationViewer<Integer, Integer> view, boolean connectionGraph){
+		LevelOfDetail detail = new LevelOfDetail(view, vertex -> highlight.isX(vertex) || highlight.isY(vertex) || highlight.isEvidence(vertex));
+		view.addPreRenderPaintable(detail);
+		RenderContext<Integer, Integer> context = view.getRenderContext();
+		context.setVertexIncludePredicate(detail.vertices());
+		context.setVertexShapeTransformer(detail.shapes());
+		context.setVertexLabelTransformer(detail.labels(input.getNetwork()));
+		context.setVertexFillPaintTransformer(new VertexTransformer(highlight));
+		context.setEdgeShapeTransformer(new EdgeShape.QuadCurve<Integer, Integer>());
+		view.getRenderer().getVertexLabelRenderer().setPosition(Position.CNTR);
+		view.setBackground(Color.WHITE);
+		view.setGraphMouse(new DefaultModalGraphMouse<Integer, Integer>());
+		if(connectionGraph){
+			context.setEdgeIncludePredicate(detail.edges(edge -> !highlight.isRemoved(edge)));
+			context.setEdgeArrowPredicate(edge -> false);
+		} else {
+			context.setEdgeIncludePredicate(detail.edges(edge -> true));
+			context.setEdgeArrowPredicate(detail.arrows());
+			context.setEdgeDrawPaintTransformer(edge -> highlight.isRemoved(edge) ? Color.LIGHT_GRAY : Color.BLACK);
+			context.setEdgeStrokeTransformer(edge -> highlight.isRemoved(edge) ? RenderContext.DASHED : SOLID);
+		}
+	}
+
+	/**
+	 * Answer the query in the given text, of the form "x y evidence...", on the background thread and
+	 * show it when it is answered, unless another query was submitted in the meantime.
+	 */
+	private void submit(final String text){
+		final int submitted = ++generation;
+		final BitSet current = shown;
+		final CompiledQuery currentQuery = shownQuery;
+		status.setText("Answering...");
+		background.execute(new SwingWorker<Update, Void>(){
+			@Override
+			protected Update doInBackground(){
+				return update(text, current, currentQuery);
+			}
+
+			@Override
+			protected void done(){
+				if(submitted != generation) return;
+				try {
+					apply(get());
+				} catch (ExecutionException e) {
+					status.setText(e.getCause().getMessage());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Answer the query in the given text and, if its subgraph is not the given one, lay that out.
+	 * The given subgraph is kept if the query only changes the evidence of the given query and needs
+	 * no other vertices. Runs on the background thread.
+	 */
+	private Update update(String text, BitSet current, CompiledQuery currentQuery){
+		String[] names = text.trim().split("\\s+");
+		Query query = null;
+		if(names.length >= 2) query = new Query(names[0], names[1], Arrays.asList(names).subList(2, names.length));
+		else if(!names[0].isEmpty()) throw new IllegalArgumentException("x and y expected");
+		CompiledQuery compiled = null;
+		QueryResult result = null;
+		if(query != null){
+			compiled = CompiledQuery.compile(input.getNetwork(), query);
+			result = runner != null ? runner.run(new EvidenceContext(input.getIndex(), compiled), compiled) : answer(compiled);
+		}
+
+		BitSet vertices = relevant(compiled);
+		if(compiled != null && currentQuery != null && compiled.getX() == currentQuery.getX() && compiled.getY() == currentQuery.getY()){
+			BitSet outside = (BitSet) vertices.clone();
+			outside.andNot(current);
+			if(outside.isEmpty()) vertices = current;
+		}
+		Update update = new Update(compiled, result, vertices);
+		if(!update.vertices.equals(current)){
+			if(layouts == null) layouts = new LayoutCache(input.getIndex(), CACHED_LAYOUTS);
+			final double[] coordinates = layouts.get(update.vertices);
+			double width = 0, height = 0;
+			for(int v = update.vertices.nextSetBit(0) ; v >= 0 ; v = update.vertices.nextSetBit(v + 1)){
+				width = Math.max(width, coordinates[2 * v]);
+				height = Math.max(height, coordinates[2 * v + 1]);
+			}
+			update.layout = new StaticLayout<Integer, Integer>(JungGraphAdapter.toSubgraph(input.getNetwork(), update.vertices),
+					vertex -> new Point2D.Double(coordinates[2 * vertex], coordinates[2 * vertex + 1]),
+					new Dimension((int) (width + LayoutCache.SPACING), (int) (height + LayoutCache.SPACING)));
+		}
+		return update;
+	}
+
+	/**
+	 * Answer the given query with the connection graph of its x and y, observing and unobserving
+	 * the vertices in which its evidence differs from that of the last query on them.
+	 */
+	private QueryResult answer(CompiledQuery compiled){
+		Query query = compiled.getQuery();
+		long key = (long) compiled.getX() << 32 | compiled.getY();
+		IncrementalConnectionGraph connectionGraph = connectionGraphs.get(key);
+		if(connectionGraph == null){
+			connectionGraph = new IncrementalConnectionGraph(input.getNetwork(), query.getX(), query.getY(), query.getEvidence());
+			connectionGraphs.put(key, connectionGraph);
+		} else {
+			Set<String> evidence = new HashSet<String>(query.getEvidence());
+			for(String vertex: connectionGraph.getEvidence()){
+				if(!evidence.contains(vertex)) connectionGraph.unobserve(vertex);
+			}
+			for(String vertex: evidence) connectionGraph.observe(vertex);
+		}
+		return new QueryResult(query, connectionGraph.isSeparated(), connectionGraph.getRemovedEdges());
+	}
+
+	/**
+	 * Return the vertices that matter for the given query: all vertices if it is null, the ancestral
+	 * set of x, y and the evidence in a directed graph and their connected components otherwise.
+	 */
+	private BitSet relevant(CompiledQuery query){
+		IndexedGraph graph = input.getNetwork();
+		int n = graph.getVertexCount();
+		BitSet result = new BitSet(n);
+		if(query == null){
+			result.set(0, n);
+			return result;
+		}
+		result.or(query.getEvidence());
+		result.set(query.getX());
+		result.set(query.getY());
+		if(graph.isDirected()) return input.getIndex().ancestorsOf(result);
+		int[] queue = new int[n];
+		int head = 0, tail = 0;
+		for(int v = result.nextSetBit(0) ; v >= 0 ; v = result.nextSetBit(v + 1)) queue[tail++] = v;
+		while(head < tail){
+			int v = queue[head++];
+			for(int j = 0, degree = graph.degree(v) ; j < degree ; j++){
+				int u = graph.getOpposite(graph.incidentEdge(v, j), v);
+				if(!result.get(u)){
+					result.set(u);
+					queue[tail++] = u;
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Show the given update: swap the layout of both views if the subgraph changed, then the highlighting.
+	 */
+	private void apply(Update update){
+		shownQuery = update.query;
+		if(update.layout != null){
+			shown = update.vertices;
+			for(VisualizationViewer<Integer, Integer> view: Arrays.asList(networkView, connectionView)){
+				view.setGraphLayout(update.layout);
+				view.getRenderContext().getMultiLayerTransformer().setToIdentity();
+				Dimension size = update.layout.getSize(), area = view.getSize();
+				double scale = Math.min(1, Math.min(area.getWidth() / size.getWidth(), area.getHeight() / size.getHeight()));
+				view.getRenderContext().getMultiLayerTransformer().getTransformer(Layer.VIEW).setScale(scale, scale, new Point2D.Double());
+			}
+		}
+		highlight.set(update.query, update.result);
+		if(update.query == null){
+			label1.setText("");
+			label2.setText("");
+		} else {
+			Query query = update.query.getQuery();
+			label1.setText("<HTML>" + query.getX() + " <U>||</U> " + query.getY() + " | "
+					+ String.join(",", query.getEvidence()) + " ?" + "</HTML>");
+			label2.setText(update.result.isSeparated() ? "Yes" : "No");
+		}
+		status.setText(shown.cardinality() + " of " + input.getNetwork().getVertexCount() + " vertices");
+		networkView.repaint();
+		connectionView.repaint();
+	}
+
+	private static String format(Query query){
+		StringBuilder result = new StringBuilder(query.getX()).append(' ').append(query.getY());
+		for(String vertex: query.getEvidence()) result.append(' ').append(vertex);
+		return result.toString();
+	}
+
+	/**
+	 * An answered query, the vertices of its subgraph and, if that is not the one shown, its layout.
+	 */
+	private static class Update {
+
+		private final CompiledQuery query;
+		private final QueryResult result;
+		private final BitSet vertices;
+		private Layout<Integer, Integer> layout;
+
+		private Update(CompiledQuery query, QueryResult result, BitSet vertices){
+			this.query = query;
+			this.result = result;
+			this.vertices = vertices;
+		}
+	}
+}
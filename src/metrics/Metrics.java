@@ -0,0 +1,277 @@
+package metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanNotificationInfo;
+import javax.management.Notification;
+import javax.management.NotificationBroadcasterSupport;
+import javax.management.ObjectName;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * The counters of the parsers and the generator, published as an MBean, with a flight recorder event
+ * for every file parsed, query answered and path enumeration.
+ *
+ * Recording is off by default. The instrumented code then only checks whether it is on and whether
+ * the flight recorder runs, and does not even read the clock. It is turned on with the
+ * system property cgg.metrics=true or with setEnabled, which also register the MBean as
+ * connectiongraph:type=Metrics. To turn it on through the MBean instead, it is registered up front
+ * with the system property cgg.metrics.jmx=true. Flight recorder events are recorded
+ * whenever a recording enables them, whether recording is on or not. A query that takes at least the
+ * slow query threshold is counted and announced with a notification of type connectiongraph.slowQuery.
+ */
+public final class Metrics extends NotificationBroadcasterSupport implements MetricsMXBean {
+
+	public static final String OBJECT_NAME = "connectiongraph:type=Metrics";
+
+	public static final String SLOW_QUERY = "connectiongraph.slowQuery";
+
+	private static final Metrics INSTANCE = new Metrics();
+
+	static {
+		if(INSTANCE.enabled || Boolean.getBoolean("cgg.metrics.jmx")) INSTANCE.register();
+	}
+
+	private volatile boolean enabled = Boolean.getBoolean("cgg.metrics");
+	private volatile boolean registered;
+	private volatile long slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("cgg.metrics.slowQueryMillis", 1000));
+
+	private final LongAdder filesParsed = new LongAdder();
+	private final LongAdder bytesParsed = new LongAdder();
+	private final LongAdder tokensParsed = new LongAdder();
+	private final LongAdder parseNanos = new LongAdder();
+	private final LongAdder queries = new LongAdder();
+	private final LongAdder queryNanos = new LongAdder();
+	private final LongAdder pathEnumerations = new LongAdder();
+	private final LongAdder pathEnumerationNanos = new LongAdder();
+	private final LongAdder pathsEnumerated = new LongAdder();
+	private final LongAdder collidersChecked = new LongAdder();
+	private final LongAdder edgesRemoved = new LongAdder();
+	private final LongAdder slowQueries = new LongAdder();
+	private volatile String lastSlowQuery;
+	private final AtomicLong sequence = new AtomicLong();
+
+	private Metrics(){
+		super(new MBeanNotificationInfo(new String[]{SLOW_QUERY}, Notification.class.getName(), "A query took at least the slow query threshold"));
+	}
+
+	/**
+	 * Returns the metrics of this virtual machine.
+	 */
+	public static Metrics get(){
+		return INSTANCE;
+	}
+
+	@Override
+	public boolean isEnabled(){
+		return enabled;
+	}
+
+	@Override
+	public void setEnabled(boolean enabled){
+		if(enabled) register();
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Publish this metrics on the platform MBean server, unless it is published already.
+	 * Starting the MBean server takes a while, so it is only done once recording is turned on.
+	 */
+	private synchronized void register(){
+		if(registered) return;
+		registered = true;
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			// Already registered by another class loader, the counters of this one are not published.
+		}
+	}
+
+	/**
+	 * Returns whether the instrumented code must measure its work and hand it to this metrics: when
+	 * recording is on or the flight recorder is running. Only then are the event classes loaded,
+	 * which initializes the flight recorder support of the virtual machine.
+	 */
+	public boolean isRecording(){
+		return enabled || FlightRecorder.isInitialized();
+	}
+
+	/**
+	 * Record the parsing of the given file, begun with the given event the given number of nanoseconds ago.
+	 */
+	public void parsed(ParseEvent event, String format, String file, long bytes, long tokens, int vertices, int edges, long nanos){
+		event.end();
+		if(event.shouldCommit()){
+			event.format = format;
+			event.file = file;
+			event.bytes = bytes;
+			event.tokens = tokens;
+			event.vertices = vertices;
+			event.edges = edges;
+			event.commit();
+		}
+		if(!enabled) return;
+		filesParsed.increment();
+		bytesParsed.add(bytes);
+		tokensParsed.add(tokens);
+		parseNanos.add(nanos);
+	}
+
+	/**
+	 * Record the answer to the given query, begun with the given event the given number of nanoseconds ago.
+	 *
+	 * @param	query
+	 * 			The query, only turned into a string when it is recorded.
+	 */
+	public void queried(QueryEvent event, String algorithm, Object query, long paths, long colliders, int removedEdges, long nanos){
+		event.end();
+		if(event.shouldCommit()){
+			event.algorithm = algorithm;
+			event.query = String.valueOf(query);
+			event.paths = paths;
+			event.colliders = colliders;
+			event.removedEdges = removedEdges;
+			event.commit();
+		}
+		if(!enabled) return;
+		queries.increment();
+		queryNanos.add(nanos);
+		pathsEnumerated.add(paths);
+		collidersChecked.add(colliders);
+		edgesRemoved.add(removedEdges);
+		if(nanos >= slowQueryNanos){
+			slowQueries.increment();
+			String message = algorithm + " " + query + " took " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms";
+			lastSlowQuery = message;
+			sendNotification(new Notification(SLOW_QUERY, this, sequence.incrementAndGet(), message));
+		}
+	}
+
+	/**
+	 * Record the enumeration of the paths between x and y, begun with the given event the given number of nanoseconds ago.
+	 */
+	public void enumerated(PathEnumerationEvent event, String x, String y, long paths, long nanos){
+		event.end();
+		if(event.shouldCommit()){
+			event.x = x;
+			event.y = y;
+			event.paths = paths;
+			event.commit();
+		}
+		if(!enabled) return;
+		pathEnumerations.increment();
+		pathEnumerationNanos.add(nanos);
+		pathsEnumerated.add(paths);
+	}
+
+	@Override
+	public long getFilesParsed(){
+		return filesParsed.sum();
+	}
+
+	@Override
+	public long getBytesParsed(){
+		return bytesParsed.sum();
+	}
+
+	@Override
+	public long getTokensParsed(){
+		return tokensParsed.sum();
+	}
+
+	@Override
+	public long getParseTimeMillis(){
+		return TimeUnit.NANOSECONDS.toMillis(parseNanos.sum());
+	}
+
+	@Override
+	public double getBytesPerSecond(){
+		return perSecond(bytesParsed.sum(), parseNanos.sum());
+	}
+
+	@Override
+	public double getTokensPerSecond(){
+		return perSecond(tokensParsed.sum(), parseNanos.sum());
+	}
+
+	@Override
+	public long getQueries(){
+		return queries.sum();
+	}
+
+	@Override
+	public long getQueryTimeMillis(){
+		return TimeUnit.NANOSECONDS.toMillis(queryNanos.sum());
+	}
+
+	@Override
+	public long getPathEnumerations(){
+		return pathEnumerations.sum();
+	}
+
+	@Override
+	public long getPathEnumerationTimeMillis(){
+		return TimeUnit.NANOSECONDS.toMillis(pathEnumerationNanos.sum());
+	}
+
+	@Override
+	public long getPathsEnumerated(){
+		return pathsEnumerated.sum();
+	}
+
+	@Override
+	public long getCollidersChecked(){
+		return collidersChecked.sum();
+	}
+
+	@Override
+	public long getEdgesRemoved(){
+		return edgesRemoved.sum();
+	}
+
+	@Override
+	public long getSlowQueries(){
+		return slowQueries.sum();
+	}
+
+	@Override
+	public String getLastSlowQuery(){
+		return lastSlowQuery;
+	}
+
+	@Override
+	public long getSlowQueryThresholdMillis(){
+		return TimeUnit.NANOSECONDS.toMillis(slowQueryNanos);
+	}
+
+	@Override
+	public void setSlowQueryThresholdMillis(long threshold){
+		if(threshold < 0) throw new IllegalArgumentException("The given threshold is negative.");
+		slowQueryNanos = TimeUnit.MILLISECONDS.toNanos(threshold);
+	}
+
+	@Override
+	public void reset(){
+		for(LongAdder adder: new LongAdder[]{filesParsed, bytesParsed, tokensParsed, parseNanos, queries, queryNanos,
+				pathEnumerations, pathEnumerationNanos, pathsEnumerated, collidersChecked, edgesRemoved, slowQueries}){
+			adder.reset();
+		}
+		lastSlowQuery = null;
+	}
+
+	private static double perSecond(long count, long nanos){
+		return nanos == 0 ? 0 : count * 1e9 / nanos;
+	}
+
+	@Override
+	public String toString(){
+		return "Metrics[files=" + getFilesParsed() + ", bytes/s=" + Math.round(getBytesPerSecond()) + ", tokens/s=" + Math.round(getTokensPerSecond())
+				+ ", parse=" + getParseTimeMillis() + " ms, queries=" + getQueries() + ", query=" + getQueryTimeMillis() + " ms, paths=" + getPathsEnumerated()
+				+ ", colliders=" + getCollidersChecked() + ", removed=" + getEdgesRemoved() + ", slow=" + getSlowQueries() + "]";
+	}
+}
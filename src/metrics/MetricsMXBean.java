@@ -0,0 +1,65 @@
+package metrics;
+
+/**
+ * The management interface of the metrics of the parsers and the generator.
+ *
+ * Counts and times are totals since the start of the virtual machine or the last reset, and only
+ * grow while recording is enabled.
+ */
+public interface MetricsMXBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	long getFilesParsed();
+
+	long getBytesParsed();
+
+	long getTokensParsed();
+
+	long getParseTimeMillis();
+
+	/**
+	 * Returns the number of bytes parsed per second of parsing.
+	 */
+	double getBytesPerSecond();
+
+	/**
+	 * Returns the number of tokens parsed per second of parsing.
+	 */
+	double getTokensPerSecond();
+
+	long getQueries();
+
+	long getQueryTimeMillis();
+
+	long getPathEnumerations();
+
+	long getPathEnumerationTimeMillis();
+
+	long getPathsEnumerated();
+
+	long getCollidersChecked();
+
+	long getEdgesRemoved();
+
+	/**
+	 * Returns the number of queries that took at least the slow query threshold.
+	 */
+	long getSlowQueries();
+
+	/**
+	 * Returns the last slow query and its duration, or null if there was none.
+	 */
+	String getLastSlowQuery();
+
+	long getSlowQueryThresholdMillis();
+
+	void setSlowQueryThresholdMillis(long threshold);
+
+	/**
+	 * Set all counts and times back to zero.
+	 */
+	void reset();
+}
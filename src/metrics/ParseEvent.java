@@ -0,0 +1,38 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the parsing of one network file.
+ */
+@Name("connectiongraph.Parse")
+@Label("Parse Network")
+@Description("The parsing of one network file")
+@Category("Connection Graph Generator")
+@StackTrace(false)
+public class ParseEvent extends jdk.jfr.Event {
+
+	@Label("File")
+	String file;
+
+	@Label("Format")
+	String format;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	@Label("Tokens")
+	long tokens;
+
+	@Label("Vertices")
+	int vertices;
+
+	@Label("Edges")
+	int edges;
+}
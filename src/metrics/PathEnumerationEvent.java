@@ -0,0 +1,27 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the enumeration of all simple paths between two vertices.
+ */
+@Name("connectiongraph.PathEnumeration")
+@Label("Enumerate Paths")
+@Description("The enumeration of all simple paths between two vertices")
+@Category("Connection Graph Generator")
+@StackTrace(false)
+public class PathEnumerationEvent extends jdk.jfr.Event {
+
+	@Label("X")
+	String x;
+
+	@Label("Y")
+	String y;
+
+	@Label("Paths")
+	long paths;
+}
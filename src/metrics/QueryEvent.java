@@ -0,0 +1,34 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A flight recorder event for the answer to one independence query. Set a threshold on it to only
+ * record the slow queries.
+ */
+@Name("connectiongraph.Query")
+@Label("Answer Query")
+@Description("The answer to one independence query, with or without its connection graph")
+@Category("Connection Graph Generator")
+@StackTrace(false)
+public class QueryEvent extends jdk.jfr.Event {
+
+	@Label("Algorithm")
+	String algorithm;
+
+	@Label("Query")
+	String query;
+
+	@Label("Paths Enumerated")
+	long paths;
+
+	@Label("Colliders Checked")
+	long colliders;
+
+	@Label("Edges Removed")
+	int removedEdges;
+}
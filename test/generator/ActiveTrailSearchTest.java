@@ -0,0 +1,76 @@
+package generator;
+
+import static test.Assert.assertEquals;
+import static test.Assert.assertTrue;
+
+import generator.DSeparationOracle.Trail;
+import generator.graph.IndexedGraph;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the shortest active trails of small random networks with the brute force oracle.
+ */
+public class ActiveTrailSearchTest {
+
+	private static final int NETWORKS = 200;
+	private static final int MAX_VERTICES = 9;
+	private static final int MAX_TRAILS = 6;
+
+	/**
+	 * Every trail is a distinct simple active trail from x to y, and the lengths are those of the
+	 * k shortest simple active trails, in non-decreasing order.
+	 */
+	public void testShortestTrails(){
+		Random random = new Random(8);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, network % 3 != 0, MAX_VERTICES);
+			List<String> evidence = DSeparationOracle.randomEvidence(random, graph);
+			DSeparationOracle oracle = new DSeparationOracle(graph, evidence);
+			ActiveTrailSearch search = new ActiveTrailSearch(new EvidenceContext(graph, evidence));
+			for(int x = 0 ; x < graph.getVertexCount() ; x++){
+				for(int y = 0 ; y < graph.getVertexCount() ; y++){
+					if(x == y) continue;
+					String query = SeparationTest.describe(graph, evidence, x, y);
+					int k = 1 + random.nextInt(MAX_TRAILS);
+					List<ActiveTrail> trails = search.shortestTrails(x, y, k);
+					List<Integer> lengths = oracle.activeTrailLengths(x, y);
+					assertEquals("number of trails of " + query, Math.min(k, lengths.size()), trails.size());
+					Set<GraphPath> seen = new HashSet<GraphPath>();
+					for(int i = 0 ; i < trails.size() ; i++){
+						GraphPath path = trails.get(i).getPath();
+						assertEquals("length of trail " + i + " of " + query, lengths.get(i).intValue(), path.getLength());
+						assertTrue("repeated trail " + path + " of " + query, seen.add(path));
+						assertTrue("inactive trail " + path + " of " + query, oracle.isActive(toTrail(path, x, y, query)));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the given path as a trail of the oracle, checking that it is a simple trail from x to y.
+	 */
+	private static Trail toTrail(GraphPath path, int x, int y, String query){
+		IndexedGraph graph = path.getGraph();
+		int length = path.getLength();
+		int[] vertices = new int[length];
+		int[] edges = new int[length - 1];
+		Set<Integer> visited = new HashSet<Integer>();
+		for(int i = 0 ; i < length ; i++){
+			vertices[i] = path.getVertex(i);
+			assertTrue("repeated vertex on " + path + " of " + query, visited.add(vertices[i]));
+			if(i == 0) continue;
+			edges[i - 1] = path.getEdge(i - 1);
+			int e = edges[i - 1];
+			boolean joins = graph.getSource(e) == vertices[i - 1] && graph.getTarget(e) == vertices[i]
+					|| graph.getSource(e) == vertices[i] && graph.getTarget(e) == vertices[i - 1];
+			assertTrue("edge " + e + " of " + path + " of " + query + " does not join its vertices", joins);
+		}
+		assertTrue("trail " + path + " of " + query + " does not run from x to y", vertices[0] == x && vertices[length - 1] == y);
+		return new Trail(vertices, edges);
+	}
+}
@@ -0,0 +1,110 @@
+package generator;
+
+import static test.Assert.assertEquals;
+
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Answers many queries concurrently on one shared network and compares the results with those of
+ * a batch query runner answering the same queries one after the other.
+ */
+public class ConcurrentQueryRunnerTest {
+
+	private static final int VERTICES = 500;
+	private static final int QUERIES = 2000;
+	private static final int EVIDENCE_SETS = 20;
+	private static final int THREADS = 8;
+	private static final Algorithm[] ALGORITHMS = {Algorithm.REACHABILITY, Algorithm.MORAL_GRAPH, Algorithm.COMPONENTS};
+
+	public void testRunMatchesSequential(){
+		ForkJoinPool pool = new ForkJoinPool(THREADS);
+		try {
+			for(boolean directed: new boolean[]{true, false}){
+				GraphInput input = randomInput(new Random(directed ? 11 : 12), directed);
+				for(Algorithm algorithm: ALGORITHMS){
+					if(directed && algorithm == Algorithm.COMPONENTS) continue;
+					List<QueryResult> expected = new BatchQueryRunner(input.getNetwork(), algorithm, true).run(input.getQueries());
+					try (ConcurrentQueryRunner runner = new ConcurrentQueryRunner(input.getNetwork(), algorithm, true, pool)) {
+						check(algorithm.toString(), expected, runner.run(input.getQueries()));
+					}
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Many threads ask single queries of one runner at once, sharing the input, its index and the
+	 * evidence contexts, so the runner lends out as many engines as the parallelism of its pool.
+	 */
+	public void testConcurrentSingleQueriesMatchSequential() throws InterruptedException, ExecutionException {
+		ExecutorService threads = Executors.newFixedThreadPool(THREADS);
+		ForkJoinPool pool = new ForkJoinPool(THREADS);
+		try {
+			for(boolean directed: new boolean[]{true, false}){
+				final GraphInput input = randomInput(new Random(directed ? 13 : 14), directed);
+				final List<CompiledQuery> compiled = CompiledQuery.compileAll(input.getNetwork(), input.getQueries());
+				final List<EvidenceContext> contexts = new ArrayList<EvidenceContext>();
+				for(CompiledQuery query: compiled) contexts.add(new EvidenceContext(input.getIndex(), query));
+				for(Algorithm algorithm: ALGORITHMS){
+					if(directed && algorithm == Algorithm.COMPONENTS) continue;
+					List<QueryResult> expected = new BatchQueryRunner(input.getNetwork(), algorithm, true).run(input.getQueries());
+					try (final ConcurrentQueryRunner runner = new ConcurrentQueryRunner(input.getNetwork(), algorithm, true, pool)) {
+						List<Future<QueryResult>> futures = new ArrayList<Future<QueryResult>>();
+						for(int i = 0 ; i < compiled.size() ; i++){
+							final int index = i;
+							futures.add(threads.submit((Callable<QueryResult>) () -> runner.run(contexts.get(index), compiled.get(index))));
+						}
+						List<QueryResult> actual = new ArrayList<QueryResult>();
+						for(Future<QueryResult> future: futures) actual.add(future.get());
+						check(algorithm + " with single queries", expected, actual);
+					}
+				}
+			}
+		} finally {
+			threads.shutdown();
+			pool.shutdown();
+		}
+	}
+
+	private static void check(String name, List<QueryResult> expected, List<QueryResult> actual){
+		assertEquals("number of results of " + name, expected.size(), actual.size());
+		for(int i = 0 ; i < expected.size() ; i++){
+			String query = name + " on " + expected.get(i).getQuery();
+			assertEquals("query of " + query, expected.get(i).getQuery(), actual.get(i).getQuery());
+			assertEquals("verdict of " + query, expected.get(i).isSeparated(), actual.get(i).isSeparated());
+			assertEquals("removed edges of " + query, expected.get(i).getRemovedEdges(), actual.get(i).getRemovedEdges());
+		}
+	}
+
+	/**
+	 * Return a random network with many queries on a few evidence sets.
+	 */
+	private static GraphInput randomInput(Random random, boolean directed){
+		IndexedGraph graph = DSeparationOracle.randomNetwork(random, directed, VERTICES);
+		List<List<String>> evidenceSets = new ArrayList<List<String>>();
+		for(int i = 0 ; i < EVIDENCE_SETS ; i++){
+			List<String> evidence = new ArrayList<String>();
+			for(int k = random.nextInt(graph.getVertexCount() / 10 + 1) ; k > 0 ; k--) evidence.add(graph.getName(random.nextInt(graph.getVertexCount())));
+			evidenceSets.add(evidence);
+		}
+		List<Query> queries = new ArrayList<Query>();
+		for(int i = 0 ; i < QUERIES ; i++){
+			int x = random.nextInt(graph.getVertexCount()), y = random.nextInt(graph.getVertexCount());
+			queries.add(new Query(graph.getName(x), graph.getName(y), evidenceSets.get(random.nextInt(EVIDENCE_SETS))));
+		}
+		Query first = queries.get(0);
+		return new GraphInput(graph, directed ? "Bayesian" : "Markov", first.getX(), first.getY(), first.getEvidence(), queries);
+	}
+}
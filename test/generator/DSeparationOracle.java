@@ -0,0 +1,225 @@
+package generator;
+
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Decides d-separation by brute force, enumerating every simple trail between two vertices and
+ * checking every triple on it against the textbook definition. Exponential, for small test networks only.
+ *
+ * An inner vertex of a trail is active when it is a collider that is observed or has an observed
+ * descendant, or when it is no collider and is not observed. Markov networks have no colliders.
+ * x and y themselves may be observed, which blocks no trail between them. The observed vertices
+ * and their ancestors are found here as well, so nothing is shared with the code under test.
+ */
+public final class DSeparationOracle {
+
+	/**
+	 * A simple trail, as its vertices and the edges between consecutive vertices.
+	 */
+	public static final class Trail {
+
+		final int[] vertices;
+		final int[] edges;
+
+		public Trail(int[] vertices, int[] edges){
+			this.vertices = vertices;
+			this.edges = edges;
+		}
+	}
+
+	private final IndexedGraph graph;
+	private final boolean[] observed;
+	/**
+	 * Whether a vertex is observed or has an observed descendant.
+	 * */
+	private final boolean[] evidenceAncestor;
+
+	public DSeparationOracle(IndexedGraph graph, Collection<String> evidence){
+		this.graph = graph;
+		int n = graph.getVertexCount();
+		this.observed = new boolean[n];
+		this.evidenceAncestor = new boolean[n];
+		for(String name: evidence) observed[graph.requireId(name)] = true;
+		for(int v = 0 ; v < n ; v++){
+			if(observed[v]) markAncestors(v);
+		}
+	}
+
+	private void markAncestors(int vertex){
+		if(evidenceAncestor[vertex]) return;
+		evidenceAncestor[vertex] = true;
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			if(graph.isDirected() && graph.getTarget(e) == vertex) markAncestors(graph.getSource(e));
+		}
+	}
+
+	IndexedGraph getGraph(){
+		return graph;
+	}
+
+	/**
+	 * Return every simple trail between x and y, active or not.
+	 */
+	List<Trail> trails(int x, int y){
+		List<Trail> trails = new ArrayList<Trail>();
+		int[] vertices = new int[graph.getVertexCount()];
+		int[] edges = new int[graph.getVertexCount()];
+		vertices[0] = x;
+		collect(vertices, edges, 1, y, trails);
+		return trails;
+	}
+
+	private void collect(int[] vertices, int[] edges, int length, int y, List<Trail> trails){
+		int v = vertices[length - 1];
+		if(v == y){
+			int[] trailVertices = new int[length];
+			int[] trailEdges = new int[length - 1];
+			System.arraycopy(vertices, 0, trailVertices, 0, length);
+			System.arraycopy(edges, 0, trailEdges, 0, length - 1);
+			trails.add(new Trail(trailVertices, trailEdges));
+			return;
+		}
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			if(graph.getSource(e) != v && graph.getTarget(e) != v) continue;
+			int w = graph.getOpposite(e, v);
+			if(contains(vertices, length, w)) continue;
+			vertices[length] = w;
+			edges[length - 1] = e;
+			collect(vertices, edges, length + 1, y, trails);
+		}
+	}
+
+	private static boolean contains(int[] vertices, int length, int vertex){
+		for(int i = 0 ; i < length ; i++){
+			if(vertices[i] == vertex) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Return whether the triple of the given vertex entered by the first and left by the second edge is active.
+	 */
+	boolean isActive(int in, int vertex, int out){
+		boolean collider = graph.isDirected() && graph.getTarget(in) == vertex && graph.getTarget(out) == vertex;
+		return collider ? evidenceAncestor[vertex] : !observed[vertex];
+	}
+
+	public boolean isActive(Trail trail){
+		for(int i = 1 ; i < trail.vertices.length - 1 ; i++){
+			if(!isActive(trail.edges[i - 1], trail.vertices[i], trail.edges[i])) return false;
+		}
+		return true;
+	}
+
+	public boolean isSeparated(int x, int y){
+		for(Trail trail: trails(x, y)){
+			if(isActive(trail)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Return the edges on a simple trail between x and y.
+	 */
+	BitSet trailEdges(int x, int y){
+		BitSet edges = new BitSet(graph.getEdgeCount());
+		for(Trail trail: trails(x, y)){
+			for(int e: trail.edges) edges.set(e);
+		}
+		return edges;
+	}
+
+	/**
+	 * Return the edges on a simple active trail between x and y.
+	 */
+	BitSet activeTrailEdges(int x, int y){
+		BitSet edges = new BitSet(graph.getEdgeCount());
+		for(Trail trail: trails(x, y)){
+			if(!isActive(trail)) continue;
+			for(int e: trail.edges) edges.set(e);
+		}
+		return edges;
+	}
+
+	/**
+	 * Return the edges removed from the connection graph by REACHABILITY: those on a simple trail
+	 * between x and y but on no simple active trail.
+	 */
+	BitSet removedEdges(int x, int y){
+		BitSet removed = trailEdges(x, y);
+		removed.andNot(activeTrailEdges(x, y));
+		return removed;
+	}
+
+	/**
+	 * Return the edges removed from the connection graph by PATHS: both edges of every blocked
+	 * triple on a simple trail between x and y.
+	 */
+	BitSet blockedTripleEdges(int x, int y){
+		BitSet removed = new BitSet(graph.getEdgeCount());
+		for(Trail trail: trails(x, y)){
+			for(int i = 1 ; i < trail.vertices.length - 1 ; i++){
+				if(isActive(trail.edges[i - 1], trail.vertices[i], trail.edges[i])) continue;
+				removed.set(trail.edges[i - 1]);
+				removed.set(trail.edges[i]);
+			}
+		}
+		return removed;
+	}
+
+	/**
+	 * Return the number of vertices of every simple active trail between x and y, in ascending order.
+	 */
+	public List<Integer> activeTrailLengths(int x, int y){
+		List<Integer> lengths = new ArrayList<Integer>();
+		for(Trail trail: trails(x, y)){
+			if(isActive(trail)) lengths.add(trail.vertices.length);
+		}
+		Collections.sort(lengths);
+		return lengths;
+	}
+
+	/**
+	 * Return a random network with at most the given number of vertices, named v0, v1, ...
+	 * The vertices of a Bayesian network are ordered at random and every edge goes from an earlier
+	 * to a later vertex, so the ids are no topological order.
+	 */
+	public static IndexedGraph randomNetwork(Random random, boolean directed, int maxVertices){
+		int n = 2 + random.nextInt(maxVertices - 1);
+		int[] order = new int[n];
+		for(int i = 0 ; i < n ; i++){
+			int j = random.nextInt(i + 1);
+			order[i] = order[j];
+			order[j] = i;
+		}
+		IndexedGraph.Builder builder = new IndexedGraph.Builder(directed);
+		for(int v = 0 ; v < n ; v++) builder.addVertex("v" + v);
+		int edges = random.nextInt(2 * n);
+		for(int k = 0 ; k < edges ; k++){
+			int i = random.nextInt(n);
+			int j = random.nextInt(n);
+			if(i < j) builder.addEdge(order[i], order[j]);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * Return up to three random vertices of the given network, without duplicates.
+	 */
+	public static List<String> randomEvidence(Random random, IndexedGraph graph){
+		List<String> evidence = new ArrayList<String>();
+		int count = random.nextInt(4);
+		for(int k = 0 ; k < count ; k++){
+			String name = graph.getName(random.nextInt(graph.getVertexCount()));
+			if(!evidence.contains(name)) evidence.add(name);
+		}
+		return evidence;
+	}
+}
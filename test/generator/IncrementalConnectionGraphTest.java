@@ -0,0 +1,83 @@
+package generator;
+
+import static test.Assert.assertEquals;
+
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Observes and unobserves random vertices of random networks and compares the incremental
+ * connection graph after every change with the brute force oracle on small networks, and with
+ * a connection graph computed anew on larger ones.
+ */
+public class IncrementalConnectionGraphTest {
+
+	private static final int NETWORKS = 200;
+	private static final int MAX_VERTICES = 9;
+	private static final int CHANGES = 8;
+	private static final int LARGE_NETWORKS = 50;
+	private static final int MAX_LARGE_VERTICES = 400;
+	private static final int LARGE_CHANGES = 40;
+
+	public void testMatchesOracle(){
+		Random random = new Random(7);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, network % 3 != 0, MAX_VERTICES);
+			int n = graph.getVertexCount();
+			int x = random.nextInt(n);
+			int y = (x + 1 + random.nextInt(n - 1)) % n;
+			List<String> evidence = DSeparationOracle.randomEvidence(random, graph);
+			IncrementalConnectionGraph connectionGraph = new IncrementalConnectionGraph(graph, graph.getName(x), graph.getName(y), evidence);
+			evidence = new ArrayList<String>(evidence);
+			check(connectionGraph, graph, evidence, x, y);
+			for(int change = 0 ; change < CHANGES ; change++){
+				String vertex = graph.getName(random.nextInt(n));
+				if(evidence.contains(vertex)){
+					connectionGraph.unobserve(vertex);
+					evidence.remove(vertex);
+				} else {
+					connectionGraph.observe(vertex);
+					evidence.add(vertex);
+				}
+				check(connectionGraph, graph, evidence, x, y);
+			}
+		}
+	}
+
+	public void testMatchesFreshRecomputation(){
+		Random random = new Random(9);
+		for(int network = 0 ; network < LARGE_NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, network % 3 != 0, MAX_LARGE_VERTICES);
+			int n = graph.getVertexCount();
+			int x = random.nextInt(n);
+			int y = (x + 1 + random.nextInt(n - 1)) % n;
+			List<String> evidence = new ArrayList<String>();
+			IncrementalConnectionGraph connectionGraph = new IncrementalConnectionGraph(graph, graph.getName(x), graph.getName(y), evidence);
+			for(int change = 0 ; change < LARGE_CHANGES ; change++){
+				String vertex = graph.getName(random.nextInt(n));
+				if(evidence.contains(vertex)){
+					connectionGraph.unobserve(vertex);
+					evidence.remove(vertex);
+				} else {
+					connectionGraph.observe(vertex);
+					evidence.add(vertex);
+				}
+				EvidenceContext context = new EvidenceContext(graph, evidence);
+				SeparationEngine engine = Algorithm.REACHABILITY.createEngine(graph);
+				String query = "change " + change + " of network " + network + " x=" + graph.getName(x) + " y=" + graph.getName(y) + " evidence=" + evidence;
+				assertEquals("separation after " + query, engine.isSeparated(context, x, y), connectionGraph.isSeparated());
+				assertEquals("removed edges after " + query, engine.removedEdges(context, x, y), connectionGraph.getRemovedEdges());
+			}
+		}
+	}
+
+	private static void check(IncrementalConnectionGraph connectionGraph, IndexedGraph graph, List<String> evidence, int x, int y){
+		DSeparationOracle oracle = new DSeparationOracle(graph, evidence);
+		String query = SeparationTest.describe(graph, evidence, x, y);
+		assertEquals("separation of " + query, oracle.isSeparated(x, y), connectionGraph.isSeparated());
+		assertEquals("removed edges of " + query, oracle.removedEdges(x, y), connectionGraph.getRemovedEdges());
+	}
+}
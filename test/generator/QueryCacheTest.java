@@ -0,0 +1,54 @@
+package generator;
+
+import static test.Assert.assertEquals;
+import static test.Assert.assertTrue;
+
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Asks a small cache many repeated queries, with and without connection graphs and on equal copies
+ * of one network, and compares every answer with that of a batch query runner built for the query.
+ */
+public class QueryCacheTest {
+
+	private static final int VERTICES = 200;
+	private static final int QUERIES = 1000;
+	private static final int DISTINCT_QUERIES = 100;
+	private static final int CAPACITY = 50;
+	private static final Algorithm[] ALGORITHMS = {Algorithm.PATHS, Algorithm.REACHABILITY, Algorithm.MORAL_GRAPH, Algorithm.COMPONENTS};
+
+	public void testMatchesUncached(){
+		for(boolean directed: new boolean[]{true, false}){
+			for(Algorithm algorithm: ALGORITHMS){
+				if(directed && algorithm == Algorithm.COMPONENTS) continue;
+				String name = algorithm + (directed ? " on a Bayesian network" : " on a Markov network");
+				Random random = new Random(name.hashCode());
+				long seed = random.nextLong();
+				IndexedGraph[] copies = {DSeparationOracle.randomNetwork(new Random(seed), directed, VERTICES), DSeparationOracle.randomNetwork(new Random(seed), directed, VERTICES)};
+				assertEquals("fingerprint of the copies", copies[0].getFingerprint(), copies[1].getFingerprint());
+				List<Query> queries = new ArrayList<Query>();
+				for(int i = 0 ; i < DISTINCT_QUERIES ; i++){
+					int x = random.nextInt(copies[0].getVertexCount()), y = random.nextInt(copies[0].getVertexCount());
+					queries.add(new Query(copies[0].getName(x), copies[0].getName(y), DSeparationOracle.randomEvidence(random, copies[0])));
+				}
+				QueryCache cache = new QueryCache(CAPACITY, algorithm);
+				for(int i = 0 ; i < QUERIES ; i++){
+					IndexedGraph graph = copies[random.nextInt(copies.length)];
+					Query query = queries.get(random.nextInt(queries.size()));
+					boolean connectionGraph = random.nextBoolean();
+					QueryResult actual = cache.answer(graph, query, connectionGraph);
+					CompiledQuery compiled = CompiledQuery.compile(graph, query);
+					QueryResult expected = new BatchQueryRunner(graph, algorithm, true).run(new EvidenceContext(compiled), compiled);
+					assertEquals("verdict of " + name + " on " + query, expected.isSeparated(), actual.isSeparated());
+					if(connectionGraph) assertEquals("removed edges of " + name + " on " + query, expected.getRemovedEdges(), actual.getRemovedEdges());
+				}
+				assertTrue("hits of " + name, cache.getHitCount() > 0);
+				assertTrue("size of " + name, cache.size() <= CAPACITY);
+			}
+		}
+	}
+}
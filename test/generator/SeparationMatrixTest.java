@@ -0,0 +1,52 @@
+package generator;
+
+import static test.Assert.assertEquals;
+
+import generator.graph.IndexedGraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the separation matrices of small random networks with the brute force oracle.
+ */
+public class SeparationMatrixTest {
+
+	private static final int NETWORKS = 200;
+	private static final int MAX_VERTICES = 9;
+
+	public void testMatchesOracle(){
+		Random random = new Random(5);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, network % 3 != 0, MAX_VERTICES);
+			List<String> evidence = DSeparationOracle.randomEvidence(random, graph);
+			DSeparationOracle oracle = new DSeparationOracle(graph, evidence);
+			SeparationMatrix matrix = SeparationMatrix.compute(new EvidenceContext(graph, evidence));
+			for(int x = 0 ; x < graph.getVertexCount() ; x++){
+				for(int y = 0 ; y < graph.getVertexCount() ; y++){
+					if(x == y) continue;
+					assertEquals(SeparationTest.describe(graph, evidence, x, y), oracle.isSeparated(x, y), matrix.isSeparated(x, y));
+				}
+			}
+		}
+	}
+
+	public void testWriteAndRead() throws IOException {
+		Random random = new Random(6);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, network % 3 != 0, MAX_VERTICES);
+			SeparationMatrix matrix = SeparationMatrix.compute(new EvidenceContext(graph, DSeparationOracle.randomEvidence(random, graph)));
+			ByteArrayOutputStream image = new ByteArrayOutputStream();
+			matrix.write(Channels.newChannel(image));
+			assertEquals("size of the image", matrix.getSize(), image.size());
+			SeparationMatrix read = SeparationMatrix.read(graph, ByteBuffer.wrap(image.toByteArray()));
+			for(int x = 0 ; x < graph.getVertexCount() ; x++){
+				assertEquals("row " + x + " of " + graph, matrix.getSeparated(x), read.getSeparated(x));
+			}
+		}
+	}
+}
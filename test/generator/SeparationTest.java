@@ -0,0 +1,100 @@
+package generator;
+
+import static test.Assert.assertEquals;
+
+import generator.graph.IndexedGraph;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the verdicts and connection graphs of every algorithm with the brute force oracle,
+ * for every pair of vertices of small random Bayesian and Markov networks.
+ */
+public class SeparationTest {
+
+	private static final int NETWORKS = 200;
+	private static final int MAX_VERTICES = 9;
+
+	public void testVerdictsOnBayesianNetworks(){
+		checkVerdicts(true, Algorithm.PATHS, Algorithm.PARALLEL_PATHS, Algorithm.REACHABILITY, Algorithm.MORAL_GRAPH);
+	}
+
+	public void testVerdictsOnMarkovNetworks(){
+		checkVerdicts(false, Algorithm.values());
+	}
+
+	private static void checkVerdicts(boolean directed, Algorithm... algorithms){
+		Random random = new Random(directed ? 1 : 2);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, directed, MAX_VERTICES);
+			List<String> evidence = DSeparationOracle.randomEvidence(random, graph);
+			DSeparationOracle oracle = new DSeparationOracle(graph, evidence);
+			EvidenceContext context = new EvidenceContext(graph, evidence);
+			for(Algorithm algorithm: algorithms){
+				SeparationEngine engine = algorithm.createEngine(graph);
+				for(int x = 0 ; x < graph.getVertexCount() ; x++){
+					for(int y = 0 ; y < graph.getVertexCount() ; y++){
+						if(x == y) continue;
+						assertEquals(algorithm + " on " + describe(graph, evidence, x, y),
+								oracle.isSeparated(x, y), engine.isSeparated(context, x, y));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * REACHABILITY, MORAL_GRAPH and COMPONENTS remove exactly the edges between x and y on no simple active trail.
+	 */
+	public void testConnectionGraphsKeepEdgesOnSimpleActiveTrails(){
+		Random random = new Random(3);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			boolean directed = network % 3 != 0;
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, directed, MAX_VERTICES);
+			List<String> evidence = DSeparationOracle.randomEvidence(random, graph);
+			DSeparationOracle oracle = new DSeparationOracle(graph, evidence);
+			EvidenceContext context = new EvidenceContext(graph, evidence);
+			Algorithm[] algorithms = directed ? new Algorithm[]{Algorithm.REACHABILITY, Algorithm.MORAL_GRAPH}
+					: new Algorithm[]{Algorithm.REACHABILITY, Algorithm.MORAL_GRAPH, Algorithm.COMPONENTS};
+			for(Algorithm algorithm: algorithms){
+				SeparationEngine engine = algorithm.createEngine(graph);
+				for(int x = 0 ; x < graph.getVertexCount() ; x++){
+					for(int y = 0 ; y < graph.getVertexCount() ; y++){
+						if(x == y) continue;
+						assertEquals(algorithm + " on " + describe(graph, evidence, x, y),
+								oracle.removedEdges(x, y), engine.removedEdges(context, x, y));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * PATHS and PARALLEL_PATHS remove both edges of every blocked triple on a simple trail between x and y.
+	 */
+	public void testPathsRemoveBothEdgesOfBlockedTriples(){
+		Random random = new Random(4);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, network % 3 != 0, MAX_VERTICES);
+			List<String> evidence = DSeparationOracle.randomEvidence(random, graph);
+			DSeparationOracle oracle = new DSeparationOracle(graph, evidence);
+			EvidenceContext context = new EvidenceContext(graph, evidence);
+			for(Algorithm algorithm: new Algorithm[]{Algorithm.PATHS, Algorithm.PARALLEL_PATHS}){
+				SeparationEngine engine = algorithm.createEngine(graph);
+				for(int x = 0 ; x < graph.getVertexCount() ; x++){
+					for(int y = 0 ; y < graph.getVertexCount() ; y++){
+						if(x == y) continue;
+						BitSet removed = engine.removedEdges(context, x, y);
+						assertEquals(algorithm + " on " + describe(graph, evidence, x, y), oracle.blockedTripleEdges(x, y), removed);
+					}
+				}
+			}
+		}
+	}
+
+	static String describe(IndexedGraph graph, List<String> evidence, int x, int y){
+		return graph + " x=" + graph.getName(x) + " y=" + graph.getName(y) + " evidence=" + evidence;
+	}
+}
@@ -0,0 +1,99 @@
+package generator.graph;
+
+import static test.Assert.assertEquals;
+import static test.Assert.assertFalse;
+import static test.Assert.assertTrue;
+
+import generator.DSeparationOracle;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.BitSet;
+import java.util.Random;
+
+/**
+ * Compares the descendants and ancestors of an index of small random Bayesian networks, before and
+ * after its bitsets are built and after writing and reading it, with those found by brute force.
+ */
+public class GraphIndexTest {
+
+	private static final int NETWORKS = 200;
+	private static final int MAX_VERTICES = 30;
+
+	/**
+	 * The bitsets are built by the first question about a single vertex, not by ancestorsOf, and
+	 * the answers are the same either way.
+	 */
+	public void testClosureIsBuiltLazily(){
+		Random random = new Random(15);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, true, MAX_VERTICES);
+			GraphIndex index = new GraphIndex(graph);
+			assertFalse("closure of a new index", index.hasClosure());
+			BitSet vertices = randomVertices(random, graph);
+			assertEquals("ancestors of " + vertices + " without closure", expectedAncestorsOf(graph, vertices), index.ancestorsOf(vertices));
+			assertFalse("closure after ancestorsOf", index.hasClosure());
+			check(graph, index);
+			assertTrue("closure after isDescendant", index.hasClosure());
+			assertEquals("ancestors of " + vertices + " with closure", expectedAncestorsOf(graph, vertices), index.ancestorsOf(vertices));
+		}
+	}
+
+	public void testWriteAndRead() throws IOException {
+		Random random = new Random(16);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, true, MAX_VERTICES);
+			GraphIndex index = new GraphIndex(graph);
+			if(network % 2 == 0) index.isDescendant(0, 1);
+			ByteArrayOutputStream image = new ByteArrayOutputStream();
+			index.write(Channels.newChannel(image));
+			GraphIndex read = GraphIndex.read(graph, ByteBuffer.wrap(image.toByteArray()));
+			assertEquals("closure of network " + network + " after reading", index.hasClosure(), read.hasClosure());
+			check(graph, read);
+		}
+	}
+
+	private static void check(IndexedGraph graph, GraphIndex index){
+		int n = graph.getVertexCount();
+		for(int v = 0 ; v < n ; v++){
+			BitSet descendants = reachable(graph, v, true), ancestors = reachable(graph, v, false);
+			for(int w = 0 ; w < n ; w++) assertEquals("descendant " + w + " of " + v, descendants.get(w), index.isDescendant(v, w));
+			assertEquals("descendants of " + v, descendants, index.getDescendants(v));
+			assertEquals("ancestors of " + v, ancestors, index.getAncestors(v));
+			assertEquals("descendant of " + v + " in its ancestors", descendants.intersects(ancestors), index.hasDescendantIn(v, ancestors));
+		}
+	}
+
+	private static BitSet expectedAncestorsOf(IndexedGraph graph, BitSet vertices){
+		BitSet result = (BitSet) vertices.clone();
+		for(int v = vertices.nextSetBit(0) ; v >= 0 ; v = vertices.nextSetBit(v + 1)) result.or(reachable(graph, v, false));
+		return result;
+	}
+
+	/**
+	 * Return the vertices reached from the given vertex along directed paths of at least one edge,
+	 * following the edges forward or backward, by relaxing every edge until nothing changes.
+	 */
+	private static BitSet reachable(IndexedGraph graph, int vertex, boolean forward){
+		BitSet result = new BitSet(graph.getVertexCount());
+		for(boolean changed = true ; changed ; ){
+			changed = false;
+			for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+				int from = forward ? graph.getSource(e) : graph.getTarget(e), to = forward ? graph.getTarget(e) : graph.getSource(e);
+				if((from == vertex || result.get(from)) && !result.get(to)){
+					result.set(to);
+					changed = true;
+				}
+			}
+		}
+		return result;
+	}
+
+	private static BitSet randomVertices(Random random, IndexedGraph graph){
+		BitSet vertices = new BitSet(graph.getVertexCount());
+		for(int k = random.nextInt(4) ; k > 0 ; k--) vertices.set(random.nextInt(graph.getVertexCount()));
+		return vertices;
+	}
+}
@@ -0,0 +1,182 @@
+package io;
+
+import static test.Assert.assertEquals;
+
+import generator.GraphInput;
+import generator.GraphType;
+import generator.Query;
+import generator.graph.IndexedGraph;
+import io.parser.file.cggb.CggbConverter;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Writes random networks with their queries in every file format, parses them back through the
+ * file input handler and compares the result with the written network.
+ *
+ * XMLBIF only holds Bayesian networks, and XMLBIF and GraphML hold no queries section.
+ */
+public class RoundTripTest {
+
+	private static final int NETWORKS = 50;
+	private static final int MAX_VERTICES = 30;
+	private static final int MAX_QUERIES = 4;
+
+	public void testCgg() throws IOException {
+		check(".cgg", true, true);
+	}
+
+	public void testCggb() throws IOException {
+		check(".cggb", true, true);
+	}
+
+	public void testXmlBif() throws IOException {
+		check(".xmlbif", false, false);
+	}
+
+	public void testGraphMl() throws IOException {
+		check(".graphml", true, false);
+	}
+
+	private static void check(String extension, boolean markov, boolean queries) throws IOException {
+		Random random = new Random(extension.hashCode());
+		for(int network = 0 ; network < NETWORKS ; network++){
+			GraphInput input = randomInput(random, !markov || network % 2 == 0, queries);
+			File file = File.createTempFile("roundtrip", extension);
+			try {
+				write(input, file, extension);
+				GraphInput read = new FileInputHandler(file.getPath()).constructGraph();
+				String name = extension + " network " + network;
+				assertEquals("type of " + name, input.getGraphType(), read.getGraphType());
+				assertEquals("vertices of " + name, input.getNetwork().getNames(), read.getNetwork().getNames());
+				assertEquals("edges of " + name, edges(input.getNetwork()), edges(read.getNetwork()));
+				assertEquals("x of " + name, input.getX(), read.getX());
+				assertEquals("y of " + name, input.getY(), read.getY());
+				assertEquals("evidence of " + name, input.getEvidence(), read.getEvidence());
+				if(queries) assertEquals("queries of " + name, input.getQueries(), read.getQueries());
+			} finally {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Return the edges of the given graph as source and target names, in either order in a Markov network.
+	 */
+	private static Set<List<String>> edges(IndexedGraph graph){
+		Set<List<String>> edges = new HashSet<List<String>>();
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			List<String> edge = new ArrayList<String>();
+			edge.add(graph.getName(graph.getSource(e)));
+			edge.add(graph.getName(graph.getTarget(e)));
+			if(!graph.isDirected() && edge.get(0).compareTo(edge.get(1)) > 0) edge.add(edge.remove(0));
+			edges.add(edge);
+		}
+		assertEquals("number of edges", graph.getEdgeCount(), edges.size());
+		return edges;
+	}
+
+	private static GraphInput randomInput(Random random, boolean directed, boolean queries){
+		int n = 2 + random.nextInt(MAX_VERTICES - 1);
+		IndexedGraph.Builder builder = new IndexedGraph.Builder(directed);
+		for(int v = 0 ; v < n ; v++) builder.addVertex("v" + v + (random.nextBoolean() ? "_" + random.nextInt(100) : ""));
+		int edges = random.nextInt(2 * n);
+		for(int k = 0 ; k < edges ; k++){
+			int i = random.nextInt(n), j = random.nextInt(n);
+			if(i < j) builder.addEdge(i, j);
+		}
+		IndexedGraph graph = builder.build();
+		List<Query> extra = new ArrayList<Query>();
+		int count = queries ? random.nextInt(MAX_QUERIES + 1) : 0;
+		for(int k = 0 ; k < count ; k++) extra.add(randomQuery(random, graph));
+		Query query = randomQuery(random, graph);
+		String type = directed ? GraphType.BAYESIAN.getType() : GraphType.MARKOV.getType();
+		return new GraphInput(graph, type, query.getX(), query.getY(), query.getEvidence(), extra);
+	}
+
+	private static Query randomQuery(Random random, IndexedGraph graph){
+		int n = graph.getVertexCount();
+		int x = random.nextInt(n);
+		int y = (x + 1 + random.nextInt(n - 1)) % n;
+		List<String> evidence = new ArrayList<String>();
+		for(int k = random.nextInt(4) ; k > 0 ; k--){
+			String name = graph.getName(random.nextInt(n));
+			if(!evidence.contains(name)) evidence.add(name);
+		}
+		return new Query(graph.getName(x), graph.getName(y), evidence);
+	}
+
+	private static void write(GraphInput input, File file, String extension) throws IOException {
+		if(extension.equals(".cggb")){
+			CggbConverter.write(input, file.getPath());
+			return;
+		}
+		try (Writer writer = new FileWriter(file)) {
+			if(extension.equals(".cgg")) writeCgg(input, writer);
+			else if(extension.equals(".xmlbif")) writeXmlBif(input, writer);
+			else writeGraphMl(input, writer);
+		}
+	}
+
+	private static void writeCgg(GraphInput input, Writer writer) throws IOException {
+		IndexedGraph graph = input.getNetwork();
+		writer.write("type: " + input.getGraphType().getType() + "\n\nvertices:\n");
+		for(String name: graph.getNames()) writer.write("  - name: \"" + name + "\"\n");
+		writer.write("\nedges:\n");
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			writer.write("  - v1: \"" + graph.getName(graph.getSource(e)) + "\"\n");
+			writer.write("    v2: \"" + graph.getName(graph.getTarget(e)) + "\"\n");
+		}
+		writer.write("\nx: \"" + input.getX() + "\"\ny: \"" + input.getY() + "\"\n\nevidence:\n");
+		for(String name: input.getEvidence()) writer.write("  - name: \"" + name + "\"\n");
+		if(input.getQueries().isEmpty()) return;
+		writer.write("\nqueries:\n");
+		for(Query query: input.getQueries()){
+			writer.write("  - x: \"" + query.getX() + "\"\n    y: \"" + query.getY() + "\"\n    evidence: [");
+			for(int i = 0 ; i < query.getEvidence().size() ; i++){
+				writer.write((i > 0 ? ", \"" : "\"") + query.getEvidence().get(i) + "\"");
+			}
+			writer.write("]\n");
+		}
+	}
+
+	private static void writeXmlBif(GraphInput input, Writer writer) throws IOException {
+		IndexedGraph graph = input.getNetwork();
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<BIF VERSION=\"0.3\">\n<NETWORK>\n\t<NAME>roundtrip</NAME>\n");
+		writer.write("\t<PROPERTY>x = " + input.getX() + "</PROPERTY>\n\t<PROPERTY>y = " + input.getY() + "</PROPERTY>\n");
+		if(!input.getEvidence().isEmpty()) writer.write("\t<PROPERTY>evidence = " + String.join(", ", input.getEvidence()) + "</PROPERTY>\n");
+		for(String name: graph.getNames()){
+			writer.write("\t<VARIABLE TYPE=\"nature\">\n\t\t<NAME>" + name + "</NAME>\n\t\t<OUTCOME>true</OUTCOME>\n\t\t<OUTCOME>false</OUTCOME>\n\t</VARIABLE>\n");
+		}
+		for(int v = 0 ; v < graph.getVertexCount() ; v++){
+			writer.write("\t<DEFINITION>\n\t\t<FOR>" + graph.getName(v) + "</FOR>\n");
+			for(int i = graph.inBegin(v) ; i < graph.inEnd(v) ; i++) writer.write("\t\t<GIVEN>" + graph.getName(graph.inVertex(i)) + "</GIVEN>\n");
+			writer.write("\t\t<TABLE>0.5 0.5</TABLE>\n\t</DEFINITION>\n");
+		}
+		writer.write("</NETWORK>\n</BIF>\n");
+	}
+
+	private static void writeGraphMl(GraphInput input, Writer writer) throws IOException {
+		IndexedGraph graph = input.getNetwork();
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n");
+		for(String key: new String[]{"x", "y", "evidence"}){
+			writer.write("\t<key id=\"" + key + "\" for=\"graph\" attr.name=\"" + key + "\" attr.type=\"string\"/>\n");
+		}
+		writer.write("\t<graph id=\"roundtrip\" edgedefault=\"" + (graph.isDirected() ? "directed" : "undirected") + "\">\n");
+		writer.write("\t\t<data key=\"x\">" + input.getX() + "</data>\n\t\t<data key=\"y\">" + input.getY() + "</data>\n");
+		if(!input.getEvidence().isEmpty()) writer.write("\t\t<data key=\"evidence\">" + String.join(",", input.getEvidence()) + "</data>\n");
+		for(String name: graph.getNames()) writer.write("\t\t<node id=\"" + name + "\"/>\n");
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			writer.write("\t\t<edge source=\"" + graph.getName(graph.getSource(e)) + "\" target=\"" + graph.getName(graph.getTarget(e)) + "\"/>\n");
+		}
+		writer.write("\t</graph>\n</graphml>\n");
+	}
+}
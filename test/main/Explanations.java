@@ -0,0 +1,90 @@
+package main;
+
+import static test.Assert.assertEquals;
+import static test.Assert.assertTrue;
+import static test.Assert.fail;
+
+import generator.DSeparationOracle;
+import generator.DSeparationOracle.Trail;
+import generator.graph.IndexedGraph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Checks the active trails written as a JSON line against the brute force oracle.
+ */
+final class Explanations {
+
+	private static final Pattern TRAIL = Pattern.compile("\\{\"vertices\": \\[([^\\]]*)\\], \"edges\": \\[((?:\\[[^\\]]*\\](?:, )?)*)\\]");
+	private static final Pattern NAME = Pattern.compile("\"([^\"]*)\"");
+
+	private Explanations(){
+	}
+
+	/**
+	 * Check that the given line holds at most k distinct simple active trails from x to y given the
+	 * evidence, as many as there are up to k, in order of non-decreasing length, and the verdict.
+	 */
+	static void check(String line, IndexedGraph graph, List<String> evidence, String x, String y, int k){
+		String query = x + " and " + y + " given " + evidence;
+		DSeparationOracle oracle = new DSeparationOracle(graph, evidence);
+		int source = graph.requireId(x), target = graph.requireId(y);
+		assertTrue("trails of " + query + " in " + line, line.contains("\"trails\": ["));
+		assertTrue("verdict of " + query + " in " + line, line.contains("\"separated\": " + oracle.isSeparated(source, target)));
+		List<Integer> lengths = oracle.activeTrailLengths(source, target);
+		Set<List<String>> seen = new HashSet<List<String>>();
+		int count = 0, previous = 0;
+		for(Matcher matcher = TRAIL.matcher(line) ; matcher.find() ; count++){
+			List<String> vertices = names(matcher.group(1));
+			String trail = "trail " + vertices + " of " + query;
+			assertTrue("repeated " + trail, seen.add(vertices));
+			assertTrue("length of " + trail + " is less than that of the trail before", vertices.size() >= previous);
+			previous = vertices.size();
+			assertTrue(trail + " does not run from x to y", vertices.get(0).equals(x) && vertices.get(vertices.size() - 1).equals(y));
+			assertTrue("inactive " + trail, oracle.isActive(toTrail(graph, vertices, names(matcher.group(2)), trail)));
+		}
+		assertEquals("number of trails of " + query, Math.min(k, lengths.size()), count);
+	}
+
+	/**
+	 * Return the given trail as a trail of the oracle, checking that it is simple and that every edge
+	 * joins the vertices before and after it.
+	 */
+	private static Trail toTrail(IndexedGraph graph, List<String> names, List<String> edgeNames, String trail){
+		assertEquals("number of edges of " + trail, names.size() - 1, edgeNames.size() / 2);
+		int[] vertices = new int[names.size()];
+		int[] edges = new int[names.size() - 1];
+		for(int i = 0 ; i < vertices.length ; i++){
+			vertices[i] = graph.requireId(names.get(i));
+			assertTrue("repeated vertex on " + trail, names.indexOf(names.get(i)) == i);
+			if(i == 0) continue;
+			String from = edgeNames.get(2 * i - 2), to = edgeNames.get(2 * i - 1);
+			boolean joins = from.equals(names.get(i - 1)) && to.equals(names.get(i)) || from.equals(names.get(i)) && to.equals(names.get(i - 1));
+			assertTrue("edge " + from + " " + to + " of " + trail + " does not join its vertices", joins);
+			edges[i - 1] = edge(graph, graph.requireId(from), graph.requireId(to), trail);
+		}
+		return new Trail(vertices, edges);
+	}
+
+	private static int edge(IndexedGraph graph, int source, int target, String trail){
+		for(int e = 0 ; e < graph.getEdgeCount() ; e++){
+			if(graph.getSource(e) == source && graph.getTarget(e) == target) return e;
+		}
+		fail("edge " + graph.getName(source) + " " + graph.getName(target) + " of " + trail + " is not in the network");
+		return -1;
+	}
+
+	/**
+	 * Return the quoted names in the given text, in order, so every edge gives its source and then its target.
+	 */
+	private static List<String> names(String text){
+		List<String> names = new ArrayList<String>();
+		for(Matcher name = NAME.matcher(text) ; name.find() ; ) names.add(name.group(1));
+		return names;
+	}
+}
@@ -0,0 +1,83 @@
+package main;
+
+import static test.Assert.assertEquals;
+
+import generator.DSeparationOracle;
+import generator.GraphInput;
+import generator.Query;
+import generator.graph.IndexedGraph;
+import io.FileInputHandler;
+import io.writer.JsonLinesResultWriter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Explains queries headless, through a runner on small random networks and through the --explain
+ * flag on the example files, and checks the trails written with the brute force oracle.
+ */
+public class HeadlessRunnerTest {
+
+	private static final int NETWORKS = 100;
+	private static final int MAX_VERTICES = 9;
+	private static final int MAX_TRAILS = 5;
+	private static final int TRAILS = 3;
+	private static final int EXAMPLES = 9;
+
+	public void testExplain() throws IOException {
+		Random random = new Random(12);
+		for(int network = 0 ; network < NETWORKS ; network++){
+			IndexedGraph graph = DSeparationOracle.randomNetwork(random, network % 3 != 0, MAX_VERTICES);
+			List<String> evidence = DSeparationOracle.randomEvidence(random, graph);
+			int k = 1 + random.nextInt(MAX_TRAILS);
+			GraphInput input = new GraphInput(graph, network % 3 != 0 ? "Bayesian" : "Markov", null, null, evidence);
+			StringBuilder queries = new StringBuilder();
+			List<Query> asked = new ArrayList<Query>();
+			for(int x = 0 ; x < graph.getVertexCount() ; x++){
+				for(int y = 0 ; y < graph.getVertexCount() ; y++){
+					if(x == y) continue;
+					queries.append(graph.getName(x) + " " + graph.getName(y) + " " + String.join(" ", evidence) + "\n");
+					asked.add(new Query(graph.getName(x), graph.getName(y), evidence));
+				}
+			}
+			StringWriter out = new StringWriter();
+			new HeadlessRunner(input, k, new JsonLinesResultWriter(graph, out)).answerAll(new BufferedReader(new StringReader(queries.toString())));
+			check(out.toString(), graph, asked, k);
+		}
+	}
+
+	public void testExplainFlag() throws IOException {
+		for(int example = 1 ; example <= EXAMPLES ; example++){
+			String file = "resources/files/example" + example + ".cgg";
+			GraphInput input = new FileInputHandler(file).constructGraph();
+			List<Query> asked = new ArrayList<Query>();
+			if(input.getX() != null && input.getY() != null) asked.add(input.getQuery());
+			asked.addAll(input.getQueries());
+			File output = File.createTempFile("explain", ".jsonl");
+			try {
+				Main.main(new String[]{file, "--headless", "--explain=" + TRAILS, "--out=" + output.getPath()});
+				check(new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8), input.getNetwork(), asked, TRAILS);
+			} finally {
+				output.delete();
+			}
+		}
+	}
+
+	private static void check(String output, IndexedGraph graph, List<Query> asked, int k){
+		List<String> lines = output.isEmpty() ? new ArrayList<String>() : Arrays.asList(output.split("\n"));
+		assertEquals("number of answers", asked.size(), lines.size());
+		for(int i = 0 ; i < lines.size() ; i++){
+			Query query = asked.get(i);
+			Explanations.check(lines.get(i), graph, query.getEvidence(), query.getX(), query.getY(), k);
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package main;
+
+import static test.Assert.assertEquals;
+import static test.Assert.assertTrue;
+
+import generator.graph.IndexedGraph;
+import io.FileInputHandler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Sends requests to a query server on a free port and compares the answers to OBSERVE and UNOBSERVE
+ * requests with those to GRAPH requests with the same evidence, and the trails answering EXPLAIN
+ * requests with the brute force oracle.
+ */
+public class QueryServerTest {
+
+	private static final String FILE = "resources/files/example9.cgg";
+	private static final int CHANGES = 200;
+	private static final int EXPLANATIONS = 200;
+	private static final int MAX_TRAILS = 5;
+
+	public void testObserveMatchesGraph() throws IOException {
+		for(String algorithm: new String[]{"Reachability", "Paths"}){
+			try (QueryServer server = new QueryServer(0)) {
+				server.start();
+				try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+						BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+						Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+					request(out, in, "LOAD example " + FILE + " " + algorithm);
+					Random random = new Random(10);
+					Map<String, TreeSet<String>> evidence = new HashMap<String, TreeSet<String>>();
+					for(int change = 0 ; change < CHANGES ; change++){
+						String pair = "v" + random.nextInt(2) + " v" + (5 + random.nextInt(3));
+						List<String> vertices = new ArrayList<String>();
+						for(int k = random.nextInt(3) ; k >= 0 ; k--) vertices.add("v" + random.nextInt(8));
+						boolean observe = random.nextBoolean();
+						TreeSet<String> expected = evidence.computeIfAbsent(pair, key -> new TreeSet<String>());
+						if(observe) expected.addAll(vertices);
+						else expected.removeAll(vertices);
+						String observed = request(out, in, (observe ? "OBSERVE" : "UNOBSERVE") + " example " + pair + " " + String.join(" ", vertices));
+						String graph = request(out, in, "GRAPH example " + pair + " " + String.join(" ", expected));
+						assertEquals(algorithm + " after " + (observe ? "observing " : "unobserving ") + vertices, graph, observed);
+					}
+					assertTrue("no error for an unknown vertex", request(out, in, "OBSERVE example v0 v5 nowhere").contains("\"error\""));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Every trail is a distinct simple active trail from x to y, in order of non-decreasing length,
+	 * whatever the algorithm the network was loaded with.
+	 */
+	public void testExplain() throws IOException {
+		IndexedGraph graph = new FileInputHandler(FILE).constructGraph().getNetwork();
+		try (QueryServer server = new QueryServer(0)) {
+			server.start();
+			try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+					BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+					Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+				request(out, in, "LOAD example " + FILE + " Paths");
+				Random random = new Random(11);
+				for(int i = 0 ; i < EXPLANATIONS ; i++){
+					String x = graph.getName(random.nextInt(graph.getVertexCount())), y = graph.getName(random.nextInt(graph.getVertexCount()));
+					if(x.equals(y)) continue;
+					List<String> evidence = new ArrayList<String>();
+					for(int k = random.nextInt(4) ; k > 0 ; k--) evidence.add(graph.getName(random.nextInt(graph.getVertexCount())));
+					int k = 1 + random.nextInt(MAX_TRAILS);
+					String answer = request(out, in, "EXPLAIN example " + x + " " + y + " " + String.join(" ", evidence) + " " + k);
+					Explanations.check(answer, graph, evidence, x, y, k);
+				}
+				assertTrue("no error without a number of trails", request(out, in, "EXPLAIN example v0 v5").contains("\"error\""));
+				assertTrue("no error for no trails", request(out, in, "EXPLAIN example v0 v5 0").contains("\"error\""));
+			}
+		}
+	}
+
+	private static String request(Writer out, BufferedReader in, String request) throws IOException {
+		out.write(request + "\n");
+		out.flush();
+		return in.readLine();
+	}
+}
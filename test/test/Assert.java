@@ -0,0 +1,31 @@
+package test;
+
+/**
+ * The assertions of the tests, throwing an AssertionError with the given message when they fail.
+ */
+public final class Assert {
+
+	private Assert(){}
+
+	public static void fail(String message){
+		throw new AssertionError(message);
+	}
+
+	public static void assertTrue(String message, boolean condition){
+		if(!condition) fail(message);
+	}
+
+	public static void assertFalse(String message, boolean condition){
+		if(condition) fail(message);
+	}
+
+	public static void assertEquals(String message, Object expected, Object actual){
+		if(expected == null ? actual != null : !expected.equals(actual)){
+			fail(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	public static void assertEquals(String message, long expected, long actual){
+		if(expected != actual) fail(message + ": expected " + expected + " but was " + actual);
+	}
+}
@@ -0,0 +1,69 @@
+package test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs the tests and reports the failures. A test is a public method without parameters whose name
+ * starts with "test", run on a new instance of its class. The methods of a class run in the order
+ * of their names, so a run does not depend on the order in which the JVM lists them.
+ *
+ * Usage: TestRunner [class...], running every test class when none is given.
+ * The exit status is 1 when a test failed.
+ */
+public class TestRunner {
+
+	private static final String[] TEST_CLASSES = {
+		"generator.graph.GraphIndexTest",
+		"generator.SeparationTest",
+		"generator.SeparationMatrixTest",
+		"generator.IncrementalConnectionGraphTest",
+		"generator.ActiveTrailSearchTest",
+		"generator.ConcurrentQueryRunnerTest",
+		"generator.QueryCacheTest",
+		"generator.ExampleTest",
+		"main.HeadlessRunnerTest",
+		"main.QueryServerTest",
+		"io.RoundTripTest"
+	};
+
+	public static void main(String[] args) throws ReflectiveOperationException {
+		List<String> names = Arrays.asList(args.length == 0 ? TEST_CLASSES : args);
+		int run = 0;
+		List<String> failures = new ArrayList<String>();
+		for(String name: names){
+			Class<?> testClass = Class.forName(name);
+			Method[] methods = testClass.getMethods();
+			Arrays.sort(methods, Comparator.comparing(Method::getName));
+			for(Method method: methods){
+				if(!isTest(method)) continue;
+				run++;
+				String test = testClass.getName() + "." + method.getName();
+				long start = System.nanoTime();
+				try {
+					method.invoke(testClass.getConstructor().newInstance());
+					System.out.printf("%-70s %6d ms%n", test, (System.nanoTime() - start) / 1000000);
+				} catch (InvocationTargetException e) {
+					Throwable cause = e.getCause();
+					System.out.printf("%-70s FAILED%n", test);
+					if(cause instanceof AssertionError) System.out.println("\t" + cause.getMessage());
+					else cause.printStackTrace(System.out);
+					failures.add(test);
+				}
+			}
+		}
+		System.out.println(run + " tests, " + failures.size() + " failures");
+		for(String failure: failures) System.out.println("\t" + failure);
+		if(!failures.isEmpty()) System.exit(1);
+	}
+
+	private static boolean isTest(Method method){
+		return method.getName().startsWith("test") && method.getParameterCount() == 0
+				&& !Modifier.isStatic(method.getModifiers());
+	}
+}